@@ -0,0 +1,191 @@
+package com.pinmi.react.printer;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.soloader.SoLoader;
+import com.pinmi.react.printer.adapter.EscPosBuilder;
+import com.pinmi.react.printer.adapter.Histogram;
+import com.pinmi.react.printer.adapter.NetPrinterAdapter;
+import com.pinmi.react.printer.adapter.NetPrinterDeviceId;
+import com.pinmi.react.printer.adapter.RawPayload;
+import com.pinmi.react.printer.emulator.EscPosEmulator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Load driver: pushes concurrent jobs through {@link NetPrinterAdapter} into
+ * an {@link EscPosEmulator} on loopback port 9100 and reports jobs per
+ * second, latency percentiles and bytes on the wire. Tune it with
+ * instrumentation arguments:
+ *
+ * <pre>
+ * ./gradlew connectedAndroidTest \
+ *     -Pandroid.testInstrumentationRunnerArguments.threads=16 \
+ *     -Pandroid.testInstrumentationRunnerArguments.bytesPerSecond=20000
+ * </pre>
+ *
+ * {@code threads} (8), {@code jobs} per thread (50), {@code lines} per
+ * receipt (40), {@code bytesPerSecond} (0, unlimited) and {@code bufferSize}
+ * (4096). Results go to logcat under {@value #LOG_TAG} and to the
+ * instrumentation status.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NetPrinterLoadTest {
+
+    private static final String LOG_TAG = "RNPrinterLoad";
+    private static final long JOB_TIMEOUT_MS = 60000;
+
+    private EscPosEmulator emulator;
+    private final NetPrinterAdapter adapter = NetPrinterAdapter.getInstance();
+
+    private static int argument(String name, int defaultValue) {
+        String value = InstrumentationRegistry.getArguments().getString(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        SoLoader.init(InstrumentationRegistry.getInstrumentation().getTargetContext(), false);
+        EscPosEmulator.Config config = new EscPosEmulator.Config();
+        config.bytesPerSecond = argument("bytesPerSecond", 0);
+        config.bufferSize = argument("bufferSize", 4096);
+        emulator = new EscPosEmulator(config);
+        emulator.start();
+
+        final CountDownLatch connected = new CountDownLatch(1);
+        final AtomicReference<String> error = new AtomicReference<>();
+        adapter.selectDevice(NetPrinterDeviceId.valueOf(emulator.getHost(), emulator.getPort()),
+                new PromiseImpl(new Callback() {
+                    @Override
+                    public void invoke(Object... args) {
+                        connected.countDown();
+                    }
+                }, new Callback() {
+                    @Override
+                    public void invoke(Object... args) {
+                        error.set(Arrays.toString(args));
+                        connected.countDown();
+                    }
+                }));
+        assertTrue(connected.await(10, TimeUnit.SECONDS));
+        assertNull(error.get());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        adapter.closeConnectionIfExists();
+        emulator.close();
+    }
+
+    private static byte[] receipt(int lines) {
+        StringBuilder text = new StringBuilder("<C><B>COFFEE CORNER</B></C>\n");
+        for (int i = 0; i < lines; i++) {
+            text.append("Flat white x").append(i % 3 + 1).append("              ").append(4.5 * (i % 3 + 1))
+                    .append('\n');
+        }
+        text.append("<B>TOTAL</B>                    123.45\n");
+        EscPosBuilder.TextOptions options = new EscPosBuilder.TextOptions();
+        options.cut = true;
+        RawPayload payload = new EscPosBuilder().build(text.toString(), options);
+        return Arrays.copyOfRange(payload.bytes, payload.offset, payload.offset + payload.length);
+    }
+
+    @Test
+    public void concurrentRawJobs() throws Exception {
+        final int threads = argument("threads", 8);
+        final int jobsPerThread = argument("jobs", 50);
+        final byte[] job = receipt(argument("lines", 40));
+        final Histogram latency = new Histogram();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < jobsPerThread; i++) {
+                        if (!printOne(job, latency)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(threads * jobsPerThread * JOB_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        long elapsedNanos = System.nanoTime() - start;
+
+        int jobs = threads * jobsPerThread;
+        long expectedBytes = (long) (jobs - failures.get()) * job.length;
+        assertTrue(emulator.awaitBytes(expectedBytes, JOB_TIMEOUT_MS));
+
+        Bundle results = new Bundle();
+        results.putInt("jobs", jobs);
+        results.putInt("failures", failures.get());
+        results.putDouble("jobs_per_second", jobs * 1e9 / elapsedNanos);
+        results.putDouble("p50_ms", latency.getPercentile(50) / 1000.0);
+        results.putDouble("p90_ms", latency.getPercentile(90) / 1000.0);
+        results.putDouble("p99_ms", latency.getPercentile(99) / 1000.0);
+        results.putDouble("max_ms", latency.getMax() / 1000.0);
+        results.putLong("bytes_on_wire", emulator.getBytesReceived());
+        results.putLong("cuts", emulator.getCommandCount("ESC i"));
+        Log.i(LOG_TAG, results.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        assertEquals(0, failures.get());
+        assertEquals(expectedBytes, emulator.getBytesReceived());
+        // jobs are written whole, so every cut belongs to exactly one receipt
+        assertEquals(jobs, emulator.getCommandCount("ESC i"));
+    }
+
+    /**
+     * Submits one job and waits for its promise; records the latency in microseconds.
+     */
+    private boolean printOne(byte[] job, Histogram latency) {
+        final CountDownLatch settled = new CountDownLatch(1);
+        final AtomicReference<Boolean> success = new AtomicReference<>(false);
+        long start = System.nanoTime();
+        adapter.printRawBytes(ByteBuffer.wrap(job), new PromiseImpl(new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                success.set(true);
+                settled.countDown();
+            }
+        }, new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                Log.w(LOG_TAG, "job failed: " + Arrays.toString(args));
+                settled.countDown();
+            }
+        }));
+        try {
+            if (!settled.await(JOB_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        latency.record((System.nanoTime() - start) / 1000);
+        return success.get();
+    }
+}
@@ -0,0 +1,133 @@
+package com.pinmi.react.printer;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.soloader.SoLoader;
+import com.pinmi.react.printer.adapter.NetPrinterAdapter;
+import com.pinmi.react.printer.adapter.NetPrinterDeviceId;
+import com.pinmi.react.printer.emulator.EscPosEmulator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a print session through {@link NetPrinterAdapter} into an
+ * {@link EscPosEmulator} on loopback port 9100 while other prints are made.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NetPrinterSessionTest {
+
+    private static final long TIMEOUT_MS = 10000;
+
+    private EscPosEmulator emulator;
+    private final NetPrinterAdapter adapter = NetPrinterAdapter.getInstance();
+
+    /**
+     * A promise the test can wait on.
+     */
+    private static class Settled {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String error;
+        final PromiseImpl promise = new PromiseImpl(new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                done.countDown();
+            }
+        }, new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                error = Arrays.toString(args);
+                done.countDown();
+            }
+        });
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            assertNull(error);
+        }
+    }
+
+    private static ReadableArray text(String text) {
+        return JavaOnlyArray.of(JavaOnlyMap.of("type", "text", "text", text));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        SoLoader.init(InstrumentationRegistry.getInstrumentation().getTargetContext(), false);
+        EscPosEmulator.Config config = new EscPosEmulator.Config();
+        config.recordBytes = true;
+        emulator = new EscPosEmulator(config);
+        emulator.start();
+        Settled connected = new Settled();
+        adapter.selectDevice(NetPrinterDeviceId.valueOf(emulator.getHost(), emulator.getPort()),
+                connected.promise);
+        connected.await();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        adapter.closeConnectionIfExists();
+        emulator.close();
+    }
+
+    /**
+     * @return what the emulator has read once it includes {@code text}; a
+     *         resolved promise only means the bytes left the socket.
+     */
+    private String received(String text) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        String received = new String(emulator.getReceived(), StandardCharsets.ISO_8859_1);
+        while (!received.contains(text) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            received = new String(emulator.getReceived(), StandardCharsets.ISO_8859_1);
+        }
+        return received;
+    }
+
+    @Test
+    public void textPrintedDuringASessionWaitsForItToClose() throws Exception {
+        Settled opened = new Settled();
+        adapter.openSession("order", null, opened.promise);
+        opened.await();
+        Settled first = new Settled();
+        adapter.appendSession("order", text("first\n"), first.promise);
+        first.await();
+
+        Settled between = new Settled();
+        adapter.printText("between\n", null, "text", between.promise);
+        // queued behind the session, not written into the middle of it
+        assertFalse(between.done.await(200, TimeUnit.MILLISECONDS));
+
+        // the session renders text while the text job waits; neither blocks the other
+        Settled second = new Settled();
+        adapter.appendSession("order", text("second\n"), second.promise);
+        second.await();
+        Settled closed = new Settled();
+        adapter.closeSession("order", closed.promise);
+        closed.await();
+        between.await();
+
+        String printed = received("between");
+        int firstAt = printed.indexOf("first");
+        int secondAt = printed.indexOf("second");
+        int betweenAt = printed.indexOf("between");
+        assertTrue(firstAt >= 0);
+        assertTrue(secondAt > firstAt);
+        assertTrue(betweenAt > secondAt);
+    }
+}
@@ -0,0 +1,104 @@
+package com.pinmi.react.printer.adapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the character encoding at the heart of {@link EscPosBuilder}: the
+ * {@link CodePages} lookup tables against a {@link CharsetEncoder} for the
+ * same page, UTF-8 for reference, and the per-character page search that
+ * {@code "AUTO"} does on mixed-script text. Each receipt is about 13 000
+ * characters.
+ * <p>
+ * {@code gradle -p raster-core jmh -PjmhIncludes=CodePageBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodePageBenchmark {
+
+    private String latin;
+    private String mixed;
+    private byte[] out;
+    private CodePages.Page cp437;
+    private CharsetEncoder ibm437;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder latin = new StringBuilder();
+        StringBuilder mixed = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            latin.append("Crème brûlée   x1     4.50 Ñandú\n");
+            mixed.append("Total €12.50 Итого ñ Σύνολο\n");
+        }
+        this.latin = latin.toString();
+        this.mixed = mixed.toString();
+        out = new byte[4 * this.latin.length()];
+        cp437 = CodePages.forEncoding("CP437");
+        ibm437 = Charset.forName("IBM437").newEncoder()
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Benchmark
+    public int cp437Table() {
+        CodePages.Page page = cp437;
+        String text = latin;
+        for (int i = 0; i < text.length(); i++) {
+            int b = page.encode(text.charAt(i));
+            out[i] = (byte) (b < 0 ? '?' : b);
+        }
+        return text.length();
+    }
+
+    @Benchmark
+    public int ibm437Encoder() {
+        ByteBuffer bytes = ByteBuffer.wrap(out);
+        ibm437.reset();
+        ibm437.encode(CharBuffer.wrap(latin), bytes, true);
+        return bytes.position();
+    }
+
+    @Benchmark
+    public byte[] utf8() {
+        return latin.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keeps the current page while it can print the character, as the
+     * builder does, and otherwise looks up the first page that can.
+     */
+    @Benchmark
+    public int autoMixedScripts() {
+        String text = mixed;
+        CodePages.Page page = CodePages.all().get(0);
+        int switches = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int b = page.encode(c);
+            if (b < 0) {
+                CodePages.Page other = CodePages.pageFor(c);
+                if (other != null) {
+                    page = other;
+                    switches++;
+                    b = page.encode(c);
+                }
+            }
+            out[i] = (byte) (b < 0 ? '?' : b);
+        }
+        return switches;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pinmi.react.printer.adapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of getting a job ready for a transport through Base64
+ * (as {@code printRawData} receives it from JS) with handing over a heap
+ * {@link ByteBuffer} ({@code printRawBytes}). The write itself is the same
+ * for both, so it is left out.
+ * <p>
+ * {@code gradle -p raster-core jmh -PjmhIncludes=RawPayloadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RawPayloadBenchmark {
+
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    private String base64;
+    private ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] job = new byte[size];
+        new Random(size).nextBytes(job);
+        base64 = Base64.getEncoder().encodeToString(job);
+        buffer = ByteBuffer.wrap(job);
+    }
+
+    @Benchmark
+    public RawPayload base64() {
+        return RawPayload.decodeBase64(base64);
+    }
+
+    @Benchmark
+    public RawPayload binary() {
+        return RawPayload.of(buffer);
+    }
+}
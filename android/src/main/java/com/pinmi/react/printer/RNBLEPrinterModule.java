@@ -5,9 +5,21 @@ import androidx.annotation.NonNull;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.pinmi.react.printer.adapter.EscPosBuilder;
+import com.pinmi.react.printer.adapter.EscPosTemplate;
 import com.pinmi.react.printer.adapter.BLEPrinterAdapter;
 import com.pinmi.react.printer.adapter.BLEPrinterDeviceId;
 import com.pinmi.react.printer.adapter.PrinterAdapter;
+import com.pinmi.react.printer.adapter.PrinterLog;
+import com.pinmi.react.printer.adapter.PrinterProfiles;
+import com.pinmi.react.printer.adapter.PrinterStatus;
+
+import org.json.JSONException;
+
+import java.nio.ByteBuffer;
 
 /**
  * TurboModule implementation for BLE thermal receipt printers.
@@ -53,8 +65,9 @@ public class RNBLEPrinterModule extends NativeBLEPrinterSpec implements RNPrinte
 
     @Override
     @ReactMethod
-    public void connectPrinter(String innerAddress, Promise promise) {
-        adapter.selectDevice(BLEPrinterDeviceId.valueOf(innerAddress), promise);
+    public void connectPrinter(String innerAddress, double timeoutMs, Promise promise) {
+        ((BLEPrinterAdapter) adapter).selectDevice(BLEPrinterDeviceId.valueOf(innerAddress), (long) timeoutMs,
+                promise);
     }
 
     @Override
@@ -65,14 +78,181 @@ public class RNBLEPrinterModule extends NativeBLEPrinterSpec implements RNPrinte
 
     @Override
     @ReactMethod
-    public void printImageData(String imageUrl, double imageWidth, Promise promise) {
-        adapter.printImageData(imageUrl, imageWidth, promise);
+    public void printText(String text, ReadableMap options, String jobId, Promise promise) {
+        adapter.printText(text, options, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void registerTemplate(String templateId, String template, ReadableMap options, Promise promise) {
+        try {
+            EscPosTemplate compiled = EscPosTemplate.compile(template, EscPosBuilder.TextOptions.fromReadableMap(options));
+            EscPosTemplate.register(templateId, compiled);
+            promise.resolve(compiled.toRNWritableMap(templateId));
+        } catch (IllegalArgumentException e) {
+            promise.reject("ERR_TEMPLATE", e.getMessage());
+        }
+    }
+
+    @Override
+    @ReactMethod
+    public void unregisterTemplate(String templateId) {
+        EscPosTemplate.unregister(templateId);
+    }
+
+    @Override
+    @ReactMethod
+    public void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise) {
+        adapter.printTemplate(templateId, values, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printFile(String uri, String jobId, Promise promise) {
+        adapter.printFile(uri, jobId, promise);
+    }
+
+    /**
+     * Binary counterpart of {@link #printRawData} for native callers; codegen
+     * has no ArrayBuffer type for Java modules, so it is not exposed to JS.
+     */
+    @Override
+    public void printRawBytes(ByteBuffer data, Promise promise) {
+        adapter.printRawBytes(data, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise) {
+        adapter.printImageData(imageUrl, imageWidth, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printQrCode(String qrCode, double qrSize, String jobId, Promise promise) {
+        adapter.printQrCode(qrCode, qrSize, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printReceipt(ReadableArray segments, String jobId, Promise promise) {
+        adapter.printReceipt(segments, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void openSession(String sessionId, ReadableMap options, Promise promise) {
+        adapter.openSession(sessionId, options, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        adapter.appendSession(sessionId, segments, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void closeSession(String sessionId, Promise promise) {
+        adapter.closeSession(sessionId, promise);
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean cancelJob(String jobId) {
+        return BLEPrinterAdapter.getInstance().cancelJob(jobId);
+    }
+
+    @Override
+    @ReactMethod
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        adapter.startStatusMonitor(mode, intervalMs, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void stopStatusMonitor() {
+        if (adapter != null) {
+            adapter.stopStatusMonitor();
+        }
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getStatus() {
+        PrinterStatus status = adapter != null ? adapter.getStatus() : PrinterStatus.UNKNOWN;
+        return status.toRNWritableMap();
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getThroughput() {
+        return BLEPrinterAdapter.getInstance().getThroughput();
+    }
+
+    @Override
+    @ReactMethod
+    public void setFlowControl(ReadableMap options) {
+        // the adapter is a singleton, so options set before init() still apply
+        BLEPrinterAdapter.getInstance().setFlowControl(options);
+    }
+
+    @Override
+    @ReactMethod
+    public void setTimeouts(ReadableMap options) {
+        BLEPrinterAdapter.getInstance().setTimeouts(options);
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getStats() {
+        return BLEPrinterAdapter.getInstance().getStats();
     }
 
     @Override
     @ReactMethod
-    public void printQrCode(String qrCode, double qrSize, Promise promise) {
-        adapter.printQrCode(qrCode, qrSize, promise);
+    public void registerProfiles(String profilesJson, Promise promise) {
+        // process-wide, shared by all printer types
+        try {
+            promise.resolve(PrinterProfiles.toRNWritableArray(PrinterProfiles.getInstance().register(profilesJson)));
+        } catch (JSONException e) {
+            promise.reject("ERR_PROFILE", e.getMessage());
+        }
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean setPrinterProfile(String printerId, String profileId) {
+        try {
+            PrinterProfiles.getInstance().assign(printerId, profileId);
+            return true;
+        } catch (IllegalArgumentException e) {
+            PrinterLog.w(PrinterLog.LOG_TAG, "{}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getPrinterProfile() {
+        return BLEPrinterAdapter.getInstance().getProfile();
+    }
+
+    @Override
+    @ReactMethod
+    public void setJobEvents(boolean enabled) {
+        BLEPrinterAdapter.getInstance().setJobEvents(enabled);
+    }
+
+    @Override
+    @ReactMethod
+    public void setLogLevel(String level) {
+        // process-wide, shared by all printer types
+        int priority = PrinterLog.levelOf(level);
+        if (priority < 0) {
+            PrinterLog.w(PrinterLog.LOG_TAG, "unknown log level {}", level);
+            return;
+        }
+        PrinterLog.setLevel(priority);
     }
 
     @Override
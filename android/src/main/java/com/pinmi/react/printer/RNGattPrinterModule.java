@@ -0,0 +1,263 @@
+package com.pinmi.react.printer;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.pinmi.react.printer.adapter.EscPosBuilder;
+import com.pinmi.react.printer.adapter.EscPosTemplate;
+import com.pinmi.react.printer.adapter.BLEPrinterDeviceId;
+import com.pinmi.react.printer.adapter.GattPrinterAdapter;
+import com.pinmi.react.printer.adapter.PrinterAdapter;
+import com.pinmi.react.printer.adapter.PrinterLog;
+import com.pinmi.react.printer.adapter.PrinterProfiles;
+import com.pinmi.react.printer.adapter.PrinterStatus;
+
+import org.json.JSONException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * TurboModule implementation for Bluetooth Low Energy (GATT) thermal receipt printers.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class RNGattPrinterModule extends NativeGattPrinterSpec implements RNPrinterModule {
+
+    public static final String NAME = "RNGattPrinter";
+
+    private PrinterAdapter adapter;
+
+    public RNGattPrinterModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    @ReactMethod
+    public void init(Promise promise) {
+        this.adapter = GattPrinterAdapter.getInstance();
+        this.adapter.init(getReactApplicationContext(), promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void closeConn() {
+        if (adapter != null) {
+            adapter.closeConnectionIfExists();
+        }
+    }
+
+    @Override
+    @ReactMethod
+    public void getDeviceList(Promise promise) {
+        adapter.getDeviceList(promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void connectPrinter(String innerAddress, ReadableMap options, Promise promise) {
+        ((GattPrinterAdapter) adapter).selectDevice(BLEPrinterDeviceId.valueOf(innerAddress), options, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printRawData(String base64Data, Promise promise) {
+        adapter.printRawData(base64Data, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printText(String text, ReadableMap options, String jobId, Promise promise) {
+        adapter.printText(text, options, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void registerTemplate(String templateId, String template, ReadableMap options, Promise promise) {
+        try {
+            EscPosTemplate compiled = EscPosTemplate.compile(template, EscPosBuilder.TextOptions.fromReadableMap(options));
+            EscPosTemplate.register(templateId, compiled);
+            promise.resolve(compiled.toRNWritableMap(templateId));
+        } catch (IllegalArgumentException e) {
+            promise.reject("ERR_TEMPLATE", e.getMessage());
+        }
+    }
+
+    @Override
+    @ReactMethod
+    public void unregisterTemplate(String templateId) {
+        EscPosTemplate.unregister(templateId);
+    }
+
+    @Override
+    @ReactMethod
+    public void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise) {
+        adapter.printTemplate(templateId, values, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printFile(String uri, String jobId, Promise promise) {
+        adapter.printFile(uri, jobId, promise);
+    }
+
+    /**
+     * Binary counterpart of {@link #printRawData} for native callers; codegen
+     * has no ArrayBuffer type for Java modules, so it is not exposed to JS.
+     */
+    @Override
+    public void printRawBytes(ByteBuffer data, Promise promise) {
+        adapter.printRawBytes(data, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise) {
+        adapter.printImageData(imageUrl, imageWidth, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printQrCode(String qrCode, double qrSize, String jobId, Promise promise) {
+        adapter.printQrCode(qrCode, qrSize, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void printReceipt(ReadableArray segments, String jobId, Promise promise) {
+        adapter.printReceipt(segments, jobId, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void openSession(String sessionId, ReadableMap options, Promise promise) {
+        adapter.openSession(sessionId, options, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        adapter.appendSession(sessionId, segments, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void closeSession(String sessionId, Promise promise) {
+        adapter.closeSession(sessionId, promise);
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean cancelJob(String jobId) {
+        return GattPrinterAdapter.getInstance().cancelJob(jobId);
+    }
+
+    @Override
+    @ReactMethod
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        adapter.startStatusMonitor(mode, intervalMs, promise);
+    }
+
+    @Override
+    @ReactMethod
+    public void stopStatusMonitor() {
+        if (adapter != null) {
+            adapter.stopStatusMonitor();
+        }
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getStatus() {
+        PrinterStatus status = adapter != null ? adapter.getStatus() : PrinterStatus.UNKNOWN;
+        return status.toRNWritableMap();
+    }
+
+    @Override
+    @ReactMethod
+    public void setFlowControl(ReadableMap options) {
+        // the adapter is a singleton, so options set before init() still apply
+        GattPrinterAdapter.getInstance().setFlowControl(options);
+    }
+
+    @Override
+    @ReactMethod
+    public void setTimeouts(ReadableMap options) {
+        GattPrinterAdapter.getInstance().setTimeouts(options);
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getStats() {
+        return GattPrinterAdapter.getInstance().getStats();
+    }
+
+    @Override
+    @ReactMethod
+    public void registerProfiles(String profilesJson, Promise promise) {
+        // process-wide, shared by all printer types
+        try {
+            promise.resolve(PrinterProfiles.toRNWritableArray(PrinterProfiles.getInstance().register(profilesJson)));
+        } catch (JSONException e) {
+            promise.reject("ERR_PROFILE", e.getMessage());
+        }
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean setPrinterProfile(String printerId, String profileId) {
+        try {
+            PrinterProfiles.getInstance().assign(printerId, profileId);
+            return true;
+        } catch (IllegalArgumentException e) {
+            PrinterLog.w(PrinterLog.LOG_TAG, "{}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getPrinterProfile() {
+        return GattPrinterAdapter.getInstance().getProfile();
+    }
+
+    @Override
+    @ReactMethod
+    public void setJobEvents(boolean enabled) {
+        GattPrinterAdapter.getInstance().setJobEvents(enabled);
+    }
+
+    @Override
+    @ReactMethod
+    public void setLogLevel(String level) {
+        // process-wide, shared by all printer types
+        int priority = PrinterLog.levelOf(level);
+        if (priority < 0) {
+            PrinterLog.w(PrinterLog.LOG_TAG, "unknown log level {}", level);
+            return;
+        }
+        PrinterLog.setLevel(priority);
+    }
+
+    @Override
+    @ReactMethod
+    public void addListener(String eventName) {
+        // Required for EventEmitter
+    }
+
+    @Override
+    @ReactMethod
+    public void removeListeners(double count) {
+        // Required for EventEmitter
+    }
+}
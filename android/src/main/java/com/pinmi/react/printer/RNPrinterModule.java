@@ -1,6 +1,11 @@
 package com.pinmi.react.printer;
 
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.nio.ByteBuffer;
 
 /**
  * Common contract for all printer modules in the New Architecture.
@@ -17,8 +22,52 @@ public interface RNPrinterModule {
 
     void printRawData(String base64Data, Promise promise);
 
-    void printImageData(String imageUrl, double imageWidth, Promise promise);
+    void printRawBytes(ByteBuffer data, Promise promise);
+
+    void printText(String text, ReadableMap options, String jobId, Promise promise);
+
+    void registerTemplate(String templateId, String template, ReadableMap options, Promise promise);
+
+    void unregisterTemplate(String templateId);
+
+    void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise);
+
+    void printFile(String uri, String jobId, Promise promise);
+
+    void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise);
+
+    void printQrCode(String qrCode, double qrSize, String jobId, Promise promise);
+
+    void printReceipt(ReadableArray segments, String jobId, Promise promise);
+
+    void openSession(String sessionId, ReadableMap options, Promise promise);
+
+    void appendSession(String sessionId, ReadableArray segments, Promise promise);
+
+    void closeSession(String sessionId, Promise promise);
+
+    boolean cancelJob(String jobId);
+
+    void startStatusMonitor(String mode, double intervalMs, Promise promise);
+
+    void stopStatusMonitor();
+
+    WritableMap getStatus();
+
+    void setFlowControl(ReadableMap options);
+
+    void setTimeouts(ReadableMap options);
+
+    WritableMap getStats();
+
+    void registerProfiles(String profilesJson, Promise promise);
+
+    boolean setPrinterProfile(String printerId, String profileId);
+
+    WritableMap getPrinterProfile();
+
+    void setJobEvents(boolean enabled);
 
-    void printQrCode(String qrCode, double qrSize, Promise promise);
+    void setLogLevel(String level);
 }
 
@@ -29,6 +29,8 @@ public class RNPrinterPackage extends TurboReactPackage {
                 return new RNBLEPrinterModule(reactContext);
             case RNNetPrinterModule.NAME:
                 return new RNNetPrinterModule(reactContext);
+            case RNGattPrinterModule.NAME:
+                return new RNGattPrinterModule(reactContext);
             default:
                 return null;
         }
@@ -51,6 +53,10 @@ public class RNPrinterPackage extends TurboReactPackage {
                     RNNetPrinterModule.NAME,
                     RNNetPrinterModule.class.getName(),
                     false, false, false, false, isTurboModule));
+            moduleInfos.put(RNGattPrinterModule.NAME, new ReactModuleInfo(
+                    RNGattPrinterModule.NAME,
+                    RNGattPrinterModule.class.getName(),
+                    false, false, false, false, isTurboModule));
             return moduleInfos;
         };
     }
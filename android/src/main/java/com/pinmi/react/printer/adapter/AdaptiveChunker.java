@@ -0,0 +1,73 @@
+package com.pinmi.react.printer.adapter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Splits writes to a Bluetooth RFCOMM stream into chunks whose size follows the
+ * measured link behaviour. A write that returns quickly means the stack still
+ * has room, so the chunk grows; a write that blocks means its send queue is
+ * full, so the chunk is halved. The smoothed per-chunk throughput is kept for
+ * reporting.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class AdaptiveChunker {
+
+    public static final int MIN_CHUNK_SIZE = 64;
+    public static final int MAX_CHUNK_SIZE = 8192;
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    // writes faster than this leave room to grow, twice this means the link is backing up
+    private static final long TARGET_LATENCY_NANOS = 20000000L;
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private int mChunkSize;
+    private double mBytesPerSecond = 0;
+
+    public AdaptiveChunker(int initialChunkSize) {
+        this.mChunkSize = clamp(initialChunkSize);
+    }
+
+    public synchronized int getChunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * @return smoothed throughput of recent chunk writes, 0 before the first one.
+     */
+    public synchronized double getBytesPerSecond() {
+        return mBytesPerSecond;
+    }
+
+    public void write(OutputStream out, byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int chunk = Math.min(getChunkSize(), end - offset);
+            long start = System.nanoTime();
+            out.write(buffer, offset, chunk);
+            out.flush();
+            onChunkWritten(chunk, System.nanoTime() - start);
+            offset += chunk;
+        }
+    }
+
+    synchronized void onChunkWritten(int bytes, long nanos) {
+        double sample = bytes * 1e9 / Math.max(nanos, 1);
+        double previous = mBytesPerSecond;
+        mBytesPerSecond = previous == 0 ? sample : previous + EWMA_WEIGHT * (sample - previous);
+        if (bytes < mChunkSize) {
+            // a job's short tail says nothing about the chunk size
+            return;
+        }
+        if (nanos > 2 * TARGET_LATENCY_NANOS) {
+            mChunkSize = clamp(mChunkSize / 2);
+        } else if (nanos < TARGET_LATENCY_NANOS && sample >= 0.9 * previous) {
+            mChunkSize = clamp(mChunkSize + mChunkSize / 4);
+        }
+    }
+
+    private static int clamp(int chunkSize) {
+        return Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+    }
+}
@@ -3,29 +3,30 @@ package com.pinmi.react.printer.adapter;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothSocket;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
-import android.util.Base64;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 
-import com.facebook.common.internal.ImmutableMap;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.facebook.react.bridge.WritableMap;
+import com.pinmi.react.printer.raster.BufferPool;
+
+import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -40,19 +41,35 @@ public class BLEPrinterAdapter implements PrinterAdapter {
 
     private String LOG_TAG = "RNBLEPrinter";
 
-    private BluetoothDevice mBluetoothDevice;
-    private BluetoothSocket mBluetoothSocket;
+    private static final UUID SPP_UUID = UUID.fromString("00001101-0000-1000-8000-00805f9b34fb");
+    private static final String CONNECT_SECURE = "secure";
+    private static final String CONNECT_INSECURE = "insecure";
+    private static final String CONNECT_CHANNEL = "channel";
+
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+    private static final long SETTLE_TIMEOUT_MS = 60000;
+
+    private volatile BluetoothDevice mBluetoothDevice;
+    private final ConnectionState<BluetoothSocket> mConnection = new ConnectionState<>();
+    private final Map<PrinterDeviceId, CircuitBreaker> mCircuitBreakers = new HashMap<>();
+    private ReconnectPolicy mReconnectPolicy = ReconnectPolicy.DEFAULT;
+    private final Object mWriteLock = new Object();
+    private final JobRunner mJobs;
+    private final Timeouts mTimeouts = new Timeouts();
+    private final Map<String, BluetoothDevice> mBondedDevices = new HashMap<>();
+    // socket type that last connected, per MAC address
+    private final Map<String, String> mConnectMethods = new HashMap<>();
+    // learned RFCOMM chunk size per MAC address, kept across connections
+    private final Map<String, Integer> mLearnedChunkSizes = new HashMap<>();
+    private volatile AdaptiveChunker mChunker = new AdaptiveChunker(AdaptiveChunker.DEFAULT_CHUNK_SIZE);
+    private KnownPrinterCache mKnownPrinters;
 
     private ReactApplicationContext mContext;
 
     private final static char ESC_CHAR = 0x1B;
-    private static byte[] SELECT_BIT_IMAGE_MODE = { 0x1B, 0x2A, 33 };
-    private final static byte[] SET_LINE_SPACE_24 = new byte[] { ESC_CHAR, 0x33, 24 };
-    private final static byte[] SET_LINE_SPACE_32 = new byte[] { ESC_CHAR, 0x33, 32 };
-    private final static byte[] LINE_FEED = new byte[] { 0x0A };
-    private static byte[] CENTER_ALIGN = { 0x1B, 0X61, 0X31 };
 
     private BLEPrinterAdapter() {
+        mJobs = new JobRunner(LOG_TAG, mWriteLock, mTransport, mStatusChannel);
     }
 
     public static BLEPrinterAdapter getInstance() {
@@ -65,6 +82,8 @@ public class BLEPrinterAdapter implements PrinterAdapter {
     @Override
     public void init(ReactApplicationContext reactContext, Promise promise) {
         this.mContext = reactContext;
+        mJobs.setContext(reactContext);
+        this.mKnownPrinters = new KnownPrinterCache(reactContext, "ble");
         BluetoothAdapter bluetoothAdapter = getBTAdapter();
         if (bluetoothAdapter == null) {
             promise.reject("ERR_BT_ADAPTER", "No bluetooth adapter available");
@@ -95,14 +114,29 @@ public class BLEPrinterAdapter implements PrinterAdapter {
         WritableArray array = Arguments.createArray();
         Set<BluetoothDevice> pairedDevices = getBTAdapter().getBondedDevices();
         for (BluetoothDevice device : pairedDevices) {
-            array.pushMap(new BLEPrinterDevice(device).toRNWritableMap());
+            WritableMap deviceMap = new BLEPrinterDevice(device).toRNWritableMap();
+            if (mKnownPrinters != null) {
+                mKnownPrinters.annotate(device.getAddress(), deviceMap);
+            }
+            array.pushMap(deviceMap);
         }
         promise.resolve(array);
     }
 
     @Override
     public void selectDevice(PrinterDeviceId printerDeviceId, Promise promise) {
-        BluetoothAdapter bluetoothAdapter = getBTAdapter();
+        selectDevice(printerDeviceId, 0, promise);
+    }
+
+    /**
+     * Connects on a background thread so a slow RFCOMM handshake never blocks
+     * the module. The resolved device map carries {@code connect_ms} and the
+     * {@code connect_method} that succeeded.
+     *
+     * @param timeoutMs 0 for the connect deadline from {@link #setTimeouts}
+     */
+    public void selectDevice(PrinterDeviceId printerDeviceId, final long timeoutMs, final Promise promise) {
+        final BluetoothAdapter bluetoothAdapter = getBTAdapter();
         if (bluetoothAdapter == null) {
             promise.reject("ERR_BT_ADAPTER", "No bluetooth adapter available");
             return;
@@ -112,282 +146,663 @@ public class BLEPrinterAdapter implements PrinterAdapter {
             return;
         }
         BLEPrinterDeviceId blePrinterDeviceId = (BLEPrinterDeviceId) printerDeviceId;
-        if (this.mBluetoothDevice != null) {
-            if (this.mBluetoothDevice.getAddress().equals(blePrinterDeviceId.getInnerMacAddress())
-                    && this.mBluetoothSocket != null) {
-                Log.v(LOG_TAG, "do not need to reconnect");
-                promise.resolve(new BLEPrinterDevice(this.mBluetoothDevice).toRNWritableMap());
-                return;
-            } else {
-                closeConnectionIfExists();
-            }
+        BluetoothDevice selected = this.mBluetoothDevice;
+        if (selected != null && selected.getAddress().equals(blePrinterDeviceId.getInnerMacAddress())
+                && mConnection.peek() != null) {
+            PrinterLog.v(LOG_TAG, "do not need to reconnect");
+            promise.resolve(new BLEPrinterDevice(selected).toRNWritableMap());
+            return;
         }
-        Set<BluetoothDevice> pairedDevices = getBTAdapter().getBondedDevices();
-        for (BluetoothDevice device : pairedDevices) {
-            if (device.getAddress().equals(blePrinterDeviceId.getInnerMacAddress())) {
+        final BluetoothDevice device = findBondedDevice(bluetoothAdapter, blePrinterDeviceId.getInnerMacAddress());
+        if (device == null) {
+            String errorText = "Can not find the specified printing device, please perform Bluetooth pairing in the system settings first.";
+            Toast.makeText(this.mContext, errorText, Toast.LENGTH_LONG).show();
+            promise.reject("ERR_NOT_FOUND", errorText);
+            return;
+        }
+        // taken last: from here on the connect thread records how the probe went
+        final CircuitBreaker breaker = getCircuitBreaker(blePrinterDeviceId);
+        if (!breaker.allowRequest()) {
+            promise.reject("ERR_CIRCUIT_OPEN", "printer " + blePrinterDeviceId.getInnerMacAddress()
+                    + " is unreachable, retry in " + breaker.getRetryAfterMillis() + "ms");
+            return;
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = SystemClock.elapsedRealtime();
+                BluetoothSocket socket;
                 try {
-                    connectBluetoothDevice(device);
-                    promise.resolve(new BLEPrinterDevice(this.mBluetoothDevice).toRNWritableMap());
+                    socket = connectBluetoothDevice(device,
+                            timeoutMs > 0 ? timeoutMs : mTimeouts.getMillis(Timeouts.Kind.CONNECT));
+                } catch (SecurityException e) {
+                    // BLUETOOTH_CONNECT not granted: says nothing about the printer
+                    breaker.releaseProbe();
+                    promise.reject("ERR_BT_PERMISSION", e.getMessage());
                     return;
                 } catch (IOException e) {
-                    e.printStackTrace();
-                    promise.reject("ERR_BT_CONNECT", e.getMessage());
+                    PrinterLog.w(LOG_TAG, "connect to {} failed: {}", device.getAddress(), e.getMessage());
+                    if (breaker.recordFailure()) {
+                        PrinterEventEmitter.emitStateChanged(mContext, new BLEPrinterDevice(device),
+                                PrinterEventEmitter.STATE_CIRCUIT_OPEN);
+                    }
+                    promise.reject(JobRunner.errorCode(e, "ERR_BT_CONNECT"), e.getMessage());
+                    return;
+                }
+                breaker.recordSuccess();
+                // like the Net adapter, the old link goes only once the new one is up
+                closeConnectionIfExists();
+                long ticket = mConnection.beginConnect();
+                if (!mConnection.connected(ticket, socket)) {
+                    // closeConn or another selectDevice came first
+                    closeQuietly(socket);
+                    promise.reject("ERR_BT_CONNECT", "another connect to the printer was started meanwhile");
                     return;
                 }
+                mBluetoothDevice = device;
+                BLEPrinterDevice printerDevice = new BLEPrinterDevice(device);
+                PrinterEventEmitter.emitStateChanged(mContext, printerDevice, PrinterEventEmitter.STATE_CONNECTED);
+                long connectMs = SystemClock.elapsedRealtime() - start;
+                WritableMap deviceMap = printerDevice.toRNWritableMap();
+                deviceMap.putDouble("connect_ms", connectMs);
+                deviceMap.putString("connect_method", getConnectMethod(device.getAddress()));
+                if (mKnownPrinters != null) {
+                    mKnownPrinters.markConnected(device.getAddress(), connectMs,
+                            "inner_mac_address", device.getAddress(), "device_name", device.getName(),
+                            "connect_method", getConnectMethod(device.getAddress()));
+                    deviceMap.putDouble("last_seen", System.currentTimeMillis());
+                }
+                promise.resolve(deviceMap);
+            }
+        }, "RNBLEPrinterConnect").start();
+    }
+
+    /**
+     * Looks the MAC address up in a cache of bonded devices, refreshing it from
+     * the adapter only on a miss.
+     */
+    private BluetoothDevice findBondedDevice(BluetoothAdapter bluetoothAdapter, String address) {
+        synchronized (mBondedDevices) {
+            BluetoothDevice device = mBondedDevices.get(address);
+            if (device != null && device.getBondState() == BluetoothDevice.BOND_BONDED) {
+                return device;
             }
+            mBondedDevices.clear();
+            for (BluetoothDevice bonded : bluetoothAdapter.getBondedDevices()) {
+                mBondedDevices.put(bonded.getAddress(), bonded);
+            }
+            return mBondedDevices.get(address);
         }
-        String errorText = "Can not find the specified printing device, please perform Bluetooth pairing in the system settings first.";
-        Toast.makeText(this.mContext, errorText, Toast.LENGTH_LONG).show();
-        promise.reject("ERR_NOT_FOUND", errorText);
     }
 
-    private void connectBluetoothDevice(BluetoothDevice device) throws IOException {
-        UUID uuid = UUID.fromString("00001101-0000-1000-8000-00805f9b34fb");
-        this.mBluetoothSocket = device.createRfcommSocketToServiceRecord(uuid);
-        this.mBluetoothSocket.connect();
-        this.mBluetoothDevice = device;
+    private String getConnectMethod(String address) {
+        synchronized (mConnectMethods) {
+            String method = mConnectMethods.get(address);
+            if (method == null && mKnownPrinters != null) {
+                JSONObject known = mKnownPrinters.get(address);
+                method = known != null ? known.optString("connect_method", null) : null;
+            }
+            return method != null ? method : CONNECT_SECURE;
+        }
     }
 
-    @Override
-    public void closeConnectionIfExists() {
+    /**
+     * Opens the RFCOMM link within {@code timeoutMs}. Discovery is cancelled first
+     * because it starves connects of radio time. The secure SPP socket is tried,
+     * then the insecure one, then the hidden channel-1 socket that many cheap
+     * printers need; the method that worked is cached per MAC address and tried
+     * first next time. Every attempt goes into {@code connect_ms}.
+     *
+     * @param timeoutMs 0 to wait as long as the Bluetooth stack does
+     */
+    private BluetoothSocket connectBluetoothDevice(BluetoothDevice device, long timeoutMs) throws IOException {
+        long start = System.nanoTime();
         try {
-            if (this.mBluetoothSocket != null) {
-                this.mBluetoothSocket.close();
-                this.mBluetoothSocket = null;
-            }
+            BluetoothSocket socket = connectAnySocket(device, timeoutMs);
+            mJobs.getMetrics().recordConnect(device.getAddress(), (System.nanoTime() - start) / 1000, false);
+            return socket;
         } catch (IOException e) {
-            e.printStackTrace();
+            mJobs.getMetrics().recordConnect(device.getAddress(), (System.nanoTime() - start) / 1000,
+                    e instanceof Timeouts.TimeoutException);
+            throw e;
         }
+    }
 
-        if (this.mBluetoothDevice != null) {
-            this.mBluetoothDevice = null;
+    private BluetoothSocket connectAnySocket(BluetoothDevice device, long timeoutMs) throws IOException {
+        cancelDiscovery();
+        String address = device.getAddress();
+        String cached = getConnectMethod(address);
+        List<String> methods = new ArrayList<>(Arrays.asList(CONNECT_SECURE, CONNECT_INSECURE, CONNECT_CHANNEL));
+        methods.remove(cached);
+        methods.add(0, cached);
+
+        long deadline = timeoutMs > 0 ? SystemClock.elapsedRealtime() + timeoutMs : Long.MAX_VALUE;
+        IOException failure = null;
+        for (String method : methods) {
+            long remaining = deadline - SystemClock.elapsedRealtime();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                BluetoothSocket socket = connectSocket(createSocket(device, method), remaining);
+                synchronized (mConnectMethods) {
+                    mConnectMethods.put(address, method);
+                }
+                synchronized (mLearnedChunkSizes) {
+                    Integer learned = mLearnedChunkSizes.get(address);
+                    if (learned == null && mKnownPrinters != null) {
+                        JSONObject known = mKnownPrinters.get(address);
+                        learned = known != null && known.has("chunk_size") ? known.optInt("chunk_size") : null;
+                    }
+                    this.mChunker = new AdaptiveChunker(
+                            learned != null ? learned : AdaptiveChunker.DEFAULT_CHUNK_SIZE);
+                }
+                return socket;
+            } catch (Timeouts.TimeoutException e) {
+                failure = e;
+                break;
+            } catch (IOException e) {
+                PrinterLog.w(LOG_TAG, "{} connect to {} failed: {}", method, address, e.getMessage());
+                failure = e;
+            }
         }
+        if (failure == null) {
+            throw new Timeouts.TimeoutException(Timeouts.Kind.CONNECT, timeoutMs);
+        }
+        throw failure;
     }
 
-    @Override
-    public void printRawData(String rawBase64Data, Promise promise) {
-        if (this.mBluetoothSocket == null) {
-            promise.reject("ERR_NO_CONN", "Bluetooth connection is not built, may be you forgot to connectPrinter");
-            return;
+    private BluetoothSocket createSocket(BluetoothDevice device, String method) throws IOException {
+        if (CONNECT_INSECURE.equals(method)) {
+            return device.createInsecureRfcommSocketToServiceRecord(SPP_UUID);
         }
-        final String rawData = rawBase64Data;
-        final BluetoothSocket socket = this.mBluetoothSocket;
-        Log.v(LOG_TAG, "start to print raw data " + rawBase64Data);
-        new Thread(new Runnable() {
+        if (CONNECT_CHANNEL.equals(method)) {
+            try {
+                Method createRfcommSocket = device.getClass().getMethod("createRfcommSocket", int.class);
+                return (BluetoothSocket) createRfcommSocket.invoke(device, 1);
+            } catch (Exception e) {
+                throw new IOException("channel 1 socket is not available: " + e.getMessage());
+            }
+        }
+        return device.createRfcommSocketToServiceRecord(SPP_UUID);
+    }
+
+    /**
+     * {@link BluetoothSocket#connect()} has no timeout of its own; run it on a
+     * helper thread and close the socket to abort it when time runs out.
+     */
+    private static BluetoothSocket connectSocket(final BluetoothSocket socket, long timeoutMs) throws IOException {
+        final Throwable[] failure = new Throwable[1];
+        Thread connector = new Thread(new Runnable() {
             @Override
             public void run() {
                 try {
-                    byte[] bytes = Base64.decode(rawData, Base64.DEFAULT);
-                    OutputStream printerOutputStream = socket.getOutputStream();
-                    printerOutputStream.write(bytes, 0, bytes.length);
-                    printerOutputStream.flush();
-                    promise.resolve(null);
-                } catch (IOException e) {
-                    Log.e(LOG_TAG, "failed to print data" + rawData);
-                    e.printStackTrace();
-                    promise.reject("ERR_PRINT", e.getMessage());
+                    socket.connect();
+                } catch (Throwable e) {
+                    // e.g. a SecurityException without BLUETOOTH_CONNECT; rethrown by the caller
+                    failure[0] = e;
                 }
             }
-        }).start();
+        }, "RNBLEPrinterSocket");
+        connector.start();
+        try {
+            connector.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (connector.isAlive() || failure[0] != null) {
+            boolean timedOut = connector.isAlive();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            if (timedOut) {
+                throw new Timeouts.TimeoutException(Timeouts.Kind.CONNECT, timeoutMs);
+            }
+            if (failure[0] instanceof IOException) {
+                throw (IOException) failure[0];
+            }
+            if (failure[0] instanceof RuntimeException) {
+                throw (RuntimeException) failure[0];
+            }
+            throw new IOException("connect failed: " + failure[0], failure[0]);
+        }
+        return socket;
     }
 
-    public static Bitmap getBitmapFromURL(String src) {
+    private void cancelDiscovery() {
+        BluetoothAdapter bluetoothAdapter = getBTAdapter();
         try {
-            URL url = new URL(src);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setDoInput(true);
-            connection.connect();
-            InputStream input = connection.getInputStream();
-            Bitmap myBitmap = BitmapFactory.decodeStream(input);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            myBitmap.compress(Bitmap.CompressFormat.PNG, 100, baos);
-
-            return myBitmap;
-        } catch (IOException e) {
-            return null;
+            if (bluetoothAdapter != null && bluetoothAdapter.isDiscovering()) {
+                bluetoothAdapter.cancelDiscovery();
+            }
+        } catch (SecurityException e) {
+            // BLUETOOTH_SCAN not granted; connect anyway, just slower
+            PrinterLog.w(LOG_TAG, "could not cancel discovery: {}", e.getMessage());
         }
     }
 
-    @Override
-    public void printImageData(String imageUrl, double imageWidth, Promise promise) {
-        final Bitmap bitmapImage = getBitmapFromURL(imageUrl);
-
-        if (bitmapImage == null) {
-            promise.reject("ERR_IMAGE", "image not found");
-            return;
-        }
-        if (this.mBluetoothSocket == null) {
-            promise.reject("ERR_NO_CONN", "Bluetooth connection is not built, may be you forgot to connectPrinter");
-            return;
+    private static void closeQuietly(BluetoothSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
         }
+    }
 
-        final BluetoothSocket socket = this.mBluetoothSocket;
-        final int maxSize = imageWidth > 0 ? (int) imageWidth : 200;
+    private CircuitBreaker getCircuitBreaker(PrinterDeviceId printerDeviceId) {
+        synchronized (mCircuitBreakers) {
+            CircuitBreaker breaker = mCircuitBreakers.get(printerDeviceId);
+            if (breaker == null) {
+                breaker = new CircuitBreaker();
+                mCircuitBreakers.put(printerDeviceId, breaker);
+            }
+            return breaker;
+        }
+    }
 
+    @Override
+    public void closeConnectionIfExists() {
+        // lets the job on the wire finish, then fails the rest with "Connection was closed"
+        BluetoothSocket socket = mConnection.close(DRAIN_TIMEOUT_MS);
+        stopStatusMonitor();
         try {
-            int[][] pixels = getPixelsSlow(bitmapImage, maxSize);
-            OutputStream printerOutputStream = socket.getOutputStream();
-
-            printerOutputStream.write(SET_LINE_SPACE_24);
-            printerOutputStream.write(CENTER_ALIGN);
-
-            for (int y = 0; y < pixels.length; y += 24) {
-                printerOutputStream.write(SELECT_BIT_IMAGE_MODE);
-                printerOutputStream.write(
-                        new byte[] { (byte) (0x00ff & pixels[y].length), (byte) ((0xff00 & pixels[y].length) >> 8) });
-                for (int x = 0; x < pixels[y].length; x++) {
-                    printerOutputStream.write(recollectSlice(y, x, pixels));
-                }
-                printerOutputStream.write(LINE_FEED);
+            if (socket != null) {
+                socket.close();
             }
-            printerOutputStream.write(SET_LINE_SPACE_32);
-            printerOutputStream.write(LINE_FEED);
-            printerOutputStream.flush();
-            promise.resolve(null);
         } catch (IOException e) {
-            Log.e(LOG_TAG, "failed to print data");
-            e.printStackTrace();
-            promise.reject("ERR_PRINT_IMAGE", e.getMessage());
+            PrinterLog.w(LOG_TAG, "failed to close socket: {}", e.getMessage());
+        }
+
+        BluetoothDevice device = this.mBluetoothDevice;
+        if (device != null) {
+            PrinterEventEmitter.emitStateChanged(mContext, new BLEPrinterDevice(device),
+                    PrinterEventEmitter.STATE_DISCONNECTED);
+            this.mBluetoothDevice = null;
         }
     }
 
-    @Override
-    public void printQrCode(String qrCode, double qrSize, Promise promise) {
-        final int size = qrSize > 0 ? (int) qrSize : 250;
-        final Bitmap bitmapImage = TextToQrImageEncode(qrCode, size);
+    /**
+     * Armed under the write lock, so waiting for another job does not count
+     * and the abort only ever closes this job's socket.
+     */
+    private Timeouts.Timer startJobDeadline() {
+        return mTimeouts.start(Timeouts.Kind.JOB, () -> {
+            BluetoothSocket socket = mConnection.peek();
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+        });
+    }
 
-        if (bitmapImage == null) {
-            promise.reject("ERR_QR", "QR code generation failed");
-            return;
-        }
-        if (this.mBluetoothSocket == null) {
-            promise.reject("ERR_NO_CONN", "Bluetooth connection is not built, may be you forgot to connectPrinter");
-            return;
-        }
+    /**
+     * Writes the whole job to the printer, re-establishing a dropped RFCOMM link
+     * with backoff and sending the job once more from its start if the first
+     * attempt fails. A file streamed in chunks resumes at the chunk that
+     * failed; image bands go through {@link JobRunner.Transport#writeBands},
+     * which starts the image over instead of resending one band.
+     */
+    private void writeWithReconnect(final RawPayload payload, Timeouts.Timer deadline) throws IOException {
+        writeWithReconnect(socket -> writeToSocket(socket, payload), deadline);
+    }
 
-        final BluetoothSocket socket = this.mBluetoothSocket;
+    /**
+     * Writes a job, or a part of one that can be sent again from its start,
+     * to a socket.
+     */
+    private interface SocketWrite {
+        void writeTo(BluetoothSocket socket) throws IOException;
+    }
 
+    private void writeWithReconnect(SocketWrite write, Timeouts.Timer deadline) throws IOException {
+        PrinterLog.beginSection(PrinterLog.SECTION_TRANSFER);
         try {
-            int[][] pixels = getPixelsSlow(bitmapImage, size);
-            OutputStream printerOutputStream = socket.getOutputStream();
-
-            printerOutputStream.write(SET_LINE_SPACE_24);
-            printerOutputStream.write(CENTER_ALIGN);
-
-            for (int y = 0; y < pixels.length; y += 24) {
-                printerOutputStream.write(SELECT_BIT_IMAGE_MODE);
-                printerOutputStream.write(
-                        new byte[] { (byte) (0x00ff & pixels[y].length), (byte) ((0xff00 & pixels[y].length) >> 8) });
-                for (int x = 0; x < pixels[y].length; x++) {
-                    printerOutputStream.write(recollectSlice(y, x, pixels));
+            mJobs.prepareTransfer();
+            synchronized (mWriteLock) {
+                ConnectionState.Link<BluetoothSocket> link = acquireSocket(null);
+                try {
+                    write.writeTo(link.transport);
+                } catch (FlowController.StallException | Timeouts.TimeoutException | PrintJobs.CancelledException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (deadline.hasFired()) {
+                        throw deadline.orTimeout(e);
+                    }
+                    PrinterLog.w(LOG_TAG, "connection lost, reconnecting: {}", e.getMessage());
+                    ConnectionState.Link<BluetoothSocket> broken = link;
+                    link = null;
+                    mConnection.release(broken);
+                    link = acquireSocket(broken);
+                    deadline.check();
+                    write.writeTo(link.transport);
+                } finally {
+                    mConnection.release(link);
                 }
-                printerOutputStream.write(LINE_FEED);
             }
-            printerOutputStream.write(SET_LINE_SPACE_32);
-            printerOutputStream.write(LINE_FEED);
-            printerOutputStream.flush();
-            promise.resolve(null);
         } catch (IOException e) {
-            Log.e(LOG_TAG, "failed to print data");
-            e.printStackTrace();
-            promise.reject("ERR_PRINT_QR", e.getMessage());
+            throw deadline.orTimeout(e);
+        } finally {
+            PrinterLog.endSection();
         }
     }
 
-    private Bitmap TextToQrImageEncode(String Value, int size) {
-        com.google.zxing.Writer writer = new QRCodeWriter();
-        BitMatrix bitMatrix = null;
-        try {
-            bitMatrix = writer.encode(Value, com.google.zxing.BarcodeFormat.QR_CODE, size, size,
-                    ImmutableMap.of(EncodeHintType.MARGIN, 1));
-            int width = size;
-            int height = size;
-            Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-
-            for (int i = 0; i < width; i++) {
-                for (int j = 0; j < height; j++) {
-                    bmp.setPixel(i, j, bitMatrix.get(i, j) ? Color.BLACK : Color.WHITE);
+    /**
+     * Each write must finish within the write deadline; an RFCOMM socket stuck
+     * on a printer that stopped reading is closed to unblock it.
+     */
+    private void writeToSocket(final BluetoothSocket socket, RawPayload payload) throws IOException {
+        if (!socket.isConnected()) {
+            throw new IOException("bluetooth socket is not connected");
+        }
+        final OutputStream printerOutputStream = socket.getOutputStream();
+        final AdaptiveChunker chunker = this.mChunker;
+        long start = System.nanoTime();
+        mJobs.pace((buffer, offset, length) -> {
+            Timeouts.Timer deadline = mTimeouts.start(Timeouts.Kind.WRITE, () -> closeQuietly(socket));
+            try {
+                chunker.write(printerOutputStream, buffer, offset, length);
+            } catch (IOException e) {
+                throw deadline.orTimeout(e);
+            } finally {
+                deadline.cancel();
+            }
+        }, payload);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        BluetoothDevice device = this.mBluetoothDevice;
+        if (device != null) {
+            synchronized (mLearnedChunkSizes) {
+                Integer previous = mLearnedChunkSizes.put(device.getAddress(), chunker.getChunkSize());
+                if (mKnownPrinters != null && (previous == null || previous != chunker.getChunkSize())) {
+                    mKnownPrinters.markSeen(device.getAddress(), "chunk_size", chunker.getChunkSize());
                 }
             }
-            return bmp;
-        } catch (WriterException e) {
-            return null;
         }
+        if (PrinterLog.isLoggable(Log.VERBOSE)) {
+            PrinterLog.v(LOG_TAG, "wrote {} bytes at {} B/s, chunk size {}", payload.length,
+                    (long) (payload.length * 1e9 / elapsed), chunker.getChunkSize());
+        }
+    }
+
+    /**
+     * @return the current RFCOMM chunk size and the throughput of the last job,
+     *         over all of its writes, from the job metrics.
+     */
+    public WritableMap getThroughput() {
+        AdaptiveChunker chunker = this.mChunker;
+        JobMetrics.PrinterStats stats = mJobs.getMetrics().getStats(mTransport.printerId());
+        JobMetrics.Job lastJob = stats != null ? stats.getLastJob() : null;
+        WritableMap throughput = Arguments.createMap();
+        throughput.putInt("chunk_size", chunker.getChunkSize());
+        throughput.putDouble("bytes_per_second", lastJob != null ? lastJob.getBytesPerSecond() : 0);
+        throughput.putDouble("link_bytes_per_second", chunker.getBytesPerSecond());
+        throughput.putDouble("last_job_bytes", lastJob != null ? lastJob.getBytes() : 0);
+        return throughput;
     }
 
-    public static int[][] getPixelsSlow(Bitmap image2, int maxSize) {
-        Bitmap image = resizeTheImageForPrinting(image2, maxSize);
-        int width = image.getWidth();
-        int height = image.getHeight();
-        int[][] result = new int[height][width];
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                result[row][col] = getRGB(image, col, row);
+    /**
+     * Unpaced write for real-time commands such as status queries.
+     */
+    private void writeRaw(byte[] bytes) throws IOException {
+        synchronized (mWriteLock) {
+            ConnectionState.Link<BluetoothSocket> link = mConnection.acquire();
+            if (link == null || !link.transport.isConnected()) {
+                mConnection.release(link);
+                throw new IOException("bluetooth socket is not connected");
+            }
+            try {
+                OutputStream printerOutputStream = link.transport.getOutputStream();
+                printerOutputStream.write(bytes, 0, bytes.length);
+                printerOutputStream.flush();
+            } finally {
+                mConnection.release(link);
             }
         }
-        return result;
     }
 
-    private byte[] recollectSlice(int y, int x, int[][] img) {
-        byte[] slices = new byte[] { 0, 0, 0 };
-        for (int yy = y, i = 0; yy < y + 24 && i < 3; yy += 8, i++) {
-            byte slice = 0;
-            for (int b = 0; b < 8; b++) {
-                int yyy = yy + b;
-                if (yyy >= img.length) {
-                    continue;
-                }
-                int col = img[yyy][x];
-                boolean v = shouldPrintColor(col);
-                slice |= (byte) ((v ? 1 : 0) << (7 - b));
-            }
-            slices[i] = slice;
+    /**
+     * Leases the connected socket. Without one, or once {@code broken} failed,
+     * the link is re-established first unless the app closed it; when several
+     * writers see the same drop only one reconnects and the others wait for
+     * its outcome.
+     */
+    private ConnectionState.Link<BluetoothSocket> acquireSocket(ConnectionState.Link<BluetoothSocket> broken)
+            throws IOException {
+        ConnectionState.Link<BluetoothSocket> link = broken == null ? mConnection.acquire() : null;
+        if (link != null) {
+            return link;
         }
-        return slices;
+        long ticket = mConnection.beginReconnect(broken);
+        if (ticket != ConnectionState.NO_TICKET) {
+            reconnect(ticket, broken);
+        } else {
+            mConnection.awaitSettled(SETTLE_TIMEOUT_MS);
+        }
+        link = mConnection.acquire();
+        if (link == null) {
+            throw new IOException(mConnection.getState() == ConnectionState.State.CLOSED
+                    ? "Connection was closed" : "bluetooth socket is not connected");
+        }
+        return link;
     }
 
-    private boolean shouldPrintColor(int col) {
-        final int threshold = 127;
-        int a, r, g, b, luminance;
-        a = (col >> 24) & 0xff;
-        if (a != 0xff) {
-            return false;
+    private void reconnect(long ticket, ConnectionState.Link<BluetoothSocket> broken) throws IOException {
+        if (broken != null) {
+            closeQuietly(broken.transport);
+        }
+        final BluetoothDevice device = this.mBluetoothDevice;
+        if (device == null) {
+            mConnection.reconnectFailed(ticket);
+            throw new IOException("Connection was closed");
         }
-        r = (col >> 16) & 0xff;
-        g = (col >> 8) & 0xff;
-        b = col & 0xff;
+        final BLEPrinterDevice printerDevice = new BLEPrinterDevice(device);
+        CircuitBreaker breaker = getCircuitBreaker(printerDevice.getPrinterDeviceId());
+        final BluetoothSocket[] socket = new BluetoothSocket[1];
+        try {
+            mReconnectPolicy.reconnect(breaker,
+                    () -> socket[0] = connectBluetoothDevice(device, mTimeouts.getMillis(Timeouts.Kind.CONNECT)),
+                    (attempt, delayMs) -> {
+                        WritableMap extra = Arguments.createMap();
+                        extra.putInt("attempt", attempt);
+                        extra.putDouble("delay_ms", delayMs);
+                        PrinterEventEmitter.emitStateChanged(mContext, printerDevice,
+                                PrinterEventEmitter.STATE_RECONNECTING, extra);
+                    });
+        } catch (IOException e) {
+            mConnection.reconnectFailed(ticket);
+            PrinterEventEmitter.emitStateChanged(mContext, printerDevice,
+                    e instanceof ReconnectPolicy.CircuitOpenException
+                            ? PrinterEventEmitter.STATE_CIRCUIT_OPEN
+                            : PrinterEventEmitter.STATE_DISCONNECTED);
+            throw e;
+        } catch (RuntimeException e) {
+            // e.g. a SecurityException without BLUETOOTH_CONNECT; left CONNECTING,
+            // every later write would wait it out
+            mConnection.reconnectFailed(ticket);
+            throw e;
+        }
+        if (!mConnection.connected(ticket, socket[0])) {
+            // closed by the app while reconnecting
+            closeQuietly(socket[0]);
+            throw new IOException("Connection was closed");
+        }
+        PrinterEventEmitter.emitStateChanged(mContext, printerDevice, PrinterEventEmitter.STATE_CONNECTED);
+    }
+
+    @Override
+    public void printRawData(String rawBase64Data, Promise promise) {
+        mJobs.printRawData(rawBase64Data, promise);
+    }
 
-        luminance = (int) (0.299 * r + 0.587 * g + 0.114 * b);
-        return luminance < threshold;
+    @Override
+    public void printRawBytes(ByteBuffer data, Promise promise) {
+        mJobs.printRawBytes(data, promise);
     }
 
-    public static Bitmap resizeTheImageForPrinting(Bitmap image, int maxSize) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        if (width > maxSize || height > maxSize) {
-            if (width > height) {
-                float decreaseSizeBy = ((float) maxSize / width);
-                return getBitmapResized(image, decreaseSizeBy);
-            } else {
-                float decreaseSizeBy = ((float) maxSize / height);
-                return getBitmapResized(image, decreaseSizeBy);
-            }
-        }
-        return image;
+    @Override
+    public void printText(String text, ReadableMap options, String jobId, Promise promise) {
+        mJobs.printText(text, options, jobId, promise);
+    }
+
+    @Override
+    public void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise) {
+        mJobs.printTemplate(templateId, values, jobId, promise);
     }
 
-    public static int getRGB(Bitmap bmpOriginal, int col, int row) {
-        int pixel = bmpOriginal.getPixel(col, row);
-        int R = Color.red(pixel);
-        int G = Color.green(pixel);
-        int B = Color.blue(pixel);
-        return Color.rgb(R, G, B);
+    @Override
+    public void printFile(String uri, String jobId, Promise promise) {
+        mJobs.printFile(uri, jobId, promise);
     }
 
-    public static Bitmap getBitmapResized(Bitmap image, float decreaseSizeBy) {
-        Bitmap resized = Bitmap.createScaledBitmap(image, (int) (image.getWidth() * decreaseSizeBy),
-                (int) (image.getHeight() * decreaseSizeBy), true);
-        return resized;
+    @Override
+    public void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise) {
+        mJobs.printImageData(imageUrl, imageWidth, jobId, promise);
     }
+
+    @Override
+    public void printQrCode(String qrCode, double qrSize, String jobId, Promise promise) {
+        mJobs.printQrCode(qrCode, qrSize, jobId, promise);
+    }
+
+    @Override
+    public void printReceipt(ReadableArray segments, String jobId, Promise promise) {
+        mJobs.printReceipt(segments, jobId, promise);
+    }
+
+    @Override
+    public void openSession(String sessionId, ReadableMap options, Promise promise) {
+        mJobs.openSession(sessionId, options, promise);
+    }
+
+    @Override
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        mJobs.appendSession(sessionId, segments, promise);
+    }
+
+    @Override
+    public void closeSession(String sessionId, Promise promise) {
+        mJobs.closeSession(sessionId, promise);
+    }
+
+    @Override
+    public boolean cancelJob(String jobId) {
+        return mJobs.cancelJob(jobId);
+    }
+
+    @Override
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        mJobs.startStatusMonitor(mode, intervalMs, promise);
+    }
+
+    @Override
+    public void stopStatusMonitor() {
+        mJobs.stopStatusMonitor();
+    }
+
+    @Override
+    public PrinterStatus getStatus() {
+        return mJobs.getStatus();
+    }
+
+    @Override
+    public WritableMap getStats() {
+        return mJobs.getStats();
+    }
+
+    @Override
+    public WritableMap getProfile() {
+        return mJobs.getProfile();
+    }
+
+    @Override
+    public void setJobEvents(boolean enabled) {
+        mJobs.setJobEvents(enabled);
+    }
+
+    @Override
+    public void setFlowControl(ReadableMap options) {
+        mJobs.setFlowControl(options);
+    }
+
+    @Override
+    public void setTimeouts(ReadableMap options) {
+        mTimeouts.configure(options);
+    }
+
+    static String deviceName(BluetoothDevice device) {
+        try {
+            return device != null ? device.getName() : null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    private final JobRunner.Transport mTransport = new JobRunner.Transport() {
+        @Override
+        public boolean checkConnection(Promise promise) {
+            if (!mConnection.isOpen()) {
+                promise.reject("ERR_NO_CONN", "Bluetooth connection is not built, may be you forgot to connectPrinter");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Timeouts.Timer startJobDeadline() {
+            return BLEPrinterAdapter.this.startJobDeadline();
+        }
+
+        @Override
+        public void write(RawPayload payload, Timeouts.Timer deadline) throws IOException {
+            writeWithReconnect(payload, deadline);
+        }
+
+        /**
+         * If the link drops part-way, the image is sent again from its header
+         * on the new one rather than resumed mid-raster.
+         */
+        @Override
+        public void writeBands(final BufferPool.Bytes bytes, final PrintJobs.Handle handle, Timeouts.Timer deadline)
+                throws IOException {
+            writeWithReconnect(socket -> PrintJobs.writeBands(bytes.array, bytes.length, handle,
+                    (buffer, offset, length) -> writeToSocket(socket, RawPayload.wrap(buffer, offset, length))),
+                    deadline);
+        }
+
+        @Override
+        public String statusUnsupported() {
+            return null;
+        }
+
+        @Override
+        public String printerId() {
+            BluetoothDevice device = mBluetoothDevice;
+            return device != null ? device.getAddress() : "unknown";
+        }
+
+        @Override
+        public String modelName() {
+            return deviceName(mBluetoothDevice);
+        }
+
+        @Override
+        public PrinterDevice device() {
+            BluetoothDevice device = mBluetoothDevice;
+            return device != null ? new BLEPrinterDevice(device) : null;
+        }
+    };
+
+    private final PrinterStatusMonitor.Channel mStatusChannel = new PrinterStatusMonitor.Channel() {
+        @Override
+        public int read(byte[] buffer) throws IOException {
+            BluetoothSocket socket = mConnection.peek();
+            if (socket == null || !socket.isConnected()) {
+                return -1;
+            }
+            return socket.getInputStream().read(buffer);
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            writeRaw(bytes);
+        }
+    };
 }
@@ -0,0 +1,105 @@
+package com.pinmi.react.printer.adapter;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes downloaded images into bitmaps of earlier jobs through
+ * {@link BitmapFactory.Options#inBitmap}, so printing the same logo or
+ * receipt over and over does not allocate a new pixel buffer each time.
+ * Shared by all adapters; a bitmap is only reused once the job that had it
+ * {@link #release(Bitmap) released} it.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class BitmapPool {
+
+    private static final int MAX_BITMAPS = 2;
+    private static final long MAX_RETAINED_BYTES = 32 << 20;
+
+    private static BitmapPool mInstance;
+
+    private final List<Bitmap> mBitmaps = new ArrayList<>(MAX_BITMAPS);
+    private long mRetainedBytes;
+
+    public static synchronized BitmapPool getInstance() {
+        if (mInstance == null) {
+            mInstance = new BitmapPool();
+        }
+        return mInstance;
+    }
+
+    /**
+     * @return the image, or null if {@code data} is not one.
+     */
+    public Bitmap decode(byte[] data, int offset, int length) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, offset, length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        Bitmap reusable = take(4L * options.outWidth * options.outHeight);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inBitmap = reusable;
+        try {
+            Bitmap bitmap = BitmapFactory.decodeByteArray(data, offset, length, options);
+            if (bitmap != reusable && reusable != null) {
+                release(reusable);
+            }
+            return bitmap;
+        } catch (IllegalArgumentException e) {
+            // the image needs a different config than the pooled bitmap has
+            release(reusable);
+            options.inBitmap = null;
+            return BitmapFactory.decodeByteArray(data, offset, length, options);
+        }
+    }
+
+    private synchronized Bitmap take(long bytes) {
+        Bitmap best = null;
+        for (Bitmap bitmap : mBitmaps) {
+            if (bitmap.getAllocationByteCount() >= bytes
+                    && (best == null || bitmap.getAllocationByteCount() < best.getAllocationByteCount())) {
+                best = bitmap;
+            }
+        }
+        if (best != null) {
+            mBitmaps.remove(best);
+            mRetainedBytes -= best.getAllocationByteCount();
+        }
+        return best;
+    }
+
+    /**
+     * Offers {@code bitmap} for reuse once its job is done with it. Bitmaps
+     * that are not mutable, or do not fit, are left to the garbage collector.
+     */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || !bitmap.isMutable() || bitmap.isRecycled() || mBitmaps.contains(bitmap)) {
+            return;
+        }
+        long bytes = bitmap.getAllocationByteCount();
+        if (bytes > MAX_RETAINED_BYTES) {
+            return;
+        }
+        // make room by dropping the oldest
+        while (!mBitmaps.isEmpty() && (mBitmaps.size() >= MAX_BITMAPS || mRetainedBytes + bytes > MAX_RETAINED_BYTES)) {
+            mRetainedBytes -= mBitmaps.remove(0).getAllocationByteCount();
+        }
+        mBitmaps.add(bitmap);
+        mRetainedBytes += bytes;
+    }
+
+    /**
+     * Drops every pooled bitmap, e.g. when the system is low on memory.
+     */
+    public synchronized void clear() {
+        mBitmaps.clear();
+        mRetainedBytes = 0;
+    }
+}
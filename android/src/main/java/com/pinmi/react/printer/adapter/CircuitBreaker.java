@@ -0,0 +1,110 @@
+package com.pinmi.react.printer.adapter;
+
+import android.os.SystemClock;
+
+/**
+ * Per-printer circuit breaker. After {@code failureThreshold} consecutive
+ * connection failures the circuit opens and callers are rejected immediately
+ * until {@code openDurationMs} has elapsed; the next call is then let through
+ * as a probe (half-open) and either closes the circuit or re-opens it.
+ * Whoever gets the probe must record its outcome, or hand it back with
+ * {@link #releaseProbe()} if no connect was attempted; otherwise the circuit
+ * stays half-open and rejects every later call.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /** Monotonic milliseconds; injectable so the breaker can be tested off-device. */
+    public interface Clock {
+        long millis();
+    }
+
+    public static final Clock SYSTEM_CLOCK = SystemClock::elapsedRealtime;
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final long DEFAULT_OPEN_DURATION_MS = 30000;
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_MS);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openDurationMs) {
+        this(failureThreshold, openDurationMs, SYSTEM_CLOCK);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openDurationMs, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @return false while the circuit is open, true otherwise. Moves an expired
+     *         open circuit to half-open so exactly one probe gets through.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openDurationMs) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Returns a probe taken by {@link #allowRequest()} that was not used, e.g.
+     * because the connect was abandoned before it started; the next call
+     * probes instead. No effect unless half-open.
+     */
+    public synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = clock.millis() - openDurationMs;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * @return true if this failure opened the circuit.
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN
+                || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getRetryAfterMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDurationMs - (clock.millis() - openedAt));
+    }
+}
@@ -0,0 +1,174 @@
+package com.pinmi.react.printer.adapter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Single-byte printer code pages with precomputed char-to-byte tables, so text
+ * can be encoded with one table lookup per character. Pages are numbered as
+ * for {@code ESC t n} on Epson-compatible printers.
+ * <p>
+ * Tables are split into 256-entry blocks by the high byte of the character,
+ * and only blocks that hold a mapped character are allocated. A second table
+ * of the same shape maps each character to the first page, in {@link #all()}
+ * order, that can print it; it is used to switch pages automatically.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class CodePages {
+
+    public static final class Page {
+        public final String name;
+        public final int number;
+        private final byte[][] blocks = new byte[256][];
+
+        private Page(String name, int number, Charset charset) {
+            this.name = name;
+            this.number = number;
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            for (int b = 0x80; b <= 0xFF; b++) {
+                char c;
+                try {
+                    CharBuffer decoded = decoder.decode(ByteBuffer.wrap(new byte[] { (byte) b }));
+                    if (decoded.length() != 1) {
+                        continue;
+                    }
+                    c = decoded.charAt(0);
+                } catch (CharacterCodingException e) {
+                    // byte is undefined in this page
+                    continue;
+                }
+                if (c < 0x80 || c == '\uFFFD' || encode(c) >= 0) {
+                    continue;
+                }
+                byte[] block = blocks[c >> 8];
+                if (block == null) {
+                    block = new byte[256];
+                    blocks[c >> 8] = block;
+                }
+                block[c & 0xFF] = (byte) b;
+            }
+        }
+
+        /**
+         * @return the byte for {@code c}, or -1 if this page cannot print it.
+         *         ASCII maps to itself on every page.
+         */
+        public int encode(char c) {
+            if (c < 0x80) {
+                return c;
+            }
+            byte[] block = blocks[c >> 8];
+            // table bytes are always >= 0x80, so 0 means unmapped
+            int b = block == null ? 0 : block[c & 0xFF] & 0xFF;
+            return b == 0 ? -1 : b;
+        }
+    }
+
+    private static final List<Page> PAGES;
+    private static final byte[][] FIRST_PAGE = new byte[256][];
+
+    static {
+        // preference order for automatic switching: the common Latin pages first
+        String[][] pages = {
+                { "CP437", "0", "IBM437" },
+                { "CP858", "19", "IBM00858" },
+                { "CP1252", "16", "windows-1252" },
+                { "CP850", "2", "IBM850" },
+                { "CP852", "18", "IBM852" },
+                { "CP866", "17", "IBM866" },
+                { "CP1250", "45", "windows-1250" },
+                { "CP1251", "46", "windows-1251" },
+                { "CP1253", "47", "windows-1253" },
+                { "CP1254", "48", "windows-1254" },
+                { "CP1255", "49", "windows-1255" },
+                { "CP1256", "50", "windows-1256" },
+                { "CP1257", "51", "windows-1257" },
+                { "CP860", "3", "IBM860" },
+                { "CP863", "4", "IBM863" },
+                { "CP865", "5", "IBM865" },
+        };
+        List<Page> loaded = new ArrayList<>();
+        for (String[] page : pages) {
+            if (Charset.isSupported(page[2])) {
+                loaded.add(new Page(page[0], Integer.parseInt(page[1]), Charset.forName(page[2])));
+            }
+        }
+        PAGES = Collections.unmodifiableList(loaded);
+        for (int index = PAGES.size() - 1; index >= 0; index--) {
+            Page page = PAGES.get(index);
+            for (int high = 0; high < 256; high++) {
+                byte[] block = page.blocks[high];
+                if (block == null) {
+                    continue;
+                }
+                if (FIRST_PAGE[high] == null) {
+                    FIRST_PAGE[high] = new byte[256];
+                }
+                for (int low = 0; low < 256; low++) {
+                    if (block[low] != 0) {
+                        FIRST_PAGE[high][low] = (byte) (index + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    private CodePages() {
+    }
+
+    public static List<Page> all() {
+        return PAGES;
+    }
+
+    /**
+     * @param encoding a name like {@code CP850}, {@code cp-1252} or {@code win1252}.
+     * @return the page, or null if it is not a table-encoded page.
+     */
+    public static Page forEncoding(String encoding) {
+        String normalized = encoding.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
+        if (normalized.startsWith("WINDOWS")) {
+            normalized = "CP" + normalized.substring(7);
+        } else if (normalized.startsWith("WIN")) {
+            normalized = "CP" + normalized.substring(3);
+        }
+        for (Page page : PAGES) {
+            if (page.name.equals(normalized)) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the first page in {@link #all()} order that can print {@code c},
+     *         or null if none can.
+     */
+    public static Page pageFor(char c) {
+        byte[] block = FIRST_PAGE[c >> 8];
+        int index = block == null ? 0 : block[c & 0xFF];
+        return index == 0 ? null : PAGES.get(index - 1);
+    }
+
+    /**
+     * @return the first of {@code pages} that can print {@code c}, or null.
+     */
+    public static Page pageFor(char c, List<Page> pages) {
+        for (Page page : pages) {
+            if (page.encode(c) >= 0) {
+                return page;
+            }
+        }
+        return null;
+    }
+}
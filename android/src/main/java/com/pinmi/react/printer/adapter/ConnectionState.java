@@ -0,0 +1,288 @@
+package com.pinmi.react.printer.adapter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One printer connection as an explicit state machine:
+ *
+ * <pre>
+ * CLOSED, DISCONNECTED  → CONNECTING          beginConnect
+ * CONNECTING            → CONNECTED           connected
+ *                       → CLOSED              connectFailed
+ *                       → DISCONNECTED        reconnectFailed
+ * CONNECTED             → CONNECTING          beginReconnect
+ *                       → DISCONNECTED        lost
+ * CONNECTED             → DRAINING → CLOSED   close
+ * CONNECTING, DISCONNECTED → CLOSED           close
+ * </pre>
+ *
+ * Every transition is a compare-and-set of an immutable {@link Link}, so
+ * prints never wait on a lock to find the transport. A print leases the
+ * transport with {@link #acquire()} and hands it back with
+ * {@link #release(Link)}; {@link #close(long)} first moves to
+ * {@code DRAINING}, which stops new leases, and returns the transport for
+ * closing only once the leases in flight are back or the drain timeout ran
+ * out. A connect or reconnect carries a ticket, so one that finishes after
+ * the app closed the connection cannot bring it back.
+ * <p>
+ * {@code DISCONNECTED} is a connection the app still wants but lost and
+ * failed to re-establish; the next print tries again. {@code CLOSED} is the
+ * start state and where {@link #close(long)} ends.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class ConnectionState<T> {
+
+    public enum State {
+        CLOSED, CONNECTING, CONNECTED, DISCONNECTED, DRAINING
+    }
+
+    /** {@link #beginConnect()} and {@link #beginReconnect(Link)} lost the race. */
+    public static final long NO_TICKET = -1;
+
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Immutable snapshot of the connection. A {@code CONNECTED} link handed
+     * out by {@link #acquire()} is also the lease on its transport.
+     */
+    public static final class Link<T> {
+        public final State state;
+        public final long generation;
+        public final T transport;
+        // counted down when a CONNECTING or DRAINING link is left
+        private final CountDownLatch mSettled;
+
+        Link(State state, long generation, T transport) {
+            this.state = state;
+            this.generation = generation;
+            this.transport = transport;
+            this.mSettled = state == State.CONNECTING || state == State.DRAINING ? new CountDownLatch(1) : null;
+        }
+
+        @Override
+        public String toString() {
+            return state + "#" + generation;
+        }
+    }
+
+    private final AtomicReference<Link<T>> mLink = new AtomicReference<>(new Link<T>(State.CLOSED, 0, null));
+    private final AtomicInteger mInFlight = new AtomicInteger();
+
+    public Link<T> get() {
+        return mLink.get();
+    }
+
+    public State getState() {
+        return mLink.get().state;
+    }
+
+    /**
+     * @return false once the app closed the connection (or never opened one),
+     *         so prints can be rejected up front.
+     */
+    public boolean isOpen() {
+        State state = mLink.get().state;
+        return state != State.CLOSED && state != State.DRAINING;
+    }
+
+    /**
+     * @return the transport without leasing it, while {@code CONNECTED} or
+     *         still {@code DRAINING}; for status readers and for code running
+     *         under a lease. Null otherwise.
+     */
+    public T peek() {
+        Link<T> link = mLink.get();
+        return link.state == State.CONNECTED || link.state == State.DRAINING ? link.transport : null;
+    }
+
+    public int getInFlight() {
+        return mInFlight.get();
+    }
+
+    private Link<T> transition(Link<T> from, State state, T transport) {
+        Link<T> to = new Link<>(state, from.generation + 1, transport);
+        if (!mLink.compareAndSet(from, to)) {
+            return null;
+        }
+        if (from.mSettled != null) {
+            from.mSettled.countDown();
+        }
+        return to;
+    }
+
+    /**
+     * Starts a connect from {@code CLOSED} or {@code DISCONNECTED}.
+     *
+     * @return the ticket for {@link #connected(long, Object)}, or {@link #NO_TICKET}
+     *         if the connection is busy connecting, connected or draining.
+     */
+    public long beginConnect() {
+        while (true) {
+            Link<T> current = mLink.get();
+            if (current.state != State.CLOSED && current.state != State.DISCONNECTED) {
+                return NO_TICKET;
+            }
+            Link<T> connecting = transition(current, State.CONNECTING, null);
+            if (connecting != null) {
+                return connecting.generation;
+            }
+        }
+    }
+
+    /**
+     * Starts re-establishing a connection that failed under {@code broken}, or
+     * that is {@code DISCONNECTED}. Of all the writers that saw the same link
+     * break, exactly one gets the ticket; the rest {@link #awaitSettled(long)}.
+     *
+     * @param broken the lease whose write failed, or null
+     * @return the ticket, or {@link #NO_TICKET} if someone else reconnected or
+     *         is reconnecting, or the app closed the connection.
+     */
+    public long beginReconnect(Link<T> broken) {
+        while (true) {
+            Link<T> current = mLink.get();
+            boolean lost = current.state == State.DISCONNECTED
+                    || (broken != null && current == broken && current.state == State.CONNECTED);
+            if (!lost) {
+                return NO_TICKET;
+            }
+            Link<T> connecting = transition(current, State.CONNECTING, null);
+            if (connecting != null) {
+                return connecting.generation;
+            }
+        }
+    }
+
+    /**
+     * Publishes the transport a connect opened.
+     *
+     * @return false if the connection was closed or taken over since the
+     *         ticket was issued; the caller then owns and closes {@code transport}.
+     */
+    public boolean connected(long ticket, T transport) {
+        Link<T> current = mLink.get();
+        return current.state == State.CONNECTING && current.generation == ticket
+                && transition(current, State.CONNECTED, transport) != null;
+    }
+
+    /**
+     * The transport under {@code broken} dropped on its own and nothing will
+     * re-establish it now; the caller owns and closes the transport. Leases
+     * still in flight fail on the closed transport.
+     *
+     * @return false if {@code broken} is no longer the current link.
+     */
+    public boolean lost(Link<T> broken) {
+        return broken.state == State.CONNECTED && transition(broken, State.DISCONNECTED, null) != null;
+    }
+
+    /** A first connect failed: back to {@code CLOSED}. */
+    public boolean connectFailed(long ticket) {
+        return settle(ticket, State.CLOSED);
+    }
+
+    /** A reconnect gave up: {@code DISCONNECTED}, so the next print tries again. */
+    public boolean reconnectFailed(long ticket) {
+        return settle(ticket, State.DISCONNECTED);
+    }
+
+    private boolean settle(long ticket, State state) {
+        Link<T> current = mLink.get();
+        return current.state == State.CONNECTING && current.generation == ticket
+                && transition(current, state, null) != null;
+    }
+
+    /**
+     * Leases the connected transport. Every non-null result must be passed to
+     * {@link #release(Link)}.
+     *
+     * @return the current link, or null unless {@code CONNECTED}.
+     */
+    public Link<T> acquire() {
+        while (true) {
+            Link<T> link = mLink.get();
+            if (link.state != State.CONNECTED) {
+                return null;
+            }
+            mInFlight.incrementAndGet();
+            // close() moves to DRAINING before it counts: either it sees this
+            // lease, or this sees that the link moved on and backs out
+            if (mLink.get() == link) {
+                return link;
+            }
+            mInFlight.decrementAndGet();
+        }
+    }
+
+    public void release(Link<T> lease) {
+        if (lease != null) {
+            mInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits while a connect, reconnect or close is under way.
+     *
+     * @return the state it settled in, or {@code CONNECTING}/{@code DRAINING}
+     *         if {@code timeoutMs} ran out first.
+     */
+    public State awaitSettled(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            Link<T> current = mLink.get();
+            long left = deadline - System.nanoTime();
+            if (current.mSettled == null || left <= 0) {
+                return current.state;
+            }
+            try {
+                current.mSettled.await(left, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return mLink.get().state;
+            }
+        }
+    }
+
+    /**
+     * Closes the connection for good: stops new leases, waits up to
+     * {@code drainTimeoutMs} for the ones in flight, then moves to {@code CLOSED}.
+     * A connect or reconnect under way is abandoned; its
+     * {@link #connected(long, Object)} returns false.
+     *
+     * @return the transport the caller must now close, or null if there was none.
+     */
+    public T close(long drainTimeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        while (true) {
+            Link<T> current = mLink.get();
+            switch (current.state) {
+                case CLOSED:
+                    return null;
+                case DRAINING:
+                    // a concurrent close owns the transport; wait for it to finish
+                    awaitSettled(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                    return null;
+                case CONNECTED:
+                    Link<T> draining = transition(current, State.DRAINING, current.transport);
+                    if (draining == null) {
+                        continue;
+                    }
+                    while (mInFlight.get() > 0 && System.nanoTime() < deadline) {
+                        LockSupport.parkNanos(DRAIN_POLL_NANOS);
+                    }
+                    // only the closer that entered DRAINING may leave it
+                    transition(draining, State.CLOSED, null);
+                    return current.transport;
+                default:
+                    if (transition(current, State.CLOSED, null) != null) {
+                        return null;
+                    }
+            }
+        }
+    }
+}
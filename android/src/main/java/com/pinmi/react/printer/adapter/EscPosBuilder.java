@@ -0,0 +1,398 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Native port of {@code EPToolkit.exchange_text}: turns text with the
+ * {@code <B>}, {@code <C>}, {@code <CM>}, ... markup into ESC/POS bytes. The
+ * output is byte-identical to the JS version, quirks included: an unknown
+ * {@code <} is dropped, and the tail commands are added whenever the flag is
+ * set, even to false.
+ * <p>
+ * Single-byte printer code pages are encoded through the lookup tables in
+ * {@link CodePages}; other charsets through cached {@link CharsetEncoder}s.
+ * Either way text goes straight into one buffer that is reused between jobs.
+ * Not thread-safe; callers hold the builder until the returned payload has
+ * been written.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class EscPosBuilder {
+
+    public static class TextOptions {
+        public String encoding = "UTF8";
+        // null when not set, like an absent key in the JS options object
+        public Boolean beep;
+        public Boolean cut;
+        public Boolean tailingLine;
+
+        public static TextOptions fromReadableMap(ReadableMap map) {
+            TextOptions options = new TextOptions();
+            if (map == null) {
+                return options;
+            }
+            if (map.hasKey("encoding") && map.getType("encoding") == ReadableType.String) {
+                options.encoding = map.getString("encoding");
+            }
+            options.beep = flag(map, "beep");
+            options.cut = flag(map, "cut");
+            options.tailingLine = flag(map, "tailingLine");
+            return options;
+        }
+
+        private static Boolean flag(ReadableMap map, String key) {
+            return map.hasKey(key) && map.getType(key) == ReadableType.Boolean ? map.getBoolean(key) : null;
+        }
+    }
+
+    private static final byte[] INIT = { 27, 64 };
+    private static final byte[] DEFAULT_LINE_SPACING = { 27, 50 };
+    private static final byte[] RESET = { 27, 97, 0, 29, 33, 0, 27, 50 };
+    private static final byte[] NO_BYTES = {};
+    private static final byte[] LEFT = { 27, 97, 0 };
+    private static final byte[] CENTER = { 27, 97, 1 };
+    private static final byte[] RIGHT = { 27, 97, 2 };
+    private static final byte[] MEDIUM = { 27, 33, 16, 28, 33, 8 };
+    private static final byte[] BIG = { 27, 33, 48, 28, 33, 12 };
+    private static final byte[] DOUBLE_HEIGHT = { 27, 33, 32, 28, 33, 4 };
+    private static final byte[] CENTER_MEDIUM = { 27, 97, 1, 27, 33, 16, 28, 33, 8 };
+    private static final byte[] CENTER_BIG = { 27, 97, 1, 27, 33, 48, 28, 33, 12 };
+    private static final byte[] CENTER_DOUBLE_HEIGHT = { 27, 97, 1, 27, 33, 32, 28, 33, 4 };
+    private static final byte[] NORMAL_SIZE = { 27, 33, 0, 28, 33, 0 };
+    private static final byte[] TAILING_LINES = { 10, 10, 10, 10, 10 };
+    private static final byte[] CUT = { 27, 105 };
+    private static final byte[] BEEP = { 27, 66, 3, 2 };
+
+    /**
+     * Starts in CP437 and switches code page with {@code ESC t} whenever a
+     * character is not in the current page.
+     */
+    public static final String AUTO_ENCODING = "AUTO";
+
+    private static final Map<String, byte[]> ENCODING_COMMANDS = new HashMap<>();
+
+    static {
+        for (CodePages.Page page : CodePages.all()) {
+            ENCODING_COMMANDS.put(page.name, new byte[] { 27, 116, (byte) page.number });
+        }
+        ENCODING_COMMANDS.put(AUTO_ENCODING, new byte[] { 27, 116, (byte) CodePages.all().get(0).number });
+        ENCODING_COMMANDS.put("GB18030", new byte[] { 28, 38, 28, 67, 0 });
+        ENCODING_COMMANDS.put("BIG5", new byte[] { 28, 38, 28, 67, 1 });
+        ENCODING_COMMANDS.put("UTF8", new byte[] { 28, 38, 28, 67, (byte) 255 });
+    }
+
+    private static final int INITIAL_CAPACITY = 4096;
+    // a buffer grown by one huge job is not kept around for the next
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    private final Map<String, CharsetEncoder> mEncoders = new HashMap<>();
+    private CharsetEncoder mEncoder;
+    // table-encoded page in use, null when mEncoder is used
+    private CodePages.Page mPage;
+    private boolean mAutoPage;
+    // pages the printer has, null for all
+    private List<CodePages.Page> mCodePages;
+    private byte[] mBuffer = new byte[INITIAL_CAPACITY];
+    private int mSize;
+    // reused by the CharsetEncoder path so encoding a run does not allocate
+    private char[] mChars = new char[256];
+    private CharBuffer mCharBuffer = CharBuffer.wrap(mChars);
+    private ByteBuffer mByteBuffer = ByteBuffer.wrap(mBuffer);
+
+    /**
+     * @return the job, backed by this builder's buffer until the next call.
+     * @throws IllegalArgumentException if the encoding is unknown.
+     */
+    public RawPayload build(String text, TextOptions options) {
+        reset(options.encoding);
+        appendHeader(options);
+        appendMarkup(text);
+        appendTail(options);
+        return payload();
+    }
+
+    /**
+     * Empties the buffer and selects the encoding for following text.
+     */
+    void reset(String encoding) {
+        mAutoPage = AUTO_ENCODING.equalsIgnoreCase(encoding);
+        mPage = mAutoPage ? CodePages.all().get(0) : CodePages.forEncoding(encoding);
+        mEncoder = mPage == null ? encoder(encoding) : null;
+        if (mBuffer.length > MAX_RETAINED_CAPACITY) {
+            mBuffer = new byte[INITIAL_CAPACITY];
+            mByteBuffer = ByteBuffer.wrap(mBuffer);
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Limits {@link #AUTO_ENCODING} to the pages the printer has; null for all.
+     */
+    public void setCodePages(List<CodePages.Page> codePages) {
+        mCodePages = codePages;
+    }
+
+    CodePages.Page getCodePage() {
+        return mPage;
+    }
+
+    /**
+     * Makes {@code page} current without writing anything, e.g. when bytes
+     * that selected it were encoded earlier.
+     */
+    void setCodePage(CodePages.Page page) {
+        mPage = page;
+    }
+
+    void selectCodePage(CodePages.Page page) {
+        ensureCapacity(3);
+        mBuffer[mSize++] = 27;
+        mBuffer[mSize++] = 116;
+        mBuffer[mSize++] = (byte) page.number;
+        mPage = page;
+    }
+
+    void appendHeader(TextOptions options) {
+        append(INIT);
+        byte[] encodingCommand = ENCODING_COMMANDS.get(options.encoding);
+        if (encodingCommand != null) {
+            append(encodingCommand);
+        }
+        append(DEFAULT_LINE_SPACING);
+    }
+
+    void appendMarkup(String text) {
+        int length = text.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch == '<') {
+                encode(text, runStart, i);
+                int tagLength = appendTag(text, i);
+                // an unknown '<' is swallowed and the rest is kept as text
+                i += Math.max(tagLength, 1) - 1;
+                runStart = i + 1;
+            } else if (ch == '\n') {
+                encode(text, runStart, i + 1);
+                append(RESET);
+                runStart = i + 1;
+            }
+        }
+        encode(text, runStart, length);
+    }
+
+    void appendTail(TextOptions options) {
+        if (options.tailingLine != null) {
+            append(TAILING_LINES);
+        }
+        if (options.cut != null) {
+            append(CUT);
+        }
+        if (options.beep != null) {
+            append(BEEP);
+        }
+    }
+
+    void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+        mSize += bytes.length;
+    }
+
+    RawPayload payload() {
+        return RawPayload.wrap(mBuffer, 0, mSize);
+    }
+
+    byte[] toByteArray() {
+        byte[] bytes = new byte[mSize];
+        System.arraycopy(mBuffer, 0, bytes, 0, mSize);
+        return bytes;
+    }
+
+    /**
+     * Appends the command of the tag starting at {@code start}.
+     *
+     * @return the tag's length, or 0 if no known tag starts there.
+     */
+    private int appendTag(String text, int start) {
+        int nameStart = start + 1;
+        boolean closing = nameStart < text.length() && text.charAt(nameStart) == '/';
+        if (closing) {
+            nameStart++;
+        }
+        if (nameStart + 1 >= text.length()) {
+            return 0;
+        }
+        char first = text.charAt(nameStart);
+        char second = text.charAt(nameStart + 1);
+        byte[] command = null;
+        int nameLength = 1;
+        if (second == '>') {
+            switch (first) {
+                case 'M':
+                    command = closing ? NORMAL_SIZE : MEDIUM;
+                    break;
+                case 'B':
+                    command = closing ? NORMAL_SIZE : BIG;
+                    break;
+                case 'D':
+                    command = closing ? NORMAL_SIZE : DOUBLE_HEIGHT;
+                    break;
+                case 'C':
+                    command = closing ? NO_BYTES : CENTER;
+                    break;
+                case 'L':
+                    command = closing ? NO_BYTES : LEFT;
+                    break;
+                case 'R':
+                    command = closing ? NO_BYTES : RIGHT;
+                    break;
+                default:
+                    break;
+            }
+        } else if (first == 'C' && nameStart + 2 < text.length() && text.charAt(nameStart + 2) == '>') {
+            nameLength = 2;
+            switch (second) {
+                case 'M':
+                    command = closing ? NORMAL_SIZE : CENTER_MEDIUM;
+                    break;
+                case 'B':
+                    command = closing ? NORMAL_SIZE : CENTER_BIG;
+                    break;
+                case 'D':
+                    command = closing ? NORMAL_SIZE : CENTER_DOUBLE_HEIGHT;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (command == null) {
+            return 0;
+        }
+        append(command);
+        return nameStart - start + nameLength + 1;
+    }
+
+    private void encode(String text, int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        if (mPage != null) {
+            encodeWithTable(text, start, end);
+            return;
+        }
+        int length = end - start;
+        CharsetEncoder encoder = mEncoder;
+        ensureCapacity((int) Math.ceil(encoder.maxBytesPerChar() * length));
+        if (mChars.length < length) {
+            mChars = new char[Math.max(mChars.length * 2, length)];
+            mCharBuffer = CharBuffer.wrap(mChars);
+        }
+        text.getChars(start, end, mChars, 0);
+        mCharBuffer.clear();
+        mCharBuffer.limit(length);
+        ByteBuffer out = mByteBuffer;
+        out.clear();
+        out.position(mSize);
+        encoder.reset();
+        encoder.encode(mCharBuffer, out, true);
+        encoder.flush(out);
+        mSize = out.position();
+    }
+
+    /**
+     * One table lookup per character. In {@link #AUTO_ENCODING} mode a
+     * character missing from the current page selects the first page that has
+     * it, among the printer's pages if known; anything no page can print
+     * becomes {@code '?'}, like iconv-lite.
+     */
+    private void encodeWithTable(String text, int start, int end) {
+        // worst case: ESC t n before every character
+        ensureCapacity((end - start) * 4);
+        byte[] buffer = mBuffer;
+        int size = mSize;
+        CodePages.Page page = mPage;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            int b = page.encode(c);
+            if (b < 0 && mAutoPage) {
+                CodePages.Page other = mCodePages == null ? CodePages.pageFor(c) : CodePages.pageFor(c, mCodePages);
+                if (other != null) {
+                    page = other;
+                    buffer[size++] = 27;
+                    buffer[size++] = 116;
+                    buffer[size++] = (byte) page.number;
+                    b = page.encode(c);
+                }
+            }
+            buffer[size++] = (byte) (b < 0 ? '?' : b);
+        }
+        mSize = size;
+        mPage = page;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (mSize + extra > mBuffer.length) {
+            byte[] grown = new byte[Math.max(mBuffer.length * 2, mSize + extra)];
+            System.arraycopy(mBuffer, 0, grown, 0, mSize);
+            mBuffer = grown;
+            mByteBuffer = ByteBuffer.wrap(mBuffer);
+        }
+    }
+
+    private CharsetEncoder encoder(String encoding) {
+        CharsetEncoder encoder = mEncoders.get(encoding);
+        if (encoder == null) {
+            Charset charset = charsetFor(encoding);
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            if (charset.equals(StandardCharsets.UTF_8)) {
+                // iconv-lite writes U+FFFD for lone surrogates
+                encoder.replaceWith(new byte[] { (byte) 0xEF, (byte) 0xBF, (byte) 0xBD });
+            }
+            mEncoders.put(encoding, encoder);
+        }
+        return encoder;
+    }
+
+    /**
+     * Resolves an iconv-lite encoding name, which ignores case and
+     * punctuation, to a Java charset.
+     */
+    static Charset charsetFor(String encoding) {
+        String normalized = encoding.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        switch (normalized) {
+            case "utf8":
+                return StandardCharsets.UTF_8;
+            case "ascii":
+                return StandardCharsets.US_ASCII;
+            case "latin1":
+            case "binary":
+                return StandardCharsets.ISO_8859_1;
+            case "big5":
+                return Charset.forName("Big5");
+            default:
+                break;
+        }
+        if (normalized.matches("cp\\d+") && Charset.isSupported("IBM" + normalized.substring(2))) {
+            return Charset.forName("IBM" + normalized.substring(2));
+        }
+        if (normalized.matches("(win|windows)\\d+")) {
+            return Charset.forName("windows-" + normalized.replaceAll("\\D", ""));
+        }
+        return Charset.forName(Charset.isSupported(encoding) ? encoding : normalized);
+    }
+}
@@ -0,0 +1,144 @@
+package com.pinmi.react.printer.adapter;
+
+import com.pinmi.react.printer.raster.Barcode;
+import com.pinmi.react.printer.raster.Qr;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ESC/POS commands for content the printer renders itself, for printers whose
+ * {@link PrinterProfile} says they can. They cost a few dozen bytes where the
+ * same content as an image costs kilobytes.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class EscPosCommands {
+
+    private static final int GS = 0x1D;
+    private static final byte[] CENTER = { 0x1B, 0x61, 0x01 };
+    private static final int MAX_QR_MODULE = 16;
+    /** {@code GS w}: the narrowest and widest module printers take */
+    private static final int MIN_BARCODE_MODULE = 2;
+    private static final int MAX_BARCODE_MODULE = 6;
+    private static final byte[] CUT = { 0x1B, 0x69 };
+
+    private EscPosCommands() {
+    }
+
+    /**
+     * A centred model 2 QR code with the error correction the image path uses,
+     * its modules scaled to come as close to {@code size} dots as they can
+     * without exceeding it.
+     *
+     * @return the job, or null if {@code content} does not fit in a QR code.
+     */
+    public static byte[] qrCode(String content, int size) {
+        int modules = Qr.modules(content);
+        if (modules == 0) {
+            return null;
+        }
+        // like the image: one module of quiet zone on each side
+        int moduleSize = Math.max(1, Math.min(MAX_QR_MODULE, size / (modules + 2)));
+        Charset charset = StandardCharsets.ISO_8859_1.newEncoder().canEncode(content)
+                ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+        byte[] data = content.getBytes(charset);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + 40);
+        out.write(CENTER, 0, CENTER.length);
+        qrFunction(out, 0x41, new byte[] { 0x32, 0x00 });
+        qrFunction(out, 0x43, new byte[] { (byte) moduleSize });
+        // 0x30: level L
+        qrFunction(out, 0x45, new byte[] { 0x30 });
+        byte[] store = new byte[data.length + 1];
+        store[0] = 0x30;
+        System.arraycopy(data, 0, store, 1, data.length);
+        qrFunction(out, 0x50, store);
+        qrFunction(out, 0x51, new byte[] { 0x30 });
+        out.write(0x0A);
+        return out.toByteArray();
+    }
+
+    /**
+     * {@code GS ( k pL pH 49 fn ...}
+     */
+    private static void qrFunction(ByteArrayOutputStream out, int fn, byte[] parameters) {
+        int length = parameters.length + 2;
+        out.write(GS);
+        out.write(0x28);
+        out.write(0x6B);
+        out.write(length & 0xFF);
+        out.write(length >> 8);
+        out.write(0x31);
+        out.write(fn);
+        out.write(parameters, 0, parameters.length);
+    }
+
+    /**
+     * A centred {@code GS k} barcode with its digits printed below.
+     *
+     * @param moduleWidth dots per module, 2 to 6.
+     * @param height      dots, 1 to 255.
+     * @return the commands, or null if {@code content} is too long for them;
+     *         it should be {@link Barcode#isValid valid} for {@code format}.
+     */
+    public static byte[] barcode(String content, Barcode.Format format, int moduleWidth, int height) {
+        // code set B for CODE128, which takes printable ASCII
+        byte[] data = (format == Barcode.Format.CODE128 ? "{B" + content : content)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        if (data.length > 255) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + 16);
+        out.write(CENTER, 0, CENTER.length);
+        out.write(GS);
+        out.write(0x68);
+        out.write(Math.max(1, Math.min(255, height)));
+        out.write(GS);
+        out.write(0x77);
+        out.write(Math.max(MIN_BARCODE_MODULE, Math.min(MAX_BARCODE_MODULE, moduleWidth)));
+        // HRI characters below the bars
+        out.write(GS);
+        out.write(0x48);
+        out.write(2);
+        out.write(GS);
+        out.write(0x6B);
+        out.write(barcodeSystem(format));
+        out.write(data.length);
+        out.write(data, 0, data.length);
+        out.write(0x0A);
+        return out.toByteArray();
+    }
+
+    /**
+     * {@code GS k} function B system numbers.
+     */
+    private static int barcodeSystem(Barcode.Format format) {
+        switch (format) {
+            case UPCA:
+                return 65;
+            case EAN13:
+                return 67;
+            case EAN8:
+                return 68;
+            case CODE39:
+                return 69;
+            case ITF:
+                return 70;
+            default:
+                return 73;
+        }
+    }
+
+    /**
+     * Feeds {@code lines} and cuts, as {@code printBill} ends.
+     */
+    public static byte[] cut(int lines) {
+        byte[] out = new byte[lines + CUT.length];
+        for (int i = 0; i < lines; i++) {
+            out[i] = 0x0A;
+        }
+        System.arraycopy(CUT, 0, out, lines, CUT.length);
+        return out;
+    }
+}
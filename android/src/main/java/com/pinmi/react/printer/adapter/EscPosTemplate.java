@@ -0,0 +1,197 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A receipt layout compiled once into ESC/POS bytes, with {@code {{name}}}
+ * slots for the fields that change per print. Static segments, including the
+ * header and tail commands, are encoded at compile time; rendering copies them
+ * and encodes only the slot values, which may use the same markup. A tag must
+ * not be split across a slot boundary.
+ * <p>
+ * Compiled templates are kept in a process-wide registry so a template
+ * registered through one printer module can be printed on any of them.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class EscPosTemplate {
+
+    private static final Map<String, EscPosTemplate> sTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Pre-encoded bytes plus the code page they were encoded from and leave
+     * selected; both are null unless the encoding uses {@link CodePages}.
+     */
+    private static class Segment {
+        final byte[] bytes;
+        final CodePages.Page startPage;
+        final CodePages.Page endPage;
+
+        Segment(byte[] bytes, CodePages.Page startPage, CodePages.Page endPage) {
+            this.bytes = bytes;
+            this.startPage = startPage;
+            this.endPage = endPage;
+        }
+    }
+
+    private final String encoding;
+    // Segment for static bytes, String for a slot name
+    private final Object[] parts;
+    private final int staticBytes;
+
+    private EscPosTemplate(String encoding, Object[] parts, int staticBytes) {
+        this.encoding = encoding;
+        this.parts = parts;
+        this.staticBytes = staticBytes;
+    }
+
+    public static void register(String templateId, EscPosTemplate template) {
+        sTemplates.put(templateId, template);
+    }
+
+    public static EscPosTemplate get(String templateId) {
+        return sTemplates.get(templateId);
+    }
+
+    public static void unregister(String templateId) {
+        sTemplates.remove(templateId);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the encoding is unknown or a slot is
+     *                                  not closed.
+     */
+    public static EscPosTemplate compile(String template, EscPosBuilder.TextOptions options) {
+        EscPosBuilder builder = new EscPosBuilder();
+        builder.reset(options.encoding);
+        builder.appendHeader(options);
+        List<Object> parts = new ArrayList<>();
+        int staticBytes = 0;
+        int position = 0;
+        CodePages.Page startPage = builder.getCodePage();
+        while (true) {
+            int open = template.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+            int close = template.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("slot opened at " + open + " is not closed");
+            }
+            builder.appendMarkup(template.substring(position, open));
+            Segment segment = new Segment(builder.toByteArray(), startPage, builder.getCodePage());
+            parts.add(segment);
+            staticBytes += segment.bytes.length;
+            parts.add(template.substring(open + 2, close).trim());
+            // the next segment is encoded as if the slot were empty
+            startPage = segment.endPage;
+            builder.reset(options.encoding);
+            builder.setCodePage(startPage);
+            position = close + 2;
+        }
+        builder.appendMarkup(template.substring(position));
+        builder.appendTail(options);
+        Segment segment = new Segment(builder.toByteArray(), startPage, builder.getCodePage());
+        parts.add(segment);
+        staticBytes += segment.bytes.length;
+        return new EscPosTemplate(options.encoding, parts.toArray(), staticBytes);
+    }
+
+    /**
+     * @return the slot names in order of first use.
+     */
+    public List<String> getSlots() {
+        LinkedHashSet<String> slots = new LinkedHashSet<>();
+        for (Object part : parts) {
+            if (part instanceof String) {
+                slots.add((String) part);
+            }
+        }
+        return new ArrayList<>(slots);
+    }
+
+    public int getStaticBytes() {
+        return staticBytes;
+    }
+
+    public WritableMap toRNWritableMap(String templateId) {
+        WritableArray slots = Arguments.createArray();
+        for (String slot : getSlots()) {
+            slots.pushString(slot);
+        }
+        WritableMap map = Arguments.createMap();
+        map.putString("template_id", templateId);
+        map.putArray("slots", slots);
+        map.putInt("static_bytes", staticBytes);
+        return map;
+    }
+
+    /**
+     * Assembles the job in {@code builder}'s buffer.
+     *
+     * @throws IllegalArgumentException if a slot has no value.
+     */
+    public RawPayload render(EscPosBuilder builder, Map<String, String> values) {
+        builder.reset(encoding);
+        for (Object part : parts) {
+            if (part instanceof Segment) {
+                Segment segment = (Segment) part;
+                if (segment.startPage != null && builder.getCodePage() != segment.startPage) {
+                    // a slot value switched pages; restore the one the segment was encoded for
+                    builder.selectCodePage(segment.startPage);
+                }
+                builder.append(segment.bytes);
+                builder.setCodePage(segment.endPage);
+            } else {
+                String value = values.get(part);
+                if (value == null) {
+                    throw new IllegalArgumentException("no value for slot " + part);
+                }
+                builder.appendMarkup(value);
+            }
+        }
+        return builder.payload();
+    }
+
+    /**
+     * Reads slot values from JS. Numbers are formatted the way JS prints them
+     * for the common cases: integers without a fraction.
+     */
+    public static Map<String, String> valuesFromReadableMap(ReadableMap map) {
+        Map<String, String> values = new HashMap<>();
+        if (map == null) {
+            return values;
+        }
+        ReadableMapKeySetIterator keys = map.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (map.getType(key)) {
+                case String:
+                    values.put(key, map.getString(key));
+                    break;
+                case Number:
+                    double number = map.getDouble(key);
+                    values.put(key, number == Math.rint(number) && Math.abs(number) < 1e15
+                            ? Long.toString((long) number) : Double.toString(number));
+                    break;
+                case Boolean:
+                    values.put(key, Boolean.toString(map.getBoolean(key)));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return values;
+    }
+}
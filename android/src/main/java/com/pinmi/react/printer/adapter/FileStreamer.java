@@ -0,0 +1,115 @@
+package com.pinmi.react.printer.adapter;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams a job from a file to a transport through one fixed-size buffer, so
+ * reports of several MB never have to fit in memory. Accepts plain paths,
+ * {@code file://} and {@code content://} URIs.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class FileStreamer {
+
+    public interface ChunkWriter {
+        void write(RawPayload chunk) throws IOException;
+    }
+
+    public interface ProgressListener {
+        /**
+         * @param totalBytes -1 if the size is unknown.
+         */
+        void onProgress(long bytesSent, long totalBytes);
+    }
+
+    public static final int CHUNK_SIZE = 16 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = 100 * 1000000L;
+
+    private FileStreamer() {
+    }
+
+    public static InputStream open(Context context, String uri) throws IOException {
+        Uri parsed = Uri.parse(uri);
+        String scheme = parsed.getScheme();
+        if (scheme == null) {
+            return new FileInputStream(uri);
+        }
+        if ("file".equals(scheme)) {
+            return new FileInputStream(parsed.getPath());
+        }
+        InputStream in = context.getContentResolver().openInputStream(parsed);
+        if (in == null) {
+            throw new FileNotFoundException(uri);
+        }
+        return in;
+    }
+
+    /**
+     * @return the size in bytes, or -1 if the provider does not report it.
+     */
+    public static long length(Context context, String uri) {
+        Uri parsed = Uri.parse(uri);
+        String scheme = parsed.getScheme();
+        if (scheme == null || "file".equals(scheme)) {
+            File file = new File(scheme == null ? uri : parsed.getPath());
+            return file.isFile() ? file.length() : -1;
+        }
+        try (AssetFileDescriptor descriptor = context.getContentResolver().openAssetFileDescriptor(parsed, "r")) {
+            return descriptor != null ? descriptor.getLength() : -1;
+        } catch (IOException | SecurityException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Copies {@code in} to {@code writer} in chunks of at most
+     * {@link #CHUNK_SIZE}. Progress is reported at most every 100 ms and once
+     * at the end.
+     *
+     * @return the number of bytes written.
+     */
+    public static long stream(InputStream in, long totalBytes, ChunkWriter writer, ProgressListener listener)
+            throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long sent = 0;
+        long lastReport = System.nanoTime();
+        int read;
+        while ((read = fill(in, buffer)) > 0) {
+            writer.write(RawPayload.wrap(buffer, 0, read));
+            sent += read;
+            long now = System.nanoTime();
+            if (listener != null && now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                listener.onProgress(sent, totalBytes);
+                lastReport = now;
+            }
+        }
+        if (listener != null) {
+            listener.onProgress(sent, totalBytes);
+        }
+        return sent;
+    }
+
+    /**
+     * Reads until the buffer is full or the stream ends, so chunks stay full
+     * size even when the provider hands out small reads.
+     */
+    private static int fill(InputStream in, byte[] buffer) throws IOException {
+        int filled = 0;
+        while (filled < buffer.length) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+}
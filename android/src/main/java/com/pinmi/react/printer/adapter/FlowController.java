@@ -0,0 +1,204 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.IOException;
+
+/**
+ * Flow control for the printer output path. A job is split into chunks and
+ * each chunk is only written once
+ * <ul>
+ * <li>the byte-rate budget allows it (bytes-per-second pacer),</li>
+ * <li>the printer has not asked us to stop with XOFF, and</li>
+ * <li>optionally, the cached printer status does not report it as busy.</li>
+ * </ul>
+ * Everything is disabled by default, in which case a job is written in one call.
+ * A {@link PrinterProfile} fills in the rate the app left unset and caps
+ * chunks at the printer's receive buffer.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class FlowController {
+
+    public interface Sink {
+        void write(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    public interface BusyProbe {
+        boolean isBusy();
+    }
+
+    /**
+     * Thrown when the printer held the output path for longer than the
+     * configured stall limit. The connection itself is still fine.
+     */
+    public static class StallException extends IOException {
+        public StallException(String message) {
+            super(message);
+        }
+    }
+
+    public static final long DEFAULT_MAX_STALL_MS = 30000;
+
+    private static final byte XON = 0x11;
+    private static final byte XOFF = 0x13;
+    private static final long BUSY_POLL_MS = 50;
+    // with only a rate configured, send roughly 20 chunks per second
+    private static final int PACER_CHUNKS_PER_SECOND = 20;
+
+    private volatile long bytesPerSecond = 0;
+    private volatile int chunkSize = 0;
+    private volatile boolean xonXoff = false;
+    private volatile boolean waitWhileBusy = false;
+    private volatile long maxStallMs = DEFAULT_MAX_STALL_MS;
+    private volatile long profileBytesPerSecond = 0;
+    private volatile int receiveBuffer = 0;
+
+    private final Object mPauseLock = new Object();
+    private boolean mPaused = false;
+
+    /**
+     * @param bytesPerSecond 0 for unlimited
+     * @param chunkSize      0 to derive it from the rate (or send whole jobs)
+     */
+    public void configure(long bytesPerSecond, int chunkSize, boolean xonXoff, boolean waitWhileBusy,
+            long maxStallMs) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        this.chunkSize = Math.max(0, chunkSize);
+        this.xonXoff = xonXoff;
+        this.waitWhileBusy = waitWhileBusy;
+        this.maxStallMs = maxStallMs > 0 ? maxStallMs : DEFAULT_MAX_STALL_MS;
+        if (!xonXoff) {
+            onXon();
+        }
+    }
+
+    /**
+     * Applies the JS options object: {@code bytesPerSecond}, {@code chunkSize},
+     * {@code xonXoff}, {@code waitWhileBusy} and {@code maxStallMs}. Missing keys
+     * reset to their defaults.
+     */
+    public void configure(ReadableMap options) {
+        configure(
+                options.hasKey("bytesPerSecond") ? (long) options.getDouble("bytesPerSecond") : 0,
+                options.hasKey("chunkSize") ? options.getInt("chunkSize") : 0,
+                options.hasKey("xonXoff") && options.getBoolean("xonXoff"),
+                options.hasKey("waitWhileBusy") && options.getBoolean("waitWhileBusy"),
+                options.hasKey("maxStallMs") ? (long) options.getDouble("maxStallMs") : 0);
+    }
+
+    /**
+     * Takes the rate and receive buffer of the printer about to be written to.
+     */
+    public void setProfile(PrinterProfile profile) {
+        this.profileBytesPerSecond = profile.bytesPerSecond;
+        this.receiveBuffer = profile.receiveBuffer;
+    }
+
+    public boolean isXonXoffEnabled() {
+        return xonXoff;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Feeds a byte received from the printer.
+     *
+     * @return true if it was a flow-control byte; always false unless
+     *         XON/XOFF is enabled, so the byte goes on to the status parser.
+     */
+    public boolean onByteReceived(int b) {
+        if (!xonXoff) {
+            return false;
+        }
+        if (b == XOFF) {
+            synchronized (mPauseLock) {
+                mPaused = true;
+            }
+            return true;
+        }
+        if (b == XON) {
+            onXon();
+            return true;
+        }
+        return false;
+    }
+
+    private void onXon() {
+        synchronized (mPauseLock) {
+            mPaused = false;
+            mPauseLock.notifyAll();
+        }
+    }
+
+    public void write(Sink sink, byte[] bytes, BusyProbe busyProbe) throws IOException {
+        write(sink, bytes, 0, bytes.length, busyProbe);
+    }
+
+    public void write(Sink sink, byte[] bytes, int offset, int length, BusyProbe busyProbe) throws IOException {
+        final long rate = bytesPerSecond > 0 ? bytesPerSecond : profileBytesPerSecond;
+        int step = chunkSize;
+        if (step <= 0) {
+            step = rate > 0 ? (int) Math.max(1, rate / PACER_CHUNKS_PER_SECOND) : length;
+            // no more than the printer can hold between XOFF and busy checks
+            if (receiveBuffer > 0) {
+                step = Math.min(step, receiveBuffer);
+            }
+        }
+        final long start = System.nanoTime();
+        int sent = 0;
+        while (sent < length) {
+            awaitClearToSend(busyProbe);
+            int len = Math.min(step, length - sent);
+            sink.write(bytes, offset + sent, len);
+            sent += len;
+            if (rate > 0 && sent < length) {
+                long dueNanos = start + sent * 1000000000L / rate;
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    sleepNanos(waitNanos);
+                }
+            }
+        }
+    }
+
+    private void awaitClearToSend(BusyProbe busyProbe) throws IOException {
+        if (xonXoff) {
+            synchronized (mPauseLock) {
+                long deadline = System.currentTimeMillis() + maxStallMs;
+                while (mPaused) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new StallException("printer did not send XON within " + maxStallMs + "ms");
+                    }
+                    try {
+                        mPauseLock.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("write interrupted while waiting for XON");
+                    }
+                }
+            }
+        }
+        if (waitWhileBusy && busyProbe != null) {
+            long deadline = System.currentTimeMillis() + maxStallMs;
+            while (busyProbe.isBusy()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new StallException("printer stayed busy for " + maxStallMs + "ms");
+                }
+                sleepNanos(BUSY_POLL_MS * 1000000L);
+            }
+        }
+    }
+
+    private static void sleepNanos(long nanos) throws IOException {
+        try {
+            Thread.sleep(nanos / 1000000L, (int) (nanos % 1000000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("write interrupted");
+        }
+    }
+}
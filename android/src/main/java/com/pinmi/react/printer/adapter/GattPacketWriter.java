@@ -0,0 +1,224 @@
+package com.pinmi.react.printer.adapter;
+
+import java.io.IOException;
+
+/**
+ * Splits a job into ATT packets that fit the negotiated MTU and keeps up to
+ * {@code window} of them queued on the GATT link. A slot is released when the
+ * stack reports the packet as sent. With credits enabled every packet also
+ * spends one credit, and writing stops until the printer grants more. A
+ * packet the stack reports as failed fails the next write, so the job rejects
+ * instead of printing with a gap.
+ * <p>
+ * The GATT layer is reached only through {@link Link} and the callback
+ * methods, so the packetizing and pacing can be tested without a radio.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class GattPacketWriter {
+
+    public interface Link {
+        /**
+         * Queues one packet. {@code packet} is reused for the next one once
+         * this returns, so the stack must have taken its own copy by then,
+         * as {@code BluetoothGatt.writeCharacteristic} does.
+         *
+         * @return false if the stack is busy; the packet is offered again
+         *         after the next completion or a short wait.
+         */
+        boolean writePacket(byte[] packet) throws IOException;
+    }
+
+    public static final int DEFAULT_MTU = 23;
+    public static final int ATT_HEADER_SIZE = 3;
+    public static final long DEFAULT_TIMEOUT_MS = 10000;
+
+    private static final long BUSY_RETRY_MS = 5;
+
+    private final Link link;
+    private final int window;
+    private final Object mLock = new Object();
+
+    private volatile int mPayloadSize = DEFAULT_MTU - ATT_HEADER_SIZE;
+    private long mTimeoutMs = DEFAULT_TIMEOUT_MS;
+    private int mInFlight = 0;
+    private boolean mCreditsEnabled = false;
+    private int mCredits = 0;
+    private boolean mClosed = false;
+    private IOException mFailure;
+    // only touched by the writing thread, which the adapter's write lock makes one at a time
+    private byte[] mPacket;
+
+    public GattPacketWriter(Link link, int window) {
+        this.link = link;
+        this.window = Math.max(1, window);
+    }
+
+    public void setMtu(int mtu) {
+        mPayloadSize = Math.max(1, mtu - ATT_HEADER_SIZE);
+    }
+
+    public int getPayloadSize() {
+        return mPayloadSize;
+    }
+
+    /**
+     * @param timeoutMs how long one packet may wait for a free slot or credit;
+     *                  0 waits as long as the connection lasts.
+     */
+    public void setTimeout(long timeoutMs) {
+        synchronized (mLock) {
+            mTimeoutMs = timeoutMs > 0 ? timeoutMs : Long.MAX_VALUE / 2;
+        }
+    }
+
+    public void enableCredits(int initialCredits) {
+        synchronized (mLock) {
+            mCreditsEnabled = true;
+            mCredits = Math.max(0, initialCredits);
+            mLock.notifyAll();
+        }
+    }
+
+    public void addCredits(int credits) {
+        synchronized (mLock) {
+            mCredits += credits;
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * Called from the GATT write callback.
+     */
+    public void onPacketSent() {
+        synchronized (mLock) {
+            if (mInFlight > 0) {
+                mInFlight--;
+            }
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * Called from the GATT write callback when the status is not
+     * {@code GATT_SUCCESS}; the packet was lost.
+     */
+    public void onPacketFailed(int status) {
+        synchronized (mLock) {
+            if (mInFlight > 0) {
+                mInFlight--;
+            }
+            if (mFailure == null) {
+                mFailure = new IOException("GATT write failed with status " + status);
+            }
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * Fails any pending and future writes, e.g. after a disconnect.
+     */
+    public void close() {
+        synchronized (mLock) {
+            mClosed = true;
+            mLock.notifyAll();
+        }
+    }
+
+    public void write(byte[] data, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int size = Math.min(mPayloadSize, end - offset);
+            byte[] packet = packet(size);
+            System.arraycopy(data, offset, packet, 0, size);
+            acquire();
+            boolean queued = false;
+            try {
+                long deadline = System.currentTimeMillis() + mTimeoutMs;
+                while (!(queued = link.writePacket(packet))) {
+                    awaitUntil(deadline, "GATT stack stayed busy");
+                }
+            } finally {
+                if (!queued) {
+                    giveBack();
+                }
+            }
+            offset += size;
+        }
+    }
+
+    /**
+     * @return the reused full-size packet, or an array of the exact size for
+     *         the shorter last packet of a write.
+     */
+    private byte[] packet(int size) {
+        if (size < mPayloadSize) {
+            return new byte[size];
+        }
+        if (mPacket == null || mPacket.length != size) {
+            mPacket = new byte[size];
+        }
+        return mPacket;
+    }
+
+    /**
+     * Returns the slot and the credit {@link #acquire()} took for a packet
+     * that never made it onto the link.
+     */
+    private void giveBack() {
+        synchronized (mLock) {
+            if (mInFlight > 0) {
+                mInFlight--;
+            }
+            if (mCreditsEnabled) {
+                mCredits++;
+            }
+            mLock.notifyAll();
+        }
+    }
+
+    private void acquire() throws IOException {
+        synchronized (mLock) {
+            long deadline = System.currentTimeMillis() + mTimeoutMs;
+            while (!mClosed && mFailure == null && (mInFlight >= window || (mCreditsEnabled && mCredits <= 0))) {
+                awaitUntil(deadline, mInFlight >= window ? "no GATT write completion" : "printer granted no credits");
+            }
+            throwIfFailed();
+            mInFlight++;
+            if (mCreditsEnabled) {
+                mCredits--;
+            }
+        }
+    }
+
+    /**
+     * A write failure is reported once; the connection stays usable for the
+     * next job.
+     */
+    private void throwIfFailed() throws IOException {
+        if (mClosed) {
+            throw new IOException("GATT connection is closed");
+        }
+        IOException failure = mFailure;
+        if (failure != null) {
+            mFailure = null;
+            throw failure;
+        }
+    }
+
+    private void awaitUntil(long deadline, String reason) throws IOException {
+        synchronized (mLock) {
+            throwIfFailed();
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new Timeouts.TimeoutException(Timeouts.Kind.WRITE, reason + " within " + mTimeoutMs + "ms");
+            }
+            try {
+                mLock.wait(Math.min(remaining, BUSY_RETRY_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("GATT write interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,814 @@
+package com.pinmi.react.printer.adapter;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.BluetoothProfile;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanResult;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.pinmi.react.printer.raster.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bluetooth Low Energy printer adapter. Talks to the printer's GATT write
+ * characteristic instead of an RFCOMM socket: the largest MTU is requested,
+ * jobs are split into write-without-response packets by
+ * {@link GattPacketWriter}, and a notify characteristic, if the printer has
+ * one, carries status replies and XON/XOFF.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class GattPrinterAdapter implements PrinterAdapter {
+    private static GattPrinterAdapter mInstance;
+
+    private String LOG_TAG = "RNGattPrinter";
+
+    public static final long SCAN_DURATION_MS = 4000;
+    private static final int MAX_MTU = 517;
+    // Android keeps only one GATT operation outstanding per connection
+    private static final int GATT_WRITE_WINDOW = 1;
+    private static final long STATUS_READ_TIMEOUT_MS = 1000;
+    private static final UUID CLIENT_CONFIG_DESCRIPTOR = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
+    // generic access, generic attribute and device information never carry print data
+    private static final String[] IGNORED_SERVICES = {
+            "00001800-0000-1000-8000-00805f9b34fb",
+            "00001801-0000-1000-8000-00805f9b34fb",
+            "0000180a-0000-1000-8000-00805f9b34fb"
+    };
+
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+
+    private volatile BluetoothDevice mDevice;
+    private final ConnectionState<BluetoothGatt> mConnection = new ConnectionState<>();
+    private BluetoothGattCharacteristic mWriteCharacteristic;
+    private BluetoothGattCharacteristic mNotifyCharacteristic;
+    private BluetoothGattCharacteristic mCreditCharacteristic;
+    private volatile GattPacketWriter mWriter;
+    private int mMtu = GattPacketWriter.DEFAULT_MTU;
+    private final Object mWriteLock = new Object();
+    private final BlockingQueue<byte[]> mNotifications = new LinkedBlockingQueue<>();
+    private final JobRunner mJobs;
+    private final Timeouts mTimeouts = new Timeouts();
+    private KnownPrinterCache mKnownPrinters;
+
+    private ReactApplicationContext mContext;
+
+    private final static char ESC_CHAR = 0x1B;
+
+    private GattPrinterAdapter() {
+        mJobs = new JobRunner(LOG_TAG, mWriteLock, mTransport, mStatusChannel);
+    }
+
+    public static GattPrinterAdapter getInstance() {
+        if (mInstance == null) {
+            mInstance = new GattPrinterAdapter();
+        }
+        return mInstance;
+    }
+
+    @Override
+    public void init(ReactApplicationContext reactContext, Promise promise) {
+        this.mContext = reactContext;
+        mJobs.setContext(reactContext);
+        this.mKnownPrinters = new KnownPrinterCache(reactContext, "gatt");
+        BluetoothAdapter bluetoothAdapter = getBTAdapter();
+        if (bluetoothAdapter == null) {
+            promise.reject("ERR_BT_ADAPTER", "No bluetooth adapter available");
+            return;
+        }
+        if (!bluetoothAdapter.isEnabled()) {
+            promise.reject("ERR_BT_DISABLED", "Bluetooth adapter is not enabled");
+            return;
+        }
+        promise.resolve("RNGattPrinter initialized");
+    }
+
+    private static BluetoothAdapter getBTAdapter() {
+        return BluetoothAdapter.getDefaultAdapter();
+    }
+
+    /**
+     * Runs an LE scan for {@link #SCAN_DURATION_MS} and resolves every device
+     * that advertised a name.
+     */
+    @Override
+    public void getDeviceList(final Promise promise) {
+        BluetoothAdapter bluetoothAdapter = getBTAdapter();
+        if (bluetoothAdapter == null) {
+            promise.reject("ERR_BT_ADAPTER", "No bluetooth adapter available");
+            return;
+        }
+        if (!bluetoothAdapter.isEnabled()) {
+            promise.reject("ERR_BT_DISABLED", "Bluetooth is not enabled");
+            return;
+        }
+        final BluetoothLeScanner scanner = bluetoothAdapter.getBluetoothLeScanner();
+        if (scanner == null) {
+            promise.reject("ERR_BT_SCAN", "Bluetooth LE scanning is not available");
+            return;
+        }
+        final Map<String, BluetoothDevice> found = new LinkedHashMap<>();
+        final ScanCallback callback = new ScanCallback() {
+            @Override
+            public void onScanResult(int callbackType, ScanResult result) {
+                BluetoothDevice device = result.getDevice();
+                if (device.getName() != null) {
+                    synchronized (found) {
+                        found.put(device.getAddress(), device);
+                    }
+                }
+            }
+
+            @Override
+            public void onScanFailed(int errorCode) {
+                PrinterLog.w(LOG_TAG, "LE scan failed: {}", errorCode);
+            }
+        };
+        try {
+            scanner.startScan(callback);
+        } catch (SecurityException e) {
+            promise.reject("ERR_BT_PERMISSION", e.getMessage());
+            return;
+        }
+        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    scanner.stopScan(callback);
+                } catch (SecurityException | IllegalStateException e) {
+                    PrinterLog.w(LOG_TAG, "failed to stop LE scan: {}", e.getMessage());
+                }
+                WritableArray array = Arguments.createArray();
+                synchronized (found) {
+                    for (BluetoothDevice device : found.values()) {
+                        WritableMap deviceMap = new BLEPrinterDevice(device).toRNWritableMap();
+                        if (mKnownPrinters != null) {
+                            mKnownPrinters.annotate(device.getAddress(), deviceMap);
+                        }
+                        array.pushMap(deviceMap);
+                    }
+                }
+                promise.resolve(array);
+            }
+        }, SCAN_DURATION_MS);
+    }
+
+    @Override
+    public void selectDevice(PrinterDeviceId printerDeviceId, Promise promise) {
+        selectDevice(printerDeviceId, null, promise);
+    }
+
+    /**
+     * Connects on a background thread. Options: {@code timeoutMs} in place of
+     * the connect deadline from {@link #setTimeouts(ReadableMap)},
+     * {@code serviceUuid} and {@code characteristicUuid} to pick the write
+     * characteristic explicitly, and {@code creditCharacteristicUuid} for
+     * printers that grant write credits through notifications.
+     */
+    public void selectDevice(PrinterDeviceId printerDeviceId, final ReadableMap options, final Promise promise) {
+        final BluetoothAdapter bluetoothAdapter = getBTAdapter();
+        if (bluetoothAdapter == null) {
+            promise.reject("ERR_BT_ADAPTER", "No bluetooth adapter available");
+            return;
+        }
+        if (!bluetoothAdapter.isEnabled()) {
+            promise.reject("ERR_BT_DISABLED", "Bluetooth is not enabled");
+            return;
+        }
+        final String address = ((BLEPrinterDeviceId) printerDeviceId).getInnerMacAddress();
+        BluetoothDevice selected = this.mDevice;
+        if (selected != null && mConnection.peek() != null) {
+            if (selected.getAddress().equals(address)) {
+                PrinterLog.v(LOG_TAG, "do not need to reconnect");
+                promise.resolve(toDeviceMap(selected));
+                return;
+            }
+        }
+        if (mConnection.isOpen()) {
+            closeConnectionIfExists();
+        }
+        final BluetoothDevice device;
+        try {
+            device = bluetoothAdapter.getRemoteDevice(address);
+        } catch (IllegalArgumentException e) {
+            promise.reject("ERR_NOT_FOUND", "invalid Bluetooth address: " + address);
+            return;
+        }
+        final long ticket = mConnection.beginConnect();
+        if (ticket == ConnectionState.NO_TICKET) {
+            promise.reject("ERR_BT_CONNECT", "another connect to the printer is in progress");
+            return;
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = SystemClock.elapsedRealtime();
+                long timeoutMs = options != null && options.hasKey("timeoutMs")
+                        ? (long) options.getDouble("timeoutMs")
+                        : 0;
+                if (timeoutMs <= 0) {
+                    timeoutMs = mTimeouts.getMillis(Timeouts.Kind.CONNECT);
+                }
+                try {
+                    BluetoothGatt gatt = connectGatt(device, options, timeoutMs);
+                    if (!mConnection.connected(ticket, gatt)) {
+                        // closeConn or another selectDevice came first
+                        disconnectQuietly(gatt);
+                        promise.reject("ERR_BT_CONNECT", "connection was closed while connecting");
+                        return;
+                    }
+                    PrinterEventEmitter.emitStateChanged(mContext, new BLEPrinterDevice(device),
+                            PrinterEventEmitter.STATE_CONNECTED);
+                    long connectMs = SystemClock.elapsedRealtime() - start;
+                    WritableMap deviceMap = toDeviceMap(device);
+                    deviceMap.putDouble("connect_ms", connectMs);
+                    if (mKnownPrinters != null) {
+                        mKnownPrinters.markConnected(address, connectMs,
+                                "inner_mac_address", address, "device_name", device.getName(), "mtu", mMtu);
+                        deviceMap.putDouble("last_seen", System.currentTimeMillis());
+                    }
+                    promise.resolve(deviceMap);
+                } catch (SecurityException e) {
+                    mConnection.connectFailed(ticket);
+                    promise.reject("ERR_BT_PERMISSION", e.getMessage());
+                } catch (IOException e) {
+                    mConnection.connectFailed(ticket);
+                    PrinterLog.w(LOG_TAG, "GATT connect to {} failed: {}", address, e.getMessage());
+                    promise.reject(JobRunner.errorCode(e, "ERR_BT_CONNECT"), e.getMessage());
+                }
+            }
+        }, "RNGattPrinterConnect").start();
+    }
+
+    private WritableMap toDeviceMap(BluetoothDevice device) {
+        WritableMap deviceMap = new BLEPrinterDevice(device).toRNWritableMap();
+        GattPacketWriter writer = mWriter;
+        deviceMap.putInt("mtu", mMtu);
+        deviceMap.putInt("packet_size", writer != null ? writer.getPayloadSize() : mMtu - GattPacketWriter.ATT_HEADER_SIZE);
+        deviceMap.putBoolean("write_without_response", mWriteCharacteristic != null
+                && (mWriteCharacteristic.getProperties() & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0);
+        deviceMap.putBoolean("credits", mCreditCharacteristic != null);
+        return deviceMap;
+    }
+
+    /**
+     * Connects, requests the largest MTU, discovers services, picks the write
+     * characteristic and subscribes to notifications. The GATT callbacks run
+     * on a binder thread and step through these stages one operation at a time;
+     * this thread only waits for the last stage or the deadline.
+     */
+    private BluetoothGatt connectGatt(BluetoothDevice device, ReadableMap options, long timeoutMs)
+            throws IOException {
+        long start = System.nanoTime();
+        boolean timedOut = false;
+        try {
+            return connectGattOnce(device, options, timeoutMs);
+        } catch (Timeouts.TimeoutException e) {
+            timedOut = true;
+            throw e;
+        } finally {
+            mJobs.getMetrics().recordConnect(device.getAddress(), (System.nanoTime() - start) / 1000, timedOut);
+        }
+    }
+
+    /**
+     * @param timeoutMs 0 waits for the stack to give up on its own
+     */
+    private BluetoothGatt connectGattOnce(final BluetoothDevice device, final ReadableMap options, long timeoutMs)
+            throws IOException {
+        final CountDownLatch ready = new CountDownLatch(1);
+        final IOException[] failure = new IOException[1];
+        final ArrayDeque<BluetoothGattDescriptor> pendingSubscriptions = new ArrayDeque<>();
+        final String serviceUuid = optString(options, "serviceUuid");
+        final String characteristicUuid = optString(options, "characteristicUuid");
+        final String creditUuid = optString(options, "creditCharacteristicUuid");
+
+        mNotifications.clear();
+        mMtu = GattPacketWriter.DEFAULT_MTU;
+        mWriteCharacteristic = null;
+        mNotifyCharacteristic = null;
+        mCreditCharacteristic = null;
+
+        BluetoothGattCallback callback = new BluetoothGattCallback() {
+            @Override
+            public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
+                if (newState == BluetoothProfile.STATE_CONNECTED) {
+                    if (!gatt.requestMtu(MAX_MTU)) {
+                        gatt.discoverServices();
+                    }
+                } else if (newState == BluetoothProfile.STATE_DISCONNECTED) {
+                    GattPacketWriter writer = mWriter;
+                    if (writer != null) {
+                        writer.close();
+                    }
+                    ConnectionState.Link<BluetoothGatt> link = mConnection.get();
+                    if (ready.getCount() > 0) {
+                        failure[0] = new IOException("GATT connection failed with status " + status);
+                        ready.countDown();
+                    } else if (link.transport == gatt && mConnection.lost(link)) {
+                        // the printer dropped the link: free the client slot so connectPrinter starts over
+                        PrinterLog.w(LOG_TAG, "GATT connection lost with status {}", status);
+                        closeQuietly(gatt);
+                        PrinterEventEmitter.emitStateChanged(mContext, new BLEPrinterDevice(device),
+                                PrinterEventEmitter.STATE_DISCONNECTED);
+                    }
+                }
+            }
+
+            @Override
+            public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
+                if (status == BluetoothGatt.GATT_SUCCESS) {
+                    mMtu = mtu;
+                }
+                gatt.discoverServices();
+            }
+
+            @Override
+            public void onServicesDiscovered(BluetoothGatt gatt, int status) {
+                if (status != BluetoothGatt.GATT_SUCCESS
+                        || !findCharacteristics(gatt, serviceUuid, characteristicUuid, creditUuid)) {
+                    failure[0] = new IOException("printer has no writable GATT characteristic");
+                    ready.countDown();
+                    return;
+                }
+                for (BluetoothGattCharacteristic characteristic : new BluetoothGattCharacteristic[] {
+                        mCreditCharacteristic, mNotifyCharacteristic }) {
+                    if (characteristic == null) {
+                        continue;
+                    }
+                    gatt.setCharacteristicNotification(characteristic, true);
+                    BluetoothGattDescriptor descriptor = characteristic.getDescriptor(CLIENT_CONFIG_DESCRIPTOR);
+                    if (descriptor != null) {
+                        descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
+                        pendingSubscriptions.add(descriptor);
+                    }
+                }
+                writeNextSubscription(gatt);
+            }
+
+            @Override
+            public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
+                writeNextSubscription(gatt);
+            }
+
+            private void writeNextSubscription(BluetoothGatt gatt) {
+                BluetoothGattDescriptor next = pendingSubscriptions.poll();
+                if (next == null || !gatt.writeDescriptor(next)) {
+                    ready.countDown();
+                }
+            }
+
+            @Override
+            public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic,
+                    int status) {
+                GattPacketWriter writer = mWriter;
+                if (writer == null) {
+                    return;
+                }
+                if (status == BluetoothGatt.GATT_SUCCESS) {
+                    writer.onPacketSent();
+                } else {
+                    PrinterLog.w(LOG_TAG, "GATT write failed with status {}", status);
+                    writer.onPacketFailed(status);
+                }
+            }
+
+            @Override
+            public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
+                byte[] value = characteristic.getValue();
+                if (value == null || value.length == 0) {
+                    return;
+                }
+                GattPacketWriter writer = mWriter;
+                if (characteristic == mCreditCharacteristic) {
+                    if (writer != null) {
+                        writer.addCredits(value[0] & 0xFF);
+                    }
+                } else {
+                    mNotifications.offer(value);
+                }
+            }
+        };
+
+        final GattPacketWriter writer = new GattPacketWriter(mPacketLink, GATT_WRITE_WINDOW);
+        mWriter = writer;
+        BluetoothGatt gatt;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            gatt = device.connectGatt(mContext, false, callback, BluetoothDevice.TRANSPORT_LE);
+        } else {
+            gatt = device.connectGatt(mContext, false, callback);
+        }
+        if (gatt == null) {
+            throw new IOException("connectGatt returned no connection");
+        }
+        boolean completed;
+        try {
+            completed = ready.await(timeoutMs > 0 ? timeoutMs : Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+        if (!completed || failure[0] != null) {
+            writer.close();
+            gatt.disconnect();
+            gatt.close();
+            if (!completed) {
+                throw new Timeouts.TimeoutException(Timeouts.Kind.CONNECT, timeoutMs);
+            }
+            throw failure[0];
+        }
+        writer.setMtu(mMtu);
+        if (mCreditCharacteristic != null) {
+            writer.enableCredits(0);
+        }
+        this.mDevice = device;
+        if (PrinterLog.isLoggable(Log.VERBOSE)) {
+            PrinterLog.v(LOG_TAG, "GATT connected, mtu {}, write {}", mMtu, mWriteCharacteristic.getUuid());
+        }
+        return gatt;
+    }
+
+    private static String optString(ReadableMap options, String key) {
+        return options != null && options.hasKey(key) ? options.getString(key) : null;
+    }
+
+    /**
+     * Picks the write characteristic: the one named in the options if given,
+     * otherwise the first one that supports write-without-response, otherwise
+     * the first writable one. A notify characteristic in the same service is
+     * used for status replies.
+     */
+    private boolean findCharacteristics(BluetoothGatt gatt, String serviceUuid, String characteristicUuid,
+            String creditUuid) {
+        BluetoothGattCharacteristic withResponse = null;
+        for (BluetoothGattService service : gatt.getServices()) {
+            String uuid = service.getUuid().toString();
+            if (serviceUuid != null ? !serviceUuid.equalsIgnoreCase(uuid) : isIgnoredService(uuid)) {
+                continue;
+            }
+            for (BluetoothGattCharacteristic characteristic : service.getCharacteristics()) {
+                if (creditUuid != null && creditUuid.equalsIgnoreCase(characteristic.getUuid().toString())) {
+                    mCreditCharacteristic = characteristic;
+                    continue;
+                }
+                if (characteristicUuid != null
+                        && !characteristicUuid.equalsIgnoreCase(characteristic.getUuid().toString())) {
+                    continue;
+                }
+                int properties = characteristic.getProperties();
+                if (mWriteCharacteristic == null
+                        && (properties & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0) {
+                    mWriteCharacteristic = characteristic;
+                } else if (withResponse == null && (properties & BluetoothGattCharacteristic.PROPERTY_WRITE) != 0) {
+                    withResponse = characteristic;
+                }
+            }
+        }
+        if (mWriteCharacteristic == null) {
+            mWriteCharacteristic = withResponse;
+        }
+        if (mWriteCharacteristic == null) {
+            return false;
+        }
+        mWriteCharacteristic.setWriteType(
+                (mWriteCharacteristic.getProperties() & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0
+                        ? BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE
+                        : BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
+        for (BluetoothGattCharacteristic characteristic : mWriteCharacteristic.getService().getCharacteristics()) {
+            if (characteristic != mCreditCharacteristic
+                    && (characteristic.getProperties() & BluetoothGattCharacteristic.PROPERTY_NOTIFY) != 0) {
+                mNotifyCharacteristic = characteristic;
+                break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIgnoredService(String uuid) {
+        for (String ignored : IGNORED_SERVICES) {
+            if (ignored.equalsIgnoreCase(uuid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final GattPacketWriter.Link mPacketLink = new GattPacketWriter.Link() {
+        @Override
+        public boolean writePacket(byte[] packet) throws IOException {
+            BluetoothGatt gatt = mConnection.peek();
+            BluetoothGattCharacteristic characteristic = mWriteCharacteristic;
+            if (gatt == null || characteristic == null) {
+                throw new IOException("GATT connection is closed");
+            }
+            characteristic.setValue(packet);
+            return gatt.writeCharacteristic(characteristic);
+        }
+    };
+
+    @Override
+    public void closeConnectionIfExists() {
+        // lets the job on the wire finish, then fails the rest with "GATT connection is closed"
+        BluetoothGatt gatt = mConnection.close(DRAIN_TIMEOUT_MS);
+        stopStatusMonitor();
+        if (gatt != null) {
+            disconnectQuietly(gatt);
+        }
+        if (this.mDevice != null) {
+            PrinterEventEmitter.emitStateChanged(mContext, new BLEPrinterDevice(this.mDevice),
+                    PrinterEventEmitter.STATE_DISCONNECTED);
+            this.mDevice = null;
+        }
+    }
+
+    /**
+     * Closes the packet writer first so a job still waiting for credits fails
+     * instead of hanging.
+     */
+    private void disconnectQuietly(BluetoothGatt gatt) {
+        GattPacketWriter writer = mWriter;
+        if (writer != null) {
+            writer.close();
+        }
+        try {
+            gatt.disconnect();
+        } catch (SecurityException e) {
+            PrinterLog.w(LOG_TAG, "failed to disconnect GATT: {}", e.getMessage());
+        }
+        closeQuietly(gatt);
+    }
+
+    private void closeQuietly(BluetoothGatt gatt) {
+        try {
+            gatt.close();
+        } catch (SecurityException e) {
+            PrinterLog.w(LOG_TAG, "failed to close GATT: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closing the writer would leave the connection unusable, so the job
+     * deadline is only checked between chunks, each of which is bounded by
+     * the write deadline.
+     */
+    private Timeouts.Timer startJobDeadline() {
+        return mTimeouts.start(Timeouts.Kind.JOB, () -> {
+        });
+    }
+
+    private void writeJob(RawPayload payload, final Timeouts.Timer deadline) throws IOException {
+        PrinterLog.beginSection(PrinterLog.SECTION_TRANSFER);
+        try {
+            mJobs.prepareTransfer();
+            // whole jobs only, so status queries never land inside a command
+            synchronized (mWriteLock) {
+                ConnectionState.Link<BluetoothGatt> link = mConnection.acquire();
+                final GattPacketWriter writer = mWriter;
+                if (link == null || writer == null) {
+                    mConnection.release(link);
+                    throw new IOException("GATT connection is closed");
+                }
+                writer.setTimeout(mTimeouts.getMillis(Timeouts.Kind.WRITE));
+                try {
+                    mJobs.pace((buffer, offset, length) -> {
+                        deadline.check();
+                        writer.write(buffer, offset, length);
+                    }, payload);
+                } finally {
+                    mConnection.release(link);
+                }
+            }
+        } finally {
+            PrinterLog.endSection();
+        }
+    }
+
+    /**
+     * Unpaced write for real-time commands such as status queries.
+     */
+    private void writeRaw(byte[] bytes) throws IOException {
+        synchronized (mWriteLock) {
+            ConnectionState.Link<BluetoothGatt> link = mConnection.acquire();
+            GattPacketWriter writer = mWriter;
+            if (link == null || writer == null) {
+                mConnection.release(link);
+                throw new IOException("GATT connection is closed");
+            }
+            try {
+                writer.write(bytes, 0, bytes.length);
+            } finally {
+                mConnection.release(link);
+            }
+        }
+    }
+
+    @Override
+    public void printRawData(String rawBase64Data, Promise promise) {
+        mJobs.printRawData(rawBase64Data, promise);
+    }
+
+    @Override
+    public void printRawBytes(ByteBuffer data, Promise promise) {
+        mJobs.printRawBytes(data, promise);
+    }
+
+    @Override
+    public void printText(String text, ReadableMap options, String jobId, Promise promise) {
+        mJobs.printText(text, options, jobId, promise);
+    }
+
+    @Override
+    public void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise) {
+        mJobs.printTemplate(templateId, values, jobId, promise);
+    }
+
+    @Override
+    public void printFile(String uri, String jobId, Promise promise) {
+        mJobs.printFile(uri, jobId, promise);
+    }
+
+    @Override
+    public void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise) {
+        mJobs.printImageData(imageUrl, imageWidth, jobId, promise);
+    }
+
+    @Override
+    public void printQrCode(String qrCode, double qrSize, String jobId, Promise promise) {
+        mJobs.printQrCode(qrCode, qrSize, jobId, promise);
+    }
+
+    @Override
+    public void printReceipt(ReadableArray segments, String jobId, Promise promise) {
+        mJobs.printReceipt(segments, jobId, promise);
+    }
+
+    @Override
+    public void openSession(String sessionId, ReadableMap options, Promise promise) {
+        mJobs.openSession(sessionId, options, promise);
+    }
+
+    @Override
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        mJobs.appendSession(sessionId, segments, promise);
+    }
+
+    @Override
+    public void closeSession(String sessionId, Promise promise) {
+        mJobs.closeSession(sessionId, promise);
+    }
+
+    @Override
+    public boolean cancelJob(String jobId) {
+        return mJobs.cancelJob(jobId);
+    }
+
+    @Override
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        mJobs.startStatusMonitor(mode, intervalMs, promise);
+    }
+
+    @Override
+    public void stopStatusMonitor() {
+        mJobs.stopStatusMonitor();
+    }
+
+    @Override
+    public PrinterStatus getStatus() {
+        return mJobs.getStatus();
+    }
+
+    @Override
+    public WritableMap getStats() {
+        return mJobs.getStats();
+    }
+
+    @Override
+    public WritableMap getProfile() {
+        return mJobs.getProfile();
+    }
+
+    @Override
+    public void setJobEvents(boolean enabled) {
+        mJobs.setJobEvents(enabled);
+    }
+
+    @Override
+    public void setFlowControl(ReadableMap options) {
+        mJobs.setFlowControl(options);
+    }
+
+    @Override
+    public void setTimeouts(ReadableMap options) {
+        mTimeouts.configure(options);
+    }
+
+    private final JobRunner.Transport mTransport = new JobRunner.Transport() {
+        @Override
+        public boolean checkConnection(Promise promise) {
+            if (!mConnection.isOpen()) {
+                promise.reject("ERR_NO_CONN", "GATT connection is not built, may be you forgot to connectPrinter");
+                return false;
+            }
+            if (mConnection.getState() == ConnectionState.State.DISCONNECTED) {
+                // nothing reconnects a GATT link on its own
+                promise.reject("ERR_NO_CONN", "GATT connection was lost, connectPrinter again");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Timeouts.Timer startJobDeadline() {
+            return GattPrinterAdapter.this.startJobDeadline();
+        }
+
+        @Override
+        public void write(RawPayload payload, Timeouts.Timer deadline) throws IOException {
+            writeJob(payload, deadline);
+        }
+
+        @Override
+        public void writeBands(BufferPool.Bytes bytes, PrintJobs.Handle handle, final Timeouts.Timer deadline)
+                throws IOException {
+            PrintJobs.writeBands(bytes.array, bytes.length, handle,
+                    (buffer, offset, length) -> writeJob(RawPayload.wrap(buffer, offset, length), deadline));
+        }
+
+        @Override
+        public String statusUnsupported() {
+            return mNotifyCharacteristic != null ? null : "printer has no notify characteristic to read status from";
+        }
+
+        @Override
+        public String printerId() {
+            BluetoothDevice device = mDevice;
+            return device != null ? device.getAddress() : "unknown";
+        }
+
+        @Override
+        public String modelName() {
+            return BLEPrinterAdapter.deviceName(mDevice);
+        }
+
+        @Override
+        public PrinterDevice device() {
+            BluetoothDevice device = mDevice;
+            return device != null ? new BLEPrinterDevice(device) : null;
+        }
+    };
+
+    private final PrinterStatusMonitor.Channel mStatusChannel = new PrinterStatusMonitor.Channel() {
+        @Override
+        public int read(byte[] buffer) {
+            if (mConnection.peek() == null) {
+                return -1;
+            }
+            byte[] value;
+            try {
+                value = mNotifications.poll(STATUS_READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+            if (value == null) {
+                return 0;
+            }
+            int length = Math.min(value.length, buffer.length);
+            System.arraycopy(value, 0, buffer, 0, length);
+            return length;
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            writeRaw(bytes);
+        }
+    };
+}
@@ -0,0 +1,109 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative longs. Every power of two is
+ * split into {@value #SUB_BUCKETS} buckets, so recorded values and
+ * percentiles are within 12.5% of the true value. Recording is a few
+ * atomic increments and never allocates.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 microseconds is about 12 days, far beyond any print job
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    public void record(long value) {
+        value = Math.max(0, Math.min(value, MAX_VALUE));
+        mCounts.incrementAndGet(bucketOf(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+        long max;
+        while (value > (max = mMax.get()) && !mMax.compareAndSet(max, value)) {
+            // retry
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public double getMean() {
+        long count = mCount.get();
+        return count == 0 ? 0 : (double) mSum.get() / count;
+    }
+
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the midpoint of the bucket holding the percentile, capped at the
+     *         largest recorded value; 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += mCounts.get(bucket);
+            if (seen >= rank) {
+                long low = lowerBound(bucket);
+                long high = lowerBound(bucket + 1) - 1;
+                return Math.min(low + (high - low) / 2, mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    /**
+     * @param scale multiplied into every value, e.g. 1e-3 to report microseconds as ms.
+     */
+    public WritableMap toRNWritableMap(double scale) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("count", getCount());
+        map.putDouble("mean", getMean() * scale);
+        map.putDouble("p50", getPercentile(50) * scale);
+        map.putDouble("p90", getPercentile(90) * scale);
+        map.putDouble("p99", getPercentile(99) * scale);
+        map.putDouble("max", getMax() * scale);
+        return map;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,90 @@
+package com.pinmi.react.printer.adapter;
+
+import android.graphics.Bitmap;
+
+import com.pinmi.react.printer.raster.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Downloads an image for a print job into pooled buffers and decodes it
+ * through {@link BitmapPool}. Shared by all adapters.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class ImageFetcher {
+
+    private ImageFetcher() {
+    }
+
+    /**
+     * Downloads the image completely before decoding it, so the two can be
+     * timed separately as {@link JobMetrics.Phase#FETCH} and
+     * {@link JobMetrics.Phase#DECODE} of {@code job}. Cancelling
+     * {@code handle} disconnects the download. Release the result to
+     * {@link BitmapPool}.
+     *
+     * @return the image, or null if it could not be fetched or decoded.
+     * @throws PrintJobs.CancelledException instead of returning null once cancelled.
+     */
+    public static Bitmap fetch(String src, JobMetrics.Job job, PrintJobs.Handle handle)
+            throws PrintJobs.CancelledException {
+        BufferPool pool = BufferPool.SHARED;
+        byte[] encoded = null;
+        int size = 0;
+        try {
+            PrinterLog.beginSection(PrinterLog.SECTION_FETCH);
+            try {
+                URL url = new URL(src);
+                final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setDoInput(true);
+                handle.setOnCancel(connection::disconnect);
+                try {
+                    connection.connect();
+                    encoded = pool.bytes(Math.max(connection.getContentLength(), 8192));
+                    try (InputStream input = connection.getInputStream()) {
+                        int read;
+                        while ((read = input.read(encoded, size, encoded.length - size)) > 0) {
+                            handle.throwIfCancelled();
+                            size += read;
+                            if (size == encoded.length) {
+                                byte[] larger = pool.bytes(2 * encoded.length);
+                                System.arraycopy(encoded, 0, larger, 0, size);
+                                pool.release(encoded);
+                                encoded = larger;
+                            }
+                        }
+                    }
+                } finally {
+                    handle.setOnCancel(null);
+                    connection.disconnect();
+                }
+            } catch (PrintJobs.CancelledException e) {
+                throw e;
+            } catch (IOException e) {
+                // the disconnect from cancelJob surfaces as a failed read
+                handle.throwIfCancelled();
+                PrinterLog.w(PrinterLog.LOG_TAG, "failed to fetch image {}: {}", src, e.getMessage());
+                return null;
+            } finally {
+                PrinterLog.endSection();
+            }
+            job.mark(JobMetrics.Phase.FETCH);
+            handle.throwIfCancelled();
+            PrinterLog.beginSection(PrinterLog.SECTION_DECODE);
+            try {
+                return BitmapPool.getInstance().decode(encoded, 0, size);
+            } finally {
+                PrinterLog.endSection();
+                job.mark(JobMetrics.Phase.DECODE);
+            }
+        } finally {
+            if (encoded != null) {
+                pool.release(encoded);
+            }
+        }
+    }
+}
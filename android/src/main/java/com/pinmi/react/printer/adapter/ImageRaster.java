@@ -0,0 +1,114 @@
+package com.pinmi.react.printer.adapter;
+
+import android.graphics.Bitmap;
+
+import com.pinmi.react.printer.raster.Barcode;
+import com.pinmi.react.printer.raster.BitImage;
+import com.pinmi.react.printer.raster.BufferPool;
+import com.pinmi.react.printer.raster.Cancellation;
+import com.pinmi.react.printer.raster.Raster;
+import com.pinmi.react.printer.raster.Resize;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Feeds {@link Bitmap}s to the platform-independent {@link Raster} encoder,
+ * and turns QR codes into the cheapest job the printer's
+ * {@link PrinterProfile} allows.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class ImageRaster {
+
+    private ImageRaster() {
+    }
+
+    /**
+     * Encodes {@code bitmap}, scaled down to at most {@code maxSize} dots
+     * wide, in the printer's {@link PrinterProfile#image} command and
+     * {@link PrinterProfile#dither dithered} if it asks for that, stopping
+     * between bands once {@code job} is cancelled.
+     *
+     * @return the job in a pooled buffer; release it once written.
+     */
+    public static BufferPool.Bytes encode(Bitmap bitmap, int maxSize, PrinterProfile profile,
+            PrintJobs.Handle job) throws PrintJobs.CancelledException {
+        try {
+            return encode(bitmap, maxSize, profile.image, profile.dither, (Cancellation) job);
+        } catch (CancellationException e) {
+            throw new PrintJobs.CancelledException(job.id);
+        }
+    }
+
+    private static BufferPool.Bytes encode(final Bitmap bitmap, int maxSize, BitImage.Command command,
+            boolean dither, Cancellation cancellation) {
+        PrinterLog.beginSection(PrinterLog.SECTION_ENCODE);
+        try {
+            final int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            // a row at a time: a full ARGB copy of a photo is tens of megabytes
+            Resize.RowSource rows = new Resize.RowSource() {
+                @Override
+                public void read(int y, int[] argb) {
+                    bitmap.getPixels(argb, 0, width, 0, y, width, 1);
+                    // alpha has always been ignored; transparent pixels print as their colour
+                    for (int x = 0; x < width; x++) {
+                        argb[x] |= 0xFF000000;
+                    }
+                }
+            };
+            return Raster.encodeImage(rows, width, height, maxSize, command, dither, BufferPool.SHARED,
+                    cancellation);
+        } finally {
+            PrinterLog.endSection();
+        }
+    }
+
+    /**
+     * @return the {@code GS ( k} commands if {@code profile} renders QR codes
+     *         itself, otherwise the image in a pooled buffer; null if
+     *         {@code content} does not fit. Release it once written.
+     */
+    public static BufferPool.Bytes encodeQr(String content, int size, PrinterProfile profile,
+            PrintJobs.Handle job) throws PrintJobs.CancelledException {
+        PrinterLog.beginSection(PrinterLog.SECTION_ENCODE);
+        try {
+            if (profile.qr == PrinterProfile.QrMode.NATIVE) {
+                job.throwIfCancelled();
+                byte[] commands = EscPosCommands.qrCode(content, size);
+                return commands == null ? null : BufferPool.Bytes.wrap(commands);
+            }
+            return Raster.encodeQr(content, size, profile.image, BufferPool.SHARED, job);
+        } catch (CancellationException e) {
+            throw new PrintJobs.CancelledException(job.id);
+        } finally {
+            PrinterLog.endSection();
+        }
+    }
+
+    /**
+     * @return the {@code GS k} commands if {@code profile} draws barcodes
+     *         itself, otherwise the bars as an image no wider than the paper
+     *         (without the digits below them); null if {@code content} is not
+     *         a valid {@code format} barcode or does not fit. Release it once
+     *         written.
+     */
+    public static BufferPool.Bytes encodeBarcode(String content, Barcode.Format format, int moduleWidth,
+            int height, PrinterProfile profile, PrintJobs.Handle job) throws PrintJobs.CancelledException {
+        PrinterLog.beginSection(PrinterLog.SECTION_ENCODE);
+        try {
+            if (profile.barcode) {
+                job.throwIfCancelled();
+                byte[] commands = Barcode.isValid(content, format)
+                        ? EscPosCommands.barcode(content, format, moduleWidth, height) : null;
+                return commands == null ? null : BufferPool.Bytes.wrap(commands);
+            }
+            return Raster.encodeBarcode(content, format, moduleWidth, height, profile.dotWidth, profile.image,
+                    BufferPool.SHARED, job);
+        } catch (CancellationException e) {
+            throw new PrintJobs.CancelledException(job.id);
+        } finally {
+            PrinterLog.endSection();
+        }
+    }
+}
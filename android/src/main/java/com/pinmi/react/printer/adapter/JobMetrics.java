@@ -0,0 +1,307 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-printer job timings. A {@link Job} is started when the print call
+ * arrives and {@link Job#mark marked} at the end of each phase; completed jobs
+ * are aggregated into {@link Histogram}s per printer. Phase times are kept in
+ * microseconds, throughput in bytes per second.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class JobMetrics {
+
+    public enum Phase {
+        /** from the print call until the job thread owns the encoder */
+        QUEUE_WAIT("queue_wait_ms"),
+        /** downloading an image */
+        FETCH("fetch_ms"),
+        /** Base64 or image decoding */
+        DECODE("decode_ms"),
+        /** text encoding, QR generation and rasterizing */
+        ENCODE("encode_ms"),
+        /** writing to the transport, including waits for the write lock and flow control */
+        TRANSFER("transfer_ms");
+
+        public final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Timeouts.Kind[] TIMEOUT_KINDS = Timeouts.Kind.values();
+
+    public static final class Job {
+        public final String kind;
+        private final long mStartNanos;
+        private long mMarkNanos;
+        private long mEndNanos;
+        private final long[] mPhaseNanos = new long[PHASES.length];
+        private int mMarkedPhases;
+        private long mBytes;
+        private boolean mSuccess;
+        private Timeouts.Kind mTimeout;
+
+        Job(String kind) {
+            this.kind = kind;
+            this.mStartNanos = System.nanoTime();
+            this.mMarkNanos = mStartNanos;
+        }
+
+        /**
+         * Charges the time since the previous mark, or since the job started, to {@code phase}.
+         */
+        public void mark(Phase phase) {
+            long now = System.nanoTime();
+            mPhaseNanos[phase.ordinal()] += now - mMarkNanos;
+            mMarkedPhases |= 1 << phase.ordinal();
+            mMarkNanos = now;
+        }
+
+        public void setBytes(long bytes) {
+            this.mBytes = bytes;
+        }
+
+        public long getBytes() {
+            return mBytes;
+        }
+
+        public boolean isSuccess() {
+            return mSuccess;
+        }
+
+        /**
+         * Records that the job failed because {@code kind}'s deadline passed.
+         */
+        public void setTimeout(Timeouts.Kind kind) {
+            this.mTimeout = kind;
+        }
+
+        public Timeouts.Kind getTimeout() {
+            return mTimeout;
+        }
+
+        /**
+         * @return -1 if the phase was never marked.
+         */
+        public long getPhaseMicros(Phase phase) {
+            return (mMarkedPhases & (1 << phase.ordinal())) == 0 ? -1 : mPhaseNanos[phase.ordinal()] / 1000;
+        }
+
+        public long getTotalMicros() {
+            return ((mEndNanos != 0 ? mEndNanos : System.nanoTime()) - mStartNanos) / 1000;
+        }
+
+        /**
+         * @return bytes written per second of transfer, 0 if nothing was transferred.
+         */
+        public long getBytesPerSecond() {
+            long transferNanos = mPhaseNanos[Phase.TRANSFER.ordinal()];
+            return mBytes == 0 || transferNanos <= 0 ? 0 : (long) (mBytes * 1e9 / transferNanos);
+        }
+
+        public WritableMap toRNWritableMap() {
+            WritableMap map = Arguments.createMap();
+            map.putString("kind", kind);
+            map.putBoolean("success", mSuccess);
+            if (mTimeout != null) {
+                map.putString("timeout", mTimeout.code);
+            }
+            map.putDouble("bytes", mBytes);
+            for (Phase phase : PHASES) {
+                long micros = getPhaseMicros(phase);
+                if (micros >= 0) {
+                    map.putDouble(phase.key, micros / 1000.0);
+                }
+            }
+            map.putDouble("total_ms", getTotalMicros() / 1000.0);
+            map.putDouble("bytes_per_second", getBytesPerSecond());
+            return map;
+        }
+    }
+
+    public static final class PrinterStats {
+        private final AtomicLong mJobs = new AtomicLong();
+        private final AtomicLong mFailures = new AtomicLong();
+        private final AtomicLong mBytes = new AtomicLong();
+        private final Histogram[] mPhases = new Histogram[PHASES.length];
+        private final Histogram mTotal = new Histogram();
+        private final Histogram mThroughput = new Histogram();
+        private final Histogram mFailed = new Histogram();
+        private final Histogram mConnect = new Histogram();
+        private final AtomicLong[] mTimeouts = new AtomicLong[TIMEOUT_KINDS.length];
+        private volatile Job mLastJob;
+
+        PrinterStats() {
+            for (int i = 0; i < mPhases.length; i++) {
+                mPhases[i] = new Histogram();
+            }
+            for (int i = 0; i < mTimeouts.length; i++) {
+                mTimeouts[i] = new AtomicLong();
+            }
+        }
+
+        void record(Job job) {
+            mJobs.incrementAndGet();
+            if (!job.mSuccess) {
+                mFailures.incrementAndGet();
+                // how long a failing job held its caller, which the deadlines bound
+                mFailed.record(job.getTotalMicros());
+                if (job.mTimeout != null) {
+                    mTimeouts[job.mTimeout.ordinal()].incrementAndGet();
+                }
+                return;
+            }
+            mBytes.addAndGet(job.mBytes);
+            for (Phase phase : PHASES) {
+                long micros = job.getPhaseMicros(phase);
+                if (micros >= 0) {
+                    mPhases[phase.ordinal()].record(micros);
+                }
+            }
+            mTotal.record(job.getTotalMicros());
+            long bytesPerSecond = job.getBytesPerSecond();
+            if (bytesPerSecond > 0) {
+                mThroughput.record(bytesPerSecond);
+                mLastJob = job;
+            }
+        }
+
+        /**
+         * @return the last successful job that transferred anything, with its
+         *         bytes and throughput over the whole job; null before one.
+         */
+        public Job getLastJob() {
+            return mLastJob;
+        }
+
+        public long getJobs() {
+            return mJobs.get();
+        }
+
+        public long getFailures() {
+            return mFailures.get();
+        }
+
+        public long getBytes() {
+            return mBytes.get();
+        }
+
+        public Histogram getPhase(Phase phase) {
+            return mPhases[phase.ordinal()];
+        }
+
+        public Histogram getTotal() {
+            return mTotal;
+        }
+
+        public Histogram getThroughput() {
+            return mThroughput;
+        }
+
+        public Histogram getFailed() {
+            return mFailed;
+        }
+
+        public Histogram getConnect() {
+            return mConnect;
+        }
+
+        public long getTimeouts(Timeouts.Kind kind) {
+            return mTimeouts[kind.ordinal()].get();
+        }
+
+        public WritableMap toRNWritableMap() {
+            WritableMap map = Arguments.createMap();
+            map.putDouble("jobs", getJobs());
+            map.putDouble("failures", getFailures());
+            map.putDouble("bytes", getBytes());
+            for (Phase phase : PHASES) {
+                map.putMap(phase.key, mPhases[phase.ordinal()].toRNWritableMap(1e-3));
+            }
+            map.putMap("total_ms", mTotal.toRNWritableMap(1e-3));
+            map.putMap("bytes_per_second", mThroughput.toRNWritableMap(1));
+            map.putMap("failed_ms", mFailed.toRNWritableMap(1e-3));
+            map.putMap("connect_ms", mConnect.toRNWritableMap(1e-3));
+            WritableMap timeouts = Arguments.createMap();
+            for (Timeouts.Kind kind : TIMEOUT_KINDS) {
+                timeouts.putDouble(kind.name().toLowerCase(Locale.ROOT), getTimeouts(kind));
+            }
+            map.putMap("timeouts", timeouts);
+            return map;
+        }
+    }
+
+    private final Map<String, PrinterStats> mPrinters = new ConcurrentHashMap<>();
+    private volatile boolean mEventsEnabled = false;
+
+    public Job begin(String kind) {
+        return new Job(kind);
+    }
+
+    /**
+     * Ends {@code job} and adds it to the stats of {@code printer}; failed jobs
+     * only count towards {@code failures}.
+     */
+    public void complete(String printer, Job job, boolean success) {
+        job.mEndNanos = System.nanoTime();
+        job.mSuccess = success;
+        statsFor(printer).record(job);
+    }
+
+    /**
+     * Adds one connect attempt to {@code printer}'s {@code connect_ms}; a
+     * timed-out attempt also counts towards {@code timeouts.connect}.
+     */
+    public void recordConnect(String printer, long micros, boolean timedOut) {
+        PrinterStats stats = statsFor(printer);
+        stats.mConnect.record(micros);
+        if (timedOut) {
+            stats.mTimeouts[Timeouts.Kind.CONNECT.ordinal()].incrementAndGet();
+        }
+    }
+
+    private PrinterStats statsFor(String printer) {
+        PrinterStats stats = mPrinters.get(printer);
+        if (stats == null) {
+            PrinterStats created = new PrinterStats();
+            stats = mPrinters.putIfAbsent(printer, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    public PrinterStats getStats(String printer) {
+        return mPrinters.get(printer);
+    }
+
+    /**
+     * @return stats keyed by printer id, e.g. {@code host:port} or a MAC address.
+     */
+    public WritableMap toRNWritableMap() {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, PrinterStats> entry : mPrinters.entrySet()) {
+            map.putMap(entry.getKey(), entry.getValue().toRNWritableMap());
+        }
+        return map;
+    }
+
+    public void setEventsEnabled(boolean enabled) {
+        this.mEventsEnabled = enabled;
+    }
+
+    public boolean isEventsEnabled() {
+        return mEventsEnabled;
+    }
+}
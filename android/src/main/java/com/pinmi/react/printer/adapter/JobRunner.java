@@ -0,0 +1,664 @@
+package com.pinmi.react.printer.adapter;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.pinmi.react.printer.raster.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The printing side of an adapter, the same for every transport: the
+ * printer's {@link PrintJobs} worker, job metrics, print sessions, the status
+ * monitor and flow control. The adapter keeps the connection and hands jobs
+ * to the printer through its {@link Transport}.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class JobRunner {
+
+    /**
+     * How the jobs reach one adapter's printer.
+     */
+    public interface Transport {
+        /**
+         * @return false after rejecting {@code promise} if there is no
+         *         connection to print on.
+         */
+        boolean checkConnection(Promise promise);
+
+        /**
+         * Arms the job deadline; called under the write lock.
+         */
+        Timeouts.Timer startJobDeadline();
+
+        /**
+         * Sends a job, or a part of one, through {@link JobRunner#pace}; called
+         * under the write lock.
+         */
+        void write(RawPayload payload, Timeouts.Timer deadline) throws IOException;
+
+        /**
+         * Sends an image job with {@link PrintJobs#writeBands}; called under
+         * the write lock.
+         */
+        void writeBands(BufferPool.Bytes bytes, PrintJobs.Handle handle, Timeouts.Timer deadline)
+                throws IOException;
+
+        /**
+         * @return why status cannot be read from the printer, or null if it can.
+         */
+        String statusUnsupported();
+
+        /**
+         * @return the key for metrics and profiles, or "unknown".
+         */
+        String printerId();
+
+        /**
+         * @return the model name a profile is matched by, or null.
+         */
+        String modelName();
+
+        /**
+         * @return the selected printer, for events; may be null.
+         */
+        PrinterDevice device();
+    }
+
+    private final String LOG_TAG;
+    private final Object mWriteLock;
+    private final Transport mTransport;
+    private final PrinterStatusMonitor.Channel mStatusChannel;
+    private final PrintJobs mJobs;
+    private final JobMetrics mMetrics = new JobMetrics();
+    private final Map<String, PrintSession> mSessions = new ConcurrentHashMap<>();
+    private final FlowController mFlowController = new FlowController();
+    // confined to the worker: jobs run one at a time, so its reused buffer needs no lock
+    private final EscPosBuilder mTextBuilder = new EscPosBuilder();
+    private PrinterStatusMonitor mStatusMonitor;
+    private volatile ReactApplicationContext mContext;
+
+    /**
+     * @param writeLock     held while a job is on the wire; the adapter's
+     *                      unpaced writes take it too
+     * @param statusChannel the printer's status replies, for the monitor
+     */
+    public JobRunner(String logTag, Object writeLock, Transport transport,
+            PrinterStatusMonitor.Channel statusChannel) {
+        this.LOG_TAG = logTag;
+        this.mWriteLock = writeLock;
+        this.mTransport = transport;
+        this.mStatusChannel = statusChannel;
+        this.mJobs = new PrintJobs(logTag + "Jobs");
+    }
+
+    public void setContext(ReactApplicationContext context) {
+        this.mContext = context;
+    }
+
+    public JobMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Readies flow control for a transfer: starts the XON/XOFF reader if
+     * needed and picks up the printer's current profile.
+     */
+    public void prepareTransfer() {
+        ensureFlowControlReader();
+        mFlowController.setProfile(profile());
+    }
+
+    /**
+     * Writes {@code payload} to {@code sink} in the chunks and at the rate
+     * flow control allows.
+     */
+    public void pace(FlowController.Sink sink, RawPayload payload) throws IOException {
+        mFlowController.write(sink, payload.bytes, payload.offset, payload.length, mBusyProbe);
+    }
+
+    public void printRawData(String rawBase64Data, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final String rawData = rawBase64Data;
+        if (PrinterLog.isLoggable(Log.VERBOSE)) {
+            PrinterLog.v(LOG_TAG, "start to print raw data, {} base64 chars", rawBase64Data.length());
+        }
+        final JobMetrics.Job job = mMetrics.begin("raw");
+        mJobs.submit(null, new JobTask(job, promise, "ERR_PRINT") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                RawPayload payload;
+                PrinterLog.beginSection(PrinterLog.SECTION_DECODE);
+                try {
+                    payload = RawPayload.decodeBase64(rawData);
+                } catch (IllegalArgumentException e) {
+                    promise.reject("ERR_INVALID_DATA", e.getMessage());
+                    return;
+                } finally {
+                    PrinterLog.endSection();
+                }
+                job.mark(JobMetrics.Phase.DECODE);
+                printPayload(payload, job, handle, promise);
+            }
+        });
+    }
+
+    public void printRawBytes(ByteBuffer data, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final RawPayload payload = RawPayload.of(data);
+        final JobMetrics.Job job = mMetrics.begin("raw");
+        mJobs.submit(null, new JobTask(job, promise, "ERR_PRINT") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                printPayload(payload, job, handle, promise);
+            }
+        });
+    }
+
+    public void printText(final String text, ReadableMap options, String jobId, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final EscPosBuilder.TextOptions textOptions = EscPosBuilder.TextOptions.fromReadableMap(options);
+        final JobMetrics.Job job = mMetrics.begin("text");
+        mJobs.submit(jobId, new JobTask(job, promise, "ERR_PRINT") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                mTextBuilder.setCodePages(profile().codePages);
+                RawPayload payload;
+                PrinterLog.beginSection(PrinterLog.SECTION_ENCODE);
+                try {
+                    payload = mTextBuilder.build(text, textOptions);
+                } catch (IllegalArgumentException e) {
+                    promise.reject("ERR_ENCODING", e.getMessage());
+                    return;
+                } finally {
+                    PrinterLog.endSection();
+                }
+                job.mark(JobMetrics.Phase.ENCODE);
+                printPayload(payload, job, handle, promise);
+            }
+        });
+    }
+
+    public void printTemplate(String templateId, ReadableMap values, String jobId, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final EscPosTemplate template = EscPosTemplate.get(templateId);
+        if (template == null) {
+            promise.reject("ERR_TEMPLATE", "no template registered as " + templateId);
+            return;
+        }
+        final Map<String, String> slotValues = EscPosTemplate.valuesFromReadableMap(values);
+        final JobMetrics.Job job = mMetrics.begin("template");
+        mJobs.submit(jobId, new JobTask(job, promise, "ERR_PRINT") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                mTextBuilder.setCodePages(profile().codePages);
+                RawPayload payload;
+                PrinterLog.beginSection(PrinterLog.SECTION_ENCODE);
+                try {
+                    payload = template.render(mTextBuilder, slotValues);
+                } catch (IllegalArgumentException e) {
+                    promise.reject("ERR_TEMPLATE", e.getMessage());
+                    return;
+                } finally {
+                    PrinterLog.endSection();
+                }
+                job.mark(JobMetrics.Phase.ENCODE);
+                printPayload(payload, job, handle, promise);
+            }
+        });
+    }
+
+    public void printFile(final String uri, String jobId, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final JobMetrics.Job job = mMetrics.begin("file");
+        mJobs.submit(jobId, new JobTask(job, promise, "ERR_PRINT") {
+            @Override
+            public void run(final PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                InputStream in;
+                try {
+                    in = FileStreamer.open(mContext, uri);
+                } catch (IOException | SecurityException e) {
+                    promise.reject("ERR_FILE", "cannot read " + uri + ": " + e.getMessage());
+                    return;
+                }
+                long totalBytes = FileStreamer.length(mContext, uri);
+                job.mark(JobMetrics.Phase.FETCH);
+                long sent;
+                try {
+                    prepareTransfer();
+                    // one job: keep status queries and other prints out until the last chunk
+                    synchronized (mWriteLock) {
+                        // and one deadline for the whole file, not one per chunk
+                        final Timeouts.Timer deadline = mTransport.startJobDeadline();
+                        try {
+                            sent = FileStreamer.stream(in, totalBytes, chunk -> {
+                                handle.throwIfCancelled();
+                                mTransport.write(chunk, deadline);
+                            }, new FileStreamer.ProgressListener() {
+                                @Override
+                                public void onProgress(long bytesSent, long totalBytes) {
+                                    PrinterEventEmitter.emitPrintProgress(mContext, uri, bytesSent, totalBytes);
+                                }
+                            });
+                        } finally {
+                            deadline.cancel();
+                        }
+                    }
+                    completeJob(job, sent, true);
+                    promise.resolve(null);
+                } catch (IOException e) {
+                    failJob(job, e);
+                    PrinterLog.e(LOG_TAG, "failed to print {}: {}", uri, e.getMessage());
+                    promise.reject(errorCode(e, "ERR_PRINT"), e.getMessage());
+                } finally {
+                    try {
+                        in.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        });
+    }
+
+    private void printPayload(RawPayload payload, JobMetrics.Job job, PrintJobs.Handle handle, Promise promise) {
+        try {
+            writeWhole(payload, handle);
+            completeJob(job, payload.length, true);
+            promise.resolve(null);
+        } catch (IOException e) {
+            failJob(job, e);
+            PrinterLog.e(LOG_TAG, "failed to print {}: {}", payload, e.getMessage());
+            promise.reject(errorCode(e, "ERR_PRINT"), e.getMessage());
+        }
+    }
+
+    public void printImageData(final String imageUrl, double imageWidth, String jobId, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final PrinterProfile profile = profile();
+        final int maxSize = profile.imageWidth(imageWidth);
+        final JobMetrics.Job job = mMetrics.begin("image");
+        mJobs.submit(jobId, new JobTask(job, promise, "ERR_PRINT_IMAGE") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                try {
+                    Bitmap bitmapImage = ImageFetcher.fetch(imageUrl, job, handle);
+                    if (bitmapImage == null) {
+                        promise.reject("ERR_IMAGE", "image not found");
+                        return;
+                    }
+                    BufferPool.Bytes imageBytes;
+                    try {
+                        imageBytes = ImageRaster.encode(bitmapImage, maxSize, profile, handle);
+                    } finally {
+                        BitmapPool.getInstance().release(bitmapImage);
+                    }
+                    job.mark(JobMetrics.Phase.ENCODE);
+                    try {
+                        writeBands(imageBytes, handle);
+                    } finally {
+                        imageBytes.release();
+                    }
+                    completeJob(job, imageBytes.length, true);
+                    promise.resolve(null);
+                } catch (IOException e) {
+                    failJob(job, e);
+                    PrinterLog.e(LOG_TAG, "failed to print image", e);
+                    promise.reject(errorCode(e, "ERR_PRINT_IMAGE"), e.getMessage());
+                }
+            }
+        });
+    }
+
+    public void printQrCode(final String qrCode, double qrSize, String jobId, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final PrinterProfile profile = profile();
+        final int size = profile.qrSize(qrSize > 0 ? qrSize : 250);
+        final JobMetrics.Job job = mMetrics.begin("qr");
+        mJobs.submit(jobId, new JobTask(job, promise, "ERR_PRINT_QR") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                try {
+                    BufferPool.Bytes qrBytes = ImageRaster.encodeQr(qrCode, size, profile, handle);
+                    if (qrBytes == null) {
+                        promise.reject("ERR_QR", "QR code generation failed");
+                        return;
+                    }
+                    job.mark(JobMetrics.Phase.ENCODE);
+                    try {
+                        writeBands(qrBytes, handle);
+                    } finally {
+                        qrBytes.release();
+                    }
+                    completeJob(job, qrBytes.length, true);
+                    promise.resolve(null);
+                } catch (IOException e) {
+                    failJob(job, e);
+                    PrinterLog.e(LOG_TAG, "failed to print QR code", e);
+                    promise.reject(errorCode(e, "ERR_PRINT_QR"), e.getMessage());
+                }
+            }
+        });
+    }
+
+    public void printReceipt(ReadableArray segments, String jobId, final Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final List<Receipt.Segment> parsed;
+        try {
+            parsed = Receipt.fromReadableArray(segments);
+        } catch (IllegalArgumentException e) {
+            promise.reject("ERR_RECEIPT", e.getMessage());
+            return;
+        }
+        final PrinterProfile profile = profile();
+        final JobMetrics.Job job = mMetrics.begin("receipt");
+        mJobs.submit(jobId, new JobTask(job, promise, "ERR_PRINT_RECEIPT") {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                try {
+                    BufferPool.Bytes receipt = Receipt.render(parsed, profile, mTextBuilder,
+                            (url, h) -> ImageFetcher.fetch(url, job, h), handle);
+                    job.mark(JobMetrics.Phase.ENCODE);
+                    try {
+                        writeWhole(RawPayload.wrap(receipt.array, 0, receipt.length), handle);
+                    } finally {
+                        receipt.release();
+                    }
+                    completeJob(job, receipt.length, true);
+                    promise.resolve(null);
+                } catch (Receipt.SegmentException e) {
+                    failJob(job, e);
+                    promise.reject(e.code, e.getMessage());
+                } catch (IOException e) {
+                    failJob(job, e);
+                    PrinterLog.e(LOG_TAG, "failed to print receipt", e);
+                    promise.reject(errorCode(e, "ERR_PRINT_RECEIPT"), e.getMessage());
+                }
+            }
+        });
+    }
+
+    public void openSession(final String sessionId, ReadableMap options, Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        final JobMetrics.Job job = mMetrics.begin("session");
+        final PrintSession session = new PrintSession(sessionId, profile(),
+                (url, h) -> ImageFetcher.fetch(url, job, h), PrintSession.idleTimeoutMs(options));
+        if (mSessions.putIfAbsent(sessionId, session) != null) {
+            promise.reject("ERR_SESSION", "print session " + sessionId + " is already open");
+            return;
+        }
+        mJobs.submit(sessionId, new PrintJobs.Task() {
+            @Override
+            public void run(PrintJobs.Handle handle) {
+                job.mark(JobMetrics.Phase.QUEUE_WAIT);
+                try {
+                    long bytes = session.run(handle, mWriteLock, this::write);
+                    completeJob(job, bytes, true);
+                } catch (IOException e) {
+                    failJob(job, e);
+                    PrinterLog.e(LOG_TAG, "print session failed", e);
+                    session.fail(errorCode(e, "ERR_PRINT_SESSION"), e.getMessage());
+                } finally {
+                    mSessions.remove(sessionId, session);
+                }
+            }
+
+            @Override
+            public void fail(PrintJobs.Handle handle, RuntimeException e) {
+                failJob(job, e);
+                PrinterLog.e(LOG_TAG, "print session failed", e);
+                session.fail("ERR_PRINT_SESSION", String.valueOf(e));
+                mSessions.remove(sessionId, session);
+            }
+
+            // each chunk gets the job deadline
+            private void write(BufferPool.Bytes bytes) throws IOException {
+                Timeouts.Timer deadline = mTransport.startJobDeadline();
+                try {
+                    mTransport.write(RawPayload.wrap(bytes.array, 0, bytes.length), deadline);
+                } finally {
+                    deadline.cancel();
+                }
+            }
+        });
+        promise.resolve(null);
+    }
+
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        List<Receipt.Segment> parsed;
+        try {
+            parsed = Receipt.fromReadableArray(segments);
+        } catch (IllegalArgumentException e) {
+            promise.reject("ERR_RECEIPT", e.getMessage());
+            return;
+        }
+        PrintSession session = mSessions.get(sessionId);
+        if (session == null || !session.append(parsed, PrintSession.result(promise))) {
+            promise.reject("ERR_NO_SESSION", "no open print session " + sessionId);
+        }
+    }
+
+    public void closeSession(String sessionId, Promise promise) {
+        PrintSession session = mSessions.get(sessionId);
+        if (session == null || !session.close(PrintSession.result(promise))) {
+            promise.reject("ERR_NO_SESSION", "no open print session " + sessionId);
+        }
+    }
+
+    /**
+     * Rejects the job's promise with {@code code} if it throws instead of
+     * settling it.
+     */
+    private abstract class JobTask implements PrintJobs.Task {
+        private final JobMetrics.Job mJob;
+        private final Promise mPromise;
+        private final String mCode;
+
+        JobTask(JobMetrics.Job job, Promise promise, String code) {
+            this.mJob = job;
+            this.mPromise = promise;
+            this.mCode = code;
+        }
+
+        @Override
+        public void fail(PrintJobs.Handle handle, RuntimeException e) {
+            failJob(mJob, e);
+            PrinterLog.e(LOG_TAG, "job " + handle.id + " failed", e);
+            mPromise.reject(mCode, String.valueOf(e));
+        }
+    }
+
+    public boolean cancelJob(String jobId) {
+        return mJobs.cancel(jobId);
+    }
+
+    /**
+     * Sends an image job a few bands at a time so {@link #cancelJob(String)}
+     * can stop it on the wire; the write lock keeps its bands together.
+     */
+    private void writeBands(BufferPool.Bytes bytes, PrintJobs.Handle handle) throws IOException {
+        synchronized (mWriteLock) {
+            Timeouts.Timer deadline = mTransport.startJobDeadline();
+            try {
+                mTransport.writeBands(bytes, handle, deadline);
+            } finally {
+                deadline.cancel();
+            }
+        }
+    }
+
+    /**
+     * Sends a whole job, such as text or a receipt, at once under the write
+     * lock, so no other job's bytes land in the middle of it. Cancelling
+     * stops it only until the write starts.
+     */
+    private void writeWhole(RawPayload payload, PrintJobs.Handle handle) throws IOException {
+        synchronized (mWriteLock) {
+            Timeouts.Timer deadline = mTransport.startJobDeadline();
+            try {
+                handle.throwIfCancelled();
+                mTransport.write(payload, deadline);
+            } finally {
+                deadline.cancel();
+            }
+        }
+    }
+
+    static String errorCode(IOException e, String defaultCode) {
+        if (e instanceof PrintJobs.CancelledException) {
+            return "ERR_CANCELLED";
+        }
+        if (e instanceof Timeouts.TimeoutException) {
+            return ((Timeouts.TimeoutException) e).kind.code;
+        }
+        return e instanceof ReconnectPolicy.CircuitOpenException ? "ERR_CIRCUIT_OPEN" : defaultCode;
+    }
+
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        if (!mTransport.checkConnection(promise)) {
+            return;
+        }
+        String unsupported = mTransport.statusUnsupported();
+        if (unsupported != null) {
+            promise.reject("ERR_STATUS_UNSUPPORTED", unsupported);
+            return;
+        }
+        try {
+            getStatusMonitor().start(PrinterStatusMonitor.Mode.valueOf(mode.toUpperCase(Locale.ROOT)),
+                    intervalMs > 0 ? (long) intervalMs : PrinterStatusMonitor.DEFAULT_INTERVAL_MS);
+            promise.resolve(null);
+        } catch (IllegalArgumentException e) {
+            promise.reject("ERR_STATUS_MODE", "unknown status mode: " + mode);
+        } catch (IOException e) {
+            promise.reject("ERR_STATUS", e.getMessage());
+        }
+    }
+
+    private synchronized PrinterStatusMonitor getStatusMonitor() {
+        if (mStatusMonitor == null) {
+            mStatusMonitor = new PrinterStatusMonitor(mStatusChannel, new PrinterStatusMonitor.Listener() {
+                @Override
+                public void onStatusChanged(PrinterStatus status) {
+                    PrinterEventEmitter.emitStatusChanged(mContext, mTransport.device(), status);
+                }
+            });
+            mStatusMonitor.setFlowController(mFlowController);
+        }
+        return mStatusMonitor;
+    }
+
+    /**
+     * XON/XOFF needs someone reading the link; start a read-only monitor if the
+     * app has not started one itself.
+     */
+    private void ensureFlowControlReader() {
+        if (mFlowController.isXonXoffEnabled() && mTransport.statusUnsupported() == null
+                && !getStatusMonitor().isRunning()) {
+            try {
+                getStatusMonitor().start(PrinterStatusMonitor.Mode.LISTEN, PrinterStatusMonitor.DEFAULT_INTERVAL_MS);
+            } catch (IOException e) {
+                PrinterLog.w(LOG_TAG, "failed to start flow control reader: {}", e.getMessage());
+            }
+        }
+    }
+
+    private final FlowController.BusyProbe mBusyProbe = new FlowController.BusyProbe() {
+        @Override
+        public boolean isBusy() {
+            PrinterStatusMonitor monitor = mStatusMonitor;
+            return monitor != null && monitor.isRunning() && monitor.getStatus().isBusy();
+        }
+    };
+
+    public void stopStatusMonitor() {
+        if (mStatusMonitor != null) {
+            mStatusMonitor.stop();
+        }
+    }
+
+    public PrinterStatus getStatus() {
+        return mStatusMonitor != null ? mStatusMonitor.getStatus() : PrinterStatus.UNKNOWN;
+    }
+
+    public void setFlowControl(ReadableMap options) {
+        mFlowController.configure(options);
+    }
+
+    public WritableMap getStats() {
+        return mMetrics.toRNWritableMap();
+    }
+
+    public WritableMap getProfile() {
+        return profile().toRNWritableMap();
+    }
+
+    public void setJobEvents(boolean enabled) {
+        mMetrics.setEventsEnabled(enabled);
+    }
+
+    /**
+     * Charges the time since the last mark to the transfer and records the job
+     * for {@link #getStats()}.
+     */
+    private void completeJob(JobMetrics.Job job, long bytes, boolean success) {
+        job.mark(JobMetrics.Phase.TRANSFER);
+        job.setBytes(bytes);
+        String printer = mTransport.printerId();
+        mMetrics.complete(printer, job, success);
+        if (mMetrics.isEventsEnabled()) {
+            PrinterEventEmitter.emitJobCompleted(mContext, printer, job);
+        }
+    }
+
+    private void failJob(JobMetrics.Job job, Exception e) {
+        if (e instanceof Timeouts.TimeoutException) {
+            job.setTimeout(((Timeouts.TimeoutException) e).kind);
+        }
+        completeJob(job, 0, false);
+    }
+
+    /**
+     * Looked up for every job, so a profile registered or assigned in the
+     * meantime applies to the next one.
+     */
+    public PrinterProfile profile() {
+        return PrinterProfiles.getInstance().resolve(mTransport.printerId(), mTransport.modelName());
+    }
+}
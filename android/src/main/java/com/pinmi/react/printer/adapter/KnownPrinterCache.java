@@ -0,0 +1,174 @@
+package com.pinmi.react.printer.adapter;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Printers seen before, persisted in {@link SharedPreferences} per transport
+ * so device lists can be answered instantly on the next launch. Every entry
+ * keeps the device fields reported to JS plus {@code last_seen} and, once
+ * connected, {@code connect_ms}. Entries not seen for {@link #DEFAULT_MAX_AGE_MS}
+ * are dropped.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class KnownPrinterCache {
+
+    public static final long DEFAULT_MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+
+    private static final String LOG_TAG = "RNKnownPrinters";
+    private static final String PREFS_NAME = "RNPrinterKnownPrinters";
+    private static final String LAST_SEEN = "last_seen";
+    private static final String CONNECT_MS = "connect_ms";
+
+    private final SharedPreferences mPreferences;
+    private final String mTransport;
+    private final long mMaxAgeMs;
+    private JSONObject mEntries;
+
+    public KnownPrinterCache(Context context, String transport) {
+        this(context, transport, DEFAULT_MAX_AGE_MS);
+    }
+
+    public KnownPrinterCache(Context context, String transport, long maxAgeMs) {
+        this.mPreferences = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.mTransport = transport;
+        this.mMaxAgeMs = maxAgeMs;
+    }
+
+    private JSONObject entries() {
+        if (mEntries == null) {
+            try {
+                mEntries = new JSONObject(mPreferences.getString(mTransport, "{}"));
+            } catch (JSONException e) {
+                PrinterLog.w(LOG_TAG, "discarding unreadable printer cache: {}", e.getMessage());
+                mEntries = new JSONObject();
+            }
+        }
+        return mEntries;
+    }
+
+    /**
+     * Records that the printer answered just now. {@code fields} alternates
+     * keys and values (String or Number).
+     */
+    public synchronized void markSeen(String id, Object... fields) {
+        try {
+            JSONObject entry = entries().optJSONObject(id);
+            if (entry == null) {
+                entry = new JSONObject();
+            }
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                entry.put((String) fields[i], fields[i + 1]);
+            }
+            entry.put(LAST_SEEN, System.currentTimeMillis());
+            entries().put(id, entry);
+            save();
+        } catch (JSONException e) {
+            PrinterLog.w(LOG_TAG, "failed to cache printer {}: {}", id, e.getMessage());
+        }
+    }
+
+    public synchronized void markConnected(String id, long connectMs, Object... fields) {
+        Object[] withLatency = new Object[fields.length + 2];
+        System.arraycopy(fields, 0, withLatency, 0, fields.length);
+        withLatency[fields.length] = CONNECT_MS;
+        withLatency[fields.length + 1] = connectMs;
+        markSeen(id, withLatency);
+    }
+
+    /**
+     * @return the cached entry for {@code id}, or null if unknown or aged out.
+     */
+    public synchronized JSONObject get(String id) {
+        pruneExpired();
+        return entries().optJSONObject(id);
+    }
+
+    /**
+     * @return all entries that have not aged out, most recently seen first.
+     */
+    public synchronized List<JSONObject> getAll() {
+        pruneExpired();
+        List<JSONObject> result = new ArrayList<>();
+        Iterator<String> ids = entries().keys();
+        while (ids.hasNext()) {
+            result.add(entries().optJSONObject(ids.next()));
+        }
+        Collections.sort(result, (a, b) -> Long.compare(b.optLong(LAST_SEEN), a.optLong(LAST_SEEN)));
+        return result;
+    }
+
+    public synchronized WritableArray toRNWritableArray() {
+        WritableArray array = Arguments.createArray();
+        for (JSONObject entry : getAll()) {
+            array.pushMap(toRNWritableMap(entry));
+        }
+        return array;
+    }
+
+    /**
+     * Copies the cached {@code last_seen} and {@code connect_ms} into a device map.
+     */
+    public synchronized void annotate(String id, WritableMap deviceMap) {
+        JSONObject entry = get(id);
+        if (entry == null) {
+            return;
+        }
+        deviceMap.putDouble(LAST_SEEN, entry.optLong(LAST_SEEN));
+        if (entry.has(CONNECT_MS)) {
+            deviceMap.putDouble(CONNECT_MS, entry.optLong(CONNECT_MS));
+        }
+    }
+
+    public static WritableMap toRNWritableMap(JSONObject entry) {
+        WritableMap map = Arguments.createMap();
+        Iterator<String> keys = entry.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = entry.opt(key);
+            if (value instanceof Integer) {
+                map.putInt(key, (Integer) value);
+            } else if (value instanceof Number) {
+                map.putDouble(key, ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                map.putBoolean(key, (Boolean) value);
+            } else if (value != null && value != JSONObject.NULL) {
+                map.putString(key, value.toString());
+            }
+        }
+        return map;
+    }
+
+    private void pruneExpired() {
+        long oldest = System.currentTimeMillis() - mMaxAgeMs;
+        boolean changed = false;
+        Iterator<String> ids = entries().keys();
+        while (ids.hasNext()) {
+            JSONObject entry = entries().optJSONObject(ids.next());
+            if (entry == null || entry.optLong(LAST_SEEN) < oldest) {
+                ids.remove();
+                changed = true;
+            }
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    private void save() {
+        mPreferences.edit().putString(mTransport, entries().toString()).apply();
+    }
+}
@@ -1,37 +1,35 @@
 package com.pinmi.react.printer.adapter;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.net.wifi.WifiManager;
-import android.os.Build;
-import android.util.Base64;
 import android.util.Log;
 
-import com.facebook.common.internal.ImmutableMap;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.pinmi.react.printer.raster.BufferPool;
+
+import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.URL;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-
-import androidx.annotation.RequiresApi;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Network (TCP/IP) printer adapter implementation.
@@ -43,24 +41,30 @@ public class NetPrinterAdapter implements PrinterAdapter {
     private static NetPrinterAdapter mInstance;
     private ReactApplicationContext mContext;
     private String LOG_TAG = "RNNetPrinter";
-    private NetPrinterDevice mNetDevice;
+    private volatile NetPrinterDevice mNetDevice;
 
-    private int[] PRINTER_ON_PORTS = { 9100 };
     private static final String EVENT_SCANNER_RESOLVED = "scannerResolved";
     private static final String EVENT_SCANNER_RUNNING = "scannerRunning";
 
     private final static char ESC_CHAR = 0x1B;
-    private static byte[] SELECT_BIT_IMAGE_MODE = { 0x1B, 0x2A, 33 };
-    private final static byte[] SET_LINE_SPACE_24 = new byte[] { ESC_CHAR, 0x33, 24 };
-    private final static byte[] SET_LINE_SPACE_32 = new byte[] { ESC_CHAR, 0x33, 32 };
-    private final static byte[] LINE_FEED = new byte[] { 0x0A };
-    private static byte[] CENTER_ALIGN = { 0x1B, 0X61, 0X31 };
 
-    private Socket mSocket;
+    private static final int STATUS_READ_TIMEOUT_MS = 1000;
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+    private static final long SETTLE_TIMEOUT_MS = 60000;
+
+    private final ConnectionState<Socket> mConnection = new ConnectionState<>();
+    private final Map<PrinterDeviceId, CircuitBreaker> mCircuitBreakers = new HashMap<>();
+    private ReconnectPolicy mReconnectPolicy = ReconnectPolicy.DEFAULT;
+    private final Object mWriteLock = new Object();
+    private final JobRunner mJobs;
+    private final Timeouts mTimeouts = new Timeouts();
 
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
+    private volatile SubnetScanner mScanner;
+    private KnownPrinterCache mKnownPrinters;
 
     private NetPrinterAdapter() {
+        mJobs = new JobRunner(LOG_TAG, mWriteLock, mTransport, mStatusChannel);
     }
 
     public static NetPrinterAdapter getInstance() {
@@ -73,88 +77,179 @@ public class NetPrinterAdapter implements PrinterAdapter {
     @Override
     public void init(ReactApplicationContext reactContext, Promise promise) {
         this.mContext = reactContext;
+        mJobs.setContext(reactContext);
+        this.mKnownPrinters = new KnownPrinterCache(reactContext, "net");
         promise.resolve("RNNetPrinter initialized");
     }
 
     @Override
     public void getDeviceList(Promise promise) {
         // Network printer discovery uses scan(), which emits events asynchronously.
-        // Resolve an empty array immediately; discovered printers arrive via events.
-        this.scan();
-        WritableArray array = Arguments.createArray();
+        // Resolve the printers seen on earlier runs immediately; the scan revalidates
+        // them first and then reports new ones via events.
+        WritableArray array = mKnownPrinters != null ? mKnownPrinters.toRNWritableArray() : Arguments.createArray();
+        this.scan(null, null);
         promise.resolve(array);
     }
 
-    private void scan() {
-        if (isRunning)
-            return;
+    /**
+     * Scans like {@link #getDeviceList(Promise)} but resolves with every printer
+     * found once the scan completes. Options: {@code ports}, {@code cidrs},
+     * {@code timeoutMs} and {@code maxInFlight}.
+     */
+    public void scanNetwork(ReadableMap options, Promise promise) {
+        this.scan(options, promise);
+    }
+
+    public void stopScan() {
+        SubnetScanner scanner = mScanner;
+        if (scanner != null) {
+            scanner.cancel();
+        }
+    }
+
+    private void scan(final ReadableMap options, final Promise promise) {
+        synchronized (this) {
+            if (isRunning) {
+                if (promise != null) {
+                    promise.reject("ERR_SCAN_RUNNING", "a network scan is already running");
+                }
+                return;
+            }
+            isRunning = true;
+        }
         new Thread(new Runnable() {
-            @RequiresApi(api = Build.VERSION_CODES.KITKAT)
             @Override
             public void run() {
+                final WritableArray printers = Arguments.createArray();
                 try {
-                    isRunning = true;
-                    emitEvent(EVENT_SCANNER_RUNNING, isRunning);
-
-                    WifiManager wifiManager = (WifiManager) mContext.getApplicationContext()
-                            .getSystemService(Context.WIFI_SERVICE);
-                    String ipAddress = ipToString(wifiManager.getConnectionInfo().getIpAddress());
-                    WritableArray array = Arguments.createArray();
-
-                    String prefix = ipAddress.substring(0, ipAddress.lastIndexOf('.') + 1);
-                    int suffix = Integer
-                            .parseInt(ipAddress.substring(ipAddress.lastIndexOf('.') + 1, ipAddress.length()));
-
-                    for (int i = 0; i <= 255; i++) {
-                        if (i == suffix)
-                            continue;
-                        ArrayList<Integer> ports = getAvailablePorts(prefix + i);
-                        if (!ports.isEmpty()) {
-                            WritableMap payload = Arguments.createMap();
-                            payload.putString("host", prefix + i);
-                            payload.putInt("port", 9100);
-                            array.pushMap(payload);
+                    emitEvent(EVENT_SCANNER_RUNNING, true);
+                    SubnetScanner scanner = new SubnetScanner(
+                            optIntArray(options, "ports"),
+                            options != null && options.hasKey("timeoutMs") ? options.getInt("timeoutMs") : 0,
+                            options != null && options.hasKey("maxInFlight") ? options.getInt("maxInFlight") : 0);
+                    mScanner = scanner;
+                    final Set<String> reported = new HashSet<>();
+                    SubnetScanner.Listener listener = new SubnetScanner.Listener() {
+                        @Override
+                        public void onPrinterFound(String host, int port) {
+                            String id = host + ":" + port;
+                            if (!reported.add(id)) {
+                                return;
+                            }
+                            if (mKnownPrinters != null) {
+                                mKnownPrinters.markSeen(id, "device_name", id, "host", host, "port", port);
+                            }
+                            printers.pushMap(toScanResult(host, port));
+                            // stream each printer as soon as it answers
+                            WritableArray array = Arguments.createArray();
+                            array.pushMap(toScanResult(host, port));
+                            emitEvent(EVENT_SCANNER_RESOLVED, array);
                         }
+                    };
+                    long start = System.currentTimeMillis();
+                    // known printers answer first, before the broad sweep
+                    List<InetSocketAddress> known = getKnownTargets();
+                    if (!known.isEmpty()) {
+                        scanner.scanTargets(known, listener);
+                    }
+                    List<InetAddress> hosts = getScanHosts(options);
+                    scanner.scan(hosts, listener);
+                    if (PrinterLog.isLoggable(Log.VERBOSE)) {
+                        PrinterLog.v(LOG_TAG, "revalidated {} known printers and scanned {} hosts in {}ms, found {}",
+                                known.size(), hosts.size(), System.currentTimeMillis() - start, reported.size());
+                    }
+                    if (promise != null) {
+                        promise.resolve(printers);
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    PrinterLog.w(LOG_TAG, "network scan failed: {}", e.getMessage());
+                    if (promise != null) {
+                        promise.reject("ERR_SCAN", e.getMessage());
                     }
-
-                    emitEvent(EVENT_SCANNER_RESOLVED, array);
-
-                } catch (NullPointerException ex) {
-                    Log.i(LOG_TAG, "No connection");
                 } finally {
+                    mScanner = null;
                     isRunning = false;
-                    emitEvent(EVENT_SCANNER_RUNNING, isRunning);
+                    emitEvent(EVENT_SCANNER_RUNNING, false);
                 }
             }
-        }).start();
+        }, "RNNetPrinterScan").start();
     }
 
-    private void emitEvent(String eventName, Object data) {
-        if (mContext != null) {
-            mContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, data);
+    private List<InetSocketAddress> getKnownTargets() {
+        List<InetSocketAddress> targets = new ArrayList<>();
+        if (mKnownPrinters == null) {
+            return targets;
+        }
+        for (JSONObject entry : mKnownPrinters.getAll()) {
+            String host = entry.optString("host", null);
+            int port = entry.optInt("port", 0);
+            if (host != null && port > 0) {
+                targets.add(new InetSocketAddress(host, port));
+            }
         }
+        return targets;
+    }
+
+    private static WritableMap toScanResult(String host, int port) {
+        WritableMap payload = Arguments.createMap();
+        payload.putString("host", host);
+        payload.putInt("port", port);
+        return payload;
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
-    private ArrayList<Integer> getAvailablePorts(String address) {
-        ArrayList<Integer> ports = new ArrayList<>();
-        for (int port : PRINTER_ON_PORTS) {
-            if (crunchifyAddressReachable(address, port))
-                ports.add(port);
+    private static int[] optIntArray(ReadableMap options, String key) {
+        if (options == null || !options.hasKey(key)) {
+            return null;
+        }
+        ReadableArray array = options.getArray(key);
+        int[] values = new int[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.getInt(i);
         }
-        return ports;
+        return values;
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
-    private static boolean crunchifyAddressReachable(String address, int port) {
-        try {
-            try (Socket crunchifySocket = new Socket()) {
-                crunchifySocket.connect(new InetSocketAddress(address, port), 100);
+    /**
+     * Expands the requested CIDR ranges, or every active interface's range,
+     * leaving out duplicates and the device's own addresses.
+     */
+    private List<InetAddress> getScanHosts(ReadableMap options) throws IOException {
+        List<String> cidrs = new ArrayList<>();
+        if (options != null && options.hasKey("cidrs")) {
+            ReadableArray array = options.getArray("cidrs");
+            for (int i = 0; i < array.size(); i++) {
+                cidrs.add(array.getString(i));
             }
-            return true;
-        } catch (IOException exception) {
-            exception.printStackTrace();
-            return false;
+        } else {
+            cidrs.addAll(SubnetScanner.localCidrs());
+            if (cidrs.isEmpty() && mContext != null) {
+                WifiManager wifiManager = (WifiManager) mContext.getApplicationContext()
+                        .getSystemService(Context.WIFI_SERVICE);
+                int ip = wifiManager != null ? wifiManager.getConnectionInfo().getIpAddress() : 0;
+                if (ip != 0) {
+                    cidrs.add(ipToString(ip) + "/24");
+                }
+            }
+        }
+        if (cidrs.isEmpty()) {
+            throw new IOException("No connection");
+        }
+        Set<InetAddress> localAddresses = SubnetScanner.localAddresses();
+        Set<InetAddress> hosts = new LinkedHashSet<>();
+        for (String cidr : cidrs) {
+            for (InetAddress host : SubnetScanner.expandCidr(cidr)) {
+                if (!localAddresses.contains(host)) {
+                    hosts.add(host);
+                }
+            }
+        }
+        return new ArrayList<>(hosts);
+    }
+
+    private void emitEvent(String eventName, Object data) {
+        if (mContext != null) {
+            mContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, data);
         }
     }
 
@@ -166,270 +261,473 @@ public class NetPrinterAdapter implements PrinterAdapter {
     public void selectDevice(PrinterDeviceId printerDeviceId, Promise promise) {
         NetPrinterDeviceId netPrinterDeviceId = (NetPrinterDeviceId) printerDeviceId;
 
-        if (this.mSocket != null && !this.mSocket.isClosed()
-                && mNetDevice.getPrinterDeviceId().equals(netPrinterDeviceId)) {
-            Log.i(LOG_TAG, "already selected device, do not need repeat to connect");
-            promise.resolve(this.mNetDevice.toRNWritableMap());
+        Socket connected = mConnection.peek();
+        NetPrinterDevice selected = this.mNetDevice;
+        if (connected != null && !connected.isClosed() && selected != null
+                && selected.getPrinterDeviceId().equals(netPrinterDeviceId)) {
+            PrinterLog.i(LOG_TAG, "already selected device, do not need repeat to connect");
+            promise.resolve(selected.toRNWritableMap());
+            return;
+        }
+
+        CircuitBreaker breaker = getCircuitBreaker(netPrinterDeviceId);
+        if (!breaker.allowRequest()) {
+            promise.reject("ERR_CIRCUIT_OPEN", "printer " + netPrinterDeviceId.getHost() + ":"
+                    + netPrinterDeviceId.getPort() + " is unreachable, retry in "
+                    + breaker.getRetryAfterMillis() + "ms");
             return;
         }
 
+        NetPrinterDevice device = new NetPrinterDevice(netPrinterDeviceId.getHost(), netPrinterDeviceId.getPort());
         try {
-            Socket socket = new Socket(netPrinterDeviceId.getHost(), netPrinterDeviceId.getPort());
-            if (socket.isConnected()) {
-                closeConnectionIfExists();
-                this.mSocket = socket;
-                this.mNetDevice = new NetPrinterDevice(netPrinterDeviceId.getHost(), netPrinterDeviceId.getPort());
-                promise.resolve(this.mNetDevice.toRNWritableMap());
-            } else {
-                promise.reject("ERR_CONNECT", "unable to build connection with host: "
-                        + netPrinterDeviceId.getHost() + ", port: " + netPrinterDeviceId.getPort());
+            long start = System.currentTimeMillis();
+            Socket socket = openSocket(netPrinterDeviceId);
+            long connectMs = System.currentTimeMillis() - start;
+            breaker.recordSuccess();
+            closeConnectionIfExists();
+            long ticket = mConnection.beginConnect();
+            this.mNetDevice = device;
+            if (!mConnection.connected(ticket, socket)) {
+                closeQuietly(socket);
+                promise.reject("ERR_CONNECT", "another connect to the printer was started meanwhile");
+                return;
+            }
+            PrinterEventEmitter.emitStateChanged(mContext, device, PrinterEventEmitter.STATE_CONNECTED);
+            WritableMap deviceMap = device.toRNWritableMap();
+            if (mKnownPrinters != null) {
+                String id = netPrinterDeviceId.getHost() + ":" + netPrinterDeviceId.getPort();
+                mKnownPrinters.markConnected(id, connectMs, "device_name", id,
+                        "host", netPrinterDeviceId.getHost(), "port", netPrinterDeviceId.getPort());
+                mKnownPrinters.annotate(id, deviceMap);
             }
+            promise.resolve(deviceMap);
         } catch (IOException e) {
-            e.printStackTrace();
-            promise.reject("ERR_CONNECT", "failed to connect printer: " + e.getMessage());
+            PrinterLog.w(LOG_TAG, "connect to {}:{} failed: {}", netPrinterDeviceId.getHost(),
+                    netPrinterDeviceId.getPort(), e.getMessage());
+            if (breaker.recordFailure()) {
+                PrinterEventEmitter.emitStateChanged(mContext, device, PrinterEventEmitter.STATE_CIRCUIT_OPEN);
+            }
+            promise.reject(JobRunner.errorCode(e, "ERR_CONNECT"), "failed to connect printer: " + e.getMessage());
         }
     }
 
-    @Override
-    public void closeConnectionIfExists() {
-        if (this.mSocket != null) {
-            if (!this.mSocket.isClosed()) {
-                try {
-                    this.mSocket.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-            this.mSocket = null;
+    /**
+     * Connects within the connect deadline; every attempt, whether from
+     * {@link #selectDevice} or a reconnect, goes into {@code connect_ms}.
+     */
+    private Socket openSocket(NetPrinterDeviceId netPrinterDeviceId) throws IOException {
+        long timeoutMs = mTimeouts.getMillis(Timeouts.Kind.CONNECT);
+        long start = System.nanoTime();
+        Socket socket = new Socket();
+        try {
+            socket.setKeepAlive(true);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(STATUS_READ_TIMEOUT_MS);
+            socket.connect(new InetSocketAddress(netPrinterDeviceId.getHost(), netPrinterDeviceId.getPort()),
+                    (int) Math.min(timeoutMs, Integer.MAX_VALUE));
+            recordConnect(netPrinterDeviceId, start, false);
+            return socket;
+        } catch (SocketTimeoutException e) {
+            closeQuietly(socket);
+            recordConnect(netPrinterDeviceId, start, true);
+            throw new Timeouts.TimeoutException(Timeouts.Kind.CONNECT, timeoutMs);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            recordConnect(netPrinterDeviceId, start, false);
+            throw e;
         }
     }
 
-    @Override
-    public void printRawData(String rawBase64Data, Promise promise) {
-        if (this.mSocket == null) {
-            promise.reject("ERR_NO_CONN", "Connection is not built, may be you forgot to connectPrinter");
-            return;
-        }
-        final String rawData = rawBase64Data;
-        final Socket socket = this.mSocket;
-        Log.v(LOG_TAG, "start to print raw data " + rawBase64Data);
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    byte[] bytes = Base64.decode(rawData, Base64.DEFAULT);
-                    OutputStream printerOutputStream = socket.getOutputStream();
-                    printerOutputStream.write(bytes, 0, bytes.length);
-                    printerOutputStream.flush();
-                    promise.resolve(null);
-                } catch (IOException e) {
-                    Log.e(LOG_TAG, "failed to print data" + rawData);
-                    e.printStackTrace();
-                    promise.reject("ERR_PRINT", e.getMessage());
-                }
-            }
-        }).start();
+    private void recordConnect(NetPrinterDeviceId netPrinterDeviceId, long startNanos, boolean timedOut) {
+        mJobs.getMetrics().recordConnect(netPrinterDeviceId.getHost() + ":" + netPrinterDeviceId.getPort(),
+                (System.nanoTime() - startNanos) / 1000, timedOut);
     }
 
-    public static Bitmap getBitmapFromURL(String src) {
+    private static void closeQuietly(Socket socket) {
         try {
-            URL url = new URL(src);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setDoInput(true);
-            connection.connect();
-            InputStream input = connection.getInputStream();
-            Bitmap myBitmap = BitmapFactory.decodeStream(input);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            myBitmap.compress(Bitmap.CompressFormat.PNG, 100, baos);
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
 
-            return myBitmap;
-        } catch (IOException e) {
-            return null;
+    private CircuitBreaker getCircuitBreaker(PrinterDeviceId printerDeviceId) {
+        synchronized (mCircuitBreakers) {
+            CircuitBreaker breaker = mCircuitBreakers.get(printerDeviceId);
+            if (breaker == null) {
+                breaker = new CircuitBreaker();
+                mCircuitBreakers.put(printerDeviceId, breaker);
+            }
+            return breaker;
         }
     }
 
     @Override
-    public void printImageData(final String imageUrl, double imageWidth, Promise promise) {
-        final Bitmap bitmapImage = getBitmapFromURL(imageUrl);
-
-        if (bitmapImage == null) {
-            promise.reject("ERR_IMAGE", "image not found");
+    public void closeConnectionIfExists() {
+        if (!mConnection.isOpen()) {
             return;
         }
-
-        if (this.mSocket == null) {
-            promise.reject("ERR_NO_CONN", "Connection is not built, may be you forgot to connectPrinter");
-            return;
+        // lets the job on the wire finish, then fails the rest with "Connection was closed"
+        Socket socket = mConnection.close(DRAIN_TIMEOUT_MS);
+        stopStatusMonitor();
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                PrinterLog.w(LOG_TAG, "failed to close socket: {}", e.getMessage());
+            }
         }
+        PrinterEventEmitter.emitStateChanged(mContext, mNetDevice, PrinterEventEmitter.STATE_DISCONNECTED);
+    }
+
+    /**
+     * The job deadline is armed under the write lock, so waiting for another
+     * job does not count and its abort only ever closes this job's socket.
+     */
+    private Timeouts.Timer startJobDeadline() {
+        return mTimeouts.start(Timeouts.Kind.JOB, () -> {
+            Socket socket = mConnection.peek();
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+        });
+    }
+
+    /**
+     * Writes the whole job to the printer. If the socket turns out to be broken the
+     * connection is re-established with backoff and the job is sent once more from
+     * its start, so callers never have to call connectPrinter again after a
+     * transient drop. A file streamed in chunks resumes at the chunk that
+     * failed; image bands go through {@link JobRunner.Transport#writeBands},
+     * which starts the image over instead of resending one band.
+     */
+    private void writeWithReconnect(final RawPayload payload, Timeouts.Timer deadline) throws IOException {
+        writeWithReconnect(socket -> writeToSocket(socket, payload), deadline);
+    }
 
-        final Socket socket = this.mSocket;
-        final int maxSize = imageWidth > 0 ? (int) imageWidth : 200;
+    /**
+     * Writes a job, or a part of one that can be sent again from its start,
+     * to a socket.
+     */
+    private interface SocketWrite {
+        void writeTo(Socket socket) throws IOException;
+    }
 
+    private void writeWithReconnect(SocketWrite write, Timeouts.Timer deadline) throws IOException {
+        PrinterLog.beginSection(PrinterLog.SECTION_TRANSFER);
         try {
-            int[][] pixels = getPixelsSlow(bitmapImage, maxSize);
-            OutputStream printerOutputStream = socket.getOutputStream();
-
-            printerOutputStream.write(SET_LINE_SPACE_24);
-            printerOutputStream.write(CENTER_ALIGN);
-
-            for (int y = 0; y < pixels.length; y += 24) {
-                printerOutputStream.write(SELECT_BIT_IMAGE_MODE);
-                printerOutputStream.write(
-                        new byte[] { (byte) (0x00ff & pixels[y].length), (byte) ((0xff00 & pixels[y].length) >> 8) });
-                for (int x = 0; x < pixels[y].length; x++) {
-                    printerOutputStream.write(recollectSlice(y, x, pixels));
+            mJobs.prepareTransfer();
+            synchronized (mWriteLock) {
+                ConnectionState.Link<Socket> link = acquireSocket(null);
+                try {
+                    write.writeTo(link.transport);
+                } catch (FlowController.StallException | Timeouts.TimeoutException | PrintJobs.CancelledException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (deadline.hasFired()) {
+                        throw deadline.orTimeout(e);
+                    }
+                    PrinterLog.w(LOG_TAG, "connection lost, reconnecting: {}", e.getMessage());
+                    ConnectionState.Link<Socket> broken = link;
+                    link = null;
+                    mConnection.release(broken);
+                    link = acquireSocket(broken);
+                    deadline.check();
+                    write.writeTo(link.transport);
+                } finally {
+                    mConnection.release(link);
                 }
-                printerOutputStream.write(LINE_FEED);
             }
-            printerOutputStream.write(SET_LINE_SPACE_32);
-            printerOutputStream.write(LINE_FEED);
-            printerOutputStream.flush();
-            promise.resolve(null);
         } catch (IOException e) {
-            Log.e(LOG_TAG, "failed to print data");
-            e.printStackTrace();
-            promise.reject("ERR_PRINT_IMAGE", e.getMessage());
+            throw deadline.orTimeout(e);
+        } finally {
+            PrinterLog.endSection();
         }
     }
 
-    @Override
-    public void printQrCode(String qrCode, double qrSize, Promise promise) {
-        final int size = qrSize > 0 ? (int) qrSize : 250;
-        final Bitmap bitmapImage = TextToQrImageEncode(qrCode, size);
-
-        if (bitmapImage == null) {
-            promise.reject("ERR_QR", "QR code generation failed");
-            return;
+    /**
+     * Each write must finish within the write deadline; a socket stuck on a
+     * printer that stopped reading is closed to unblock it.
+     */
+    private void writeToSocket(final Socket socket, RawPayload payload) throws IOException {
+        if (socket.isClosed()) {
+            throw new IOException("socket is closed");
         }
+        final OutputStream printerOutputStream = socket.getOutputStream();
+        mJobs.pace((buffer, offset, length) -> {
+            Timeouts.Timer deadline = mTimeouts.start(Timeouts.Kind.WRITE, () -> closeQuietly(socket));
+            try {
+                printerOutputStream.write(buffer, offset, length);
+                printerOutputStream.flush();
+            } catch (IOException e) {
+                throw deadline.orTimeout(e);
+            } finally {
+                deadline.cancel();
+            }
+        }, payload);
+    }
 
-        if (this.mSocket == null) {
-            promise.reject("ERR_NO_CONN", "Connection is not built, may be you forgot to connectPrinter");
-            return;
+    /**
+     * Unpaced write for real-time commands such as status queries.
+     */
+    private void writeRaw(byte[] bytes) throws IOException {
+        synchronized (mWriteLock) {
+            ConnectionState.Link<Socket> link = mConnection.acquire();
+            if (link == null || link.transport.isClosed()) {
+                mConnection.release(link);
+                throw new IOException("socket is closed");
+            }
+            try {
+                OutputStream printerOutputStream = link.transport.getOutputStream();
+                printerOutputStream.write(bytes, 0, bytes.length);
+                printerOutputStream.flush();
+            } finally {
+                mConnection.release(link);
+            }
         }
+    }
 
-        final Socket socket = this.mSocket;
+    /**
+     * Leases the connected socket. Without one, or once {@code broken} failed,
+     * the connection is re-established first unless the app closed it; when
+     * several writers see the same drop only one reconnects and the others
+     * wait for its outcome.
+     */
+    private ConnectionState.Link<Socket> acquireSocket(ConnectionState.Link<Socket> broken) throws IOException {
+        ConnectionState.Link<Socket> link = broken == null ? mConnection.acquire() : null;
+        if (link != null) {
+            return link;
+        }
+        long ticket = mConnection.beginReconnect(broken);
+        if (ticket != ConnectionState.NO_TICKET) {
+            reconnect(ticket, broken);
+        } else {
+            mConnection.awaitSettled(SETTLE_TIMEOUT_MS);
+        }
+        link = mConnection.acquire();
+        if (link == null) {
+            throw new IOException(mConnection.getState() == ConnectionState.State.CLOSED
+                    ? "Connection was closed" : "printer is not connected");
+        }
+        return link;
+    }
 
+    private void reconnect(long ticket, ConnectionState.Link<Socket> broken) throws IOException {
+        if (broken != null) {
+            closeQuietly(broken.transport);
+        }
+        final NetPrinterDevice device = this.mNetDevice;
+        if (device == null) {
+            mConnection.reconnectFailed(ticket);
+            throw new IOException("Connection was closed");
+        }
+        final NetPrinterDeviceId netPrinterDeviceId = (NetPrinterDeviceId) device.getPrinterDeviceId();
+        CircuitBreaker breaker = getCircuitBreaker(netPrinterDeviceId);
+        final Socket[] socket = new Socket[1];
         try {
-            int[][] pixels = getPixelsSlow(bitmapImage, size);
-            OutputStream printerOutputStream = socket.getOutputStream();
-
-            printerOutputStream.write(SET_LINE_SPACE_24);
-            printerOutputStream.write(CENTER_ALIGN);
-
-            for (int y = 0; y < pixels.length; y += 24) {
-                printerOutputStream.write(SELECT_BIT_IMAGE_MODE);
-                printerOutputStream.write(
-                        new byte[] { (byte) (0x00ff & pixels[y].length), (byte) ((0xff00 & pixels[y].length) >> 8) });
-                for (int x = 0; x < pixels[y].length; x++) {
-                    printerOutputStream.write(recollectSlice(y, x, pixels));
-                }
-                printerOutputStream.write(LINE_FEED);
-            }
-            printerOutputStream.write(SET_LINE_SPACE_32);
-            printerOutputStream.write(LINE_FEED);
-            printerOutputStream.flush();
-            promise.resolve(null);
+            mReconnectPolicy.reconnect(breaker, () -> socket[0] = openSocket(netPrinterDeviceId),
+                    (attempt, delayMs) -> {
+                        WritableMap extra = Arguments.createMap();
+                        extra.putInt("attempt", attempt);
+                        extra.putDouble("delay_ms", delayMs);
+                        PrinterEventEmitter.emitStateChanged(mContext, device,
+                                PrinterEventEmitter.STATE_RECONNECTING, extra);
+                    });
         } catch (IOException e) {
-            Log.e(LOG_TAG, "failed to print data");
-            e.printStackTrace();
-            promise.reject("ERR_PRINT_QR", e.getMessage());
+            mConnection.reconnectFailed(ticket);
+            PrinterEventEmitter.emitStateChanged(mContext, device,
+                    e instanceof ReconnectPolicy.CircuitOpenException
+                            ? PrinterEventEmitter.STATE_CIRCUIT_OPEN
+                            : PrinterEventEmitter.STATE_DISCONNECTED);
+            throw e;
+        } catch (RuntimeException e) {
+            // left CONNECTING, every later write would wait it out
+            mConnection.reconnectFailed(ticket);
+            throw e;
+        }
+        if (!mConnection.connected(ticket, socket[0])) {
+            // closed by the app while reconnecting
+            closeQuietly(socket[0]);
+            throw new IOException("Connection was closed");
         }
+        PrinterEventEmitter.emitStateChanged(mContext, device, PrinterEventEmitter.STATE_CONNECTED);
     }
 
-    private Bitmap TextToQrImageEncode(String Value, int size) {
-        com.google.zxing.Writer writer = new QRCodeWriter();
-        BitMatrix bitMatrix = null;
-        try {
-            bitMatrix = writer.encode(Value, com.google.zxing.BarcodeFormat.QR_CODE, size, size,
-                    ImmutableMap.of(EncodeHintType.MARGIN, 1));
-            int width = size;
-            int height = size;
-            Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-
-            for (int i = 0; i < width; i++) {
-                for (int j = 0; j < height; j++) {
-                    bmp.setPixel(i, j, bitMatrix.get(i, j) ? Color.BLACK : Color.WHITE);
-                }
-            }
-            return bmp;
-        } catch (WriterException e) {
-            return null;
-        }
+    @Override
+    public void printRawData(String rawBase64Data, Promise promise) {
+        mJobs.printRawData(rawBase64Data, promise);
     }
 
-    public static int[][] getPixelsSlow(Bitmap image2, int maxSize) {
-        Bitmap image = resizeTheImageForPrinting(image2, maxSize);
-        int width = image.getWidth();
-        int height = image.getHeight();
-        int[][] result = new int[height][width];
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                result[row][col] = getRGB(image, col, row);
-            }
-        }
-        return result;
+    @Override
+    public void printRawBytes(ByteBuffer data, Promise promise) {
+        mJobs.printRawBytes(data, promise);
     }
 
-    private byte[] recollectSlice(int y, int x, int[][] img) {
-        byte[] slices = new byte[] { 0, 0, 0 };
-        for (int yy = y, i = 0; yy < y + 24 && i < 3; yy += 8, i++) {
-            byte slice = 0;
-            for (int b = 0; b < 8; b++) {
-                int yyy = yy + b;
-                if (yyy >= img.length) {
-                    continue;
-                }
-                int col = img[yyy][x];
-                boolean v = shouldPrintColor(col);
-                slice |= (byte) ((v ? 1 : 0) << (7 - b));
-            }
-            slices[i] = slice;
-        }
-        return slices;
+    @Override
+    public void printText(String text, ReadableMap options, String jobId, Promise promise) {
+        mJobs.printText(text, options, jobId, promise);
     }
 
-    private boolean shouldPrintColor(int col) {
-        final int threshold = 127;
-        int a, r, g, b, luminance;
-        a = (col >> 24) & 0xff;
-        if (a != 0xff) {
-            return false;
-        }
-        r = (col >> 16) & 0xff;
-        g = (col >> 8) & 0xff;
-        b = col & 0xff;
+    @Override
+    public void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise) {
+        mJobs.printTemplate(templateId, values, jobId, promise);
+    }
 
-        luminance = (int) (0.299 * r + 0.587 * g + 0.114 * b);
-        return luminance < threshold;
+    @Override
+    public void printFile(String uri, String jobId, Promise promise) {
+        mJobs.printFile(uri, jobId, promise);
     }
 
-    public static Bitmap resizeTheImageForPrinting(Bitmap image, int maxSize) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        if (width > maxSize || height > maxSize) {
-            if (width > height) {
-                float decreaseSizeBy = ((float) maxSize / width);
-                return getBitmapResized(image, decreaseSizeBy);
-            } else {
-                float decreaseSizeBy = ((float) maxSize / height);
-                return getBitmapResized(image, decreaseSizeBy);
-            }
-        }
-        return image;
+    @Override
+    public void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise) {
+        mJobs.printImageData(imageUrl, imageWidth, jobId, promise);
+    }
+
+    @Override
+    public void printQrCode(String qrCode, double qrSize, String jobId, Promise promise) {
+        mJobs.printQrCode(qrCode, qrSize, jobId, promise);
+    }
+
+    @Override
+    public void printReceipt(ReadableArray segments, String jobId, Promise promise) {
+        mJobs.printReceipt(segments, jobId, promise);
+    }
+
+    @Override
+    public void openSession(String sessionId, ReadableMap options, Promise promise) {
+        mJobs.openSession(sessionId, options, promise);
+    }
+
+    @Override
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        mJobs.appendSession(sessionId, segments, promise);
+    }
+
+    @Override
+    public void closeSession(String sessionId, Promise promise) {
+        mJobs.closeSession(sessionId, promise);
+    }
+
+    @Override
+    public boolean cancelJob(String jobId) {
+        return mJobs.cancelJob(jobId);
+    }
+
+    @Override
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        mJobs.startStatusMonitor(mode, intervalMs, promise);
+    }
+
+    @Override
+    public void stopStatusMonitor() {
+        mJobs.stopStatusMonitor();
+    }
+
+    @Override
+    public PrinterStatus getStatus() {
+        return mJobs.getStatus();
+    }
+
+    @Override
+    public WritableMap getStats() {
+        return mJobs.getStats();
+    }
+
+    @Override
+    public WritableMap getProfile() {
+        return mJobs.getProfile();
+    }
+
+    @Override
+    public void setJobEvents(boolean enabled) {
+        mJobs.setJobEvents(enabled);
     }
 
-    public static int getRGB(Bitmap bmpOriginal, int col, int row) {
-        int pixel = bmpOriginal.getPixel(col, row);
-        int R = Color.red(pixel);
-        int G = Color.green(pixel);
-        int B = Color.blue(pixel);
-        return Color.rgb(R, G, B);
+    @Override
+    public void setFlowControl(ReadableMap options) {
+        mJobs.setFlowControl(options);
     }
 
-    public static Bitmap getBitmapResized(Bitmap image, float decreaseSizeBy) {
-        Bitmap resized = Bitmap.createScaledBitmap(image, (int) (image.getWidth() * decreaseSizeBy),
-                (int) (image.getHeight() * decreaseSizeBy), true);
-        return resized;
+    @Override
+    public void setTimeouts(ReadableMap options) {
+        mTimeouts.configure(options);
     }
+
+    private final JobRunner.Transport mTransport = new JobRunner.Transport() {
+        @Override
+        public boolean checkConnection(Promise promise) {
+            if (!mConnection.isOpen()) {
+                promise.reject("ERR_NO_CONN", "Connection is not built, may be you forgot to connectPrinter");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Timeouts.Timer startJobDeadline() {
+            return NetPrinterAdapter.this.startJobDeadline();
+        }
+
+        @Override
+        public void write(RawPayload payload, Timeouts.Timer deadline) throws IOException {
+            writeWithReconnect(payload, deadline);
+        }
+
+        /**
+         * If the connection drops part-way, the image is sent again from its
+         * header on the new one rather than resumed mid-raster.
+         */
+        @Override
+        public void writeBands(final BufferPool.Bytes bytes, final PrintJobs.Handle handle, Timeouts.Timer deadline)
+                throws IOException {
+            writeWithReconnect(socket -> PrintJobs.writeBands(bytes.array, bytes.length, handle,
+                    (buffer, offset, length) -> writeToSocket(socket, RawPayload.wrap(buffer, offset, length))),
+                    deadline);
+        }
+
+        @Override
+        public String statusUnsupported() {
+            return null;
+        }
+
+        @Override
+        public String printerId() {
+            NetPrinterDevice device = mNetDevice;
+            if (device == null) {
+                return "unknown";
+            }
+            NetPrinterDeviceId id = (NetPrinterDeviceId) device.getPrinterDeviceId();
+            return id.getHost() + ":" + id.getPort();
+        }
+
+        @Override
+        public String modelName() {
+            // network printers report no model; theirs is assigned by host:port
+            return null;
+        }
+
+        @Override
+        public PrinterDevice device() {
+            return mNetDevice;
+        }
+    };
+
+    private final PrinterStatusMonitor.Channel mStatusChannel = new PrinterStatusMonitor.Channel() {
+        @Override
+        public int read(byte[] buffer) throws IOException {
+            Socket socket = mConnection.peek();
+            if (socket == null || socket.isClosed()) {
+                return -1;
+            }
+            try {
+                return socket.getInputStream().read(buffer);
+            } catch (SocketTimeoutException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            writeRaw(bytes);
+        }
+    };
 }
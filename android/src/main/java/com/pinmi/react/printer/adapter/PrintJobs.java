@@ -0,0 +1,194 @@
+package com.pinmi.react.printer.adapter;
+
+import com.pinmi.react.printer.raster.BitImage;
+import com.pinmi.react.printer.raster.Cancellation;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The jobs of one printer, run one after another on the printer's own worker
+ * thread instead of the TurboModule call thread. Every job has an id the app
+ * can pass to {@link #cancel(String)}; a cancelled job stops at the next
+ * check, which is between read buffers while fetching, between bands while
+ * encoding and between bands on the wire (see
+ * {@link #writeBands(byte[], Handle, FlowController.Sink)}). A job that
+ * throws is failed through {@link Task#fail} and the worker goes on.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class PrintJobs {
+
+    /**
+     * Thrown by a job that was cancelled; an {@link IOException} so it takes
+     * the same way out as a failed transfer.
+     */
+    public static class CancelledException extends IOException {
+        public CancelledException(String id) {
+            super("job " + id + " was cancelled");
+        }
+    }
+
+    public interface Task {
+        /** Settles the job's promise; runs on the worker. */
+        void run(Handle job);
+
+        /**
+         * Settles the job's promise after {@link #run} threw {@code e}; runs
+         * on the worker, which then goes on with the next job.
+         */
+        void fail(Handle job, RuntimeException e);
+    }
+
+    /**
+     * One submitted job, as seen by its {@link Task}.
+     */
+    public static final class Handle implements Cancellation {
+        public final String id;
+        private volatile boolean mCancelled;
+        private volatile Runnable mOnCancel;
+
+        Handle(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        public void throwIfCancelled() throws CancelledException {
+            if (mCancelled) {
+                throw new CancelledException(id);
+            }
+        }
+
+        /**
+         * Sets what to do to abort a blocking call, e.g. disconnect a download;
+         * null once the call returned. Runs right away if already cancelled.
+         */
+        public void setOnCancel(Runnable abort) {
+            mOnCancel = abort;
+            if (abort != null && mCancelled) {
+                abort.run();
+            }
+        }
+
+        void cancel() {
+            mCancelled = true;
+            Runnable abort = mOnCancel;
+            if (abort != null) {
+                abort.run();
+            }
+        }
+    }
+
+    // a band is the unit of cancellation; a few of them make one write
+    private static final int TRANSFER_SIZE = 8192;
+
+    private final String mThreadName;
+    private final Map<String, Handle> mJobs = new ConcurrentHashMap<>();
+    private final AtomicLong mIds = new AtomicLong();
+    private ExecutorService mWorker;
+
+    public PrintJobs(String threadName) {
+        this.mThreadName = threadName;
+    }
+
+    private synchronized ExecutorService getWorker() {
+        if (mWorker == null) {
+            mWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, mThreadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return mWorker;
+    }
+
+    /**
+     * Queues {@code task} behind the jobs already submitted.
+     *
+     * @param id the app's id for the job; one is made up if empty
+     * @return the job's handle
+     */
+    public Handle submit(String id, final Task task) {
+        final Handle job = new Handle(id == null || id.isEmpty() ? "native-" + mIds.incrementAndGet() : id);
+        mJobs.put(job.id, job);
+        getWorker().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run(job);
+                } catch (RuntimeException e) {
+                    task.fail(job, e);
+                } finally {
+                    mJobs.remove(job.id, job);
+                }
+            }
+        });
+        return job;
+    }
+
+    /**
+     * @return false if no job with that id is queued or running.
+     */
+    public boolean cancel(String id) {
+        Handle job = id == null ? null : mJobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    public int getPending() {
+        return mJobs.size();
+    }
+
+    /**
+     * Writes a {@link BitImage} job to {@code sink} a few bands at a time and
+     * checks {@code job} in between. Once cancelled, only the trailer follows
+     * the bands already sent, so the printer gets its line spacing back and
+     * the paper shows part of the image; then {@link CancelledException}.
+     */
+    public static void writeBands(byte[] bytes, Handle job, FlowController.Sink sink) throws IOException {
+        writeBands(bytes, bytes.length, job, sink);
+    }
+
+    /**
+     * As {@link #writeBands(byte[], Handle, FlowController.Sink)} for a job
+     * in the first {@code length} bytes of a pooled buffer.
+     */
+    public static void writeBands(byte[] bytes, int length, Handle job, FlowController.Sink sink)
+            throws IOException {
+        int band = BitImage.bandSizeOf(bytes, length);
+        if (band == 0) {
+            job.throwIfCancelled();
+            sink.write(bytes, 0, length);
+            return;
+        }
+        int trailer = length - BitImage.TRAILER_SIZE;
+        int bandsPerWrite = Math.max(1, TRANSFER_SIZE / band);
+        job.throwIfCancelled();
+        sink.write(bytes, 0, BitImage.HEADER_SIZE);
+        for (int offset = BitImage.HEADER_SIZE; offset < trailer; ) {
+            if (job.isCancelled()) {
+                sink.write(bytes, trailer, BitImage.TRAILER_SIZE);
+                throw new CancelledException(job.id);
+            }
+            int chunk = Math.min(bandsPerWrite * band, trailer - offset);
+            sink.write(bytes, offset, chunk);
+            offset += chunk;
+        }
+        sink.write(bytes, trailer, BitImage.TRAILER_SIZE);
+    }
+}
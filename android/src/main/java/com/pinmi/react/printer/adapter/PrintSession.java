@@ -0,0 +1,241 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.pinmi.react.printer.raster.BufferPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A job the app keeps appending to while it is still being put together,
+ * e.g. an order ticket printed item by item as the items come in. The session
+ * runs as one task on the printer's {@link PrintJobs} worker, so prints made
+ * after it opens queue behind it instead of landing in the middle. Once the
+ * first chunk arrives it also takes the adapter's write lock, which keeps
+ * status queries out, and holds it until {@link #close(Result) close}. Each
+ * appended chunk is rendered like a {@link Receipt} and written as soon as it
+ * gets there, so the paper starts moving before the last chunk is known.
+ * <p>
+ * A session that gets nothing for its idle timeout ends with
+ * {@link Timeouts.Kind#JOB}, so an app that forgets to close it cannot hold
+ * the printer forever.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class PrintSession {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000;
+
+    /**
+     * The outcome of one append or close.
+     */
+    public interface Result {
+        void resolve();
+
+        void reject(String code, String message);
+    }
+
+    /**
+     * Writes a rendered chunk to the printer.
+     */
+    public interface Sink {
+        void write(BufferPool.Bytes bytes) throws IOException;
+    }
+
+    private static final class Chunk {
+        /** null for close */
+        final List<Receipt.Segment> segments;
+        final Result result;
+
+        Chunk(List<Receipt.Segment> segments, Result result) {
+            this.segments = segments;
+            this.result = result;
+        }
+    }
+
+    // queued by cancelJob to wake the worker
+    private static final Chunk WAKE = new Chunk(null, null);
+
+    public final String id;
+    private final PrinterProfile mProfile;
+    // used only on the worker the session runs on, like the adapter's builder
+    private final EscPosBuilder mBuilder = new EscPosBuilder();
+    private final Receipt.Images mImages;
+    private final long mIdleTimeoutMs;
+    private final BlockingQueue<Chunk> mChunks = new LinkedBlockingQueue<>();
+    private boolean mClosed;
+    private Chunk mCurrent;
+
+    /**
+     * @param idleTimeoutMs 0 to wait for the next chunk for as long as it takes.
+     */
+    public PrintSession(String id, PrinterProfile profile, Receipt.Images images, long idleTimeoutMs) {
+        this.id = id;
+        this.mProfile = profile;
+        this.mImages = images;
+        this.mIdleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * @return {@code idleTimeoutMs} from the JS options, or the default.
+     */
+    public static long idleTimeoutMs(ReadableMap options) {
+        return options != null && options.hasKey("idleTimeoutMs")
+                && options.getType("idleTimeoutMs") == ReadableType.Number
+                ? (long) options.getDouble("idleTimeoutMs") : DEFAULT_IDLE_TIMEOUT_MS;
+    }
+
+    public static Result result(final Promise promise) {
+        return new Result() {
+            @Override
+            public void resolve() {
+                promise.resolve(null);
+            }
+
+            @Override
+            public void reject(String code, String message) {
+                promise.reject(code, message);
+            }
+        };
+    }
+
+    /**
+     * Queues {@code segments} to be written after the chunks before them;
+     * {@code result} resolves once they are.
+     *
+     * @return false, without calling {@code result}, if the session is closed.
+     */
+    public synchronized boolean append(List<Receipt.Segment> segments, Result result) {
+        if (mClosed) {
+            return false;
+        }
+        mChunks.add(new Chunk(segments, result));
+        return true;
+    }
+
+    /**
+     * Takes no more chunks; {@code result} resolves once the ones queued are
+     * written and the printer is free again.
+     *
+     * @return false, without calling {@code result}, if already closed.
+     */
+    public synchronized boolean close(Result result) {
+        if (mClosed) {
+            return false;
+        }
+        mClosed = true;
+        mChunks.add(new Chunk(null, result));
+        return true;
+    }
+
+    /**
+     * Writes chunks as they arrive until the session is closed. Runs on the
+     * worker and holds {@code writeLock} from the first chunk on. A chunk
+     * with a segment that cannot be rendered is rejected with that segment's
+     * code and nothing of it is written; the session carries on.
+     *
+     * @return the bytes written.
+     * @throws IOException if {@code job} was cancelled, the session was idle
+     *         too long or a write failed; {@link #fail} it then.
+     */
+    public long run(PrintJobs.Handle job, Object writeLock, Sink sink) throws IOException {
+        job.setOnCancel(new Runnable() {
+            @Override
+            public void run() {
+                mChunks.add(WAKE);
+            }
+        });
+        try {
+            Chunk first = next(job);
+            synchronized (writeLock) {
+                return write(first, job, sink);
+            }
+        } finally {
+            job.setOnCancel(null);
+        }
+    }
+
+    private long write(Chunk chunk, PrintJobs.Handle job, Sink sink) throws IOException {
+        long written = 0;
+        for (;; chunk = next(job)) {
+            if (chunk.segments == null) {
+                mCurrent = null;
+                chunk.result.resolve();
+                return written;
+            }
+            BufferPool.Bytes bytes;
+            try {
+                bytes = Receipt.render(chunk.segments, mProfile, mBuilder, mImages, job);
+            } catch (Receipt.SegmentException e) {
+                mCurrent = null;
+                chunk.result.reject(e.code, e.getMessage());
+                continue;
+            }
+            try {
+                sink.write(bytes);
+            } finally {
+                bytes.release();
+            }
+            written += bytes.length;
+            mCurrent = null;
+            chunk.result.resolve();
+        }
+    }
+
+    private Chunk next(PrintJobs.Handle job) throws IOException {
+        while (true) {
+            Chunk chunk = poll();
+            if (chunk != WAKE) {
+                // taken off the queue, so fail() has to find it here
+                mCurrent = chunk;
+                job.throwIfCancelled();
+                return chunk;
+            }
+            job.throwIfCancelled();
+        }
+    }
+
+    private Chunk poll() throws IOException {
+        try {
+            if (mIdleTimeoutMs <= 0) {
+                return mChunks.take();
+            }
+            Chunk chunk = mChunks.poll(mIdleTimeoutMs, TimeUnit.MILLISECONDS);
+            if (chunk == null) {
+                throw new Timeouts.TimeoutException(Timeouts.Kind.JOB,
+                        "print session " + id + " was idle for " + mIdleTimeoutMs + " ms");
+            }
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("print session " + id + " was interrupted");
+        }
+    }
+
+    /**
+     * Ends the session after {@link #run} failed or never ran: the chunk being
+     * written and every one still queued, close included, are rejected.
+     */
+    public void fail(String code, String message) {
+        List<Chunk> pending = new ArrayList<>();
+        synchronized (this) {
+            mClosed = true;
+            if (mCurrent != null) {
+                pending.add(mCurrent);
+                mCurrent = null;
+            }
+            mChunks.drainTo(pending);
+        }
+        for (Chunk chunk : pending) {
+            if (chunk != WAKE) {
+                chunk.result.reject(code, message);
+            }
+        }
+    }
+}
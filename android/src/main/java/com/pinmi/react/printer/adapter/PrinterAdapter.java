@@ -2,7 +2,11 @@ package com.pinmi.react.printer.adapter;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -21,9 +25,101 @@ public interface PrinterAdapter {
 
     void closeConnectionIfExists();
 
+    /**
+     * Queues the job on the printer's worker, behind the jobs before it.
+     */
     void printRawData(String rawBase64Data, Promise promise);
 
-    void printImageData(String imageUrl, double imageWidth, Promise promise);
+    /**
+     * Prints the remaining bytes of {@code data} without a Base64 round trip.
+     * Heap buffers are written from their backing array without copying.
+     */
+    void printRawBytes(ByteBuffer data, Promise promise);
 
-    void printQrCode(String qrCode, double qrSize, Promise promise);
+    /**
+     * Encodes text with the {@code <B>}, {@code <C>}, ... markup natively, with
+     * the same output as the JS {@code printText}/{@code printBill} path, on
+     * the printer's worker.
+     *
+     * @param jobId the id {@link #cancelJob(String)} takes; made up if empty
+     */
+    void printText(String text, ReadableMap options, String jobId, Promise promise);
+
+    /**
+     * Prints a template registered with {@link EscPosTemplate#register},
+     * encoding only the slot values.
+     */
+    void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise);
+
+    /**
+     * Streams a file or {@code content://} URI through a fixed-size buffer,
+     * emitting {@link PrinterEventEmitter#EVENT_PRINT_PROGRESS} as it goes.
+     * Cancelling stops it between buffers.
+     */
+    void printFile(String uri, String jobId, Promise promise);
+
+    /**
+     * Fetches, encodes and sends the image on the printer's worker thread.
+     *
+     * @param jobId the id {@link #cancelJob(String)} takes; made up if empty
+     */
+    void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise);
+
+    void printQrCode(String qrCode, double qrSize, String jobId, Promise promise);
+
+    /**
+     * Renders the segments of a whole receipt on the job's worker and sends
+     * them as one write; see {@link Receipt}.
+     */
+    void printReceipt(ReadableArray segments, String jobId, Promise promise);
+
+    /**
+     * Opens a {@link PrintSession}; cancel it with {@link #cancelJob(String)}.
+     */
+    void openSession(String sessionId, ReadableMap options, Promise promise);
+
+    void appendSession(String sessionId, ReadableArray segments, Promise promise);
+
+    void closeSession(String sessionId, Promise promise);
+
+    /**
+     * Stops an image or QR job at its next band, a file at its next buffer
+     * and a text, template or receipt job before it is sent; its promise
+     * rejects with {@code ERR_CANCELLED}.
+     *
+     * @return false if the job already finished or never existed.
+     * @see PrintJobs
+     */
+    boolean cancelJob(String jobId);
+
+    void startStatusMonitor(String mode, double intervalMs, Promise promise);
+
+    void stopStatusMonitor();
+
+    PrinterStatus getStatus();
+
+    /**
+     * @return per-printer job counts and timing histograms, keyed by printer id.
+     * @see JobMetrics
+     */
+    WritableMap getStats();
+
+    /**
+     * @return the {@link PrinterProfile} jobs for the connected printer are
+     *         encoded and paced for.
+     */
+    WritableMap getProfile();
+
+    /**
+     * Emits {@link PrinterEventEmitter#EVENT_PRINT_JOB_COMPLETED} after every job while enabled.
+     */
+    void setJobEvents(boolean enabled);
+
+    void setFlowControl(ReadableMap options);
+
+    /**
+     * Sets the connect, per-write and per-job deadlines.
+     * @see Timeouts#configure(ReadableMap)
+     */
+    void setTimeouts(ReadableMap options);
 }
@@ -0,0 +1,94 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+/**
+ * Shared helper for pushing adapter events to JS through
+ * {@link DeviceEventManagerModule.RCTDeviceEventEmitter}.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class PrinterEventEmitter {
+
+    public static final String EVENT_PRINTER_STATE_CHANGED = "printerStateChanged";
+    public static final String EVENT_PRINTER_STATUS_CHANGED = "printerStatusChanged";
+    public static final String EVENT_PRINT_PROGRESS = "printProgress";
+    public static final String EVENT_PRINT_JOB_COMPLETED = "printJobCompleted";
+
+    public static final String STATE_CONNECTED = "connected";
+    public static final String STATE_RECONNECTING = "reconnecting";
+    public static final String STATE_DISCONNECTED = "disconnected";
+    public static final String STATE_CIRCUIT_OPEN = "circuit_open";
+
+    private PrinterEventEmitter() {
+    }
+
+    public static void emit(ReactApplicationContext context, String eventName, Object data) {
+        if (context != null) {
+            context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, data);
+        }
+    }
+
+    public static void emitStateChanged(ReactApplicationContext context, PrinterDevice device, String state) {
+        emitStateChanged(context, device, state, null);
+    }
+
+    /**
+     * @param extra optional fields merged into the payload, e.g. {@code attempt}
+     */
+    public static void emitStateChanged(ReactApplicationContext context, PrinterDevice device, String state,
+            WritableMap extra) {
+        if (context == null) {
+            return;
+        }
+        WritableMap payload = Arguments.createMap();
+        payload.putString("state", state);
+        if (device != null) {
+            payload.putMap("device", device.toRNWritableMap());
+        }
+        if (extra != null) {
+            payload.merge(extra);
+        }
+        emit(context, EVENT_PRINTER_STATE_CHANGED, payload);
+    }
+
+    public static void emitStatusChanged(ReactApplicationContext context, PrinterDevice device,
+            PrinterStatus status) {
+        if (context == null) {
+            return;
+        }
+        WritableMap payload = status.toRNWritableMap();
+        if (device != null) {
+            payload.putMap("device", device.toRNWritableMap());
+        }
+        emit(context, EVENT_PRINTER_STATUS_CHANGED, payload);
+    }
+
+    /**
+     * @param totalBytes -1 if the size is unknown; {@code progress} is then -1 too.
+     */
+    public static void emitPrintProgress(ReactApplicationContext context, String uri, long bytesSent,
+            long totalBytes) {
+        if (context == null) {
+            return;
+        }
+        WritableMap payload = Arguments.createMap();
+        payload.putString("uri", uri);
+        payload.putDouble("bytes_sent", bytesSent);
+        payload.putDouble("total_bytes", totalBytes);
+        payload.putDouble("progress", totalBytes > 0 ? Math.min(1.0, (double) bytesSent / totalBytes) : -1);
+        emit(context, EVENT_PRINT_PROGRESS, payload);
+    }
+
+    public static void emitJobCompleted(ReactApplicationContext context, String printer, JobMetrics.Job job) {
+        if (context == null) {
+            return;
+        }
+        WritableMap payload = job.toRNWritableMap();
+        payload.putString("printer", printer);
+        emit(context, EVENT_PRINT_JOB_COMPLETED, payload);
+    }
+}
@@ -0,0 +1,235 @@
+package com.pinmi.react.printer.adapter;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.Locale;
+
+/**
+ * Logging facade for the adapters. Messages use {@code {}} placeholders and
+ * are only built once the level is enabled, so a disabled call allocates
+ * nothing as long as its arguments are already objects; guard calls that box
+ * primitives with {@link #isLoggable}. Byte arrays and payloads are logged as
+ * their size, and long strings are truncated, so receipt contents never reach
+ * logcat whole.
+ * <p>
+ * Also wraps {@link Trace} sections for the job phases, so jobs show up in
+ * system traces.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class PrinterLog {
+
+    public static final String LOG_TAG = "RNPrinterLog";
+    public static final int NONE = Integer.MAX_VALUE;
+
+    public static final String SECTION_FETCH = "RNPrinter.fetch";
+    public static final String SECTION_DECODE = "RNPrinter.decode";
+    public static final String SECTION_ENCODE = "RNPrinter.encode";
+    public static final String SECTION_TRANSFER = "RNPrinter.transfer";
+
+    static final int MAX_ARG_LENGTH = 64;
+
+    private static volatile int sLevel = Log.INFO;
+    private static volatile boolean sRedactPayloads = true;
+
+    private PrinterLog() {
+    }
+
+    /**
+     * @param level one of the {@link Log} priorities, or {@link #NONE}.
+     */
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    public static int getLevel() {
+        return sLevel;
+    }
+
+    /**
+     * @return the priority for {@code verbose}, {@code debug}, {@code info},
+     *         {@code warn}, {@code error} or {@code none}, or -1 for anything else.
+     */
+    public static int levelOf(String name) {
+        switch (name == null ? "" : name.toLowerCase(Locale.ROOT)) {
+            case "verbose":
+                return Log.VERBOSE;
+            case "debug":
+                return Log.DEBUG;
+            case "info":
+                return Log.INFO;
+            case "warn":
+                return Log.WARN;
+            case "error":
+                return Log.ERROR;
+            case "none":
+                return NONE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * When disabled, byte arrays and payloads are logged as a hex prefix
+     * instead of just their size. For debugging only.
+     */
+    public static void setRedactPayloads(boolean redact) {
+        sRedactPayloads = redact;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= sLevel;
+    }
+
+    public static void v(String tag, String message) {
+        log(Log.VERBOSE, tag, message, null, null, null, null, 0, null);
+    }
+
+    public static void v(String tag, String format, Object arg) {
+        log(Log.VERBOSE, tag, format, arg, null, null, null, 1, null);
+    }
+
+    public static void v(String tag, String format, Object arg1, Object arg2) {
+        log(Log.VERBOSE, tag, format, arg1, arg2, null, null, 2, null);
+    }
+
+    public static void v(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(Log.VERBOSE, tag, format, arg1, arg2, arg3, null, 3, null);
+    }
+
+    public static void v(String tag, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        log(Log.VERBOSE, tag, format, arg1, arg2, arg3, arg4, 4, null);
+    }
+
+    public static void d(String tag, String message) {
+        log(Log.DEBUG, tag, message, null, null, null, null, 0, null);
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        log(Log.DEBUG, tag, format, arg, null, null, null, 1, null);
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        log(Log.DEBUG, tag, format, arg1, arg2, null, null, 2, null);
+    }
+
+    public static void i(String tag, String message) {
+        log(Log.INFO, tag, message, null, null, null, null, 0, null);
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        log(Log.INFO, tag, format, arg, null, null, null, 1, null);
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2) {
+        log(Log.INFO, tag, format, arg1, arg2, null, null, 2, null);
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(Log.INFO, tag, format, arg1, arg2, arg3, null, 3, null);
+    }
+
+    public static void w(String tag, String message) {
+        log(Log.WARN, tag, message, null, null, null, null, 0, null);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        log(Log.WARN, tag, format, arg, null, null, null, 1, null);
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        log(Log.WARN, tag, format, arg1, arg2, null, null, 2, null);
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(Log.WARN, tag, format, arg1, arg2, arg3, null, 3, null);
+    }
+
+    public static void e(String tag, String message) {
+        log(Log.ERROR, tag, message, null, null, null, null, 0, null);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        log(Log.ERROR, tag, format, arg, null, null, null, 1, null);
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        log(Log.ERROR, tag, format, arg1, arg2, null, null, 2, null);
+    }
+
+    /**
+     * Logs {@code error} with its stack trace.
+     */
+    public static void e(String tag, String message, Throwable error) {
+        log(Log.ERROR, tag, message, null, null, null, null, 0, error);
+    }
+
+    private static void log(int level, String tag, String format, Object arg1, Object arg2, Object arg3,
+            Object arg4, int argCount, Throwable error) {
+        if (level < sLevel) {
+            return;
+        }
+        String message = argCount == 0 ? format : format(format, arg1, arg2, arg3, arg4, argCount);
+        if (error != null) {
+            message = message + '\n' + Log.getStackTraceString(error);
+        }
+        Log.println(level, tag, message);
+    }
+
+    static String format(String format, Object arg1, Object arg2, Object arg3, Object arg4, int argCount) {
+        StringBuilder message = new StringBuilder(format.length() + 32 * argCount);
+        int start = 0;
+        for (int i = 0; i < argCount; i++) {
+            int placeholder = format.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            message.append(format, start, placeholder);
+            appendArg(message, i == 0 ? arg1 : i == 1 ? arg2 : i == 2 ? arg3 : arg4);
+            start = placeholder + 2;
+        }
+        return message.append(format, start, format.length()).toString();
+    }
+
+    private static void appendArg(StringBuilder message, Object arg) {
+        if (arg instanceof byte[]) {
+            byte[] bytes = (byte[]) arg;
+            appendBytes(message, bytes, 0, bytes.length);
+        } else if (arg instanceof RawPayload) {
+            RawPayload payload = (RawPayload) arg;
+            appendBytes(message, payload.bytes, payload.offset, payload.length);
+        } else if (arg instanceof CharSequence && ((CharSequence) arg).length() > MAX_ARG_LENGTH) {
+            CharSequence text = (CharSequence) arg;
+            message.append(text, 0, MAX_ARG_LENGTH).append("... (").append(text.length()).append(" chars)");
+        } else {
+            message.append(arg);
+        }
+    }
+
+    private static void appendBytes(StringBuilder message, byte[] bytes, int offset, int length) {
+        if (sRedactPayloads) {
+            message.append('<').append(length).append(" bytes>");
+            return;
+        }
+        int shown = Math.min(length, MAX_ARG_LENGTH / 2);
+        for (int i = 0; i < shown; i++) {
+            message.append(String.format("%02x", bytes[offset + i] & 0xFF));
+        }
+        if (shown < length) {
+            message.append("... (").append(length).append(" bytes)");
+        }
+    }
+
+    /**
+     * Starts a {@link Trace} section; pair with {@link #endSection()} in a
+     * {@code finally} block on the same thread.
+     */
+    public static void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    public static void endSection() {
+        Trace.endSection();
+    }
+}
@@ -0,0 +1,211 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.pinmi.react.printer.raster.BitImage;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What one printer model can do, as far as the encoders and the output path
+ * care: paper width in dots, how to send images and QR codes, which code
+ * pages it has, and how fast it takes data. Read from JSON such as
+ *
+ * <pre>
+ * { "id": "tm-t20", "extends": "80mm", "models": ["TM-T20"], "image": "raster",
+ *   "dither": false, "qr": "native", "barcode": true, "receiveBuffer": 4096 }
+ * </pre>
+ *
+ * Keys left out, except {@code models}, are taken from the profile named by
+ * {@code extends}, or from {@link PrinterProfiles#DEFAULT_ID}, which
+ * describes the printer every adapter assumed before profiles existed.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class PrinterProfile {
+
+    public enum QrMode {
+        /** rendered here and sent as an image */
+        IMAGE,
+        /** {@code GS ( k}: the printer renders it from the content */
+        NATIVE
+    }
+
+    /** image width when neither the app nor the profile gives one */
+    public static final int DEFAULT_IMAGE_WIDTH = 200;
+
+    public final String id;
+    public final String name;
+    /** matched case-insensitively against the device name */
+    public final List<String> models;
+    /** printable width; 0 if unknown */
+    public final int dotWidth;
+    public final int dpi;
+    public final BitImage.Command image;
+    /** whether images are error-diffused rather than thresholded */
+    public final boolean dither;
+    public final QrMode qr;
+    /** whether {@code GS k} barcodes print */
+    public final boolean barcode;
+    /** the pages automatic code page switching may use; null for all */
+    public final List<CodePages.Page> codePages;
+    /** bytes the printer buffers; 0 if unknown */
+    public final int receiveBuffer;
+    /** the rate the printer keeps up with; 0 if unknown */
+    public final long bytesPerSecond;
+
+    PrinterProfile(String id, String name, List<String> models, int dotWidth, int dpi, BitImage.Command image,
+            boolean dither, QrMode qr, boolean barcode, List<CodePages.Page> codePages, int receiveBuffer,
+            long bytesPerSecond) {
+        this.id = id;
+        this.name = name;
+        this.models = models;
+        this.dotWidth = dotWidth;
+        this.dpi = dpi;
+        this.image = image;
+        this.dither = dither;
+        this.qr = qr;
+        this.barcode = barcode;
+        this.codePages = codePages;
+        this.receiveBuffer = receiveBuffer;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @param base the profile to take missing keys from
+     * @throws JSONException if {@code id} is missing or a value is not understood.
+     */
+    static PrinterProfile fromJson(JSONObject json, PrinterProfile base) throws JSONException {
+        String id = json.getString("id");
+        // never inherited: a model name picks one profile, not every one extending it
+        List<String> models = Collections.emptyList();
+        JSONArray modelArray = json.optJSONArray("models");
+        if (modelArray != null) {
+            models = new ArrayList<>();
+            for (int i = 0; i < modelArray.length(); i++) {
+                models.add(modelArray.getString(i));
+            }
+            models = Collections.unmodifiableList(models);
+        }
+        List<CodePages.Page> codePages = base.codePages;
+        JSONArray pageArray = json.optJSONArray("codePages");
+        if (pageArray != null) {
+            codePages = new ArrayList<>();
+            for (int i = 0; i < pageArray.length(); i++) {
+                CodePages.Page page = CodePages.forEncoding(pageArray.getString(i));
+                if (page == null) {
+                    throw new JSONException("unknown code page " + pageArray.getString(i));
+                }
+                codePages.add(page);
+            }
+            codePages = Collections.unmodifiableList(codePages);
+        }
+        return new PrinterProfile(id,
+                json.optString("name", id),
+                models,
+                json.optInt("dotWidth", base.dotWidth),
+                json.optInt("dpi", base.dpi),
+                json.has("image") ? imageCommand(json.getString("image")) : base.image,
+                json.optBoolean("dither", base.dither),
+                json.has("qr") ? qrMode(json.getString("qr")) : base.qr,
+                json.optBoolean("barcode", base.barcode),
+                codePages,
+                json.optInt("receiveBuffer", base.receiveBuffer),
+                json.optLong("bytesPerSecond", base.bytesPerSecond));
+    }
+
+    private static BitImage.Command imageCommand(String value) throws JSONException {
+        switch (value) {
+            case "bitImage":
+                return BitImage.Command.BIT_IMAGE;
+            case "raster":
+                return BitImage.Command.RASTER;
+            default:
+                throw new JSONException("image must be bitImage or raster, not " + value);
+        }
+    }
+
+    private static QrMode qrMode(String value) throws JSONException {
+        switch (value) {
+            case "image":
+                return QrMode.IMAGE;
+            case "native":
+                return QrMode.NATIVE;
+            default:
+                throw new JSONException("qr must be image or native, not " + value);
+        }
+    }
+
+    /**
+     * @return whether {@code deviceName} contains one of {@link #models}.
+     */
+    public boolean matchesModel(String deviceName) {
+        if (deviceName == null) {
+            return false;
+        }
+        String upper = deviceName.toUpperCase(Locale.ROOT);
+        for (String model : models) {
+            if (upper.contains(model.toUpperCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param requested the app's image width; 0 for the profile's.
+     * @return the width to scale images to, never wider than the paper.
+     */
+    public int imageWidth(double requested) {
+        int width = requested > 0 ? (int) requested : dotWidth > 0 ? dotWidth : DEFAULT_IMAGE_WIDTH;
+        return dotWidth > 0 ? Math.min(width, dotWidth) : width;
+    }
+
+    /**
+     * @return the QR code size in dots, never wider than the paper.
+     */
+    public int qrSize(double requested) {
+        int size = (int) requested;
+        return dotWidth > 0 ? Math.min(size, dotWidth) : size;
+    }
+
+    public WritableMap toRNWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putString("id", id);
+        map.putString("name", name);
+        WritableArray modelArray = Arguments.createArray();
+        for (String model : models) {
+            modelArray.pushString(model);
+        }
+        map.putArray("models", modelArray);
+        map.putInt("dotWidth", dotWidth);
+        map.putInt("dpi", dpi);
+        map.putString("image", image == BitImage.Command.RASTER ? "raster" : "bitImage");
+        map.putBoolean("dither", dither);
+        map.putString("qr", qr == QrMode.NATIVE ? "native" : "image");
+        map.putBoolean("barcode", barcode);
+        if (codePages != null) {
+            WritableArray pageArray = Arguments.createArray();
+            for (CodePages.Page page : codePages) {
+                pageArray.pushString(page.name);
+            }
+            map.putArray("codePages", pageArray);
+        }
+        map.putInt("receiveBuffer", receiveBuffer);
+        map.putDouble("bytesPerSecond", bytesPerSecond);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,163 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.pinmi.react.printer.raster.BitImage;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link PrinterProfile}s the adapters choose from: built-in ones plus
+ * any the app registers as JSON. The profile for a printer is, in order, the
+ * one assigned to its id (the key used by {@code getStats()}: {@code host:port},
+ * MAC address or {@code vendorId:productId}), the first registered and then
+ * built-in profile whose {@code models} match its device name, or
+ * {@link #DEFAULT_ID}.
+ * <p>
+ * Shared by all transports and kept in memory only; apps register their
+ * profiles at startup.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class PrinterProfiles {
+
+    public static final String DEFAULT_ID = "default";
+
+    private static final PrinterProfile DEFAULT = new PrinterProfile(DEFAULT_ID, "Generic ESC/POS",
+            Collections.<String>emptyList(), 0, 203, BitImage.Command.BIT_IMAGE, false,
+            PrinterProfile.QrMode.IMAGE, false, null, 0, 0);
+
+    // only what the vendors document; anything else is up to the app
+    private static final String BUILT_IN = "["
+            + "{\"id\":\"58mm\",\"name\":\"58 mm paper\",\"dotWidth\":384},"
+            + "{\"id\":\"80mm\",\"name\":\"80 mm paper\",\"dotWidth\":576},"
+            + "{\"id\":\"epson-tm-t20\",\"name\":\"Epson TM-T20\",\"extends\":\"80mm\",\"models\":[\"TM-T20\"],"
+            + "\"image\":\"raster\",\"qr\":\"native\",\"barcode\":true,\"receiveBuffer\":4096},"
+            + "{\"id\":\"epson-tm-m30\",\"name\":\"Epson TM-m30\",\"extends\":\"80mm\",\"models\":[\"TM-m30\"],"
+            + "\"image\":\"raster\",\"qr\":\"native\",\"barcode\":true,\"receiveBuffer\":4096},"
+            + "{\"id\":\"epson-tm-t88\",\"name\":\"Epson TM-T88\",\"models\":[\"TM-T88\"],\"dotWidth\":512,"
+            + "\"dpi\":180,\"image\":\"raster\",\"qr\":\"native\",\"barcode\":true,\"receiveBuffer\":4096}"
+            + "]";
+
+    private static PrinterProfiles mInstance;
+
+    private final Map<String, PrinterProfile> mBuiltIn = new LinkedHashMap<>();
+    private final Map<String, PrinterProfile> mRegistered = new LinkedHashMap<>();
+    private final Map<String, String> mAssigned = new HashMap<>();
+
+    public static synchronized PrinterProfiles getInstance() {
+        if (mInstance == null) {
+            mInstance = new PrinterProfiles();
+        }
+        return mInstance;
+    }
+
+    PrinterProfiles() {
+        mBuiltIn.put(DEFAULT_ID, DEFAULT);
+        try {
+            for (PrinterProfile profile : parse(BUILT_IN)) {
+                mBuiltIn.put(profile.id, profile);
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException("built-in printer profiles", e);
+        }
+    }
+
+    /**
+     * Adds or replaces profiles; a registered profile shadows a built-in one
+     * with the same id.
+     *
+     * @param json one profile object or an array of them
+     * @return the profiles registered
+     * @throws JSONException if the JSON is malformed, a value is not understood
+     *         or {@code extends} names an unknown profile; nothing is registered then.
+     */
+    public synchronized List<PrinterProfile> register(String json) throws JSONException {
+        List<PrinterProfile> profiles = parse(json);
+        for (PrinterProfile profile : profiles) {
+            mRegistered.put(profile.id, profile);
+        }
+        return profiles;
+    }
+
+    // profiles may extend ones earlier in the same document
+    private List<PrinterProfile> parse(String json) throws JSONException {
+        String trimmed = json.trim();
+        JSONArray array = trimmed.startsWith("[") ? new JSONArray(trimmed) : new JSONArray().put(new JSONObject(trimmed));
+        Map<String, PrinterProfile> parsed = new LinkedHashMap<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject object = array.getJSONObject(i);
+            PrinterProfile base = DEFAULT;
+            if (object.has("extends")) {
+                String baseId = object.getString("extends");
+                base = parsed.containsKey(baseId) ? parsed.get(baseId) : get(baseId);
+                if (base == null) {
+                    throw new JSONException("unknown profile " + baseId);
+                }
+            }
+            PrinterProfile profile = PrinterProfile.fromJson(object, base);
+            parsed.put(profile.id, profile);
+        }
+        return new ArrayList<>(parsed.values());
+    }
+
+    /**
+     * @param profileId null or empty to go back to matching by model.
+     * @throws IllegalArgumentException if no profile has that id.
+     */
+    public synchronized void assign(String printerId, String profileId) {
+        if (profileId == null || profileId.isEmpty()) {
+            mAssigned.remove(printerId);
+            return;
+        }
+        if (get(profileId) == null) {
+            throw new IllegalArgumentException("unknown printer profile " + profileId);
+        }
+        mAssigned.put(printerId, profileId);
+    }
+
+    public static WritableArray toRNWritableArray(List<PrinterProfile> profiles) {
+        WritableArray array = Arguments.createArray();
+        for (PrinterProfile profile : profiles) {
+            array.pushMap(profile.toRNWritableMap());
+        }
+        return array;
+    }
+
+    public synchronized PrinterProfile get(String profileId) {
+        PrinterProfile profile = mRegistered.get(profileId);
+        return profile != null ? profile : mBuiltIn.get(profileId);
+    }
+
+    /**
+     * @param deviceName the name the printer reports, or null
+     */
+    public synchronized PrinterProfile resolve(String printerId, String deviceName) {
+        String assigned = mAssigned.get(printerId);
+        if (assigned != null) {
+            return get(assigned);
+        }
+        if (deviceName != null) {
+            for (PrinterProfile profile : mRegistered.values()) {
+                if (profile.matchesModel(deviceName)) {
+                    return profile;
+                }
+            }
+            for (PrinterProfile profile : mBuiltIn.values()) {
+                if (profile.matchesModel(deviceName) && !mRegistered.containsKey(profile.id)) {
+                    return profile;
+                }
+            }
+        }
+        return get(DEFAULT_ID);
+    }
+}
@@ -0,0 +1,141 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Immutable snapshot of the printer's real-time status, decoded either from
+ * DLE EOT (0x10 0x04 n) replies or from an Automatic Status Back (GS a) packet.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class PrinterStatus {
+
+    public static final PrinterStatus UNKNOWN = new PrinterStatus(false, false, false, false, false, false, false, 0);
+
+    private final boolean known;
+    private final boolean online;
+    private final boolean coverOpen;
+    private final boolean paperOut;
+    private final boolean paperNearEnd;
+    private final boolean error;
+    private final boolean drawerOpen;
+    private final long updatedAt;
+
+    private PrinterStatus(boolean known, boolean online, boolean coverOpen, boolean paperOut, boolean paperNearEnd,
+            boolean error, boolean drawerOpen, long updatedAt) {
+        this.known = known;
+        this.online = online;
+        this.coverOpen = coverOpen;
+        this.paperOut = paperOut;
+        this.paperNearEnd = paperNearEnd;
+        this.error = error;
+        this.drawerOpen = drawerOpen;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Decodes the four DLE EOT replies (n = 1 printer, 2 offline cause, 3 error
+     * cause, 4 paper roll sensor).
+     */
+    public static PrinterStatus fromRealtime(int printer, int offline, int error, int paper) {
+        return new PrinterStatus(true,
+                (printer & 0x08) == 0,
+                (offline & 0x04) != 0,
+                (paper & 0x60) != 0 || (offline & 0x20) != 0,
+                (paper & 0x0C) != 0,
+                (offline & 0x40) != 0 || (error & 0x68) != 0,
+                (printer & 0x04) == 0,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Decodes a 4-byte Automatic Status Back packet.
+     */
+    public static PrinterStatus fromAsb(byte[] asb) {
+        return new PrinterStatus(true,
+                (asb[0] & 0x08) == 0,
+                (asb[0] & 0x20) != 0,
+                (asb[2] & 0x0C) != 0,
+                (asb[2] & 0x03) != 0,
+                (asb[1] & 0x2C) != 0,
+                (asb[0] & 0x04) == 0,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Status reported when the printer stops answering status queries.
+     */
+    public static PrinterStatus notResponding() {
+        return new PrinterStatus(true, false, false, false, false, false, false, System.currentTimeMillis());
+    }
+
+    public boolean isKnown() {
+        return known;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public boolean isCoverOpen() {
+        return coverOpen;
+    }
+
+    public boolean isPaperOut() {
+        return paperOut;
+    }
+
+    public boolean isPaperNearEnd() {
+        return paperNearEnd;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public boolean isDrawerOpen() {
+        return drawerOpen;
+    }
+
+    /**
+     * @return true if the printer reported a condition in which it will not
+     *         consume data (offline, cover open, out of paper). Unknown status
+     *         never counts as busy.
+     */
+    public boolean isBusy() {
+        return known && (!online || coverOpen || paperOut);
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * @return true if both snapshots describe the same printer condition,
+     *         ignoring when they were taken.
+     */
+    public boolean sameConditionAs(PrinterStatus other) {
+        return other != null
+                && known == other.known
+                && online == other.online
+                && coverOpen == other.coverOpen
+                && paperOut == other.paperOut
+                && paperNearEnd == other.paperNearEnd
+                && error == other.error
+                && drawerOpen == other.drawerOpen;
+    }
+
+    public WritableMap toRNWritableMap() {
+        WritableMap statusMap = Arguments.createMap();
+        statusMap.putBoolean("known", known);
+        statusMap.putBoolean("online", online);
+        statusMap.putBoolean("cover_open", coverOpen);
+        statusMap.putBoolean("paper_out", paperOut);
+        statusMap.putBoolean("paper_near_end", paperNearEnd);
+        statusMap.putBoolean("error", error);
+        statusMap.putBoolean("drawer_open", drawerOpen);
+        statusMap.putDouble("updated_at", updatedAt);
+        return statusMap;
+    }
+}
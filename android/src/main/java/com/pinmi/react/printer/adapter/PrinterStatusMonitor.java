@@ -0,0 +1,256 @@
+package com.pinmi.react.printer.adapter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Background status reader for an open printer connection.
+ * <p>
+ * In {@link Mode#POLL} mode the four DLE EOT real-time queries are sent every
+ * interval and the single-byte replies are matched to them in order. In
+ * {@link Mode#ASB} mode Automatic Status Back is enabled once and the printer
+ * pushes a 4-byte packet whenever its state changes. {@link Mode#LISTEN} only
+ * reads, which is enough for XON/XOFF flow control. The reader thread parses the
+ * incoming bytes and caches the latest {@link PrinterStatus}, so
+ * {@link #getStatus()} never touches the connection.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class PrinterStatusMonitor {
+
+    /**
+     * Bidirectional byte channel to the printer. Implementations resolve the
+     * current connection on every call so the monitor survives reconnects.
+     */
+    public interface Channel {
+        /**
+         * @return bytes read, 0 if nothing arrived before the channel's own
+         *         timeout, or -1 if the connection is gone.
+         */
+        int read(byte[] buffer) throws IOException;
+
+        void write(byte[] bytes) throws IOException;
+    }
+
+    public interface Listener {
+        void onStatusChanged(PrinterStatus status);
+    }
+
+    public enum Mode {
+        POLL, ASB, LISTEN
+    }
+
+    public static final long DEFAULT_INTERVAL_MS = 2000;
+
+    private static final byte DLE = 0x10;
+    private static final byte EOT = 0x04;
+    private static final byte[] STATUS_QUERIES = {
+            DLE, EOT, 1, DLE, EOT, 2, DLE, EOT, 3, DLE, EOT, 4
+    };
+    private static final byte[] ENABLE_ASB = { 0x1D, 0x61, (byte) 0xFF };
+    private static final byte[] DISABLE_ASB = { 0x1D, 0x61, 0x00 };
+
+    private final Channel channel;
+    private final Listener listener;
+
+    private volatile PrinterStatus mStatus = PrinterStatus.UNKNOWN;
+    private volatile boolean mRunning = false;
+    // a stopped thread can still be stuck in a read interrupt() does not cut
+    // short; it must see it was replaced, not just mRunning, before going on
+    private volatile Thread mReaderThread;
+    private volatile Thread mPollerThread;
+    private Mode mMode;
+    private volatile FlowController mFlowController;
+
+    // parser state, only touched by the reader thread
+    private final ArrayDeque<Integer> mPendingQueries = new ArrayDeque<>();
+    private final int[] mRealtime = new int[5];
+    private final byte[] mAsb = new byte[4];
+    private int mAsbLength = 0;
+
+    public PrinterStatusMonitor(Channel channel, Listener listener) {
+        this.channel = channel;
+        this.listener = listener;
+    }
+
+    public PrinterStatus getStatus() {
+        return mStatus;
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public Mode getMode() {
+        return mMode;
+    }
+
+    /**
+     * XON/XOFF bytes read from the printer are handed to this controller.
+     */
+    public void setFlowController(FlowController flowController) {
+        this.mFlowController = flowController;
+    }
+
+    public synchronized void start(Mode mode, final long intervalMs) throws IOException {
+        if (mRunning) {
+            stop();
+        }
+        mMode = mode;
+        mRunning = true;
+        if (mode == Mode.ASB) {
+            channel.write(ENABLE_ASB);
+        }
+        mReaderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readLoop(intervalMs);
+            }
+        }, "RNPrinterStatusReader");
+        mReaderThread.setDaemon(true);
+        mReaderThread.start();
+        if (mode == Mode.POLL) {
+            mPollerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    pollLoop(intervalMs);
+                }
+            }, "RNPrinterStatusPoller");
+            mPollerThread.setDaemon(true);
+            mPollerThread.start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        if (mPollerThread != null) {
+            mPollerThread.interrupt();
+            mPollerThread = null;
+        }
+        if (mReaderThread != null) {
+            mReaderThread.interrupt();
+            mReaderThread = null;
+        }
+        if (mMode == Mode.ASB) {
+            try {
+                channel.write(DISABLE_ASB);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void pollLoop(long intervalMs) {
+        while (mRunning && Thread.currentThread() == mPollerThread) {
+            synchronized (mPendingQueries) {
+                if (!mPendingQueries.isEmpty()) {
+                    // the previous round was never fully answered
+                    mPendingQueries.clear();
+                    publish(PrinterStatus.notResponding());
+                }
+                for (int n = 1; n <= 4; n++) {
+                    mPendingQueries.add(n);
+                }
+            }
+            try {
+                channel.write(STATUS_QUERIES);
+            } catch (IOException e) {
+                synchronized (mPendingQueries) {
+                    mPendingQueries.clear();
+                }
+                publish(PrinterStatus.notResponding());
+            }
+            if (!sleep(intervalMs)) {
+                return;
+            }
+        }
+    }
+
+    private void readLoop(long intervalMs) {
+        byte[] buffer = new byte[64];
+        while (isReader()) {
+            int read;
+            try {
+                read = channel.read(buffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                // connection dropped; give the adapter time to reconnect
+                if (!sleep(intervalMs)) {
+                    return;
+                }
+                continue;
+            }
+            if (!isReader()) {
+                // replaced while blocked in read; the parser is the new reader's now
+                return;
+            }
+            for (int i = 0; i < read; i++) {
+                onByte(buffer[i] & 0xFF);
+            }
+        }
+    }
+
+    private boolean isReader() {
+        return mRunning && Thread.currentThread() == mReaderThread;
+    }
+
+    /**
+     * Feeds one received byte through the parser. Real-time replies match
+     * {@code 0xx1xx10}, the first ASB byte matches {@code 0xx1xx00} and the
+     * remaining three ASB bytes match {@code 0xx0xxxx}.
+     */
+    void onByte(int b) {
+        FlowController flowController = mFlowController;
+        if (flowController != null && flowController.onByteReceived(b)) {
+            return;
+        }
+        if (mAsbLength > 0) {
+            if ((b & 0x90) == 0) {
+                mAsb[mAsbLength++] = (byte) b;
+                if (mAsbLength == 4) {
+                    mAsbLength = 0;
+                    publish(PrinterStatus.fromAsb(mAsb));
+                }
+                return;
+            }
+            mAsbLength = 0;
+        }
+        if ((b & 0x93) == 0x12) {
+            Integer query;
+            synchronized (mPendingQueries) {
+                query = mPendingQueries.poll();
+            }
+            if (query == null) {
+                return;
+            }
+            mRealtime[query] = b;
+            if (query == 4) {
+                publish(PrinterStatus.fromRealtime(mRealtime[1], mRealtime[2], mRealtime[3], mRealtime[4]));
+            }
+        } else if ((b & 0x93) == 0x10) {
+            mAsb[0] = (byte) b;
+            mAsbLength = 1;
+        }
+    }
+
+    private void publish(PrinterStatus status) {
+        PrinterStatus previous = mStatus;
+        mStatus = status;
+        if (!status.sameConditionAs(previous) && listener != null) {
+            listener.onStatusChanged(status);
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return mRunning;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
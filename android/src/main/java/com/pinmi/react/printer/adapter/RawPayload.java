@@ -0,0 +1,106 @@
+package com.pinmi.react.printer.adapter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A job's bytes as an array range, so transports can write them without
+ * another copy. Base64 payloads from JS are decoded straight from the string
+ * into an array of the exact decoded size; heap {@link ByteBuffer}s handed in
+ * by native callers are written from their backing array as they are.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class RawPayload {
+
+    private static final int[] DECODE_TABLE = new int[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = i;
+        }
+        // both the standard and the URL-safe alphabet, like android.util.Base64
+        DECODE_TABLE['+'] = 62;
+        DECODE_TABLE['-'] = 62;
+        DECODE_TABLE['/'] = 63;
+        DECODE_TABLE['_'] = 63;
+    }
+
+    public final byte[] bytes;
+    public final int offset;
+    public final int length;
+
+    private RawPayload(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static RawPayload wrap(byte[] bytes) {
+        return new RawPayload(bytes, 0, bytes.length);
+    }
+
+    public static RawPayload wrap(byte[] bytes, int offset, int length) {
+        return new RawPayload(bytes, offset, length);
+    }
+
+    /**
+     * Uses the remaining bytes of {@code buffer} without moving its position.
+     * Only direct and read-only buffers are copied, since streams need an array.
+     */
+    public static RawPayload of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new RawPayload(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return wrap(copy);
+    }
+
+    /**
+     * Decodes Base64 in two passes over the string: one to size the output,
+     * one to fill it. Whitespace is skipped and decoding stops at the first
+     * {@code '='}.
+     *
+     * @throws IllegalArgumentException on characters outside the alphabet or
+     *                                  a truncated final group.
+     */
+    public static RawPayload decodeBase64(String data) {
+        int length = data.length();
+        int symbols = 0;
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (c < 128 && DECODE_TABLE[c] >= 0) {
+                symbols++;
+            } else if (!Character.isWhitespace(c)) {
+                throw new IllegalArgumentException("bad base-64 character at " + i);
+            }
+        }
+        if (symbols % 4 == 1) {
+            throw new IllegalArgumentException("bad base-64 length");
+        }
+        byte[] out = new byte[symbols / 4 * 3 + Math.max(0, symbols % 4 - 1)];
+        int accumulator = 0;
+        int bits = 0;
+        int position = 0;
+        for (int i = 0; i < length && position < out.length; i++) {
+            char c = data.charAt(i);
+            int value = c < 128 ? DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                continue;
+            }
+            accumulator = (accumulator << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[position++] = (byte) (accumulator >> bits);
+            }
+        }
+        return wrap(out);
+    }
+}
@@ -0,0 +1,309 @@
+package com.pinmi.react.printer.adapter;
+
+import android.graphics.Bitmap;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.pinmi.react.printer.raster.Barcode;
+import com.pinmi.react.printer.raster.BufferPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A whole receipt as one job: an ordered list of segments (raw bytes, markup
+ * text, image, QR code, barcode, cut) rendered on the printer's worker into a
+ * single buffer, which the adapter then sends in one write under its write
+ * lock. Nothing else can print in between, and a failed segment fails the
+ * receipt before any of it reaches the printer.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Receipt {
+
+    public enum Type {
+        RAW, TEXT, IMAGE, QR, BARCODE, CUT
+    }
+
+    public static final int DEFAULT_QR_SIZE = 250;
+    public static final int DEFAULT_BARCODE_HEIGHT = 80;
+    public static final int DEFAULT_BARCODE_MODULE = 2;
+    /** the lines {@code printBill} feeds before cutting */
+    public static final int DEFAULT_CUT_FEED = 5;
+
+    // images, QR codes and barcodes are centred; the next segment starts left-aligned again
+    private static final byte[] LEFT = { 0x1B, 0x61, 0x00 };
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    /**
+     * Thrown for a segment that cannot be rendered; {@link #code} is the error
+     * the single-purpose print call rejects with for the same input.
+     */
+    public static class SegmentException extends IOException {
+        public final String code;
+
+        SegmentException(int index, String code, String message) {
+            super("segment " + index + ": " + message);
+            this.code = code;
+        }
+    }
+
+    /**
+     * Fetches and decodes an image segment's bitmap, which the receipt hands
+     * back to {@link BitmapPool} once encoded.
+     */
+    public interface Images {
+        /**
+         * @return null if there is no image at {@code url}.
+         */
+        Bitmap fetch(String url, PrintJobs.Handle job) throws PrintJobs.CancelledException;
+    }
+
+    public static final class Segment {
+        public final Type type;
+        /** Base64 bytes, markup, image URL or QR/barcode content */
+        public final String data;
+        public final EscPosBuilder.TextOptions options;
+        /** image width or QR size; 0 for the default */
+        public final int size;
+        public final Barcode.Format format;
+        /** barcode height, or the lines fed before a cut */
+        public final int height;
+        public final int moduleWidth;
+
+        private Segment(Type type, String data, EscPosBuilder.TextOptions options, int size, Barcode.Format format,
+                int height, int moduleWidth) {
+            this.type = type;
+            this.data = data;
+            this.options = options;
+            this.size = size;
+            this.format = format;
+            this.height = height;
+            this.moduleWidth = moduleWidth;
+        }
+
+        public static Segment raw(String base64) {
+            return new Segment(Type.RAW, base64, null, 0, null, 0, 0);
+        }
+
+        public static Segment text(String markup, EscPosBuilder.TextOptions options) {
+            return new Segment(Type.TEXT, markup, options, 0, null, 0, 0);
+        }
+
+        public static Segment image(String url, int width) {
+            return new Segment(Type.IMAGE, url, null, width, null, 0, 0);
+        }
+
+        public static Segment qr(String content, int size) {
+            return new Segment(Type.QR, content, null, size, null, 0, 0);
+        }
+
+        public static Segment barcode(String content, Barcode.Format format, int height, int moduleWidth) {
+            return new Segment(Type.BARCODE, content, null, 0, format, height, moduleWidth);
+        }
+
+        public static Segment cut(int feedLines) {
+            return new Segment(Type.CUT, null, null, 0, null, feedLines, 0);
+        }
+    }
+
+    private Receipt() {
+    }
+
+    /**
+     * Reads the JS segments: {@code {type: "raw", data}}, {@code {type: "text",
+     * text, options}}, {@code {type: "image", url, width}}, {@code {type: "qr",
+     * content, size}}, {@code {type: "barcode", content, format, height,
+     * moduleWidth}} and {@code {type: "cut", feed}}.
+     *
+     * @throws IllegalArgumentException naming the first segment that is not one of these.
+     */
+    public static List<Segment> fromReadableArray(ReadableArray array) {
+        List<Segment> segments = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            ReadableMap map = array.getType(i) == ReadableType.Map ? array.getMap(i) : null;
+            String type = map != null ? string(map, "type") : null;
+            if (type == null) {
+                throw new IllegalArgumentException("segment " + i + " has no type");
+            }
+            switch (type) {
+                case "raw":
+                    segments.add(Segment.raw(required(map, "data", i)));
+                    break;
+                case "text":
+                    segments.add(Segment.text(required(map, "text", i), EscPosBuilder.TextOptions.fromReadableMap(
+                            map.hasKey("options") && map.getType("options") == ReadableType.Map
+                                    ? map.getMap("options") : null)));
+                    break;
+                case "image":
+                    segments.add(Segment.image(required(map, "url", i), number(map, "width", 0)));
+                    break;
+                case "qr":
+                    segments.add(Segment.qr(required(map, "content", i), number(map, "size", DEFAULT_QR_SIZE)));
+                    break;
+                case "barcode":
+                    String format = string(map, "format");
+                    Barcode.Format barcodeFormat;
+                    try {
+                        barcodeFormat = format == null ? Barcode.Format.CODE128
+                                : Barcode.Format.valueOf(format.toUpperCase(Locale.ROOT).replace("-", ""));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("segment " + i + " has unknown barcode format " + format);
+                    }
+                    segments.add(Segment.barcode(required(map, "content", i), barcodeFormat,
+                            number(map, "height", DEFAULT_BARCODE_HEIGHT),
+                            number(map, "moduleWidth", DEFAULT_BARCODE_MODULE)));
+                    break;
+                case "cut":
+                    segments.add(Segment.cut(number(map, "feed", DEFAULT_CUT_FEED)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("segment " + i + " has unknown type " + type);
+            }
+        }
+        return segments;
+    }
+
+    private static String string(ReadableMap map, String key) {
+        return map.hasKey(key) && map.getType(key) == ReadableType.String ? map.getString(key) : null;
+    }
+
+    private static String required(ReadableMap map, String key, int index) {
+        String value = string(map, key);
+        if (value == null) {
+            throw new IllegalArgumentException("segment " + index + " needs " + key);
+        }
+        return value;
+    }
+
+    private static int number(ReadableMap map, String key, int defaultValue) {
+        return map.hasKey(key) && map.getType(key) == ReadableType.Number ? (int) map.getDouble(key) : defaultValue;
+    }
+
+    /**
+     * Renders {@code segments} for {@code profile}, checking {@code job}
+     * between them. Text segments are encoded with {@code builder}, which
+     * must not be used by another thread meanwhile.
+     *
+     * @return the receipt in a pooled buffer; release it once written.
+     * @throws SegmentException if a segment cannot be rendered.
+     */
+    public static BufferPool.Bytes render(List<Segment> segments, PrinterProfile profile, EscPosBuilder builder,
+            Images images, PrintJobs.Handle job) throws IOException {
+        Output out = new Output(BufferPool.SHARED);
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                job.throwIfCancelled();
+                render(i, segments.get(i), profile, builder, images, job, out);
+            }
+            return out.finish();
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw e;
+        }
+    }
+
+    private static void render(int index, Segment segment, PrinterProfile profile, EscPosBuilder builder,
+            Images images, PrintJobs.Handle job, Output out) throws IOException {
+        switch (segment.type) {
+            case RAW:
+                RawPayload payload;
+                try {
+                    payload = RawPayload.decodeBase64(segment.data);
+                } catch (IllegalArgumentException e) {
+                    throw new SegmentException(index, "ERR_INVALID_DATA", e.getMessage());
+                }
+                out.write(payload.bytes, payload.offset, payload.length);
+                break;
+            case TEXT:
+                builder.setCodePages(profile.codePages);
+                try {
+                    // copied out before the builder's buffer is reused
+                    RawPayload text = builder.build(segment.data, segment.options);
+                    out.write(text.bytes, text.offset, text.length);
+                } catch (IllegalArgumentException e) {
+                    throw new SegmentException(index, "ERR_ENCODING", e.getMessage());
+                }
+                break;
+            case IMAGE:
+                Bitmap bitmap = images.fetch(segment.data, job);
+                if (bitmap == null) {
+                    throw new SegmentException(index, "ERR_IMAGE", "image not found");
+                }
+                BufferPool.Bytes image;
+                try {
+                    image = ImageRaster.encode(bitmap, profile.imageWidth(segment.size), profile, job);
+                } finally {
+                    BitmapPool.getInstance().release(bitmap);
+                }
+                out.writeCentred(image);
+                break;
+            case QR:
+                BufferPool.Bytes qr = ImageRaster.encodeQr(segment.data,
+                        profile.qrSize(segment.size > 0 ? segment.size : DEFAULT_QR_SIZE), profile, job);
+                if (qr == null) {
+                    throw new SegmentException(index, "ERR_QR", "QR code generation failed");
+                }
+                out.writeCentred(qr);
+                break;
+            case BARCODE:
+                BufferPool.Bytes barcode = ImageRaster.encodeBarcode(segment.data, segment.format,
+                        segment.moduleWidth, segment.height, profile, job);
+                if (barcode == null) {
+                    throw new SegmentException(index, "ERR_BARCODE",
+                            "\"" + segment.data + "\" is not a valid " + segment.format + " barcode");
+                }
+                out.writeCentred(barcode);
+                break;
+            case CUT:
+                byte[] cut = EscPosCommands.cut(Math.max(0, segment.height));
+                out.write(cut, 0, cut.length);
+                break;
+        }
+    }
+
+    /**
+     * A growing pooled buffer.
+     */
+    private static final class Output {
+        private final BufferPool mPool;
+        private byte[] mBuffer;
+        private int mLength;
+
+        Output(BufferPool pool) {
+            this.mPool = pool;
+            this.mBuffer = pool.bytes(INITIAL_CAPACITY);
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            if (mLength + length > mBuffer.length) {
+                byte[] larger = mPool.bytes(Math.max(mLength + length, 2 * mBuffer.length));
+                System.arraycopy(mBuffer, 0, larger, 0, mLength);
+                mPool.release(mBuffer);
+                mBuffer = larger;
+            }
+            System.arraycopy(bytes, offset, mBuffer, mLength, length);
+            mLength += length;
+        }
+
+        void writeCentred(BufferPool.Bytes segment) {
+            try {
+                write(segment.array, 0, segment.length);
+            } finally {
+                segment.release();
+            }
+            write(LEFT, 0, LEFT.length);
+        }
+
+        BufferPool.Bytes finish() {
+            return mPool.lease(mBuffer, mLength);
+        }
+
+        void discard() {
+            mPool.release(mBuffer);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pinmi.react.printer.adapter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for transparently re-establishing a dropped
+ * printer connection. Each attempt is gated by the printer's
+ * {@link CircuitBreaker}, so a dead printer stops being retried once its
+ * circuit opens.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class ReconnectPolicy {
+
+    public interface Connector {
+        void connect() throws IOException;
+    }
+
+    public interface Listener {
+        void onReconnecting(int attempt, long delayMs);
+    }
+
+    public static final ReconnectPolicy DEFAULT = new ReconnectPolicy(250, 8000, 4);
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int maxAttempts;
+
+    public ReconnectPolicy(long baseDelayMs, long maxDelayMs, int maxAttempts) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * "Equal jitter": half of the exponential delay is fixed, the other half is
+     * random, so concurrent jobs against the same printer do not retry in lockstep.
+     */
+    public long getDelayMillis(int attempt) {
+        long exp = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 20));
+        long half = exp / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * Runs {@code connector} until it succeeds, the attempts are exhausted or the
+     * circuit opens. The breaker's half-open probe is taken only right before a
+     * connect, and every connect's outcome is recorded on {@code breaker}.
+     *
+     * @throws IOException the last connect failure, or a {@link CircuitOpenException}
+     */
+    public void reconnect(CircuitBreaker breaker, Connector connector, Listener listener) throws IOException {
+        IOException lastError = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            long retryAfterMs = breaker.getRetryAfterMillis();
+            if (retryAfterMs > 0) {
+                throw new CircuitOpenException(retryAfterMs);
+            }
+            long delayMs = getDelayMillis(attempt);
+            if (listener != null) {
+                listener.onReconnecting(attempt + 1, delayMs);
+            }
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("reconnect interrupted");
+            }
+            if (!breaker.allowRequest()) {
+                throw new CircuitOpenException(breaker.getRetryAfterMillis());
+            }
+            try {
+                connector.connect();
+            } catch (IOException e) {
+                lastError = e;
+                if (breaker.recordFailure()) {
+                    throw new CircuitOpenException(breaker.getRetryAfterMillis());
+                }
+                continue;
+            } catch (RuntimeException e) {
+                breaker.recordFailure();
+                throw e;
+            }
+            breaker.recordSuccess();
+            return;
+        }
+        throw lastError != null ? lastError : new IOException("reconnect failed");
+    }
+
+    /**
+     * Thrown instead of attempting a connection while the printer's circuit is open.
+     */
+    public static class CircuitOpenException extends IOException {
+        private final long retryAfterMs;
+
+        public CircuitOpenException(long retryAfterMs) {
+            super("printer circuit is open, retry in " + retryAfterMs + "ms");
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+    }
+}
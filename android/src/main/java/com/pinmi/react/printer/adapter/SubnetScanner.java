@@ -0,0 +1,248 @@
+package com.pinmi.react.printer.adapter;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds printers by opening non-blocking TCP connects to every host/port pair
+ * of one or more IPv4 ranges. Up to {@code maxInFlight} connects are kept
+ * pending on a single {@link Selector}, so a /24 takes about one connect
+ * timeout instead of 255 of them. Each answering host is reported as soon as
+ * its connect completes.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class SubnetScanner {
+
+    public interface Listener {
+        void onPrinterFound(String host, int port);
+    }
+
+    public static final int[] DEFAULT_PORTS = { 9100, 515, 631 };
+    public static final int DEFAULT_TIMEOUT_MS = 800;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    // larger interface prefixes are narrowed to the device's own /24
+    private static final int MIN_INTERFACE_PREFIX = 24;
+
+    private final int[] ports;
+    private final int timeoutMs;
+    private final int maxInFlight;
+    private volatile boolean mCancelled = false;
+    private volatile Selector mSelector;
+
+    public SubnetScanner(int[] ports, int timeoutMs, int maxInFlight) {
+        this.ports = ports != null && ports.length > 0 ? ports : DEFAULT_PORTS;
+        this.timeoutMs = timeoutMs > 0 ? timeoutMs : DEFAULT_TIMEOUT_MS;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+    }
+
+    public void cancel() {
+        mCancelled = true;
+        Selector selector = mSelector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private static class Probe {
+        final String host;
+        final int port;
+        final long deadline;
+
+        Probe(String host, int port, long deadline) {
+            this.host = host;
+            this.port = port;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Probes every port of every host and blocks until all connects have
+     * completed, failed or timed out.
+     *
+     * @return the number of open host/port pairs found.
+     */
+    public int scan(List<InetAddress> hosts, Listener listener) throws IOException {
+        List<InetSocketAddress> targets = new ArrayList<>();
+        for (InetAddress host : hosts) {
+            for (int port : ports) {
+                targets.add(new InetSocketAddress(host, port));
+            }
+        }
+        return scanTargets(targets, listener);
+    }
+
+    /**
+     * Probes exactly the given host/port pairs, e.g. to revalidate known
+     * printers; the scanner's own port list is ignored.
+     */
+    public int scanTargets(List<InetSocketAddress> addresses, Listener listener) throws IOException {
+        ArrayDeque<InetSocketAddress> targets = new ArrayDeque<>(addresses);
+        int found = 0;
+        Selector selector = Selector.open();
+        mSelector = selector;
+        try {
+            while (!mCancelled && (!targets.isEmpty() || !selector.keys().isEmpty())) {
+                while (!targets.isEmpty() && selector.keys().size() < maxInFlight) {
+                    InetSocketAddress target = targets.poll();
+                    if (startConnect(selector, target)) {
+                        found++;
+                        listener.onPrinterFound(target.getAddress().getHostAddress(), target.getPort());
+                    }
+                }
+                selector.select(Math.max(1, Math.min(timeoutMs, 50)));
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    Probe probe = (Probe) key.attachment();
+                    if (finishConnect(key)) {
+                        found++;
+                        listener.onPrinterFound(probe.host, probe.port);
+                    }
+                }
+                long now = System.currentTimeMillis();
+                for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                    if (((Probe) key.attachment()).deadline <= now) {
+                        closeQuietly(key);
+                    }
+                }
+            }
+        } finally {
+            for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                closeQuietly(key);
+            }
+            mSelector = null;
+            selector.close();
+        }
+        return found;
+    }
+
+    /**
+     * @return true if the connect completed immediately.
+     */
+    private boolean startConnect(Selector selector, InetSocketAddress target) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(target)) {
+                channel.close();
+                return true;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, new Probe(target.getAddress().getHostAddress(),
+                    target.getPort(), System.currentTimeMillis() + timeoutMs));
+        } catch (IOException e) {
+            // unreachable right away, e.g. no route to host
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean finishConnect(SelectionKey key) {
+        try {
+            return ((SocketChannel) key.channel()).finishConnect();
+        } catch (IOException e) {
+            return false;
+        } finally {
+            closeQuietly(key);
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Expands {@code a.b.c.d/prefix} into its host addresses. For prefixes
+     * shorter than /31 the network and broadcast addresses are left out.
+     */
+    public static List<InetAddress> expandCidr(String cidr) throws UnknownHostException {
+        String[] parts = cidr.trim().split("/");
+        int prefix = parts.length > 1 ? Integer.parseInt(parts[1]) : 32;
+        if (prefix < 16 || prefix > 32) {
+            throw new IllegalArgumentException("unsupported CIDR prefix /" + prefix + " (use /16 to /32)");
+        }
+        byte[] bytes = InetAddress.getByName(parts[0]).getAddress();
+        if (bytes.length != 4) {
+            throw new IllegalArgumentException("only IPv4 ranges are supported: " + cidr);
+        }
+        int base = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        int mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+        int network = base & mask;
+        int size = 1 << (32 - prefix);
+        int first = prefix < 31 ? 1 : 0;
+        int last = prefix < 31 ? size - 2 : size - 1;
+        List<InetAddress> hosts = new ArrayList<>(Math.max(0, last - first + 1));
+        for (int i = first; i <= last; i++) {
+            int address = network + i;
+            hosts.add(InetAddress.getByAddress(new byte[] {
+                    (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address }));
+        }
+        return hosts;
+    }
+
+    /**
+     * @return the IPv4 ranges of every active non-loopback interface (Wi-Fi,
+     *         Ethernet, ...), each at most a /24 around the local address.
+     */
+    public static List<String> localCidrs() throws SocketException {
+        Set<String> cidrs = new LinkedHashSet<>();
+        Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+        if (interfaces == null) {
+            return new ArrayList<>();
+        }
+        for (NetworkInterface networkInterface : Collections.list(interfaces)) {
+            if (!networkInterface.isUp() || networkInterface.isLoopback() || networkInterface.isPointToPoint()) {
+                continue;
+            }
+            for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                if (interfaceAddress.getAddress() instanceof Inet4Address) {
+                    int prefix = Math.max(MIN_INTERFACE_PREFIX, interfaceAddress.getNetworkPrefixLength());
+                    cidrs.add(interfaceAddress.getAddress().getHostAddress() + "/" + prefix);
+                }
+            }
+        }
+        return new ArrayList<>(cidrs);
+    }
+
+    /**
+     * @return the local IPv4 addresses, which are never worth probing.
+     */
+    public static Set<InetAddress> localAddresses() throws SocketException {
+        Set<InetAddress> addresses = new LinkedHashSet<>();
+        Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+        if (interfaces != null) {
+            for (NetworkInterface networkInterface : Collections.list(interfaces)) {
+                addresses.addAll(Collections.list(networkInterface.getInetAddresses()));
+            }
+        }
+        return addresses;
+    }
+}
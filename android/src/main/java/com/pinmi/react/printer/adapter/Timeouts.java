@@ -0,0 +1,173 @@
+package com.pinmi.react.printer.adapter;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadlines for one printer: opening the connection, each write to the
+ * transport, and the whole transfer of a job including flow-control waits
+ * and a reconnect. Blocking transport calls have no deadline of their own, so
+ * a shared watchdog thread aborts one that runs late, usually by closing the
+ * transport; the caller then throws a {@link TimeoutException} whose
+ * {@link Kind#code} tells the three apart. A deadline of 0 is off.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class Timeouts {
+
+    public enum Kind {
+        CONNECT("ERR_CONNECT_TIMEOUT"),
+        WRITE("ERR_WRITE_TIMEOUT"),
+        JOB("ERR_JOB_TIMEOUT");
+
+        public final String code;
+
+        Kind(String code) {
+            this.code = code;
+        }
+    }
+
+    /**
+     * A call was aborted because its deadline passed. Never retried on a new
+     * connection: the printer had its chance.
+     */
+    public static class TimeoutException extends IOException {
+        public final Kind kind;
+
+        public TimeoutException(Kind kind, long timeoutMs) {
+            this(kind, kind.name().toLowerCase(Locale.ROOT) + " timed out after " + timeoutMs + "ms");
+        }
+
+        public TimeoutException(Kind kind, String message) {
+            super(message);
+            this.kind = kind;
+        }
+    }
+
+    public interface Abort {
+        void abort();
+    }
+
+    public static final long DEFAULT_CONNECT_MS = 10000;
+    public static final long DEFAULT_WRITE_MS = 20000;
+    /** off: a long file or a slow printer may legitimately take minutes */
+    public static final long DEFAULT_JOB_MS = 0;
+
+    private static ScheduledThreadPoolExecutor sWatchdog;
+
+    private volatile long connectMs = DEFAULT_CONNECT_MS;
+    private volatile long writeMs = DEFAULT_WRITE_MS;
+    private volatile long jobMs = DEFAULT_JOB_MS;
+
+    /**
+     * One armed deadline. {@link #cancel()} it once the call returned.
+     */
+    public static final class Timer {
+        private final Kind mKind;
+        private final long mTimeoutMs;
+        private volatile ScheduledFuture<?> mFuture;
+        private volatile boolean mFired;
+
+        Timer(Kind kind, long timeoutMs) {
+            this.mKind = kind;
+            this.mTimeoutMs = timeoutMs;
+        }
+
+        public boolean hasFired() {
+            return mFired;
+        }
+
+        public void cancel() {
+            ScheduledFuture<?> future = mFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public void check() throws TimeoutException {
+            if (mFired) {
+                throw new TimeoutException(mKind, mTimeoutMs);
+            }
+        }
+
+        /**
+         * @return the timeout to throw in place of {@code e} if this timer
+         *         aborted the call, otherwise {@code e} itself.
+         */
+        public IOException orTimeout(IOException e) {
+            return mFired && !(e instanceof TimeoutException) ? new TimeoutException(mKind, mTimeoutMs) : e;
+        }
+    }
+
+    /**
+     * @param connectMs 0 for no connect deadline; likewise the others
+     */
+    public void configure(long connectMs, long writeMs, long jobMs) {
+        this.connectMs = Math.max(0, connectMs);
+        this.writeMs = Math.max(0, writeMs);
+        this.jobMs = Math.max(0, jobMs);
+    }
+
+    /**
+     * Applies the JS options object: {@code connectMs}, {@code writeMs} and
+     * {@code jobMs}. Missing keys reset to their defaults.
+     */
+    public void configure(ReadableMap options) {
+        configure(
+                options.hasKey("connectMs") ? (long) options.getDouble("connectMs") : DEFAULT_CONNECT_MS,
+                options.hasKey("writeMs") ? (long) options.getDouble("writeMs") : DEFAULT_WRITE_MS,
+                options.hasKey("jobMs") ? (long) options.getDouble("jobMs") : DEFAULT_JOB_MS);
+    }
+
+    public long getMillis(Kind kind) {
+        switch (kind) {
+            case CONNECT:
+                return connectMs;
+            case WRITE:
+                return writeMs;
+            default:
+                return jobMs;
+        }
+    }
+
+    /**
+     * Arms the deadline for {@code kind}; {@code abort} runs on the watchdog
+     * thread if it passes before {@link Timer#cancel()}.
+     */
+    public Timer start(Kind kind, final Abort abort) {
+        long timeoutMs = getMillis(kind);
+        final Timer timer = new Timer(kind, timeoutMs);
+        if (timeoutMs > 0) {
+            timer.mFuture = getWatchdog().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    timer.mFired = true;
+                    try {
+                        abort.abort();
+                    } catch (RuntimeException e) {
+                        PrinterLog.w(PrinterLog.LOG_TAG, "failed to abort after {}: {}", timer.mKind, e.getMessage());
+                    }
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return timer;
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getWatchdog() {
+        if (sWatchdog == null) {
+            sWatchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "RNPrinterWatchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // most deadlines are cancelled long before they are due
+            sWatchdog.setRemoveOnCancelPolicy(true);
+        }
+        return sWatchdog;
+    }
+}
@@ -5,35 +5,27 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.hardware.usb.UsbConstants;
 import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbEndpoint;
 import android.hardware.usb.UsbInterface;
 import android.hardware.usb.UsbManager;
-import android.util.Base64;
-import android.util.Log;
+import android.os.SystemClock;
 import android.widget.Toast;
 
-import com.facebook.common.internal.ImmutableMap;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.pinmi.react.printer.raster.BufferPool;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.ByteBuffer;
 
 /**
  * USB printer adapter implementation.
@@ -48,21 +40,46 @@ public class USBPrinterAdapter implements PrinterAdapter {
     private Context mContext;
     private UsbManager mUSBManager;
     private PendingIntent mPermissionIndent;
-    private UsbDevice mUsbDevice;
-    private UsbDeviceConnection mUsbDeviceConnection;
-    private UsbInterface mUsbInterface;
-    private UsbEndpoint mEndPoint;
+    private volatile UsbDevice mUsbDevice;
+    private final ConnectionState<UsbLink> mConnection = new ConnectionState<>();
+    private final Object mWriteLock = new Object();
+    private final JobRunner mJobs;
+    private final Timeouts mTimeouts = new Timeouts();
     private static final String ACTION_USB_PERMISSION = "com.pinmi.react.USBPrinter.USB_PERMISSION";
     private static final String EVENT_USB_DEVICE_ATTACHED = "usbAttached";
+    // bulkTransfer rejects buffers larger than 16KB before Android P
+    private static final int MAX_BULK_TRANSFER_SIZE = 16384;
+    private static final int STATUS_READ_TIMEOUT_MS = 1000;
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+    private static final long SETTLE_TIMEOUT_MS = 10000;
 
     private final static char ESC_CHAR = 0x1B;
-    private static byte[] SELECT_BIT_IMAGE_MODE = { 0x1B, 0x2A, 33 };
-    private final static byte[] SET_LINE_SPACE_24 = new byte[] { ESC_CHAR, 0x33, 24 };
-    private final static byte[] SET_LINE_SPACE_32 = new byte[] { ESC_CHAR, 0x33, 32 };
-    private final static byte[] LINE_FEED = new byte[] { 0x0A };
-    private static byte[] CENTER_ALIGN = { 0x1B, 0X61, 0X31 };
+
+    /**
+     * The claimed interface of an open device and its bulk endpoints.
+     */
+    private static final class UsbLink {
+        final UsbDeviceConnection connection;
+        final UsbInterface usbInterface;
+        final UsbEndpoint endpointOut;
+        final UsbEndpoint endpointIn;
+
+        UsbLink(UsbDeviceConnection connection, UsbInterface usbInterface, UsbEndpoint endpointOut,
+                UsbEndpoint endpointIn) {
+            this.connection = connection;
+            this.usbInterface = usbInterface;
+            this.endpointOut = endpointOut;
+            this.endpointIn = endpointIn;
+        }
+
+        void close() {
+            connection.releaseInterface(usbInterface);
+            connection.close();
+        }
+    }
 
     private USBPrinterAdapter() {
+        mJobs = new JobRunner(LOG_TAG, mWriteLock, mTransport, mStatusChannel);
     }
 
     public static USBPrinterAdapter getInstance() {
@@ -80,9 +97,8 @@ public class USBPrinterAdapter implements PrinterAdapter {
                 synchronized (this) {
                     UsbDevice usbDevice = intent.getParcelableExtra(UsbManager.EXTRA_DEVICE);
                     if (intent.getBooleanExtra(UsbManager.EXTRA_PERMISSION_GRANTED, false)) {
-                        Log.i(LOG_TAG, "success to grant permission for device " + usbDevice.getDeviceId()
-                                + ", vendor_id: " + usbDevice.getVendorId()
-                                + " product_id: " + usbDevice.getProductId());
+                        PrinterLog.i(LOG_TAG, "success to grant permission for device {}, vendor_id: {} product_id: {}",
+                                usbDevice.getDeviceId(), usbDevice.getVendorId(), usbDevice.getProductId());
                         mUsbDevice = usbDevice;
                     } else {
                         Toast.makeText(context,
@@ -111,6 +127,7 @@ public class USBPrinterAdapter implements PrinterAdapter {
     @Override
     public void init(ReactApplicationContext reactContext, Promise promise) {
         this.mContext = reactContext;
+        mJobs.setContext(reactContext);
         this.mUSBManager = (UsbManager) this.mContext.getSystemService(Context.USB_SERVICE);
         this.mPermissionIndent = PendingIntent.getBroadcast(mContext, 0,
                 new Intent(ACTION_USB_PERMISSION), PendingIntent.FLAG_MUTABLE);
@@ -119,18 +136,17 @@ public class USBPrinterAdapter implements PrinterAdapter {
         filter.addAction(UsbManager.ACTION_USB_ACCESSORY_ATTACHED);
         filter.addAction(UsbManager.ACTION_USB_DEVICE_ATTACHED);
         mContext.registerReceiver(mUsbDeviceReceiver, filter);
-        Log.v(LOG_TAG, "RNUSBPrinter initialized");
+        PrinterLog.v(LOG_TAG, "RNUSBPrinter initialized");
         promise.resolve("RNUSBPrinter initialized");
     }
 
     @Override
     public void closeConnectionIfExists() {
-        if (mUsbDeviceConnection != null) {
-            mUsbDeviceConnection.releaseInterface(mUsbInterface);
-            mUsbDeviceConnection.close();
-            mUsbInterface = null;
-            mEndPoint = null;
-            mUsbDeviceConnection = null;
+        // lets the job on the wire finish before the interface is released
+        UsbLink link = mConnection.close(DRAIN_TIMEOUT_MS);
+        if (link != null) {
+            stopStatusMonitor();
+            link.close();
         }
     }
 
@@ -159,7 +175,7 @@ public class USBPrinterAdapter implements PrinterAdapter {
         if (mUsbDevice != null
                 && mUsbDevice.getVendorId() == usbPrinterDeviceId.getVendorId()
                 && mUsbDevice.getProductId() == usbPrinterDeviceId.getProductId()) {
-            Log.i(LOG_TAG, "already selected device, do not need repeat to connect");
+            PrinterLog.i(LOG_TAG, "already selected device, do not need repeat to connect");
             if (!mUSBManager.hasPermission(mUsbDevice)) {
                 closeConnectionIfExists();
                 mUSBManager.requestPermission(mUsbDevice, mPermissionIndent);
@@ -175,8 +191,8 @@ public class USBPrinterAdapter implements PrinterAdapter {
         for (UsbDevice usbDevice : mUSBManager.getDeviceList().values()) {
             if (usbDevice.getVendorId() == usbPrinterDeviceId.getVendorId()
                     && usbDevice.getProductId() == usbPrinterDeviceId.getProductId()) {
-                Log.v(LOG_TAG, "request for device: vendor_id: " + usbPrinterDeviceId.getVendorId()
-                        + ", product_id: " + usbPrinterDeviceId.getProductId());
+                PrinterLog.v(LOG_TAG, "request for device: vendor_id: {}, product_id: {}",
+                        usbPrinterDeviceId.getVendorId(), usbPrinterDeviceId.getProductId());
                 closeConnectionIfExists();
                 mUSBManager.requestPermission(usbDevice, mPermissionIndent);
                 promise.resolve(new USBPrinterDevice(usbDevice).toRNWritableMap());
@@ -188,283 +204,329 @@ public class USBPrinterAdapter implements PrinterAdapter {
     }
 
     private boolean openConnection() {
-        if (mUsbDevice == null) {
-            Log.e(LOG_TAG, "USB Device is not initialized");
+        final UsbDevice usbDevice = mUsbDevice;
+        if (usbDevice == null) {
+            PrinterLog.e(LOG_TAG, "USB Device is not initialized");
             return false;
         }
         if (mUSBManager == null) {
-            Log.e(LOG_TAG, "USB Manager is not initialized");
+            PrinterLog.e(LOG_TAG, "USB Manager is not initialized");
             return false;
         }
 
-        if (mUsbDeviceConnection != null) {
-            Log.i(LOG_TAG, "USB Connection already connected");
+        if (mConnection.peek() != null) {
+            PrinterLog.v(LOG_TAG, "USB Connection already connected");
             return true;
         }
+        long ticket = mConnection.beginConnect();
+        if (ticket == ConnectionState.NO_TICKET) {
+            // another job is opening the device right now
+            return mConnection.awaitSettled(SETTLE_TIMEOUT_MS) == ConnectionState.State.CONNECTED;
+        }
 
-        UsbInterface usbInterface = mUsbDevice.getInterface(0);
+        UsbInterface usbInterface = usbDevice.getInterface(0);
+        UsbEndpoint endpointOut = null;
+        UsbEndpoint endpointIn = null;
         for (int i = 0; i < usbInterface.getEndpointCount(); i++) {
             final UsbEndpoint ep = usbInterface.getEndpoint(i);
             if (ep.getType() == UsbConstants.USB_ENDPOINT_XFER_BULK) {
                 if (ep.getDirection() == UsbConstants.USB_DIR_OUT) {
-                    UsbDeviceConnection usbDeviceConnection = mUSBManager.openDevice(mUsbDevice);
-                    if (usbDeviceConnection == null) {
-                        Log.e(LOG_TAG, "failed to open USB Connection");
-                        return false;
-                    }
-                    if (usbDeviceConnection.claimInterface(usbInterface, true)) {
-                        mEndPoint = ep;
-                        mUsbInterface = usbInterface;
-                        mUsbDeviceConnection = usbDeviceConnection;
-                        Log.i(LOG_TAG, "Device connected");
-                        return true;
-                    } else {
-                        usbDeviceConnection.close();
-                        Log.e(LOG_TAG, "failed to claim usb connection");
-                        return false;
-                    }
+                    endpointOut = ep;
+                } else if (ep.getDirection() == UsbConstants.USB_DIR_IN) {
+                    endpointIn = ep;
                 }
             }
         }
-        return true;
+        if (endpointOut == null) {
+            mConnection.connectFailed(ticket);
+            return true;
+        }
+        UsbDeviceConnection usbDeviceConnection = mUSBManager.openDevice(usbDevice);
+        if (usbDeviceConnection == null) {
+            mConnection.connectFailed(ticket);
+            PrinterLog.e(LOG_TAG, "failed to open USB Connection");
+            return false;
+        }
+        if (usbDeviceConnection.claimInterface(usbInterface, true)) {
+            UsbLink link = new UsbLink(usbDeviceConnection, usbInterface, endpointOut, endpointIn);
+            if (!mConnection.connected(ticket, link)) {
+                // the device was detached or closed meanwhile
+                link.close();
+                return false;
+            }
+            PrinterLog.i(LOG_TAG, "Device connected");
+            return true;
+        } else {
+            mConnection.connectFailed(ticket);
+            usbDeviceConnection.close();
+            PrinterLog.e(LOG_TAG, "failed to claim usb connection");
+            return false;
+        }
     }
 
-    @Override
-    public void printRawData(String data, Promise promise) {
-        final String rawData = data;
-        Log.v(LOG_TAG, "start to print raw data " + data);
-        boolean isConnected = openConnection();
-        if (isConnected) {
-            Log.v(LOG_TAG, "Connected to device");
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        byte[] bytes = Base64.decode(rawData, Base64.DEFAULT);
-                        int b = mUsbDeviceConnection.bulkTransfer(mEndPoint, bytes, bytes.length, 100000);
-                        Log.i(LOG_TAG, "Return Status: b-->" + b);
-                        promise.resolve(null);
-                    } catch (Exception e) {
-                        promise.reject("ERR_PRINT", e.getMessage());
-                    }
+    /**
+     * Closing the device under a running bulkTransfer is not safe, so the job
+     * deadline is only checked between transfers, each of which is bounded
+     * by the write deadline.
+     */
+    private Timeouts.Timer startJobDeadline() {
+        return mTimeouts.start(Timeouts.Kind.JOB, () -> {
+        });
+    }
+
+    /**
+     * Sends the whole job through the flow controller. Holding the write lock
+     * keeps status queries out of the middle of a job.
+     */
+    private void writeBulk(RawPayload payload, final Timeouts.Timer deadline) throws IOException {
+        PrinterLog.beginSection(PrinterLog.SECTION_TRANSFER);
+        try {
+            mJobs.prepareTransfer();
+            synchronized (mWriteLock) {
+                final ConnectionState.Link<UsbLink> link = acquireLink();
+                final long writeMs = mTimeouts.getMillis(Timeouts.Kind.WRITE);
+                try {
+                    mJobs.pace((buffer, offset, length) -> bulkTransfer(link.transport, buffer, offset, length,
+                            writeMs, deadline), payload);
+                } finally {
+                    mConnection.release(link);
                 }
-            }).start();
-        } else {
-            String msg = "failed to connected to device";
-            Log.v(LOG_TAG, msg);
-            promise.reject("ERR_CONN", msg);
+            }
+        } finally {
+            PrinterLog.endSection();
         }
     }
 
-    public static Bitmap getBitmapFromURL(String src) {
-        try {
-            URL url = new URL(src);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setDoInput(true);
-            connection.connect();
-            InputStream input = connection.getInputStream();
-            Bitmap myBitmap = BitmapFactory.decodeStream(input);
+    /**
+     * Unpaced write for real-time commands such as status queries.
+     */
+    private void writeRaw(byte[] bytes) throws IOException {
+        synchronized (mWriteLock) {
+            ConnectionState.Link<UsbLink> link = acquireLink();
+            try {
+                bulkTransfer(link.transport, bytes, 0, bytes.length, mTimeouts.getMillis(Timeouts.Kind.WRITE), null);
+            } finally {
+                mConnection.release(link);
+            }
+        }
+    }
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            myBitmap.compress(Bitmap.CompressFormat.PNG, 100, baos);
+    /**
+     * Leases the open device; pass the result to {@link ConnectionState#release}.
+     */
+    private ConnectionState.Link<UsbLink> acquireLink() throws IOException {
+        ConnectionState.Link<UsbLink> link = mConnection.acquire();
+        if (link == null) {
+            throw new IOException("USB connection is not open");
+        }
+        return link;
+    }
 
-            return myBitmap;
-        } catch (IOException e) {
-            return null;
+    /**
+     * Sends the range in transfers of at most {@link #MAX_BULK_TRANSFER_SIZE}
+     * bytes, each within {@code timeoutMs} (0 waits forever), checking the job
+     * {@code deadline}, if any, before each one.
+     */
+    private static void bulkTransfer(UsbLink link, byte[] bytes, int offset, int length, long timeoutMs,
+            Timeouts.Timer deadline) throws IOException {
+        UsbDeviceConnection connection = link.connection;
+        UsbEndpoint endpoint = link.endpointOut;
+        int end = offset + length;
+        while (offset < end) {
+            if (deadline != null) {
+                deadline.check();
+            }
+            int chunk = Math.min(MAX_BULK_TRANSFER_SIZE, end - offset);
+            long start = SystemClock.elapsedRealtime();
+            int b = connection.bulkTransfer(endpoint, bytes, offset, chunk, (int) Math.min(timeoutMs, Integer.MAX_VALUE));
+            if (b < 0) {
+                // bulkTransfer reports a timeout like any other failure
+                if (timeoutMs > 0 && SystemClock.elapsedRealtime() - start >= timeoutMs) {
+                    throw new Timeouts.TimeoutException(Timeouts.Kind.WRITE, timeoutMs);
+                }
+                throw new IOException("bulkTransfer failed at offset " + offset);
+            }
+            if (b == 0) {
+                // retrying would spin, as nothing bounds the loop when the job deadline is off
+                throw new IOException("bulkTransfer sent nothing at offset " + offset);
+            }
+            offset += b;
         }
     }
 
     @Override
-    public void printImageData(final String imageUrl, double imageWidth, Promise promise) {
-        final Bitmap bitmapImage = getBitmapFromURL(imageUrl);
+    public void printRawData(String rawBase64Data, Promise promise) {
+        mJobs.printRawData(rawBase64Data, promise);
+    }
 
-        if (bitmapImage == null) {
-            promise.reject("ERR_IMAGE", "image not found");
-            return;
-        }
+    @Override
+    public void printRawBytes(ByteBuffer data, Promise promise) {
+        mJobs.printRawBytes(data, promise);
+    }
 
-        Log.v(LOG_TAG, "start to print image data " + bitmapImage);
-        boolean isConnected = openConnection();
-        if (isConnected) {
-            Log.v(LOG_TAG, "Connected to device");
-            try {
-                final int maxSize = imageWidth > 0 ? (int) imageWidth : 200;
-                int[][] pixels = getPixelsSlow(bitmapImage, maxSize);
+    @Override
+    public void printText(String text, ReadableMap options, String jobId, Promise promise) {
+        mJobs.printText(text, options, jobId, promise);
+    }
 
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, SET_LINE_SPACE_24, SET_LINE_SPACE_24.length, 100000);
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, CENTER_ALIGN, CENTER_ALIGN.length, 100000);
+    @Override
+    public void printTemplate(String templateId, ReadableMap values, String jobId, Promise promise) {
+        mJobs.printTemplate(templateId, values, jobId, promise);
+    }
 
-                for (int y = 0; y < pixels.length; y += 24) {
-                    mUsbDeviceConnection.bulkTransfer(mEndPoint, SELECT_BIT_IMAGE_MODE,
-                            SELECT_BIT_IMAGE_MODE.length, 100000);
+    @Override
+    public void printFile(String uri, String jobId, Promise promise) {
+        mJobs.printFile(uri, jobId, promise);
+    }
 
-                    byte[] row = new byte[] { (byte) (0x00ff & pixels[y].length),
-                            (byte) ((0xff00 & pixels[y].length) >> 8) };
-                    mUsbDeviceConnection.bulkTransfer(mEndPoint, row, row.length, 100000);
+    @Override
+    public void printImageData(String imageUrl, double imageWidth, String jobId, Promise promise) {
+        mJobs.printImageData(imageUrl, imageWidth, jobId, promise);
+    }
 
-                    for (int x = 0; x < pixels[y].length; x++) {
-                        byte[] slice = recollectSlice(y, x, pixels);
-                        mUsbDeviceConnection.bulkTransfer(mEndPoint, slice, slice.length, 100000);
-                    }
+    @Override
+    public void printQrCode(String qrCode, double qrSize, String jobId, Promise promise) {
+        mJobs.printQrCode(qrCode, qrSize, jobId, promise);
+    }
 
-                    mUsbDeviceConnection.bulkTransfer(mEndPoint, LINE_FEED, LINE_FEED.length, 100000);
-                }
+    @Override
+    public void printReceipt(ReadableArray segments, String jobId, Promise promise) {
+        mJobs.printReceipt(segments, jobId, promise);
+    }
 
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, SET_LINE_SPACE_32, SET_LINE_SPACE_32.length, 100000);
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, LINE_FEED, LINE_FEED.length, 100000);
-                promise.resolve(null);
-            } catch (Exception e) {
-                promise.reject("ERR_PRINT_IMAGE", e.getMessage());
-            }
-        } else {
-            String msg = "failed to connected to device";
-            Log.v(LOG_TAG, msg);
-            promise.reject("ERR_CONN", msg);
-        }
+    @Override
+    public void openSession(String sessionId, ReadableMap options, Promise promise) {
+        mJobs.openSession(sessionId, options, promise);
     }
 
-    private Bitmap TextToQrImageEncode(String Value, int size) {
-        com.google.zxing.Writer writer = new QRCodeWriter();
-        BitMatrix bitMatrix = null;
-        try {
-            bitMatrix = writer.encode(Value, com.google.zxing.BarcodeFormat.QR_CODE, size, size,
-                    ImmutableMap.of(EncodeHintType.MARGIN, 1));
-            int width = size;
-            int height = size;
-            Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-
-            for (int i = 0; i < width; i++) {
-                for (int j = 0; j < height; j++) {
-                    bmp.setPixel(i, j, bitMatrix.get(i, j) ? Color.BLACK : Color.WHITE);
-                }
-            }
-            return bmp;
-        } catch (WriterException e) {
-            return null;
-        }
+    @Override
+    public void appendSession(String sessionId, ReadableArray segments, Promise promise) {
+        mJobs.appendSession(sessionId, segments, promise);
     }
 
     @Override
-    public void printQrCode(String qrCode, double qrSize, Promise promise) {
-        final int size = qrSize > 0 ? (int) qrSize : 250;
-        final Bitmap bitmapImage = TextToQrImageEncode(qrCode, size);
+    public void closeSession(String sessionId, Promise promise) {
+        mJobs.closeSession(sessionId, promise);
+    }
 
-        if (bitmapImage == null) {
-            promise.reject("ERR_QR", "QR code generation failed");
-            return;
-        }
+    @Override
+    public boolean cancelJob(String jobId) {
+        return mJobs.cancelJob(jobId);
+    }
 
-        Log.v(LOG_TAG, "start to print QR code " + qrCode);
-        boolean isConnected = openConnection();
-        if (isConnected) {
-            Log.v(LOG_TAG, "Connected to device");
-            try {
-                int[][] pixels = getPixelsSlow(bitmapImage, size);
+    @Override
+    public void startStatusMonitor(String mode, double intervalMs, Promise promise) {
+        mJobs.startStatusMonitor(mode, intervalMs, promise);
+    }
 
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, SET_LINE_SPACE_24, SET_LINE_SPACE_24.length, 100000);
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, CENTER_ALIGN, CENTER_ALIGN.length, 100000);
+    @Override
+    public void stopStatusMonitor() {
+        mJobs.stopStatusMonitor();
+    }
 
-                for (int y = 0; y < pixels.length; y += 24) {
-                    mUsbDeviceConnection.bulkTransfer(mEndPoint, SELECT_BIT_IMAGE_MODE,
-                            SELECT_BIT_IMAGE_MODE.length, 100000);
+    @Override
+    public PrinterStatus getStatus() {
+        return mJobs.getStatus();
+    }
 
-                    byte[] row = new byte[] { (byte) (0x00ff & pixels[y].length),
-                            (byte) ((0xff00 & pixels[y].length) >> 8) };
-                    mUsbDeviceConnection.bulkTransfer(mEndPoint, row, row.length, 100000);
+    @Override
+    public WritableMap getStats() {
+        return mJobs.getStats();
+    }
 
-                    for (int x = 0; x < pixels[y].length; x++) {
-                        byte[] slice = recollectSlice(y, x, pixels);
-                        mUsbDeviceConnection.bulkTransfer(mEndPoint, slice, slice.length, 100000);
-                    }
+    @Override
+    public WritableMap getProfile() {
+        return mJobs.getProfile();
+    }
 
-                    mUsbDeviceConnection.bulkTransfer(mEndPoint, LINE_FEED, LINE_FEED.length, 100000);
-                }
+    @Override
+    public void setJobEvents(boolean enabled) {
+        mJobs.setJobEvents(enabled);
+    }
 
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, SET_LINE_SPACE_32, SET_LINE_SPACE_32.length, 100000);
-                mUsbDeviceConnection.bulkTransfer(mEndPoint, LINE_FEED, LINE_FEED.length, 100000);
-                promise.resolve(null);
-            } catch (Exception e) {
-                promise.reject("ERR_PRINT_QR", e.getMessage());
-            }
-        } else {
-            String msg = "failed to connected to device";
-            Log.v(LOG_TAG, msg);
-            promise.reject("ERR_CONN", msg);
-        }
+    @Override
+    public void setFlowControl(ReadableMap options) {
+        mJobs.setFlowControl(options);
     }
 
-    public static int[][] getPixelsSlow(Bitmap image2, int maxSize) {
-        Bitmap image = resizeTheImageForPrinting(image2, maxSize);
-        int width = image.getWidth();
-        int height = image.getHeight();
-        int[][] result = new int[height][width];
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                result[row][col] = getRGB(image, col, row);
-            }
-        }
-        return result;
+    @Override
+    public void setTimeouts(ReadableMap options) {
+        mTimeouts.configure(options);
     }
 
-    private byte[] recollectSlice(int y, int x, int[][] img) {
-        byte[] slices = new byte[] { 0, 0, 0 };
-        for (int yy = y, i = 0; yy < y + 24 && i < 3; yy += 8, i++) {
-            byte slice = 0;
-            for (int b = 0; b < 8; b++) {
-                int yyy = yy + b;
-                if (yyy >= img.length) {
-                    continue;
-                }
-                int col = img[yyy][x];
-                boolean v = shouldPrintColor(col);
-                slice |= (byte) ((v ? 1 : 0) << (7 - b));
+    private boolean hasEndpointIn() {
+        UsbLink link = mConnection.peek();
+        return link != null && link.endpointIn != null;
+    }
+
+    private final JobRunner.Transport mTransport = new JobRunner.Transport() {
+        @Override
+        public boolean checkConnection(Promise promise) {
+            if (!openConnection()) {
+                String msg = "failed to connected to device";
+                PrinterLog.v(LOG_TAG, msg);
+                promise.reject("ERR_CONN", msg);
+                return false;
             }
-            slices[i] = slice;
+            return true;
         }
-        return slices;
-    }
 
-    private boolean shouldPrintColor(int col) {
-        final int threshold = 127;
-        int a, r, g, b, luminance;
-        a = (col >> 24) & 0xff;
-        if (a != 0xff) {
-            return false;
+        @Override
+        public Timeouts.Timer startJobDeadline() {
+            return USBPrinterAdapter.this.startJobDeadline();
         }
-        r = (col >> 16) & 0xff;
-        g = (col >> 8) & 0xff;
-        b = col & 0xff;
 
-        luminance = (int) (0.299 * r + 0.587 * g + 0.114 * b);
-        return luminance < threshold;
-    }
+        @Override
+        public void write(RawPayload payload, Timeouts.Timer deadline) throws IOException {
+            writeBulk(payload, deadline);
+        }
 
-    public static Bitmap resizeTheImageForPrinting(Bitmap image, int maxSize) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        if (width > maxSize || height > maxSize) {
-            if (width > height) {
-                float decreaseSizeBy = ((float) maxSize / width);
-                return getBitmapResized(image, decreaseSizeBy);
-            } else {
-                float decreaseSizeBy = ((float) maxSize / height);
-                return getBitmapResized(image, decreaseSizeBy);
-            }
+        @Override
+        public void writeBands(BufferPool.Bytes bytes, PrintJobs.Handle handle, final Timeouts.Timer deadline)
+                throws IOException {
+            PrintJobs.writeBands(bytes.array, bytes.length, handle,
+                    (buffer, offset, length) -> writeBulk(RawPayload.wrap(buffer, offset, length), deadline));
         }
-        return image;
-    }
 
-    public static int getRGB(Bitmap bmpOriginal, int col, int row) {
-        int pixel = bmpOriginal.getPixel(col, row);
-        int R = Color.red(pixel);
-        int G = Color.green(pixel);
-        int B = Color.blue(pixel);
-        return Color.rgb(R, G, B);
-    }
+        @Override
+        public String statusUnsupported() {
+            return hasEndpointIn() ? null : "printer has no bulk IN endpoint to read status from";
+        }
 
-    public static Bitmap getBitmapResized(Bitmap image, float decreaseSizeBy) {
-        Bitmap resized = Bitmap.createScaledBitmap(image, (int) (image.getWidth() * decreaseSizeBy),
-                (int) (image.getHeight() * decreaseSizeBy), true);
-        return resized;
-    }
+        @Override
+        public String printerId() {
+            UsbDevice device = mUsbDevice;
+            return device != null ? device.getVendorId() + ":" + device.getProductId() : "unknown";
+        }
+
+        @Override
+        public String modelName() {
+            UsbDevice device = mUsbDevice;
+            return device != null ? device.getProductName() : null;
+        }
+
+        @Override
+        public PrinterDevice device() {
+            UsbDevice device = mUsbDevice;
+            return device != null ? new USBPrinterDevice(device) : null;
+        }
+    };
+
+    private final PrinterStatusMonitor.Channel mStatusChannel = new PrinterStatusMonitor.Channel() {
+        @Override
+        public int read(byte[] buffer) {
+            UsbLink link = mConnection.peek();
+            if (link == null || link.endpointIn == null) {
+                return -1;
+            }
+            // -1 here means the transfer timed out without data
+            return Math.max(0, link.connection.bulkTransfer(link.endpointIn, buffer, buffer.length,
+                    STATUS_READ_TIMEOUT_MS));
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            writeRaw(bytes);
+        }
+    };
 }
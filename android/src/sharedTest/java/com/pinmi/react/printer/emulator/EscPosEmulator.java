@@ -0,0 +1,306 @@
+package com.pinmi.react.printer.emulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A network receipt printer on loopback, for load tests without hardware.
+ * Accepts any number of raw TCP connections like a printer on port 9100,
+ * parses what arrives with an {@link EscPosParser} and answers
+ * {@code DLE EOT} status queries.
+ * <p>
+ * With {@link Config#bytesPerSecond} set, the emulator behaves like a
+ * printer with a {@link Config#bufferSize} byte receive buffer that the head
+ * drains at that speed: once the buffer is full it stops reading, so the
+ * sender sees the same TCP backpressure as with a real printer.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class EscPosEmulator implements Closeable {
+
+    public static final int DEFAULT_PORT = 9100;
+
+    public static class Config {
+        /** 0 picks a free port */
+        public int port = DEFAULT_PORT;
+        /** print speed; 0 prints instantly */
+        public int bytesPerSecond = 0;
+        public int bufferSize = 4096;
+        /** answer to {@code DLE EOT}; 0x12 is online with nothing to report */
+        public int statusByte = 0x12;
+        /** keep every received byte for {@link #getReceived()} */
+        public boolean recordBytes = false;
+    }
+
+    private final Config mConfig;
+    private ServerSocket mServer;
+    private final List<Socket> mClients = new CopyOnWriteArrayList<>();
+    private final List<EscPosParser> mParsers = new CopyOnWriteArrayList<>();
+    private final ByteArrayOutputStream mReceived = new ByteArrayOutputStream();
+    private final Object mProgress = new Object();
+
+    private long mBytes;
+    private long mFirstByteNanos;
+    private long mLastByteNanos;
+    private long mPrintedNanos;
+
+    public EscPosEmulator(Config config) {
+        this.mConfig = config;
+    }
+
+    public EscPosEmulator() {
+        this(new Config());
+    }
+
+    public void start() throws IOException {
+        mServer = new ServerSocket();
+        mServer.setReuseAddress(true);
+        mServer.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), mConfig.port));
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!mServer.isClosed()) {
+                    try {
+                        final Socket client = mServer.accept();
+                        mClients.add(client);
+                        Thread connection = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(client);
+                            }
+                        }, "EscPosEmulator-" + client.getPort());
+                        connection.setDaemon(true);
+                        connection.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        }, "EscPosEmulator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return mServer.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return mServer.getLocalPort();
+    }
+
+    private void serve(Socket client) {
+        final int rate = mConfig.bytesPerSecond;
+        final int bufferSize = Math.max(1, mConfig.bufferSize);
+        byte[] buffer = new byte[bufferSize];
+        // when the head is done with everything received so far
+        long headNanos = 0;
+        try {
+            InputStream in = client.getInputStream();
+            final OutputStream out = client.getOutputStream();
+            EscPosParser parser = new EscPosParser(new EscPosParser.Listener() {
+                @Override
+                public void onCommand(String name, byte[] args) {
+                    if (name.equals("DLE EOT")) {
+                        try {
+                            out.write(mConfig.statusByte);
+                            out.flush();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            });
+            mParsers.add(parser);
+            while (true) {
+                int room = bufferSize;
+                if (rate > 0) {
+                    long now = System.nanoTime();
+                    long buffered = Math.max(0, headNanos - now) * rate / 1_000_000_000L;
+                    room = (int) (bufferSize - buffered);
+                    if (room <= 0) {
+                        // wait for the head to print one buffer's worth of room
+                        long waitNanos = (1 - room) * 1_000_000_000L / rate;
+                        TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 100_000L));
+                        continue;
+                    }
+                }
+                int read = in.read(buffer, 0, room);
+                if (read < 0) {
+                    break;
+                }
+                long now = System.nanoTime();
+                if (rate > 0) {
+                    headNanos = Math.max(headNanos, now) + read * 1_000_000_000L / rate;
+                }
+                synchronized (parser) {
+                    parser.feed(buffer, 0, read);
+                }
+                synchronized (mProgress) {
+                    if (mBytes == 0) {
+                        mFirstByteNanos = now;
+                    }
+                    mBytes += read;
+                    mLastByteNanos = now;
+                    mPrintedNanos = Math.max(mPrintedNanos, rate > 0 ? headNanos : now);
+                    if (mConfig.recordBytes) {
+                        mReceived.write(buffer, 0, read);
+                    }
+                    mProgress.notifyAll();
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+        } finally {
+            mClients.remove(client);
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Waits until at least {@code bytes} bytes have arrived in total.
+     */
+    public boolean awaitBytes(long bytes, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (mProgress) {
+            while (mBytes < bytes) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                mProgress.wait(left);
+            }
+            return true;
+        }
+    }
+
+    public long getBytesReceived() {
+        synchronized (mProgress) {
+            return mBytes;
+        }
+    }
+
+    /**
+     * @return nanoseconds from the first to the last byte received.
+     */
+    public long getReceiveNanos() {
+        synchronized (mProgress) {
+            return mBytes == 0 ? 0 : mLastByteNanos - mFirstByteNanos;
+        }
+    }
+
+    /**
+     * @return nanoseconds from the first byte until the simulated head printed
+     *         the last one; the same as {@link #getReceiveNanos()} without a print speed.
+     */
+    public long getPrintNanos() {
+        synchronized (mProgress) {
+            return mBytes == 0 ? 0 : mPrintedNanos - mFirstByteNanos;
+        }
+    }
+
+    public byte[] getReceived() {
+        synchronized (mProgress) {
+            return mReceived.toByteArray();
+        }
+    }
+
+    public int getConnectionCount() {
+        return mParsers.size();
+    }
+
+    /**
+     * @return command counts summed over all connections so far.
+     */
+    public Map<String, Long> getCommands() {
+        Map<String, Long> total = new TreeMap<>();
+        for (EscPosParser parser : mParsers) {
+            synchronized (parser) {
+                for (Map.Entry<String, Long> entry : parser.getCommands().entrySet()) {
+                    Long count = total.get(entry.getKey());
+                    total.put(entry.getKey(), (count == null ? 0 : count) + entry.getValue());
+                }
+            }
+        }
+        return total;
+    }
+
+    public long getCommandCount(String name) {
+        Long count = getCommands().get(name);
+        return count == null ? 0 : count;
+    }
+
+    public long getTextBytes() {
+        long total = 0;
+        for (EscPosParser parser : mParsers) {
+            synchronized (parser) {
+                total += parser.getTextBytes();
+            }
+        }
+        return total;
+    }
+
+    public long getLines() {
+        long total = 0;
+        for (EscPosParser parser : mParsers) {
+            synchronized (parser) {
+                total += parser.getLines();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Runs the emulator on its own, e.g. on a development machine behind
+     * {@code adb reverse tcp:9100 tcp:9100}, printing a summary every second.
+     * Arguments: {@code [port] [bytesPerSecond] [bufferSize]}.
+     */
+    public static void main(String[] args) throws Exception {
+        Config config = new Config();
+        if (args.length > 0) {
+            config.port = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            config.bytesPerSecond = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            config.bufferSize = Integer.parseInt(args[2]);
+        }
+        EscPosEmulator emulator = new EscPosEmulator(config);
+        emulator.start();
+        System.out.println("listening on " + emulator.getHost() + ":" + emulator.getPort());
+        long reported = -1;
+        while (true) {
+            Thread.sleep(1000);
+            long bytes = emulator.getBytesReceived();
+            if (bytes != reported) {
+                reported = bytes;
+                System.out.printf("%d connections, %d bytes, %d lines, %s%n", emulator.getConnectionCount(), bytes,
+                        emulator.getLines(), emulator.getCommands());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mServer != null) {
+            mServer.close();
+        }
+        for (Socket client : mClients) {
+            client.close();
+        }
+    }
+}
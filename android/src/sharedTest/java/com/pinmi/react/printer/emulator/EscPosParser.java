@@ -0,0 +1,248 @@
+package com.pinmi.react.printer.emulator;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming ESC/POS parser for the {@link EscPosEmulator}. Splits the byte
+ * stream into commands, text and line feeds without caring where reads end,
+ * and counts them. Knows the argument and data lengths of the commands the
+ * library sends plus the common ones apps put in raw jobs; an unknown
+ * {@code ESC}, {@code GS}, {@code DLE} or {@code FS} command is counted as
+ * {@code "ESC ?"} etc. and assumed to take no arguments.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public class EscPosParser {
+
+    public interface Listener {
+        /**
+         * @param name e.g. {@code "ESC @"}, {@code "GS V"}, {@code "DLE EOT"}
+         * @param args the bytes after the command name, without bulk data
+         */
+        void onCommand(String name, byte[] args);
+    }
+
+    private static final int ESC = 0x1B;
+    private static final int GS = 0x1D;
+    private static final int DLE = 0x10;
+    private static final int FS = 0x1C;
+    private static final int LF = 0x0A;
+
+    private static final int MAX_HEADER = 8;
+    private static final int INCOMPLETE = -1;
+
+    private final Listener mListener;
+    private final byte[] mHeader = new byte[MAX_HEADER];
+    private int mHeaderLength;
+    private String mCommand;
+    private long mSkip;
+    private boolean mSkipToNul;
+
+    private final Map<String, Long> mCommands = new TreeMap<>();
+    private long mTextBytes;
+    private long mLines;
+    private long mDataBytes;
+
+    public EscPosParser(Listener listener) {
+        this.mListener = listener;
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i] & 0xff;
+            if (mSkip > 0) {
+                // bulk data: bit image, raster or 2D code payload
+                long run = Math.min(mSkip, offset + length - i);
+                mSkip -= run;
+                mDataBytes += run;
+                i += (int) run - 1;
+                continue;
+            }
+            if (mSkipToNul) {
+                mDataBytes++;
+                mSkipToNul = b != 0;
+                continue;
+            }
+            if (mHeaderLength == 0) {
+                if (b == ESC || b == GS || b == DLE || b == FS) {
+                    mHeader[mHeaderLength++] = (byte) b;
+                } else if (b == LF) {
+                    mLines++;
+                } else {
+                    mTextBytes++;
+                }
+                continue;
+            }
+            mHeader[mHeaderLength++] = (byte) b;
+            long data = decode();
+            if (data == INCOMPLETE) {
+                if (mHeaderLength == MAX_HEADER) {
+                    complete("?", 0);
+                }
+                continue;
+            }
+            complete(mCommand, data);
+        }
+    }
+
+    private void complete(String name, long data) {
+        byte[] args = new byte[mHeaderLength - 2 > 0 ? mHeaderLength - 2 : 0];
+        System.arraycopy(mHeader, Math.min(2, mHeaderLength), args, 0, args.length);
+        mHeaderLength = 0;
+        mCommand = null;
+        mCommands.put(name, getCommandCount(name) + 1);
+        if (data > 0) {
+            mSkip = data;
+        }
+        if (mListener != null) {
+            mListener.onCommand(name, args);
+        }
+    }
+
+    /**
+     * @return the bulk data length once the header is complete, or {@link #INCOMPLETE}.
+     */
+    private long decode() {
+        int prefix = mHeader[0] & 0xff;
+        int code = mHeader[1] & 0xff;
+        int have = mHeaderLength - 2;
+        switch (prefix) {
+            case ESC:
+                return decodeEsc(code, have);
+            case GS:
+                return decodeGs(code, have);
+            case DLE:
+                if (code == 0x04) {
+                    return args("DLE EOT", 1, have);
+                }
+                if (code == 0x14) {
+                    return args("DLE DC4", 3, have);
+                }
+                return args("DLE ?", 0, have);
+            default:
+                return decodeFs(code, have);
+        }
+    }
+
+    private long decodeFs(int code, int have) {
+        switch (code) {
+            case '&': case '.':
+                return args("FS " + (char) code, 0, have);
+            case '!': case '-': case 'C': case 'W':
+                return args("FS " + (char) code, 1, have);
+            default:
+                return args("FS ?", 0, have);
+        }
+    }
+
+    private long decodeEsc(int code, int have) {
+        switch (code) {
+            case '@':
+                return args("ESC @", 0, have);
+            case '2': case 'i': case 'm':
+                return args("ESC " + (char) code, 0, have);
+            case '!': case '-': case '3': case 'E': case 'G': case 'J': case 'M': case 'R': case 'a': case 'd':
+            case 't': case '{': case 'V':
+                return args("ESC " + (char) code, 1, have);
+            case 'B':
+                return args("ESC B", 2, have);
+            case 'p':
+                return args("ESC p", 3, have);
+            case '*':
+                if (have < 3) {
+                    return INCOMPLETE;
+                }
+                mCommand = "ESC *";
+                int mode = mHeader[2] & 0xff;
+                int columns = u16(3);
+                return (long) columns * (mode >= 32 ? 3 : 1);
+            default:
+                return args("ESC ?", 0, have);
+        }
+    }
+
+    private long decodeGs(int code, int have) {
+        switch (code) {
+            case 'V':
+                if (have < 1) {
+                    return INCOMPLETE;
+                }
+                int mode = mHeader[2] & 0xff;
+                return args("GS V", mode == 65 || mode == 66 ? 2 : 1, have);
+            case '!': case 'B': case 'H': case 'f': case 'h': case 'w': case 'a': case 'r': case 'I':
+                return args("GS " + (char) code, 1, have);
+            case 'L': case 'W':
+                return args("GS " + (char) code, 2, have);
+            case 'k':
+                if (have < 1) {
+                    return INCOMPLETE;
+                }
+                int system = mHeader[2] & 0xff;
+                if (system <= 6) {
+                    mCommand = "GS k";
+                    mSkipToNul = true;
+                    return 0;
+                }
+                if (have < 2) {
+                    return INCOMPLETE;
+                }
+                mCommand = "GS k";
+                return mHeader[3] & 0xff;
+            case 'v':
+                // GS v 0 m xL xH yL yH, x in bytes
+                if (have < 6) {
+                    return INCOMPLETE;
+                }
+                mCommand = "GS v 0";
+                return (long) u16(4) * u16(6);
+            case '(':
+                // GS ( k pL pH ..., the parameter bytes are data here
+                if (have < 3) {
+                    return INCOMPLETE;
+                }
+                mCommand = "GS ( " + (char) (mHeader[2] & 0xff);
+                return u16(3);
+            default:
+                return args("GS ?", 0, have);
+        }
+    }
+
+    private long args(String name, int count, int have) {
+        if (have < count) {
+            return INCOMPLETE;
+        }
+        mCommand = name;
+        return 0;
+    }
+
+    private int u16(int index) {
+        return (mHeader[index] & 0xff) | (mHeader[index + 1] & 0xff) << 8;
+    }
+
+    public long getCommandCount(String name) {
+        Long count = mCommands.get(name);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return command name to count, sorted by name.
+     */
+    public Map<String, Long> getCommands() {
+        return new TreeMap<>(mCommands);
+    }
+
+    /** printable bytes outside of commands */
+    public long getTextBytes() {
+        return mTextBytes;
+    }
+
+    public long getLines() {
+        return mLines;
+    }
+
+    /** image, barcode and 2D code payload bytes */
+    public long getDataBytes() {
+        return mDataBytes;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveChunkerTest {
+
+    @Test
+    public void growsWhileWritesReturnQuickly() {
+        AdaptiveChunker chunker = new AdaptiveChunker(512);
+        for (int i = 0; i < 20; i++) {
+            int size = chunker.getChunkSize();
+            chunker.onChunkWritten(size, 1000000L);
+        }
+        assertEquals(AdaptiveChunker.MAX_CHUNK_SIZE, chunker.getChunkSize());
+    }
+
+    @Test
+    public void shrinksWhenTheLinkBlocks() {
+        AdaptiveChunker chunker = new AdaptiveChunker(4096);
+        chunker.onChunkWritten(4096, 200000000L);
+        assertEquals(2048, chunker.getChunkSize());
+        assertEquals(4096 * 5, chunker.getBytesPerSecond(), 1);
+    }
+
+    @Test
+    public void writesEveryByteInOrder() throws Exception {
+        AdaptiveChunker chunker = new AdaptiveChunker(100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] job = new byte[5000];
+        for (int i = 0; i < job.length; i++) {
+            job[i] = (byte) i;
+        }
+        chunker.write(out, job, 0, job.length);
+        assertArrayEquals(job, out.toByteArray());
+    }
+}
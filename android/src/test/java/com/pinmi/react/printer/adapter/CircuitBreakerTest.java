@@ -0,0 +1,99 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static class ManualClock implements CircuitBreaker.Clock {
+        long now = 1000;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(3, 500, clock);
+
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertTrue(breaker.recordFailure());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        clock.now += 200;
+        assertEquals(300, breaker.getRetryAfterMillis());
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 500, new ManualClock());
+
+        breaker.recordFailure();
+        breaker.recordSuccess();
+
+        assertFalse(breaker.recordFailure());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void letsOneProbeThroughOnceExpired() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, clock);
+        breaker.recordFailure();
+
+        clock.now += 500;
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void probeOutcomeClosesOrReopens() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, clock);
+        breaker.recordFailure();
+        clock.now += 500;
+        breaker.allowRequest();
+
+        assertTrue(breaker.recordFailure());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(500, breaker.getRetryAfterMillis());
+
+        clock.now += 500;
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void releasedProbeGoesToTheNextCaller() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, clock);
+        breaker.recordFailure();
+        clock.now += 500;
+        assertTrue(breaker.allowRequest());
+
+        breaker.releaseProbe();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0, breaker.getRetryAfterMillis());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void releaseProbeLeavesAClosedCircuitAlone() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, new ManualClock());
+
+        breaker.releaseProbe();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,90 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CodePagesTest {
+
+    private static final Map<String, String> CHARSETS = new HashMap<>();
+
+    static {
+        CHARSETS.put("CP437", "IBM437");
+        CHARSETS.put("CP850", "IBM850");
+        CHARSETS.put("CP858", "IBM00858");
+        CHARSETS.put("CP866", "IBM866");
+        CHARSETS.put("CP1252", "windows-1252");
+        CHARSETS.put("CP1251", "windows-1251");
+    }
+
+    private static EscPosBuilder.TextOptions options(String encoding) {
+        EscPosBuilder.TextOptions options = new EscPosBuilder.TextOptions();
+        options.encoding = encoding;
+        return options;
+    }
+
+    private static String hex(RawPayload payload) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : Arrays.copyOfRange(payload.bytes, payload.offset, payload.offset + payload.length)) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    @Test
+    public void tablesRoundTripEveryDefinedByte() {
+        for (Map.Entry<String, String> entry : CHARSETS.entrySet()) {
+            CodePages.Page page = CodePages.forEncoding(entry.getKey());
+            Charset charset = Charset.forName(entry.getValue());
+            for (int b = 0x80; b <= 0xFF; b++) {
+                String decoded = new String(new byte[] { (byte) b }, charset);
+                char c = decoded.charAt(0);
+                if (c == '\uFFFD') {
+                    continue;
+                }
+                int encoded = page.encode(c);
+                assertTrue(entry.getKey() + " lost U+" + Integer.toHexString(c), encoded >= 0x80);
+                assertEquals(decoded, new String(new byte[] { (byte) encoded }, charset));
+            }
+            assertEquals(-1, page.encode('中'));
+        }
+    }
+
+    @Test
+    public void resolvesPageNames() {
+        assertEquals(0, CodePages.forEncoding("CP437").number);
+        assertEquals(16, CodePages.forEncoding("windows-1252").number);
+        assertEquals(16, CodePages.forEncoding("win1252").number);
+        assertEquals(2, CodePages.forEncoding("cp-850").number);
+        assertNull(CodePages.forEncoding("UTF8"));
+    }
+
+    @Test
+    public void autoSwitchesPagesMidStream() {
+        RawPayload payload = new EscPosBuilder().build("€5 Ж ñ", options(EscPosBuilder.AUTO_ENCODING));
+        assertEquals("1b401b74001b32" + "1b7413d5" + "3520" + "1b741186" + "20" + "1b7400a4", hex(payload));
+    }
+
+    @Test
+    public void fixedPageReplacesUnmappableCharactersLikeIconv() {
+        // iconv-lite replaces each UTF-16 unit, so a surrogate pair becomes "??"
+        RawPayload payload = new EscPosBuilder().build("é€😀", options("CP437"));
+        assertEquals("1b401b74001b32" + "82" + "3f" + "3f3f", hex(payload));
+    }
+
+    @Test
+    public void templateRestoresThePageAfterASlot() {
+        EscPosTemplate template = EscPosTemplate.compile("ñ{{name}}ñ", options(EscPosBuilder.AUTO_ENCODING));
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "Ж");
+
+        RawPayload payload = template.render(new EscPosBuilder(), values);
+
+        assertEquals("1b401b74001b32" + "a4" + "1b741186" + "1b7400a4", hex(payload));
+    }
+}
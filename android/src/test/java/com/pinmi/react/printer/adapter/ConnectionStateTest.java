@@ -0,0 +1,281 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConnectionStateTest {
+
+    private static class Transport {
+        final int id;
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Transport(int id) {
+            this.id = id;
+        }
+    }
+
+    private static ConnectionState<Transport> connected(Transport transport) {
+        ConnectionState<Transport> connection = new ConnectionState<>();
+        assertTrue(connection.connected(connection.beginConnect(), transport));
+        return connection;
+    }
+
+    @Test
+    public void walksThroughTheLifecycle() {
+        ConnectionState<Transport> connection = new ConnectionState<>();
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+        assertFalse(connection.isOpen());
+        assertNull(connection.acquire());
+
+        long ticket = connection.beginConnect();
+        assertEquals(ConnectionState.State.CONNECTING, connection.getState());
+        assertEquals(ConnectionState.NO_TICKET, connection.beginConnect());
+        Transport transport = new Transport(1);
+        assertTrue(connection.connected(ticket, transport));
+        assertEquals(ConnectionState.State.CONNECTED, connection.getState());
+
+        ConnectionState.Link<Transport> lease = connection.acquire();
+        assertSame(transport, lease.transport);
+        assertEquals(1, connection.getInFlight());
+        connection.release(lease);
+        assertEquals(0, connection.getInFlight());
+
+        assertSame(transport, connection.close(1000));
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+        assertNull(connection.close(1000));
+    }
+
+    @Test
+    public void failedConnectsSettleInTheRightState() {
+        ConnectionState<Transport> connection = new ConnectionState<>();
+        assertTrue(connection.connectFailed(connection.beginConnect()));
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+
+        connection = connected(new Transport(1));
+        ConnectionState.Link<Transport> lease = connection.acquire();
+        connection.release(lease);
+        long ticket = connection.beginReconnect(lease);
+        assertTrue(connection.reconnectFailed(ticket));
+        assertEquals(ConnectionState.State.DISCONNECTED, connection.getState());
+        assertTrue(connection.isOpen());
+        // the next print may try again without a lease
+        assertNotEquals(ConnectionState.NO_TICKET, connection.beginReconnect(null));
+    }
+
+    @Test
+    public void aLostLinkIsGoneUntilConnectedAgain() {
+        ConnectionState<Transport> connection = connected(new Transport(1));
+        ConnectionState.Link<Transport> link = connection.get();
+        assertTrue(connection.lost(link));
+        assertFalse(connection.lost(link));
+        assertEquals(ConnectionState.State.DISCONNECTED, connection.getState());
+        assertNull(connection.peek());
+        assertNull(connection.acquire());
+        assertNull(connection.close(1000));
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+        Transport again = new Transport(2);
+        assertTrue(connection.connected(connection.beginConnect(), again));
+        assertSame(again, connection.peek());
+    }
+
+    @Test
+    public void closeWhileConnectingWins() {
+        ConnectionState<Transport> connection = new ConnectionState<>();
+        long ticket = connection.beginConnect();
+        assertNull(connection.close(1000));
+        assertFalse(connection.connected(ticket, new Transport(1)));
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+
+        // nor can a stale ticket take over a newer connect
+        long newer = connection.beginConnect();
+        assertFalse(connection.connected(ticket, new Transport(2)));
+        assertTrue(connection.connected(newer, new Transport(3)));
+        assertEquals(3, connection.peek().id);
+    }
+
+    @Test
+    public void onlyOneWriterReconnectsAfterTheSameFailure() throws Exception {
+        final ConnectionState<Transport> connection = connected(new Transport(1));
+        final ConnectionState.Link<Transport> broken = connection.acquire();
+        connection.release(broken);
+        final int threads = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger winners = new AtomicInteger();
+        final AtomicInteger sawNewLink = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        long ticket = connection.beginReconnect(broken);
+                        if (ticket != ConnectionState.NO_TICKET) {
+                            winners.incrementAndGet();
+                            Thread.sleep(20);
+                            connection.connected(ticket, new Transport(2));
+                        } else {
+                            connection.awaitSettled(5000);
+                        }
+                        ConnectionState.Link<Transport> lease = connection.acquire();
+                        if (lease != null && lease.transport.id == 2) {
+                            sawNewLink.incrementAndGet();
+                        }
+                        connection.release(lease);
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, winners.get());
+        assertEquals(threads, sawNewLink.get());
+        assertEquals(0, connection.getInFlight());
+    }
+
+    @Test
+    public void closeWaitsForLeasesInFlight() throws Exception {
+        final ConnectionState<Transport> connection = connected(new Transport(1));
+        final ConnectionState.Link<Transport> lease = connection.acquire();
+        final AtomicReference<Transport> closed = new AtomicReference<>();
+        Thread closer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                closed.set(connection.close(5000));
+            }
+        });
+        closer.start();
+        Thread.sleep(50);
+        assertTrue(closer.isAlive());
+        assertEquals(ConnectionState.State.DRAINING, connection.getState());
+        // draining: nothing new gets in, the job on the wire still has its transport
+        assertNull(connection.acquire());
+        assertSame(lease.transport, connection.peek());
+        connection.release(lease);
+        closer.join(5000);
+        assertEquals(1, closed.get().id);
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+    }
+
+    @Test
+    public void closeGivesUpDrainingAfterTheTimeout() {
+        ConnectionState<Transport> connection = connected(new Transport(1));
+        ConnectionState.Link<Transport> stuck = connection.acquire();
+        long start = System.nanoTime();
+        assertSame(stuck.transport, connection.close(100));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(String.valueOf(elapsedMs), elapsedMs >= 100 && elapsedMs < 2000);
+        assertEquals(ConnectionState.State.CLOSED, connection.getState());
+        connection.release(stuck);
+    }
+
+    /**
+     * Writers, reconnects and closes hammer one connection at once. A transport
+     * closed by {@link ConnectionState#close(long)} must never be seen under a
+     * lease, no lease may outlive its count, and only one transport may be
+     * connected per generation.
+     */
+    @Test
+    public void staysConsistentUnderManyThreads() throws Exception {
+        final ConnectionState<Transport> connection = new ConnectionState<>();
+        final AtomicInteger ids = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final int writers = 12;
+        final int controllers = 4;
+        final CountDownLatch done = new CountDownLatch(writers + controllers);
+
+        for (int t = 0; t < writers; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stop.get()) {
+                        ConnectionState.Link<Transport> lease = connection.acquire();
+                        if (lease == null) {
+                            long ticket = connection.beginReconnect(null);
+                            if (ticket != ConnectionState.NO_TICKET) {
+                                Transport transport = new Transport(ids.incrementAndGet());
+                                if (!connection.connected(ticket, transport)) {
+                                    transport.closed.set(true);
+                                }
+                            }
+                            Thread.yield();
+                            continue;
+                        }
+                        if (lease.transport.closed.get() || lease.state != ConnectionState.State.CONNECTED) {
+                            violations.incrementAndGet();
+                        }
+                        writes.incrementAndGet();
+                        boolean fail = random.nextInt(50) == 0;
+                        connection.release(lease);
+                        if (fail) {
+                            // the write failed: reconnect, like writeWithReconnect does
+                            long ticket = connection.beginReconnect(lease);
+                            if (ticket != ConnectionState.NO_TICKET) {
+                                Transport transport = new Transport(ids.incrementAndGet());
+                                if (!connection.connected(ticket, transport)) {
+                                    transport.closed.set(true);
+                                }
+                            } else {
+                                connection.awaitSettled(1000);
+                            }
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int t = 0; t < controllers; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stop.get()) {
+                        if (random.nextBoolean()) {
+                            Transport transport = connection.close(10000);
+                            if (transport != null && !transport.closed.compareAndSet(false, true)) {
+                                // handed out for closing twice
+                                violations.incrementAndGet();
+                            }
+                        } else {
+                            long ticket = connection.beginConnect();
+                            if (ticket != ConnectionState.NO_TICKET) {
+                                Transport transport = new Transport(ids.incrementAndGet());
+                                if (!connection.connected(ticket, transport)) {
+                                    transport.closed.set(true);
+                                }
+                            }
+                        }
+                        try {
+                            Thread.sleep(random.nextInt(3));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        Thread.sleep(1500);
+        stop.set(true);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(0, violations.get());
+        assertEquals(0, connection.getInFlight());
+        assertTrue(String.valueOf(writes.get()), writes.get() > 1000);
+        assertTrue(ids.get() > 10);
+    }
+}
@@ -0,0 +1,111 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Expected bytes were produced by {@code EPToolkit.exchange_text} with the same
+ * text and options.
+ */
+public class EscPosBuilderTest {
+
+    private static EscPosBuilder.TextOptions options(String encoding, Boolean tailingLine, Boolean cut, Boolean beep) {
+        EscPosBuilder.TextOptions options = new EscPosBuilder.TextOptions();
+        options.encoding = encoding;
+        options.tailingLine = tailingLine;
+        options.cut = cut;
+        options.beep = beep;
+        return options;
+    }
+
+    private static String hex(RawPayload payload) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : Arrays.copyOfRange(payload.bytes, payload.offset, payload.offset + payload.length)) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    private final EscPosBuilder builder = new EscPosBuilder();
+
+    @Test
+    public void plainTextWithFalseFlagsStillGetsTheTail() {
+        assertEquals("1b401c261c43ff1b3248656c6c6f0a0a0a0a0a1b691b420302",
+                hex(builder.build("Hello", options("UTF8", false, false, false))));
+    }
+
+    @Test
+    public void billWithTagsAndLineResets() {
+        assertEquals("1b401c261c43ff1b321b610153686f700a1b61001d21001b321b21301c210c546f74616c1b21001c2100"
+                + "2031322e35300a1b61001d21001b320a0a0a0a0a1b691b420302",
+                hex(builder.build("<C>Shop</C>\n<B>Total</B> 12.50\n", options("UTF8", true, true, true))));
+    }
+
+    @Test
+    public void everyTag() {
+        assertEquals("1b401c261c43ff1b321b61011b21101c2108611b21001c21001b61011b21201c2104621b21001c2100"
+                + "1b61011b21301c210c631b21001c21001b21201c2104641b21001c21001b21101c2108651b21001c2100"
+                + "1b6100661b610267",
+                hex(builder.build("<CM>a</CM><CD>b</CD><CB>c</CB><D>d</D><M>e</M><L>f</L><R>g</R>",
+                        options("UTF8", null, null, null))));
+    }
+
+    @Test
+    public void unknownTagsLoseOnlyTheirBracket() {
+        assertEquals("1b401c261c43ff1b3261583e6220630a1b61001d21001b320a1b61001d21001b32656e640a0a0a0a0a1b691b420302",
+                hex(builder.build("a<X>b< c\n\nend<", options("UTF8", false, false, false))));
+    }
+
+    @Test
+    public void encodesUtf8IncludingSurrogatePairs() {
+        assertEquals("1b401c261c43ff1b32436166c3a920c3bc62657220e282ac3520f09f98800a1b61001d21001b320a0a0a0a0a"
+                + "1b691b420302",
+                hex(builder.build("Café über €5 😀\n", options("UTF8", false, false, false))));
+    }
+
+    @Test
+    public void selectsCodePagesAndOnlyKnownEncodingCommands() {
+        assertEquals("1b401b74001b321b21301c210c526563656970741b21001c21000a1b61001d21001b326c696e650a1b61001d2100"
+                + "1b320a0a0a0a0a1b691b420302",
+                hex(builder.build("<B>Receipt</B>\nline\n", options("CP437", false, true, false))));
+        assertEquals("1b401c261c43001b32616263", hex(builder.build("abc", options("GB18030", null, null, null))));
+        assertEquals("1b401b326162630a1b61001d21001b320a0a0a0a0a",
+                hex(builder.build("abc\n", options("ascii", true, null, null))));
+    }
+
+    @Test
+    public void reusesItsBufferAcrossJobs() {
+        RawPayload first = builder.build("first", options("UTF8", null, null, null));
+        byte[] buffer = first.bytes;
+        RawPayload second = builder.build("second", options("UTF8", null, null, null));
+        assertSame(buffer, second.bytes);
+        assertEquals("1b401c261c43ff1b327365636f6e64", hex(second));
+    }
+
+    @Test
+    public void growsForLargeJobs() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("<B>é</B>\n");
+        }
+        RawPayload payload = builder.build(text.toString(), options("UTF8", null, null, null));
+        assertEquals(9 + 5000 * (6 + 2 + 6 + 1 + 8), payload.length);
+    }
+
+    @Test
+    public void resolvesIconvEncodingNames() {
+        assertEquals("IBM437", EscPosBuilder.charsetFor("CP437").name());
+        assertEquals("IBM850", EscPosBuilder.charsetFor("cp850").name());
+        assertEquals("windows-1252", EscPosBuilder.charsetFor("win1252").name());
+        assertEquals("Big5", EscPosBuilder.charsetFor("BIG5").name());
+        assertEquals("UTF-8", EscPosBuilder.charsetFor("utf-8").name());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownEncodings() {
+        builder.build("abc", options("no-such-charset", null, null, null));
+    }
+}
@@ -0,0 +1,79 @@
+package com.pinmi.react.printer.adapter;
+
+import com.pinmi.react.printer.raster.Barcode;
+import com.pinmi.react.printer.raster.Qr;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class EscPosCommandsTest {
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void storesAndPrintsAQrCode() {
+        // 21 modules plus the quiet zone: 8 dots each fit in 200
+        assertEquals(21, Qr.modules("AB"));
+        byte[] job = EscPosCommands.qrCode("AB", 200);
+        assertEquals("1b6101"
+                + "1d286b0400" + "31413200"
+                + "1d286b0300" + "314308"
+                + "1d286b0300" + "314530"
+                + "1d286b0500" + "3150304142"
+                + "1d286b0300" + "315130"
+                + "0a", hex(job));
+    }
+
+    @Test
+    public void keepsTheModuleSizeInRange() {
+        byte[] tiny = EscPosCommands.qrCode("AB", 10);
+        byte[] huge = EscPosCommands.qrCode("AB", 5000);
+        // the GS ( k function 0x43 parameter
+        assertEquals(1, tiny[3 + 9 + 7]);
+        assertEquals(16, huge[3 + 9 + 7]);
+    }
+
+    @Test
+    public void sendsTextOutsideLatin1AsUtf8() {
+        byte[] job = EscPosCommands.qrCode("Ж", 200);
+        int store = 3 + 9 + 8 + 8;
+        assertArrayEquals(new byte[] { 0x1D, 0x28, 0x6B, 0x05, 0x00, 0x31, 0x50, 0x30, (byte) 0xD0, (byte) 0x96 },
+                Arrays.copyOfRange(job, store, store + 10));
+    }
+
+    @Test
+    public void refusesContentThatDoesNotFit() {
+        char[] content = new char[8000];
+        Arrays.fill(content, 'x');
+        assertNull(EscPosCommands.qrCode(new String(content), 200));
+        assertNull(EscPosCommands.qrCode("", 200));
+    }
+
+    @Test
+    public void printsABarcodeWithItsDigitsBelow() {
+        byte[] job = EscPosCommands.barcode("96385074", Barcode.Format.EAN8, 3, 80);
+        assertEquals("1b6101" + "1d6850" + "1d7703" + "1d4802"
+                + "1d6b4408" + "3936333835303734" + "0a", hex(job));
+    }
+
+    @Test
+    public void selectsCodeSetBForCode128AndClampsTheModule() {
+        byte[] job = EscPosCommands.barcode("A1", Barcode.Format.CODE128, 9, 80);
+        assertEquals(6, job[3 + 3 + 2]);
+        assertEquals("1d6b4904" + "7b424131", hex(Arrays.copyOfRange(job, 3 + 9, 3 + 9 + 8)));
+    }
+
+    @Test
+    public void feedsBeforeCutting() {
+        assertEquals("0a0a0a1b69", hex(EscPosCommands.cut(3)));
+    }
+}
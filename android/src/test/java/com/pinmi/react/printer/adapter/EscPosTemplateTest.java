@@ -0,0 +1,95 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EscPosTemplateTest {
+
+    private static final String RECEIPT = "<CB>{{shop}}</CB>\n"
+            + "Order #{{order}}\n"
+            + "--------------------------------\n"
+            + "{{items}}"
+            + "--------------------------------\n"
+            + "<B>TOTAL {{total}}</B>\n"
+            + "<C>Thank you, {{shop}}!</C>\n";
+
+    private static EscPosBuilder.TextOptions billOptions() {
+        EscPosBuilder.TextOptions options = new EscPosBuilder.TextOptions();
+        options.tailingLine = true;
+        options.cut = true;
+        options.beep = true;
+        return options;
+    }
+
+    private static Map<String, String> values() {
+        Map<String, String> values = new HashMap<>();
+        values.put("shop", "Café Ñ");
+        values.put("order", "1042");
+        values.put("items", "2x <B>Latte</B>    9.00\n1x Croissant 3.50\n");
+        values.put("total", "12.50");
+        return values;
+    }
+
+    private static byte[] bytes(RawPayload payload) {
+        return Arrays.copyOfRange(payload.bytes, payload.offset, payload.offset + payload.length);
+    }
+
+    @Test
+    public void rendersTheSameBytesAsTheFilledInText() {
+        EscPosTemplate template = EscPosTemplate.compile(RECEIPT, billOptions());
+        Map<String, String> values = values();
+        String filled = RECEIPT;
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            filled = filled.replace("{{" + value.getKey() + "}}", value.getValue());
+        }
+
+        byte[] expected = bytes(new EscPosBuilder().build(filled, billOptions()));
+        byte[] rendered = bytes(template.render(new EscPosBuilder(), values));
+
+        assertArrayEquals(expected, rendered);
+    }
+
+    @Test
+    public void listsSlotsOnceInOrder() {
+        EscPosTemplate template = EscPosTemplate.compile(RECEIPT, billOptions());
+        assertEquals(Arrays.asList("shop", "order", "items", "total"), template.getSlots());
+        assertTrue(template.getStaticBytes() > RECEIPT.length() / 2);
+    }
+
+    @Test
+    public void templateWithoutSlotsIsAllStatic() {
+        EscPosTemplate template = EscPosTemplate.compile("<C>closed</C>\n", billOptions());
+        byte[] expected = bytes(new EscPosBuilder().build("<C>closed</C>\n", billOptions()));
+        assertEquals(expected.length, template.getStaticBytes());
+        assertArrayEquals(expected,
+                bytes(template.render(new EscPosBuilder(), Collections.<String, String>emptyMap())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingValues() {
+        EscPosTemplate template = EscPosTemplate.compile(RECEIPT, billOptions());
+        Map<String, String> values = values();
+        values.remove("total");
+        template.render(new EscPosBuilder(), values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnclosedSlots() {
+        EscPosTemplate.compile("Order {{order\n", billOptions());
+    }
+
+    @Test
+    public void registryIsSharedByName() {
+        EscPosTemplate template = EscPosTemplate.compile(RECEIPT, billOptions());
+        EscPosTemplate.register("receipt", template);
+        assertSame(template, EscPosTemplate.get("receipt"));
+        EscPosTemplate.unregister("receipt");
+        assertNull(EscPosTemplate.get("receipt"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FileStreamerTest {
+
+    private static byte[] job(int size) {
+        byte[] job = new byte[size];
+        for (int i = 0; i < size; i++) {
+            job[i] = (byte) (i * 31);
+        }
+        return job;
+    }
+
+    @Test
+    public void streamsInFixedSizeChunks() throws IOException {
+        byte[] job = job(FileStreamer.CHUNK_SIZE * 2 + 100);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final List<Integer> chunks = new ArrayList<>();
+
+        long sent = FileStreamer.stream(new ByteArrayInputStream(job), job.length, new FileStreamer.ChunkWriter() {
+            @Override
+            public void write(RawPayload chunk) {
+                chunks.add(chunk.length);
+                written.write(chunk.bytes, chunk.offset, chunk.length);
+            }
+        }, null);
+
+        assertEquals(job.length, sent);
+        assertArrayEquals(job, written.toByteArray());
+        assertEquals(3, chunks.size());
+        assertEquals(FileStreamer.CHUNK_SIZE, (int) chunks.get(0));
+        assertEquals(FileStreamer.CHUNK_SIZE, (int) chunks.get(1));
+        assertEquals(100, (int) chunks.get(2));
+    }
+
+    @Test
+    public void fillsChunksFromShortReads() throws IOException {
+        byte[] job = job(FileStreamer.CHUNK_SIZE + 1);
+        InputStream trickle = new FilterInputStream(new ByteArrayInputStream(job)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 700));
+            }
+        };
+        final List<Integer> chunks = new ArrayList<>();
+
+        FileStreamer.stream(trickle, -1, new FileStreamer.ChunkWriter() {
+            @Override
+            public void write(RawPayload chunk) {
+                chunks.add(chunk.length);
+            }
+        }, null);
+
+        assertEquals(2, chunks.size());
+        assertEquals(FileStreamer.CHUNK_SIZE, (int) chunks.get(0));
+        assertEquals(1, (int) chunks.get(1));
+    }
+
+    @Test
+    public void alwaysReportsFinalProgress() throws IOException {
+        byte[] job = job(1000);
+        final long[] last = { -1, 0 };
+
+        FileStreamer.stream(new ByteArrayInputStream(job), job.length, new FileStreamer.ChunkWriter() {
+            @Override
+            public void write(RawPayload chunk) {
+            }
+        }, new FileStreamer.ProgressListener() {
+            @Override
+            public void onProgress(long bytesSent, long totalBytes) {
+                last[0] = bytesSent;
+                last[1] = totalBytes;
+            }
+        });
+
+        assertEquals(1000, last[0]);
+        assertEquals(1000, last[1]);
+    }
+
+    @Test
+    public void emptyFileWritesNothing() throws IOException {
+        final int[] writes = { 0 };
+        long sent = FileStreamer.stream(new ByteArrayInputStream(new byte[0]), 0, new FileStreamer.ChunkWriter() {
+            @Override
+            public void write(RawPayload chunk) {
+                writes[0]++;
+            }
+        }, null);
+        assertEquals(0, sent);
+        assertEquals(0, writes[0]);
+    }
+
+    @Test(expected = IOException.class)
+    public void writerFailureStopsTheStream() throws IOException {
+        FileStreamer.stream(new ByteArrayInputStream(job(10)), 10, new FileStreamer.ChunkWriter() {
+            @Override
+            public void write(RawPayload chunk) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        }, null);
+    }
+}
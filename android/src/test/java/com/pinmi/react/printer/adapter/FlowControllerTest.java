@@ -0,0 +1,115 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FlowControllerTest {
+
+    private static class RecordingSink implements FlowController.Sink {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int writes = 0;
+
+        @Override
+        public synchronized void write(byte[] buffer, int offset, int length) {
+            out.write(buffer, offset, length);
+            writes++;
+        }
+    }
+
+    @Test
+    public void writesWholeJobWhenDisabled() throws Exception {
+        FlowController controller = new FlowController();
+        RecordingSink sink = new RecordingSink();
+        byte[] job = new byte[10000];
+
+        controller.write(sink, job, null);
+
+        assertEquals(1, sink.writes);
+        assertEquals(job.length, sink.out.size());
+    }
+
+    @Test
+    public void pacesToConfiguredRate() throws Exception {
+        FlowController controller = new FlowController();
+        controller.configure(20000, 1000, false, false, 0);
+        RecordingSink sink = new RecordingSink();
+        byte[] job = new byte[5000];
+
+        long start = System.nanoTime();
+        controller.write(sink, job, null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(5, sink.writes);
+        assertArrayEquals(job, sink.out.toByteArray());
+        // the last chunk is due at 4000 / 20000 s
+        assertTrue("finished in " + elapsedMs + "ms", elapsedMs >= 190);
+    }
+
+    @Test
+    public void keepsChunksWithinTheProfilesReceiveBuffer() throws Exception {
+        FlowController controller = new FlowController();
+        controller.setProfile(new PrinterProfiles().get("epson-tm-t20"));
+        RecordingSink sink = new RecordingSink();
+        byte[] job = new byte[10000];
+
+        controller.write(sink, job, null);
+
+        // no rate, so it would otherwise be one write
+        assertEquals(3, sink.writes);
+        assertArrayEquals(job, sink.out.toByteArray());
+    }
+
+    @Test
+    public void xoffHoldsWritesUntilXon() throws Exception {
+        final FlowController controller = new FlowController();
+        controller.configure(0, 100, true, false, 5000);
+        RecordingSink sink = new RecordingSink();
+        controller.onByteReceived(0x13);
+
+        Thread resume = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(150);
+                } catch (InterruptedException ignored) {
+                }
+                controller.onByteReceived(0x11);
+            }
+        });
+        long start = System.nanoTime();
+        resume.start();
+        controller.write(sink, new byte[300], null);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertEquals(3, sink.writes);
+    }
+
+    @Test
+    public void leavesXonXoffToTheStatusParserWhenDisabled() {
+        FlowController controller = new FlowController();
+        assertFalse(controller.onByteReceived(0x13));
+        assertFalse(controller.onByteReceived(0x11));
+
+        controller.configure(0, 0, true, false, 0);
+        assertTrue(controller.onByteReceived(0x13));
+        assertTrue(controller.onByteReceived(0x11));
+        assertFalse(controller.onByteReceived(0x12));
+    }
+
+    @Test(expected = FlowController.StallException.class)
+    public void failsWhenPrinterStaysBusy() throws IOException {
+        FlowController controller = new FlowController();
+        controller.configure(0, 0, false, true, 100);
+        controller.write(new RecordingSink(), new byte[10], new FlowController.BusyProbe() {
+            @Override
+            public boolean isBusy() {
+                return true;
+            }
+        });
+    }
+}
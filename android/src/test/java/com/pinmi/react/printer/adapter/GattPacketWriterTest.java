@@ -0,0 +1,191 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the packet writer against a fake GATT layer that completes queued
+ * packets on a separate thread, like the Android callback thread.
+ */
+public class GattPacketWriterTest {
+
+    private static class FakeGatt implements GattPacketWriter.Link {
+        final ExecutorService callbacks = Executors.newSingleThreadExecutor();
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final List<Integer> packetSizes = new ArrayList<>();
+        GattPacketWriter writer;
+        int queued = 0;
+        int maxQueued = 0;
+        int busyReplies = 0;
+
+        @Override
+        public synchronized boolean writePacket(final byte[] packet) {
+            if (busyReplies > 0) {
+                busyReplies--;
+                return false;
+            }
+            queued++;
+            maxQueued = Math.max(maxQueued, queued);
+            received.write(packet, 0, packet.length);
+            packetSizes.add(packet.length);
+            callbacks.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (FakeGatt.this) {
+                        queued--;
+                    }
+                    writer.onPacketSent();
+                }
+            });
+            return true;
+        }
+    }
+
+    private static byte[] job(int size) {
+        byte[] job = new byte[size];
+        for (int i = 0; i < size; i++) {
+            job[i] = (byte) i;
+        }
+        return job;
+    }
+
+    @Test
+    public void splitsJobIntoMtuSizedPackets() throws Exception {
+        FakeGatt gatt = new FakeGatt();
+        gatt.writer = new GattPacketWriter(gatt, 4);
+        gatt.writer.setMtu(185);
+        byte[] data = job(1000);
+
+        gatt.writer.write(data, 0, data.length);
+
+        assertArrayEquals(data, gatt.received.toByteArray());
+        assertEquals(6, gatt.packetSizes.size());
+        assertEquals(182, (int) gatt.packetSizes.get(0));
+        assertEquals(90, (int) gatt.packetSizes.get(5));
+        assertTrue(gatt.maxQueued <= 4);
+        gatt.callbacks.shutdown();
+    }
+
+    @Test
+    public void retriesWhenTheStackIsBusy() throws Exception {
+        FakeGatt gatt = new FakeGatt();
+        gatt.writer = new GattPacketWriter(gatt, 1);
+        gatt.busyReplies = 3;
+        byte[] data = job(100);
+
+        gatt.writer.write(data, 0, data.length);
+
+        assertArrayEquals(data, gatt.received.toByteArray());
+        gatt.callbacks.shutdown();
+    }
+
+    @Test
+    public void waitsForCredits() throws Exception {
+        final FakeGatt gatt = new FakeGatt();
+        final AtomicInteger sentBeforeGrant = new AtomicInteger();
+        gatt.writer = new GattPacketWriter(gatt, 8);
+        gatt.writer.enableCredits(2);
+        ExecutorService printer = Executors.newSingleThreadExecutor();
+        printer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+                synchronized (gatt) {
+                    sentBeforeGrant.set(gatt.received.size());
+                }
+                gatt.writer.addCredits(3);
+            }
+        });
+        byte[] data = job(100);
+
+        gatt.writer.write(data, 0, data.length);
+
+        assertEquals(40, sentBeforeGrant.get());
+        assertEquals(5, gatt.packetSizes.size());
+        printer.shutdown();
+        assertTrue(printer.awaitTermination(1, TimeUnit.SECONDS));
+        gatt.callbacks.shutdown();
+    }
+
+    @Test
+    public void givesTheCreditBackWhenAPacketFailsToQueue() throws Exception {
+        final GattPacketWriter[] writer = new GattPacketWriter[1];
+        final AtomicInteger calls = new AtomicInteger();
+        writer[0] = new GattPacketWriter(new GattPacketWriter.Link() {
+            @Override
+            public boolean writePacket(byte[] packet) throws IOException {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IOException("GATT connection is closed");
+                }
+                writer[0].onPacketSent();
+                return true;
+            }
+        }, 1);
+        writer[0].enableCredits(1);
+        writer[0].setTimeout(200);
+        try {
+            writer[0].write(job(10), 0, 10);
+            fail("expected the first packet to fail");
+        } catch (IOException expected) {
+        }
+
+        // the single credit is still there
+        writer[0].write(job(10), 0, 10);
+        assertEquals(2, calls.get());
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWithoutCompletions() throws Exception {
+        GattPacketWriter writer = new GattPacketWriter(new GattPacketWriter.Link() {
+            @Override
+            public boolean writePacket(byte[] packet) {
+                return true;
+            }
+        }, 1);
+        writer.setTimeout(100);
+        writer.write(job(50), 0, 50);
+    }
+
+    @Test
+    public void failsWhenAPacketIsNotAcknowledged() throws Exception {
+        final GattPacketWriter[] writer = new GattPacketWriter[1];
+        final AtomicInteger packets = new AtomicInteger();
+        writer[0] = new GattPacketWriter(new GattPacketWriter.Link() {
+            @Override
+            public boolean writePacket(byte[] packet) {
+                if (packets.incrementAndGet() == 2) {
+                    writer[0].onPacketFailed(133);
+                } else {
+                    writer[0].onPacketSent();
+                }
+                return true;
+            }
+        }, 1);
+        writer[0].setMtu(23);
+
+        try {
+            writer[0].write(job(100), 0, 100);
+            fail("expected the lost packet to fail the write");
+        } catch (IOException e) {
+            assertFalse(e instanceof Timeouts.TimeoutException);
+            assertEquals(2, packets.get());
+        }
+
+        // reported once; the next job goes through
+        writer[0].write(job(10), 0, 10);
+        assertEquals(3, packets.get());
+    }
+}
@@ -0,0 +1,60 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueInOrder() {
+        for (long value = 0; value < 100000; value++) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(value >= Histogram.lowerBound(bucket));
+            assertTrue(value < Histogram.lowerBound(bucket + 1));
+        }
+    }
+
+    @Test
+    public void percentilesStayWithinTheBucketError() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5000.5, histogram.getMean(), 1e-9);
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000, histogram.getPercentile(50), 5000 * 0.125);
+        assertEquals(9000, histogram.getPercentile(90), 9000 * 0.125);
+        assertEquals(9900, histogram.getPercentile(99), 9900 * 0.125);
+        assertTrue(histogram.getPercentile(100) <= 10000);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(7);
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals((1L << 41) - 1, histogram.getMax());
+    }
+}
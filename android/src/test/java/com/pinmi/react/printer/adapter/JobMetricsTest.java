@@ -0,0 +1,104 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JobMetricsTest {
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void chargesTimeToTheMarkedPhase() {
+        JobMetrics metrics = new JobMetrics();
+        JobMetrics.Job job = metrics.begin("image");
+        sleep(20);
+        job.mark(JobMetrics.Phase.FETCH);
+        job.mark(JobMetrics.Phase.DECODE);
+        sleep(20);
+        job.mark(JobMetrics.Phase.TRANSFER);
+        job.setBytes(4096);
+        metrics.complete("10.0.0.5:9100", job, true);
+
+        assertTrue(job.getPhaseMicros(JobMetrics.Phase.FETCH) >= 20000);
+        assertTrue(job.getPhaseMicros(JobMetrics.Phase.DECODE) < 20000);
+        assertTrue(job.getPhaseMicros(JobMetrics.Phase.TRANSFER) >= 20000);
+        assertEquals(-1, job.getPhaseMicros(JobMetrics.Phase.QUEUE_WAIT));
+        assertTrue(job.getTotalMicros() >= 40000);
+        assertTrue(job.getBytesPerSecond() > 0);
+        assertTrue(job.getBytesPerSecond() <= 4096 * 1000 / 20);
+    }
+
+    @Test
+    public void aggregatesPerPrinter() {
+        JobMetrics metrics = new JobMetrics();
+        for (int i = 0; i < 3; i++) {
+            JobMetrics.Job job = metrics.begin("text");
+            job.mark(JobMetrics.Phase.QUEUE_WAIT);
+            job.mark(JobMetrics.Phase.ENCODE);
+            job.mark(JobMetrics.Phase.TRANSFER);
+            job.setBytes(100);
+            metrics.complete("AA:BB", job, true);
+        }
+        JobMetrics.Job failed = metrics.begin("raw");
+        failed.mark(JobMetrics.Phase.TRANSFER);
+        metrics.complete("AA:BB", failed, false);
+        JobMetrics.Job other = metrics.begin("raw");
+        other.mark(JobMetrics.Phase.TRANSFER);
+        metrics.complete("CC:DD", other, true);
+
+        JobMetrics.PrinterStats stats = metrics.getStats("AA:BB");
+        assertEquals(4, stats.getJobs());
+        assertEquals(1, stats.getFailures());
+        assertEquals(300, stats.getBytes());
+        assertEquals(3, stats.getPhase(JobMetrics.Phase.ENCODE).getCount());
+        assertEquals(3, stats.getTotal().getCount());
+        assertEquals(0, stats.getPhase(JobMetrics.Phase.FETCH).getCount());
+        assertEquals(1, metrics.getStats("CC:DD").getJobs());
+        assertNull(metrics.getStats("EE:FF"));
+    }
+
+    @Test
+    public void keepsTheLastJobThatTransferred() {
+        JobMetrics metrics = new JobMetrics();
+        JobMetrics.Job image = metrics.begin("image");
+        sleep(5);
+        image.mark(JobMetrics.Phase.TRANSFER);
+        image.setBytes(64 * 1024);
+        metrics.complete("AA:BB", image, true);
+        JobMetrics.Job failed = metrics.begin("raw");
+        failed.mark(JobMetrics.Phase.TRANSFER);
+        metrics.complete("AA:BB", failed, false);
+
+        JobMetrics.Job last = metrics.getStats("AA:BB").getLastJob();
+        assertSame(image, last);
+        assertEquals(64 * 1024, last.getBytes());
+        assertTrue(last.getBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void countsTimeoutsAndConnects() {
+        JobMetrics metrics = new JobMetrics();
+        JobMetrics.Job job = metrics.begin("raw");
+        job.mark(JobMetrics.Phase.TRANSFER);
+        job.setTimeout(Timeouts.Kind.WRITE);
+        metrics.complete("10.0.0.5:9100", job, false);
+        metrics.recordConnect("10.0.0.5:9100", 1500, false);
+        metrics.recordConnect("10.0.0.5:9100", 3000000, true);
+
+        JobMetrics.PrinterStats stats = metrics.getStats("10.0.0.5:9100");
+        assertEquals(1, stats.getFailures());
+        assertEquals(1, stats.getFailed().getCount());
+        assertEquals(0, stats.getTotal().getCount());
+        assertEquals(1, stats.getTimeouts(Timeouts.Kind.WRITE));
+        assertEquals(0, stats.getTimeouts(Timeouts.Kind.JOB));
+        assertEquals(1, stats.getTimeouts(Timeouts.Kind.CONNECT));
+        assertEquals(2, stats.getConnect().getCount());
+    }
+}
@@ -0,0 +1,179 @@
+package com.pinmi.react.printer.adapter;
+
+import com.pinmi.react.printer.raster.BitImage;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PrintJobsTest {
+
+    private static byte[] image(int width, int height) {
+        byte[] dots = new byte[width * height];
+        Arrays.fill(dots, (byte) 1);
+        return BitImage.encode(dots, width, height);
+    }
+
+    private static class RecordingSink implements FlowController.Sink {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        int writes;
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            written.write(buffer, offset, length);
+            writes++;
+        }
+    }
+
+    @Test
+    public void writesTheWholeJobInBands() throws IOException {
+        byte[] job = image(384, 24 * 40);
+        RecordingSink sink = new RecordingSink();
+        PrintJobs.writeBands(job, new PrintJobs.Handle("a"), sink);
+        assertArrayEquals(job, sink.written.toByteArray());
+        // header, a few bands per write, trailer
+        assertTrue(String.valueOf(sink.writes), sink.writes > 3 && sink.writes < 40);
+    }
+
+    @Test
+    public void writesOnlyTheJobOfAPooledBuffer() throws IOException {
+        byte[] job = image(384, 24 * 10);
+        byte[] pooled = Arrays.copyOf(job, job.length + 500);
+        Arrays.fill(pooled, job.length, pooled.length, (byte) 0x55);
+        RecordingSink sink = new RecordingSink();
+        PrintJobs.writeBands(pooled, job.length, new PrintJobs.Handle("a"), sink);
+        assertArrayEquals(job, sink.written.toByteArray());
+        assertTrue(String.valueOf(sink.writes), sink.writes > 2);
+    }
+
+    @Test
+    public void sendsTheTrailerAfterTheLastBandOnceCancelled() {
+        final byte[] job = image(384, 24 * 40);
+        final PrintJobs.Handle handle = new PrintJobs.Handle("a");
+        final RecordingSink sink = new RecordingSink() {
+            @Override
+            public void write(byte[] buffer, int offset, int length) {
+                super.write(buffer, offset, length);
+                if (writes == 3) {
+                    handle.cancel();
+                }
+            }
+        };
+        try {
+            PrintJobs.writeBands(job, handle, sink);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e instanceof PrintJobs.CancelledException);
+        }
+        byte[] written = sink.written.toByteArray();
+        int bands = (written.length - BitImage.HEADER_SIZE - BitImage.TRAILER_SIZE)
+                / BitImage.bandSize(384);
+        assertEquals(BitImage.HEADER_SIZE + bands * BitImage.bandSize(384) + BitImage.TRAILER_SIZE,
+                written.length);
+        assertTrue(bands > 0 && bands < 40);
+        assertArrayEquals(Arrays.copyOfRange(job, job.length - BitImage.TRAILER_SIZE, job.length),
+                Arrays.copyOfRange(written, written.length - BitImage.TRAILER_SIZE, written.length));
+    }
+
+    @Test
+    public void runsJobsInOrderAndCancelsQueuedOnes() throws Exception {
+        PrintJobs jobs = new PrintJobs("PrintJobsTest");
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final StringBuffer order = new StringBuffer();
+        final AtomicReference<Boolean> secondCancelled = new AtomicReference<>();
+        jobs.submit("first", new PrintJobs.Task() {
+            @Override
+            public void run(PrintJobs.Handle job) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                order.append(job.id).append(' ');
+                done.countDown();
+            }
+
+            @Override
+            public void fail(PrintJobs.Handle job, RuntimeException e) {
+            }
+        });
+        PrintJobs.Handle second = jobs.submit("", new PrintJobs.Task() {
+            @Override
+            public void run(PrintJobs.Handle job) {
+                order.append("second");
+                secondCancelled.set(job.isCancelled());
+                done.countDown();
+            }
+
+            @Override
+            public void fail(PrintJobs.Handle job, RuntimeException e) {
+            }
+        });
+        assertFalse(second.id.isEmpty());
+        assertEquals(2, jobs.getPending());
+        assertTrue(jobs.cancel(second.id));
+        assertFalse(jobs.cancel("unknown"));
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("first second", order.toString());
+        assertTrue(secondCancelled.get());
+        assertFalse(jobs.cancel("first"));
+    }
+
+    @Test
+    public void failsAJobThatThrowsAndRunsTheNext() throws Exception {
+        PrintJobs jobs = new PrintJobs("PrintJobsTest");
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        jobs.submit("bad", new PrintJobs.Task() {
+            @Override
+            public void run(PrintJobs.Handle job) {
+                throw new IllegalStateException("broken");
+            }
+
+            @Override
+            public void fail(PrintJobs.Handle job, RuntimeException e) {
+                failure.set(e);
+                done.countDown();
+            }
+        });
+        jobs.submit("next", new PrintJobs.Task() {
+            @Override
+            public void run(PrintJobs.Handle job) {
+                done.countDown();
+            }
+
+            @Override
+            public void fail(PrintJobs.Handle job, RuntimeException e) {
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("broken", failure.get().getMessage());
+        assertFalse(jobs.cancel("bad"));
+    }
+
+    @Test
+    public void abortsABlockingCallOnCancel() {
+        PrintJobs.Handle handle = new PrintJobs.Handle("a");
+        final int[] aborted = new int[1];
+        Runnable abort = new Runnable() {
+            @Override
+            public void run() {
+                aborted[0]++;
+            }
+        };
+        handle.setOnCancel(abort);
+        handle.cancel();
+        assertEquals(1, aborted[0]);
+        // set after the cancel: runs right away
+        handle.setOnCancel(abort);
+        assertEquals(2, aborted[0]);
+    }
+}
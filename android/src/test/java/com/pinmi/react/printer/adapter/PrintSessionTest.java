@@ -0,0 +1,194 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PrintSessionTest {
+
+    private static final PrinterProfile PROFILE = new PrinterProfiles().get("80mm");
+    private static final Object LOCK = new Object();
+
+    private static class Outcome implements PrintSession.Result {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String code;
+
+        @Override
+        public void resolve() {
+            done.countDown();
+        }
+
+        @Override
+        public void reject(String code, String message) {
+            this.code = code;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static List<Receipt.Segment> raw(byte... bytes) {
+        return Collections.singletonList(Receipt.Segment.raw(Base64.getEncoder().encodeToString(bytes)));
+    }
+
+    private static PrintSession session(long idleTimeoutMs) {
+        return new PrintSession("s", PROFILE, null, idleTimeoutMs);
+    }
+
+    @Test
+    public void writesEachChunkBeforeTheNextIsAppended() throws Exception {
+        final PrintSession session = session(0);
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        final List<Integer> writes = new ArrayList<>();
+        final long[] written = new long[1];
+        Thread worker = new Thread(() -> {
+            try {
+                written[0] = session.run(new PrintJobs.Handle("s"), LOCK, bytes -> {
+                    synchronized (printed) {
+                        printed.write(bytes.array, 0, bytes.length);
+                        writes.add(bytes.length);
+                    }
+                });
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        worker.start();
+        Outcome first = new Outcome();
+        assertTrue(session.append(raw((byte) 1, (byte) 2), first));
+        first.await();
+        // on paper while the rest of the order is still unknown
+        synchronized (printed) {
+            assertArrayEquals(new byte[] { 1, 2 }, printed.toByteArray());
+        }
+        Outcome second = new Outcome();
+        session.append(raw((byte) 3), second);
+        Outcome closed = new Outcome();
+        assertTrue(session.close(closed));
+        closed.await();
+        worker.join(5000);
+        assertNull(second.code);
+        assertNull(closed.code);
+        assertEquals(Arrays.asList(2, 1), writes);
+        assertEquals(3, written[0]);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, printed.toByteArray());
+        assertFalse(session.append(raw((byte) 4), new Outcome()));
+        assertFalse(session.close(new Outcome()));
+    }
+
+    @Test
+    public void takesTheWriteLockOnceTheFirstChunkArrives() throws Exception {
+        final PrintSession session = session(0);
+        final Object writeLock = new Object();
+        final boolean[] held = new boolean[1];
+        Thread worker = new Thread(() -> {
+            try {
+                session.run(new PrintJobs.Handle("s"), writeLock, bytes -> held[0] = Thread.holdsLock(writeLock));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        worker.start();
+        // an open session with nothing in it leaves the printer to status queries
+        Thread.sleep(100);
+        assertEquals(Thread.State.WAITING, worker.getState());
+        synchronized (writeLock) {
+            Outcome chunk = new Outcome();
+            session.append(raw((byte) 1), chunk);
+            Thread.sleep(100);
+            assertEquals(1, chunk.done.getCount());
+        }
+        session.close(new Outcome());
+        worker.join(5000);
+        assertFalse(worker.isAlive());
+        assertTrue(held[0]);
+    }
+
+    @Test
+    public void rejectsABadChunkAndCarriesOn() throws Exception {
+        PrintSession session = session(0);
+        Outcome bad = new Outcome();
+        Outcome good = new Outcome();
+        session.append(raw((byte) 1), good);
+        session.append(Collections.singletonList(Receipt.Segment.raw("not base64!")), bad);
+        session.close(new Outcome());
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        session.run(new PrintJobs.Handle("s"), LOCK, bytes -> printed.write(bytes.array, 0, bytes.length));
+        assertEquals("ERR_INVALID_DATA", bad.code);
+        assertNull(good.code);
+        assertArrayEquals(new byte[] { 1 }, printed.toByteArray());
+    }
+
+    @Test
+    public void endsWhenIdleForTooLong() throws Exception {
+        PrintSession session = session(50);
+        try {
+            session.run(new PrintJobs.Handle("s"), LOCK, bytes -> fail());
+            fail();
+        } catch (Timeouts.TimeoutException e) {
+            assertEquals(Timeouts.Kind.JOB, e.kind);
+            session.fail(e.kind.code, e.getMessage());
+        }
+        assertFalse(session.append(raw((byte) 1), new Outcome()));
+    }
+
+    @Test
+    public void cancellingWakesTheSessionAndRejectsWhatIsLeft() throws Exception {
+        final PrintSession session = session(0);
+        final PrintJobs.Handle handle = new PrintJobs.Handle("s");
+        final Outcome late = new Outcome();
+        final IOException[] error = new IOException[1];
+        Thread worker = new Thread(() -> {
+            try {
+                session.run(handle, LOCK, bytes -> {
+                    // cancelled while this chunk is on the wire, with another queued behind it
+                    session.append(raw((byte) 2), late);
+                    handle.cancel();
+                });
+            } catch (IOException e) {
+                error[0] = e;
+                session.fail("ERR_CANCELLED", e.getMessage());
+            }
+        });
+        worker.start();
+        Outcome written = new Outcome();
+        session.append(raw((byte) 1), written);
+        written.await();
+        worker.join(5000);
+        assertNull(written.code);
+        assertTrue(error[0] instanceof PrintJobs.CancelledException);
+        late.await();
+        assertEquals("ERR_CANCELLED", late.code);
+    }
+
+    @Test
+    public void failRejectsTheChunkBeingWritten() throws Exception {
+        PrintSession session = session(0);
+        Outcome chunk = new Outcome();
+        Outcome closed = new Outcome();
+        session.append(raw((byte) 1), chunk);
+        session.close(closed);
+        try {
+            session.run(new PrintJobs.Handle("s"), LOCK, bytes -> {
+                throw new IOException("Broken pipe");
+            });
+            fail();
+        } catch (IOException e) {
+            session.fail("ERR_PRINT_SESSION", e.getMessage());
+        }
+        assertEquals("ERR_PRINT_SESSION", chunk.code);
+        assertEquals("ERR_PRINT_SESSION", closed.code);
+    }
+}
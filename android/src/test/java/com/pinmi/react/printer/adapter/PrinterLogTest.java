@@ -0,0 +1,78 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PrinterLogTest {
+
+    @Test
+    public void fillsPlaceholdersInOrder() {
+        assertEquals("connect to 10.0.0.5:9100 failed: timeout",
+                PrinterLog.format("connect to {}:{} failed: {}", "10.0.0.5", 9100, "timeout", null, 3));
+        assertEquals("a 1 b 2 c 3 d 4", PrinterLog.format("a {} b {} c {} d {}", 1, 2, 3, 4, 4));
+    }
+
+    @Test
+    public void keepsExtraPlaceholdersAndIgnoresExtraArguments() {
+        assertEquals("x {}", PrinterLog.format("{} {}", "x", null, null, null, 1));
+        assertEquals("done", PrinterLog.format("done", "unused", null, null, null, 1));
+        assertEquals("value null", PrinterLog.format("value {}", null, null, null, null, 1));
+    }
+
+    @Test
+    public void logsPayloadsAsTheirSize() {
+        byte[] job = new byte[] { 0x1b, 0x40, 'H', 'i' };
+        assertEquals("failed to print <4 bytes>", PrinterLog.format("failed to print {}", job, null, null, null, 1));
+        assertEquals("failed to print <2 bytes>",
+                PrinterLog.format("failed to print {}", RawPayload.wrap(job, 2, 2), null, null, null, 1));
+    }
+
+    @Test
+    public void showsAHexPrefixWhenRedactionIsOff() {
+        PrinterLog.setRedactPayloads(false);
+        try {
+            assertEquals("1b40", PrinterLog.format("{}", new byte[] { 0x1b, 0x40 }, null, null, null, 1));
+            String big = PrinterLog.format("{}", new byte[100], null, null, null, 1);
+            assertTrue(big.endsWith("... (100 bytes)"));
+            assertEquals(PrinterLog.MAX_ARG_LENGTH + "... (100 bytes)".length(), big.length());
+        } finally {
+            PrinterLog.setRedactPayloads(true);
+        }
+    }
+
+    @Test
+    public void truncatesLongStrings() {
+        StringBuilder receipt = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            receipt.append("Latte 4.50\n");
+        }
+        String logged = PrinterLog.format("text {}", receipt, null, null, null, 1);
+        assertEquals(5 + PrinterLog.MAX_ARG_LENGTH + "... (550 chars)".length(), logged.length());
+        assertTrue(logged.endsWith("... (550 chars)"));
+    }
+
+    @Test
+    public void parsesLevelNames() {
+        assertEquals(2, PrinterLog.levelOf("verbose"));
+        assertEquals(5, PrinterLog.levelOf("WARN"));
+        assertTrue(PrinterLog.levelOf("debug") < PrinterLog.levelOf("info"));
+        assertEquals(PrinterLog.NONE, PrinterLog.levelOf("none"));
+        assertEquals(-1, PrinterLog.levelOf("loud"));
+        assertEquals(-1, PrinterLog.levelOf(null));
+    }
+
+    @Test
+    public void gatesOnTheConfiguredLevel() {
+        int previous = PrinterLog.getLevel();
+        try {
+            PrinterLog.setLevel(PrinterLog.levelOf("warn"));
+            assertFalse(PrinterLog.isLoggable(PrinterLog.levelOf("info")));
+            assertTrue(PrinterLog.isLoggable(PrinterLog.levelOf("error")));
+            PrinterLog.setLevel(PrinterLog.NONE);
+            assertFalse(PrinterLog.isLoggable(PrinterLog.levelOf("error")));
+        } finally {
+            PrinterLog.setLevel(previous);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.pinmi.react.printer.adapter;
+
+import com.pinmi.react.printer.raster.BitImage;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PrinterProfilesTest {
+
+    @Test
+    public void extendsTakesMissingKeysButNotModels() throws JSONException {
+        PrinterProfiles profiles = new PrinterProfiles();
+        List<PrinterProfile> registered = profiles.register("["
+                + "{\"id\":\"kitchen\",\"extends\":\"epson-tm-t20\",\"models\":[\"KP-1\"],\"dotWidth\":512},"
+                + "{\"id\":\"bar\",\"extends\":\"kitchen\",\"dither\":true,\"codePages\":[\"CP437\",\"CP858\"]}]");
+
+        assertEquals(2, registered.size());
+        PrinterProfile bar = profiles.get("bar");
+        assertEquals(512, bar.dotWidth);
+        assertEquals(BitImage.Command.RASTER, bar.image);
+        assertTrue(bar.dither);
+        assertFalse(profiles.get("kitchen").dither);
+        assertEquals(PrinterProfile.QrMode.NATIVE, bar.qr);
+        assertEquals(4096, bar.receiveBuffer);
+        assertTrue(bar.models.isEmpty());
+        assertEquals(Arrays.asList(CodePages.forEncoding("CP437"), CodePages.forEncoding("CP858")), bar.codePages);
+        assertNull(profiles.get("kitchen").codePages);
+    }
+
+    @Test
+    public void resolvesAssignedThenRegisteredThenBuiltInModels() throws JSONException {
+        PrinterProfiles profiles = new PrinterProfiles();
+        assertEquals("epson-tm-t20", profiles.resolve("AA:BB", "TM-T20II").id);
+        assertEquals(PrinterProfiles.DEFAULT_ID, profiles.resolve("AA:BB", "MTP-II").id);
+        assertEquals(PrinterProfiles.DEFAULT_ID, profiles.resolve("10.0.0.5:9100", null).id);
+
+        profiles.register("{\"id\":\"own-t20\",\"models\":[\"tm-t20\"]}");
+        assertEquals("own-t20", profiles.resolve("AA:BB", "TM-T20II").id);
+
+        profiles.assign("AA:BB", "58mm");
+        assertEquals("58mm", profiles.resolve("AA:BB", "TM-T20II").id);
+        profiles.assign("AA:BB", "");
+        assertEquals("own-t20", profiles.resolve("AA:BB", "TM-T20II").id);
+    }
+
+    @Test
+    public void registeredProfilesShadowBuiltInOnes() throws JSONException {
+        PrinterProfiles profiles = new PrinterProfiles();
+        profiles.register("{\"id\":\"epson-tm-t20\",\"dotWidth\":384}");
+        assertEquals(384, profiles.get("epson-tm-t20").dotWidth);
+        // the replacement lists no models, and the built-in one no longer counts
+        assertEquals(PrinterProfiles.DEFAULT_ID, profiles.resolve("AA:BB", "TM-T20II").id);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesToAssignAnUnknownProfile() {
+        new PrinterProfiles().assign("AA:BB", "nope");
+    }
+
+    @Test
+    public void rejectsValuesItDoesNotUnderstandAndRegistersNothing() {
+        PrinterProfiles profiles = new PrinterProfiles();
+        String[] bad = {
+                "[{\"id\":\"a\"},{\"id\":\"b\",\"image\":\"png\"}]",
+                "{\"id\":\"c\",\"qr\":\"svg\"}",
+                "{\"id\":\"d\",\"codePages\":[\"CP999\"]}",
+                "{\"id\":\"e\",\"extends\":\"nope\"}",
+                "{\"name\":\"no id\"}",
+        };
+        for (String json : bad) {
+            try {
+                profiles.register(json);
+                fail(json);
+            } catch (JSONException expected) {
+            }
+        }
+        assertNull(profiles.get("a"));
+    }
+
+    @Test
+    public void capsImageAndQrSizesAtThePaperWidth() {
+        PrinterProfiles profiles = new PrinterProfiles();
+        PrinterProfile narrow = profiles.get("58mm");
+        assertEquals(384, narrow.imageWidth(0));
+        assertEquals(300, narrow.imageWidth(300));
+        assertEquals(384, narrow.imageWidth(576));
+        assertEquals(384, narrow.qrSize(500));
+
+        PrinterProfile unknown = profiles.get(PrinterProfiles.DEFAULT_ID);
+        assertEquals(PrinterProfile.DEFAULT_IMAGE_WIDTH, unknown.imageWidth(0));
+        assertEquals(576, unknown.imageWidth(576));
+        assertEquals(500, unknown.qrSize(500));
+    }
+}
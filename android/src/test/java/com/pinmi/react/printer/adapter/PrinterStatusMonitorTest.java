@@ -0,0 +1,167 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the status monitor against a loopback TCP "printer" that answers
+ * DLE EOT queries with fixed status bytes.
+ */
+public class PrinterStatusMonitorTest {
+
+    private ServerSocket server;
+    private Socket client;
+    private volatile int paperStatus = 0x12;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread emulator = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try (Socket socket = server.accept()) {
+                    InputStream in = socket.getInputStream();
+                    OutputStream out = socket.getOutputStream();
+                    int prev2 = -1, prev1 = -1, b;
+                    while ((b = in.read()) != -1) {
+                        if (prev2 == 0x10 && prev1 == 0x04) {
+                            out.write(b == 4 ? paperStatus : 0x12);
+                            out.flush();
+                        }
+                        prev2 = prev1;
+                        prev1 = b;
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        emulator.setDaemon(true);
+        emulator.start();
+        client = new Socket(server.getInetAddress(), server.getLocalPort());
+        client.setSoTimeout(200);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    private PrinterStatusMonitor.Channel socketChannel() {
+        return new PrinterStatusMonitor.Channel() {
+            @Override
+            public int read(byte[] buffer) throws IOException {
+                try {
+                    return client.getInputStream().read(buffer);
+                } catch (SocketTimeoutException e) {
+                    return 0;
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes) throws IOException {
+                client.getOutputStream().write(bytes);
+                client.getOutputStream().flush();
+            }
+        };
+    }
+
+    @Test
+    public void pollReportsPaperOutFromEmulator() throws Exception {
+        final CountDownLatch online = new CountDownLatch(1);
+        final CountDownLatch paperOut = new CountDownLatch(1);
+        PrinterStatusMonitor monitor = new PrinterStatusMonitor(socketChannel(),
+                new PrinterStatusMonitor.Listener() {
+                    @Override
+                    public void onStatusChanged(PrinterStatus status) {
+                        if (status.isOnline() && !status.isPaperOut()) {
+                            online.countDown();
+                        }
+                        if (status.isPaperOut()) {
+                            paperOut.countDown();
+                        }
+                    }
+                });
+        monitor.start(PrinterStatusMonitor.Mode.POLL, 50);
+        try {
+            assertTrue(online.await(2, TimeUnit.SECONDS));
+            assertTrue(monitor.getStatus().isKnown());
+
+            paperStatus = 0x12 | 0x60;
+            assertTrue(paperOut.await(2, TimeUnit.SECONDS));
+            assertTrue(monitor.getStatus().isPaperOut());
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    @Test
+    public void restartLeavesASingleReader() throws Exception {
+        final Map<Thread, Long> lastRead = new ConcurrentHashMap<>();
+        PrinterStatusMonitor.Channel blocking = new PrinterStatusMonitor.Channel() {
+            @Override
+            public int read(byte[] buffer) {
+                // like a socket read, an interrupt does not cut the timeout short
+                long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+                for (long left; (left = until - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(left);
+                }
+                lastRead.put(Thread.currentThread(), System.nanoTime());
+                return 0;
+            }
+
+            @Override
+            public void write(byte[] bytes) {
+            }
+        };
+        PrinterStatusMonitor monitor = new PrinterStatusMonitor(blocking, null);
+        monitor.start(PrinterStatusMonitor.Mode.LISTEN, 50);
+        Thread.sleep(20);
+        // stops the first reader while it is inside read
+        monitor.start(PrinterStatusMonitor.Mode.LISTEN, 50);
+        try {
+            Thread.sleep(300);
+            long recent = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(150);
+            int readers = 0;
+            for (long at : lastRead.values()) {
+                if (at > recent) {
+                    readers++;
+                }
+            }
+            assertEquals(1, readers);
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    @Test
+    public void parsesAutomaticStatusBackPacket() {
+        PrinterStatusMonitor monitor = new PrinterStatusMonitor(socketChannel(), null);
+        // cover open, paper near end
+        monitor.onByte(0x10 | 0x20);
+        monitor.onByte(0x00);
+        monitor.onByte(0x03);
+        monitor.onByte(0x00);
+
+        PrinterStatus status = monitor.getStatus();
+        assertTrue(status.isCoverOpen());
+        assertTrue(status.isPaperNearEnd());
+        assertFalse(status.isPaperOut());
+    }
+}
@@ -0,0 +1,79 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the decoder against the JDK's and that heap buffers are not copied.
+ */
+public class RawPayloadTest {
+
+    private static byte[] decoded(RawPayload payload) {
+        return Arrays.copyOfRange(payload.bytes, payload.offset, payload.offset + payload.length);
+    }
+
+    @Test
+    public void decodesLikeTheJdk() {
+        Random random = new Random(42);
+        for (int size = 0; size < 300; size++) {
+            byte[] job = new byte[size];
+            random.nextBytes(job);
+            String encoded = Base64.getEncoder().encodeToString(job);
+            RawPayload payload = RawPayload.decodeBase64(encoded);
+            assertEquals(size, payload.bytes.length);
+            assertArrayEquals(job, decoded(payload));
+        }
+    }
+
+    @Test
+    public void acceptsLineBreaksUrlSafeAndMissingPadding() {
+        byte[] job = new byte[1000];
+        new Random(7).nextBytes(job);
+
+        assertArrayEquals(job, decoded(RawPayload.decodeBase64(Base64.getMimeEncoder().encodeToString(job))));
+        assertArrayEquals(job, decoded(RawPayload.decodeBase64(
+                Base64.getUrlEncoder().withoutPadding().encodeToString(job))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCharactersOutsideTheAlphabet() {
+        RawPayload.decodeBase64("G0A*");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedGroups() {
+        RawPayload.decodeBase64("G0AK1");
+    }
+
+    @Test
+    public void writesHeapBuffersInPlace() {
+        byte[] backing = { 1, 2, 3, 4, 5, 6 };
+        ByteBuffer buffer = ByteBuffer.wrap(backing, 1, 4).slice();
+        buffer.position(1);
+
+        RawPayload payload = RawPayload.of(buffer);
+
+        assertSame(backing, payload.bytes);
+        assertEquals(2, payload.offset);
+        assertEquals(3, payload.length);
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void copiesDirectBuffers() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+        buffer.put(new byte[] { 9, 8, 7, 6 });
+        buffer.flip();
+
+        RawPayload payload = RawPayload.of(buffer);
+
+        assertArrayEquals(new byte[] { 9, 8, 7, 6 }, decoded(payload));
+        assertEquals(0, buffer.position());
+    }
+}
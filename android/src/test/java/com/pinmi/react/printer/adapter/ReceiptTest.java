@@ -0,0 +1,83 @@
+package com.pinmi.react.printer.adapter;
+
+import com.pinmi.react.printer.raster.BufferPool;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReceiptTest {
+
+    private static final PrinterProfile PROFILE = new PrinterProfiles().get("80mm");
+
+    private static byte[] render(Receipt.Segment... segments) throws IOException {
+        BufferPool.Bytes bytes = Receipt.render(Arrays.asList(segments), PROFILE, new EscPosBuilder(), null,
+                new PrintJobs.Handle("a"));
+        try {
+            return Arrays.copyOf(bytes.array, bytes.length);
+        } finally {
+            bytes.release();
+        }
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] out = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, out, offset, part.length);
+            offset += part.length;
+        }
+        return out;
+    }
+
+    @Test
+    public void joinsTheSegmentsInOrder() throws IOException {
+        byte[] raw = { 0x1B, 0x40, 0x41 };
+        EscPosBuilder.TextOptions options = new EscPosBuilder.TextOptions();
+        RawPayload text = new EscPosBuilder().build("<B>Total</B>\n", options);
+        byte[] receipt = render(Receipt.Segment.raw(Base64.getEncoder().encodeToString(raw)),
+                Receipt.Segment.text("<B>Total</B>\n", options),
+                Receipt.Segment.cut(2));
+        assertArrayEquals(concat(raw, Arrays.copyOfRange(text.bytes, text.offset, text.offset + text.length),
+                EscPosCommands.cut(2)), receipt);
+    }
+
+    @Test
+    public void growsPastItsFirstBuffer() throws IOException {
+        byte[] raw = new byte[40000];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = (byte) i;
+        }
+        String base64 = Base64.getEncoder().encodeToString(raw);
+        byte[] receipt = render(Receipt.Segment.raw(base64), Receipt.Segment.raw(base64));
+        assertArrayEquals(concat(raw, raw), receipt);
+    }
+
+    @Test
+    public void failsWithTheCodeOfTheBadSegment() throws IOException {
+        try {
+            render(Receipt.Segment.cut(1), Receipt.Segment.raw("not base64!"));
+            fail();
+        } catch (Receipt.SegmentException e) {
+            assertEquals("ERR_INVALID_DATA", e.code);
+            assertTrue(e.getMessage().startsWith("segment 1: "));
+        }
+    }
+
+    @Test(expected = PrintJobs.CancelledException.class)
+    public void stopsBetweenSegmentsOnceCancelled() throws IOException {
+        PrintJobs.Handle handle = new PrintJobs.Handle("a");
+        handle.cancel();
+        List<Receipt.Segment> segments = Arrays.asList(Receipt.Segment.cut(1));
+        Receipt.render(segments, PROFILE, new EscPosBuilder(), null, handle);
+    }
+}
@@ -0,0 +1,151 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ReconnectPolicyTest {
+
+    private static class ManualClock implements CircuitBreaker.Clock {
+        long now = 1000;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+
+    private static ReconnectPolicy.Connector failing(final AtomicInteger attempts, final int failures) {
+        return new ReconnectPolicy.Connector() {
+            @Override
+            public void connect() throws IOException {
+                if (attempts.incrementAndGet() <= failures) {
+                    throw new IOException("refused");
+                }
+            }
+        };
+    }
+
+    @Test
+    public void delayStaysWithinTheExponentialBounds() {
+        ReconnectPolicy policy = new ReconnectPolicy(100, 1000, 4);
+
+        for (int i = 0; i < 100; i++) {
+            long first = policy.getDelayMillis(0);
+            assertTrue(first >= 50 && first <= 100);
+            long capped = policy.getDelayMillis(10);
+            assertTrue(capped >= 500 && capped <= 1000);
+        }
+    }
+
+    @Test
+    public void retriesUntilConnected() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(5, 500, new ManualClock());
+        AtomicInteger attempts = new AtomicInteger();
+
+        new ReconnectPolicy(1, 2, 4).reconnect(breaker, failing(attempts, 2), null);
+
+        assertEquals(3, attempts.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertFalse(breaker.recordFailure());
+    }
+
+    @Test
+    public void throwsTheLastFailureOnceAttemptsRunOut() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 500, new ManualClock());
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            new ReconnectPolicy(1, 2, 3).reconnect(breaker, failing(attempts, 10), null);
+            fail("expected the reconnect to give up");
+        } catch (IOException e) {
+            assertFalse(e instanceof ReconnectPolicy.CircuitOpenException);
+            assertEquals("refused", e.getMessage());
+        }
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void stopsWhenTheCircuitOpens() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 500, new ManualClock());
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            new ReconnectPolicy(1, 2, 5).reconnect(breaker, failing(attempts, 10), null);
+            fail("expected the circuit to open");
+        } catch (IOException e) {
+            assertTrue(e instanceof ReconnectPolicy.CircuitOpenException);
+        }
+        assertEquals(2, attempts.get());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void failsFastWhileTheCircuitIsOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, new ManualClock());
+        breaker.recordFailure();
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            new ReconnectPolicy(1, 2, 3).reconnect(breaker, failing(attempts, 0), null);
+            fail("expected the open circuit to reject the reconnect");
+        } catch (IOException e) {
+            assertEquals(500, ((ReconnectPolicy.CircuitOpenException) e).getRetryAfterMs());
+        }
+        assertEquals(0, attempts.get());
+    }
+
+    @Test
+    public void probesAnExpiredCircuit() throws Exception {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, clock);
+        breaker.recordFailure();
+        clock.now += 500;
+        AtomicInteger attempts = new AtomicInteger();
+
+        new ReconnectPolicy(1, 2, 3).reconnect(breaker, failing(attempts, 0), null);
+
+        assertEquals(1, attempts.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void interruptedBackoffKeepsTheProbe() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, 500, clock);
+        breaker.recordFailure();
+        clock.now += 500;
+        AtomicInteger attempts = new AtomicInteger();
+
+        Thread.currentThread().interrupt();
+        try {
+            new ReconnectPolicy(1, 2, 3).reconnect(breaker, failing(attempts, 0), null);
+            fail("expected the interrupted reconnect to fail");
+        } catch (IOException e) {
+            assertTrue(Thread.interrupted());
+        }
+
+        assertEquals(0, attempts.get());
+        // no probe was taken, so the next caller still gets one
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void reportsEachAttempt() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(5, 500, new ManualClock());
+        final StringBuilder attempts = new StringBuilder();
+
+        new ReconnectPolicy(1, 2, 4).reconnect(breaker, failing(new AtomicInteger(), 1),
+                new ReconnectPolicy.Listener() {
+                    @Override
+                    public void onReconnecting(int attempt, long delayMs) {
+                        attempts.append(attempt);
+                    }
+                });
+
+        assertEquals("12", attempts.toString());
+    }
+}
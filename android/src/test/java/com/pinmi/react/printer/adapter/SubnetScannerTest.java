@@ -0,0 +1,70 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scans 127.0.0.0/24 with loopback listeners standing in for printers.
+ */
+public class SubnetScannerTest {
+
+    private final List<ServerSocket> listeners = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            listeners.add(new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1")));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (ServerSocket listener : listeners) {
+            listener.close();
+        }
+    }
+
+    @Test
+    public void expandsCidrWithoutNetworkAndBroadcast() throws Exception {
+        List<InetAddress> hosts = SubnetScanner.expandCidr("192.168.1.77/24");
+        assertEquals(254, hosts.size());
+        assertEquals("192.168.1.1", hosts.get(0).getHostAddress());
+        assertEquals("192.168.1.254", hosts.get(253).getHostAddress());
+        assertEquals(1, SubnetScanner.expandCidr("10.0.0.5/32").size());
+    }
+
+    @Test
+    public void findsLoopbackListenersAcrossWholeRange() throws Exception {
+        int closedPort;
+        try (ServerSocket closed = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"))) {
+            closedPort = closed.getLocalPort();
+        }
+        int[] ports = { listeners.get(0).getLocalPort(), listeners.get(1).getLocalPort(), closedPort };
+        final List<String> found = Collections.synchronizedList(new ArrayList<String>());
+        SubnetScanner scanner = new SubnetScanner(ports, 1000, 256);
+
+        long start = System.currentTimeMillis();
+        int count = scanner.scan(SubnetScanner.expandCidr("127.0.0.0/24"), new SubnetScanner.Listener() {
+            @Override
+            public void onPrinterFound(String host, int port) {
+                found.add(host + ":" + port);
+            }
+        });
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(2, count);
+        assertTrue(found.contains("127.0.0.1:" + ports[0]));
+        assertTrue(found.contains("127.0.0.1:" + ports[1]));
+        // 762 probes; one by one this would take minutes
+        assertTrue("scan took " + elapsed + "ms", elapsed < 3000);
+    }
+}
@@ -0,0 +1,60 @@
+package com.pinmi.react.printer.adapter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TimeoutsTest {
+
+    @Test
+    public void abortsACallThatRunsLate() throws Exception {
+        Timeouts timeouts = new Timeouts();
+        timeouts.configure(0, 50, 0);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        Timeouts.Timer timer = timeouts.start(Timeouts.Kind.WRITE, new Timeouts.Abort() {
+            @Override
+            public void abort() {
+                aborted.countDown();
+            }
+        });
+        assertTrue(aborted.await(5, TimeUnit.SECONDS));
+        assertTrue(timer.hasFired());
+        try {
+            timer.check();
+            fail();
+        } catch (Timeouts.TimeoutException e) {
+            assertEquals("ERR_WRITE_TIMEOUT", e.kind.code);
+        }
+        // the aborted call fails with whatever closing the transport caused
+        IOException closed = new IOException("Socket closed");
+        IOException thrown = timer.orTimeout(closed);
+        assertTrue(thrown instanceof Timeouts.TimeoutException);
+        assertEquals(Timeouts.Kind.WRITE, ((Timeouts.TimeoutException) thrown).kind);
+    }
+
+    @Test
+    public void leavesACallAloneOnceCancelledOrOff() throws Exception {
+        Timeouts timeouts = new Timeouts();
+        timeouts.configure(0, 50, 0);
+        final CountDownLatch aborted = new CountDownLatch(2);
+        Timeouts.Abort abort = new Timeouts.Abort() {
+            @Override
+            public void abort() {
+                aborted.countDown();
+            }
+        };
+        Timeouts.Timer write = timeouts.start(Timeouts.Kind.WRITE, abort);
+        write.cancel();
+        Timeouts.Timer job = timeouts.start(Timeouts.Kind.JOB, abort);
+        assertFalse(aborted.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(write.hasFired());
+        assertFalse(job.hasFired());
+        job.check();
+        IOException failure = new IOException("broken pipe");
+        assertSame(failure, write.orTimeout(failure));
+    }
+}
@@ -0,0 +1,91 @@
+package com.pinmi.react.printer.emulator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import static org.junit.Assert.*;
+
+public class EscPosEmulatorTest {
+
+    private EscPosEmulator emulator;
+
+    private EscPosEmulator start(int bytesPerSecond, int bufferSize) throws Exception {
+        EscPosEmulator.Config config = new EscPosEmulator.Config();
+        config.port = 0;
+        config.bytesPerSecond = bytesPerSecond;
+        config.bufferSize = bufferSize;
+        config.recordBytes = true;
+        emulator = new EscPosEmulator(config);
+        emulator.start();
+        return emulator;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (emulator != null) {
+            emulator.close();
+        }
+    }
+
+    @Test
+    public void recordsWhatArrivesOnEveryConnection() throws Exception {
+        start(0, 4096);
+        for (int i = 0; i < 3; i++) {
+            try (Socket socket = new Socket(emulator.getHost(), emulator.getPort())) {
+                socket.getOutputStream().write(new byte[] { 0x1B, 0x40, 'h', 'i', 0x0A });
+            }
+        }
+        assertTrue(emulator.awaitBytes(15, 5000));
+        assertEquals(15, emulator.getBytesReceived());
+        assertEquals(3, emulator.getCommandCount("ESC @"));
+        assertEquals(6, emulator.getTextBytes());
+        assertEquals(3, emulator.getLines());
+        assertEquals(3, emulator.getConnectionCount());
+        assertEquals(15, emulator.getReceived().length);
+    }
+
+    @Test
+    public void answersStatusQueries() throws Exception {
+        start(0, 4096);
+        try (Socket socket = new Socket(emulator.getHost(), emulator.getPort())) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(new byte[] { 0x10, 0x04, 0x01 });
+            assertEquals(0x12, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void pacesToThePrintSpeed() throws Exception {
+        // 2 KB buffer at 20 KB/s: 6 KB cannot be taken in faster than the head frees 4 KB
+        start(20000, 2048);
+        long start = System.nanoTime();
+        try (Socket socket = new Socket(emulator.getHost(), emulator.getPort())) {
+            socket.setReceiveBufferSize(1024);
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[6144]);
+            out.flush();
+            assertTrue(emulator.awaitBytes(6144, 5000));
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(String.valueOf(elapsedMs), elapsedMs >= 150);
+        long printMs = emulator.getPrintNanos() / 1_000_000;
+        assertTrue(String.valueOf(printMs), printMs >= 250 && printMs < 1500);
+    }
+
+    @Test
+    public void closeDropsConnectedClients() throws Exception {
+        start(0, 4096);
+        Socket socket = new Socket(emulator.getHost(), emulator.getPort());
+        socket.setSoTimeout(5000);
+        InputStream in = socket.getInputStream();
+        socket.getOutputStream().write(0x0A);
+        assertTrue(emulator.awaitBytes(1, 5000));
+        emulator.close();
+        assertEquals(-1, in.read());
+        socket.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.pinmi.react.printer.emulator;
+
+import com.pinmi.react.printer.adapter.EscPosBuilder;
+import com.pinmi.react.printer.adapter.RawPayload;
+import com.pinmi.react.printer.raster.BitImage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EscPosParserTest {
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    @Test
+    public void parsesTheTextBuilderOutput() {
+        EscPosBuilder.TextOptions options = new EscPosBuilder.TextOptions();
+        options.cut = true;
+        options.beep = true;
+        RawPayload job = new EscPosBuilder().build("<C>Shop</C>\n<B>Total</B> 12.50\n", options);
+        EscPosParser parser = new EscPosParser(null);
+        parser.feed(job.bytes, job.offset, job.length);
+
+        assertEquals(1, parser.getCommandCount("ESC @"));
+        assertEquals(1, parser.getCommandCount("ESC i"));
+        assertEquals(1, parser.getCommandCount("ESC B"));
+        assertEquals("Shop".length() + "Total 12.50".length(), parser.getTextBytes());
+        assertEquals(0, parser.getCommandCount("ESC ?"));
+        assertEquals(0, parser.getCommandCount("FS ?"));
+        assertEquals(0, parser.getCommandCount("GS ?"));
+    }
+
+    @Test
+    public void skipsBitImageDataAcrossFeeds() {
+        int width = 40;
+        int height = 50;
+        byte[] dots = new byte[width * height];
+        // dark dots everywhere, so image data is full of 0x0A and 0x1B look-alikes
+        Arrays.fill(dots, (byte) 1);
+        byte[] job = BitImage.encode(dots, width, height);
+        EscPosParser parser = new EscPosParser(null);
+        for (int i = 0; i < job.length; i += 7) {
+            parser.feed(job, i, Math.min(7, job.length - i));
+        }
+        assertEquals(3, parser.getCommandCount("ESC *"));
+        assertEquals(3 * width * 3, parser.getDataBytes());
+        assertEquals(4, parser.getLines());
+        assertEquals(0, parser.getTextBytes());
+    }
+
+    @Test
+    public void reportsCommandsWithTheirArguments() {
+        final List<String> seen = new ArrayList<>();
+        EscPosParser parser = new EscPosParser(new EscPosParser.Listener() {
+            @Override
+            public void onCommand(String name, byte[] args) {
+                seen.add(name + args.length);
+            }
+        });
+        byte[] job = bytes(0x10, 0x04, 0x01, // DLE EOT 1
+                0x1D, 0x56, 0x42, 0x03, // GS V 66 3
+                0x1D, 0x76, 0x30, 0x00, 0x02, 0x00, 0x02, 0x00, 1, 2, 3, 4, // GS v 0, 2 x 2 bytes
+                0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x43, 0x05, // GS ( k, 3 bytes
+                0x1D, 0x6B, 0x04, '1', '2', 0x00, // GS k CODE39, NUL terminated
+                'A', 0x0A);
+        parser.feed(job, 0, job.length);
+        assertEquals("[DLE EOT1, GS V2, GS v 06, GS ( k3, GS k1]", seen.toString());
+        assertEquals(4 + 3 + 3, parser.getDataBytes());
+        assertEquals(1, parser.getTextBytes());
+        assertEquals(1, parser.getLines());
+    }
+}
@@ -81,6 +81,7 @@ RCT_EXPORT_METHOD(getDeviceList:(RCTPromiseResolveBlock)resolve
 }
 
 RCT_EXPORT_METHOD(connectPrinter:(NSString *)innerAddress
+                  timeoutMs:(double)timeoutMs
                   resolve:(RCTPromiseResolveBlock)resolve
                   reject:(RCTPromiseRejectBlock)reject)
 {
@@ -130,8 +131,49 @@ RCT_EXPORT_METHOD(printRawData:(NSString *)base64Data
     }
 }
 
+RCT_EXPORT_METHOD(printText:(NSString *)text
+                  options:(NSDictionary *)options
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Native text encoding is not supported on iOS, use printRawData", nil);
+}
+
+RCT_EXPORT_METHOD(registerTemplate:(NSString *)templateId
+                  template:(NSString *)template_
+                  options:(NSDictionary *)options
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Native templates are not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(unregisterTemplate:(NSString *)templateId)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(printTemplate:(NSString *)templateId
+                  values:(NSDictionary *)values
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Native templates are not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printFile:(NSString *)uri
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"File printing is not supported on iOS", nil);
+}
+
 RCT_EXPORT_METHOD(printImageData:(NSString *)imageUrl
                   imageWidth:(double)imageWidth
+                  jobId:(NSString *)jobId
                   resolve:(RCTPromiseResolveBlock)resolve
                   reject:(RCTPromiseRejectBlock)reject)
 {
@@ -159,6 +201,7 @@ RCT_EXPORT_METHOD(printImageData:(NSString *)imageUrl
 
 RCT_EXPORT_METHOD(printQrCode:(NSString *)qrCode
                   qrSize:(double)qrSize
+                  jobId:(NSString *)jobId
                   resolve:(RCTPromiseResolveBlock)resolve
                   reject:(RCTPromiseRejectBlock)reject)
 {
@@ -179,6 +222,43 @@ RCT_EXPORT_METHOD(printQrCode:(NSString *)qrCode
     }
 }
 
+RCT_EXPORT_METHOD(printReceipt:(NSArray *)segments
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Receipt jobs are not supported on iOS, use printRawData", nil);
+}
+
+RCT_EXPORT_METHOD(openSession:(NSString *)sessionId
+                  options:(NSDictionary *)options
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Print sessions are not supported on iOS, use printRawData", nil);
+}
+
+RCT_EXPORT_METHOD(appendSession:(NSString *)sessionId
+                  segments:(NSArray *)segments
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Print sessions are not supported on iOS, use printRawData", nil);
+}
+
+RCT_EXPORT_METHOD(closeSession:(NSString *)sessionId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Print sessions are not supported on iOS, use printRawData", nil);
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(cancelJob:(NSString *)jobId)
+{
+    // No-op on iOS
+    return @NO;
+}
+
 RCT_EXPORT_METHOD(closeConn)
 {
     @try {
@@ -191,6 +271,73 @@ RCT_EXPORT_METHOD(closeConn)
     }
 }
 
+RCT_EXPORT_METHOD(startStatusMonitor:(NSString *)mode
+                  intervalMs:(double)intervalMs
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Printer status monitoring is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(stopStatusMonitor)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getStatus)
+{
+    return @{@"known" : @NO};
+}
+
+RCT_EXPORT_METHOD(setFlowControl:(NSDictionary *)options)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(setTimeouts:(NSDictionary *)options)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getStats)
+{
+    return @{};
+}
+
+RCT_EXPORT_METHOD(registerProfiles:(NSString *)profilesJson
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Printer profiles are not supported on iOS", nil);
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(setPrinterProfile:(NSString *)printerId
+                                       profileId:(NSString *)profileId)
+{
+    // No-op on iOS
+    return @NO;
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getPrinterProfile)
+{
+    return @{};
+}
+
+RCT_EXPORT_METHOD(setJobEvents:(BOOL)enabled)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(setLogLevel:(NSString *)level)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getThroughput)
+{
+    return @{@"chunk_size" : @0, @"bytes_per_second" : @0, @"link_bytes_per_second" : @0, @"last_job_bytes" : @0};
+}
+
 RCT_EXPORT_METHOD(addListener:(NSString *)eventName)
 {
     // Required by RCTEventEmitter — no-op for BLE
@@ -0,0 +1,19 @@
+//
+//  RNGattPrinter.h
+//  react-native-earl-thermal-printer
+//
+//  Author: Ordovez, Earl Romeo
+//
+
+#pragma once
+
+#import <React/RCTBridgeModule.h>
+
+#ifdef RCT_NEW_ARCH_ENABLED
+#import <RNThermalReceiptPrinterSpec/RNThermalReceiptPrinterSpec.h>
+@interface RNGattPrinter : NSObject <NativeGattPrinterSpec>
+#else
+@interface RNGattPrinter : NSObject <RCTBridgeModule>
+#endif
+
+@end
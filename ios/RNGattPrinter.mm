@@ -0,0 +1,233 @@
+//
+//  RNGattPrinter.mm
+//  react-native-earl-thermal-printer
+//
+//  BLE GATT printing is not supported on iOS. This module provides stub
+//  implementations so the TurboModule spec is satisfied.
+//
+//  Author: Ordovez, Earl Romeo
+//
+
+#import "RNGattPrinter.h"
+
+#ifdef RCT_NEW_ARCH_ENABLED
+#import "RNThermalReceiptPrinterSpec.h"
+#endif
+
+@implementation RNGattPrinter
+
+- (dispatch_queue_t)methodQueue
+{
+    return dispatch_get_main_queue();
+}
+
+RCT_EXPORT_MODULE()
+
+RCT_EXPORT_METHOD(init:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(getDeviceList:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(connectPrinter:(NSString *)innerAddress
+                  options:(NSDictionary *)options
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printRawData:(NSString *)base64Data
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printText:(NSString *)text
+                  options:(NSDictionary *)options
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(registerTemplate:(NSString *)templateId
+                  template:(NSString *)template_
+                  options:(NSDictionary *)options
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(unregisterTemplate:(NSString *)templateId)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(printTemplate:(NSString *)templateId
+                  values:(NSDictionary *)values
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printFile:(NSString *)uri
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printImageData:(NSString *)imageUrl
+                  imageWidth:(double)imageWidth
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printQrCode:(NSString *)qrCode
+                  qrSize:(double)qrSize
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(printReceipt:(NSArray *)segments
+                  jobId:(NSString *)jobId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(openSession:(NSString *)sessionId
+                  options:(NSDictionary *)options
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(appendSession:(NSString *)sessionId
+                  segments:(NSArray *)segments
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(closeSession:(NSString *)sessionId
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(cancelJob:(NSString *)jobId)
+{
+    // No-op on iOS
+    return @NO;
+}
+
+RCT_EXPORT_METHOD(startStatusMonitor:(NSString *)mode
+                  intervalMs:(double)intervalMs
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"GATT printing is not supported on iOS", nil);
+}
+
+RCT_EXPORT_METHOD(stopStatusMonitor)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getStatus)
+{
+    return @{@"known" : @NO};
+}
+
+RCT_EXPORT_METHOD(setFlowControl:(NSDictionary *)options)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(setTimeouts:(NSDictionary *)options)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getStats)
+{
+    return @{};
+}
+
+RCT_EXPORT_METHOD(registerProfiles:(NSString *)profilesJson
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
+{
+    reject(@"ERR_UNSUPPORTED", @"Printer profiles are not supported on iOS", nil);
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(setPrinterProfile:(NSString *)printerId
+                                       profileId:(NSString *)profileId)
+{
+    // No-op on iOS
+    return @NO;
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getPrinterProfile)
+{
+    return @{};
+}
+
+RCT_EXPORT_METHOD(setJobEvents:(BOOL)enabled)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(setLogLevel:(NSString *)level)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(closeConn)
+{
+    // No-op on iOS
+}
+
+RCT_EXPORT_METHOD(addListener:(NSString *)eventName)
+{
+    // Required by the event emitter spec — no-op on iOS
+}
+
+RCT_EXPORT_METHOD(removeListeners:(double)count)
+{
+    // Required by the event emitter spec — no-op on iOS
+}
+
+#ifdef RCT_NEW_ARCH_ENABLED
+- (std::shared_ptr<facebook::react::TurboModule>)getTurboModule:
+    (const facebook::react::ObjCTurboModule::InitParams &)params
+{
+    return std::make_shared<facebook::react::NativeGattPrinterSpecJSI>(params);
+}
+#endif
+
+@end
@@ -0,0 +1,83 @@
+package com.pinmi.react.printer.raster;
+
+/**
+ * The colour image path the adapters ran before {@link Resize#areaGray}: a
+ * bilinear resize to full ARGB followed by a per-pixel threshold. Kept here,
+ * out of the library, so {@link RasterBenchmark} can compare against it.
+ */
+final class Baselines {
+
+    private static final int FRACTION_BITS = 8;
+    private static final int ONE = 1 << FRACTION_BITS;
+
+    private Baselines() {
+    }
+
+    /**
+     * Bilinear resize in 8-bit fixed point, sampling at pixel centres like
+     * {@code Bitmap.createScaledBitmap(..., true)}.
+     */
+    static int[] bilinear(int[] src, int srcWidth, int srcHeight, int dstWidth, int dstHeight) {
+        if (srcWidth == dstWidth && srcHeight == dstHeight) {
+            return src;
+        }
+        int[] x0 = new int[dstWidth];
+        int[] x1 = new int[dstWidth];
+        int[] fx = new int[dstWidth];
+        sampleGrid(srcWidth, dstWidth, x0, x1, fx);
+        int[] y0 = new int[dstHeight];
+        int[] y1 = new int[dstHeight];
+        int[] fy = new int[dstHeight];
+        sampleGrid(srcHeight, dstHeight, y0, y1, fy);
+
+        int[] dst = new int[dstWidth * dstHeight];
+        for (int y = 0; y < dstHeight; y++) {
+            int top = y0[y] * srcWidth;
+            int bottom = y1[y] * srcWidth;
+            int wy = fy[y];
+            int out = y * dstWidth;
+            for (int x = 0; x < dstWidth; x++) {
+                int wx = fx[x];
+                dst[out + x] = blend(blend(src[top + x0[x]], src[top + x1[x]], wx),
+                        blend(src[bottom + x0[x]], src[bottom + x1[x]], wx), wy);
+            }
+        }
+        return dst;
+    }
+
+    private static void sampleGrid(int srcSize, int dstSize, int[] lo, int[] hi, int[] weight) {
+        long step = ((long) srcSize << FRACTION_BITS) / dstSize;
+        for (int i = 0; i < dstSize; i++) {
+            // centre of destination pixel i, in source pixel coordinates
+            long pos = Math.max(0, (step * (2 * i + 1) >> 1) - ONE / 2);
+            int index = (int) (pos >> FRACTION_BITS);
+            lo[i] = Math.min(index, srcSize - 1);
+            hi[i] = Math.min(index + 1, srcSize - 1);
+            weight[i] = (int) (pos & (ONE - 1));
+        }
+    }
+
+    /**
+     * Per-channel {@code a + (b - a) * weight / ONE}.
+     */
+    private static int blend(int a, int b, int weight) {
+        if (a == b || weight == 0) {
+            return a;
+        }
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int ca = (a >>> shift) & 0xff;
+            int cb = (b >>> shift) & 0xff;
+            result |= (ca + (((cb - ca) * weight) >> FRACTION_BITS)) << shift;
+        }
+        return result;
+    }
+
+    static byte[] threshold(int[] argb, int level) {
+        byte[] dots = new byte[argb.length];
+        for (int i = 0; i < argb.length; i++) {
+            dots[i] = Threshold.isDark(argb[i], level) ? (byte) 1 : 0;
+        }
+        return dots;
+    }
+}
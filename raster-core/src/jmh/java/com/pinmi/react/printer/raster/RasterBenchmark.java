@@ -0,0 +1,140 @@
+package com.pinmi.react.printer.raster;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each raster stage on printer-sized images: 384 dots (58 mm), 512 and
+ * 576 dots (80 mm) wide, from a logo up to a long receipt. Sources are twice
+ * the target width, as a phone photo or a rendered receipt usually is, so
+ * the resize does real work. The {@code *Bilinear} benchmarks time the
+ * colour path the adapters used before {@link Resize#areaGray}, kept in
+ * {@link Baselines} for comparison.
+ * <p>
+ * {@code gradle -p raster-core jmh}, or {@code -PjmhIncludes=RasterBenchmark.encodeImage}
+ * for a single benchmark. {@code -PjmhProfilers=gc} adds the bytes each
+ * operation allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RasterBenchmark {
+
+    @Param({ "384", "512", "576" })
+    public int width;
+
+    /** logo, ticket, long receipt */
+    @Param({ "200", "1200", "4000" })
+    public int height;
+
+    private int[] source;
+    private int sourceWidth;
+    private int sourceHeight;
+    private byte[] gray;
+    private byte[] dots;
+    private String qrContent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sourceWidth = width * 2;
+        sourceHeight = height * 2;
+        source = receiptLike(sourceWidth, sourceHeight);
+        gray = Resize.areaGray(Resize.rows(source, sourceWidth), sourceWidth, sourceHeight, width, height,
+                Cancellation.NONE);
+        dots = Threshold.applyGray(gray, Threshold.DEFAULT_LEVEL);
+        qrContent = "https://example.com/r/" + width + "x" + height + "?t=0123456789abcdef";
+    }
+
+    /**
+     * Mostly white paper with dark text-like runs and a grey gradient band, so
+     * the threshold and dither branches both get exercised.
+     */
+    private static int[] receiptLike(int width, int height) {
+        Random random = new Random(7);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            boolean textLine = (y / 24) % 2 == 0 && y % 24 < 18;
+            for (int x = 0; x < width; x++) {
+                int gray;
+                if (y < height / 8) {
+                    gray = x * 255 / width;
+                } else if (textLine && random.nextInt(3) == 0) {
+                    gray = random.nextInt(60);
+                } else {
+                    gray = 235 + random.nextInt(21);
+                }
+                pixels[y * width + x] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+            }
+        }
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] resizeBilinear() {
+        return Baselines.bilinear(source, sourceWidth, sourceHeight, width, height);
+    }
+
+    @Benchmark
+    public byte[] resizeAreaGray() {
+        return Resize.areaGray(Resize.rows(source, sourceWidth), sourceWidth, sourceHeight, width, height,
+                Cancellation.NONE);
+    }
+
+    @Benchmark
+    public byte[] threshold() {
+        return Threshold.applyGray(gray, Threshold.DEFAULT_LEVEL);
+    }
+
+    @Benchmark
+    public byte[] dither() {
+        return Dither.floydSteinberg(gray, width, height, Threshold.DEFAULT_LEVEL);
+    }
+
+    @Benchmark
+    public byte[] bitImage() {
+        return BitImage.encode(dots, width, height);
+    }
+
+    /** the whole image path the adapters run, buffers from the shared pool */
+    @Benchmark
+    public int encodeImage() {
+        BufferPool.Bytes job = Raster.encodeImage(Resize.rows(source, sourceWidth), sourceWidth, sourceHeight,
+                width, BitImage.Command.BIT_IMAGE, false, BufferPool.SHARED, Cancellation.NONE);
+        job.release();
+        return job.length;
+    }
+
+    /** as {@link #encodeImage()}, for a profile that dithers */
+    @Benchmark
+    public int encodeImageDithered() {
+        BufferPool.Bytes job = Raster.encodeImage(Resize.rows(source, sourceWidth), sourceWidth, sourceHeight,
+                width, BitImage.Command.BIT_IMAGE, true, BufferPool.SHARED, Cancellation.NONE);
+        job.release();
+        return job.length;
+    }
+
+    /** the same image through the previous resize and colour threshold */
+    @Benchmark
+    public byte[] encodeImageBilinear() {
+        int[] pixels = Baselines.bilinear(source, sourceWidth, sourceHeight, width, height);
+        return BitImage.encode(Baselines.threshold(pixels, Threshold.DEFAULT_LEVEL), width, height);
+    }
+
+    @Benchmark
+    public int encodeQr() {
+        BufferPool.Bytes job = Raster.encodeQr(qrContent, width, BitImage.Command.BIT_IMAGE, BufferPool.SHARED,
+                Cancellation.NONE);
+        job.release();
+        return job.length;
+    }
+}
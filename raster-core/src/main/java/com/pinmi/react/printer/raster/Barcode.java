@@ -0,0 +1,105 @@
+package com.pinmi.react.printer.raster;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Renders one-dimensional barcodes straight to dots, for printers that cannot
+ * draw them themselves.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Barcode {
+
+    public enum Format {
+        CODE128(BarcodeFormat.CODE_128),
+        CODE39(BarcodeFormat.CODE_39),
+        EAN13(BarcodeFormat.EAN_13),
+        EAN8(BarcodeFormat.EAN_8),
+        UPCA(BarcodeFormat.UPC_A),
+        ITF(BarcodeFormat.ITF);
+
+        final BarcodeFormat zxing;
+
+        Format(BarcodeFormat zxing) {
+            this.zxing = zxing;
+        }
+    }
+
+    /** modules of quiet zone on each side */
+    private static final int QUIET_ZONE = 10;
+    // zxing splits the margin between both sides
+    private static final Map<EncodeHintType, ?> HINTS = Collections.singletonMap(EncodeHintType.MARGIN,
+            2 * QUIET_ZONE);
+
+    private Barcode() {
+    }
+
+    /**
+     * @return the bars and spaces of {@code content}, one entry per module,
+     *         quiet zone included; null if {@code format} cannot hold it.
+     */
+    static boolean[] modules(String content, Format format) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        BitMatrix matrix;
+        try {
+            // width 1: one dot per module, the narrowest zxing draws
+            matrix = new MultiFormatWriter().encode(content, format.zxing, 1, 1, HINTS);
+        } catch (WriterException | IllegalArgumentException e) {
+            return null;
+        }
+        boolean[] modules = new boolean[matrix.getWidth()];
+        for (int x = 0; x < modules.length; x++) {
+            modules[x] = matrix.get(x, 0);
+        }
+        return modules;
+    }
+
+    /**
+     * @return whether {@code format} can hold {@code content}: the right
+     *         characters, length and check digit.
+     */
+    public static boolean isValid(String content, Format format) {
+        return modules(content, format) != null;
+    }
+
+    /**
+     * @return the width in dots {@link #encode} draws {@code content} at with
+     *         {@code moduleWidth}-dot modules, or 0 if it is not valid.
+     */
+    public static int width(String content, Format format, int moduleWidth) {
+        boolean[] modules = modules(content, format);
+        return modules == null ? 0 : modules.length * moduleWidth;
+    }
+
+    /**
+     * Draws {@code content} {@code height} dots tall, each module
+     * {@code moduleWidth} dots wide, into the start of {@code dots}, which
+     * must hold {@link #width} times {@code height} bytes.
+     *
+     * @return false if {@code format} cannot hold {@code content}.
+     */
+    public static boolean encode(String content, Format format, int moduleWidth, int height, byte[] dots) {
+        boolean[] modules = modules(content, format);
+        if (modules == null) {
+            return false;
+        }
+        int width = modules.length * moduleWidth;
+        for (int x = 0; x < width; x++) {
+            dots[x] = modules[x / moduleWidth] ? (byte) 1 : 0;
+        }
+        // every row is the same
+        for (int y = 1; y < height; y++) {
+            System.arraycopy(dots, 0, dots, y * width, width);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+package com.pinmi.react.printer.raster;
+
+import java.util.Arrays;
+
+/**
+ * Encodes dots as 24-dot bands, centred, with the line spacing set to 24 for
+ * the image and back to 32 after it. A band is either
+ * <ul>
+ * <li>{@link Command#BIT_IMAGE}: double-density {@code ESC * 33} and a line
+ * feed. Each column is three bytes, top dot in the high bit. Every ESC/POS
+ * printer takes it.</li>
+ * <li>{@link Command#RASTER}: {@code GS v 0}, row by row, leftmost dot in the
+ * high bit. The printer feeds by itself, so bands follow each other without
+ * the pause some printers make at every line feed.</li>
+ * </ul>
+ * Rows past the bottom of the image are left blank.
+ * <p>
+ * A job is {@link #HEADER_SIZE} bytes of header, bands of
+ * {@link #bandSize(int, Command)} bytes, and {@link #TRAILER_SIZE} bytes of
+ * trailer, so it can be sent band by band and cut short after any band by
+ * sending just the trailer.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class BitImage {
+
+    public enum Command {
+        BIT_IMAGE, RASTER
+    }
+
+    public static final int BAND_HEIGHT = 24;
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+    private static final byte[] HEADER = { ESC, 0x33, 24, ESC, 0x61, 0x31 };
+    private static final byte[] TRAILER = { ESC, 0x33, 32, LF };
+
+    public static final int HEADER_SIZE = HEADER.length;
+    public static final int TRAILER_SIZE = TRAILER.length;
+
+    private BitImage() {
+    }
+
+    public static int encodedSize(int width, int height) {
+        return encodedSize(width, height, Command.BIT_IMAGE);
+    }
+
+    public static int encodedSize(int width, int height, Command command) {
+        int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        return HEADER.length + bands * bandSize(width, command) + TRAILER.length;
+    }
+
+    /**
+     * @return the bytes of one band: {@code ESC * 33 nL nH}, three bytes per column and a line feed.
+     */
+    public static int bandSize(int width) {
+        return 5 + 3 * width + 1;
+    }
+
+    /**
+     * @return the bytes of one band; a {@code GS v 0} band is 8 bytes of
+     *         command and 24 rows of {@code width} dots rounded up to bytes.
+     */
+    public static int bandSize(int width, Command command) {
+        return command == Command.RASTER ? 8 + BAND_HEIGHT * ((width + 7) / 8) : bandSize(width);
+    }
+
+    /**
+     * @return the dot width of an encoded {@code ESC *} job, read from its first band.
+     */
+    public static int widthOf(byte[] job) {
+        if (job.length < HEADER_SIZE + 5 + TRAILER_SIZE) {
+            return 0;
+        }
+        return (job[HEADER_SIZE + 3] & 0xff) | (job[HEADER_SIZE + 4] & 0xff) << 8;
+    }
+
+    /**
+     * @return the size of the bands in {@code job}, or 0 if it is not a job
+     *         made by this class, e.g. a printer-rendered QR code.
+     */
+    public static int bandSizeOf(byte[] job) {
+        return bandSizeOf(job, job.length);
+    }
+
+    /**
+     * As {@link #bandSizeOf(byte[])} for a job in the first {@code length}
+     * bytes of {@code job}.
+     */
+    public static int bandSizeOf(byte[] job, int length) {
+        if (length < HEADER_SIZE + 8 + TRAILER_SIZE) {
+            return 0;
+        }
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            if (job[i] != HEADER[i]) {
+                return 0;
+            }
+        }
+        int at = HEADER_SIZE;
+        int band;
+        if (job[at] == ESC && job[at + 1] == 0x2A && job[at + 2] == 33) {
+            band = bandSize((job[at + 3] & 0xff) | (job[at + 4] & 0xff) << 8);
+        } else if (job[at] == GS && job[at + 1] == 0x76 && job[at + 2] == 0x30) {
+            band = 8 + BAND_HEIGHT * ((job[at + 4] & 0xff) | (job[at + 5] & 0xff) << 8);
+        } else {
+            return 0;
+        }
+        return (length - HEADER_SIZE - TRAILER_SIZE) % band == 0 ? band : 0;
+    }
+
+    /**
+     * @param dots {@code width * height} bytes, non-zero where a dot is printed.
+     * @return the {@link Command#BIT_IMAGE} job in a new array.
+     */
+    public static byte[] encode(byte[] dots, int width, int height) {
+        byte[] out = new byte[encodedSize(width, height)];
+        encode(dots, width, height, Command.BIT_IMAGE, out, Cancellation.NONE);
+        return out;
+    }
+
+    /**
+     * Encodes into the start of {@code out}, which must hold
+     * {@link #encodedSize(int, int, Command)} bytes.
+     *
+     * @return the length of the job.
+     * @throws java.util.concurrent.CancellationException between bands once
+     *         {@code cancellation} is cancelled.
+     */
+    public static int encode(byte[] dots, int width, int height, Command command, byte[] out,
+            Cancellation cancellation) {
+        if (command == Command.RASTER) {
+            return encodeRaster(dots, width, height, out, cancellation);
+        }
+        System.arraycopy(HEADER, 0, out, 0, HEADER.length);
+        int pos = HEADER.length;
+        for (int y = 0; y < height; y += BAND_HEIGHT) {
+            Cancellation.throwIfCancelled(cancellation);
+            out[pos++] = ESC;
+            out[pos++] = 0x2A;
+            out[pos++] = 33;
+            out[pos++] = (byte) width;
+            out[pos++] = (byte) (width >> 8);
+            int rows = Math.min(BAND_HEIGHT, height - y);
+            for (int x = 0; x < width; x++) {
+                int column = 0;
+                for (int r = 0, i = y * width + x; r < rows; r++, i += width) {
+                    if (dots[i] != 0) {
+                        column |= 0x800000 >>> r;
+                    }
+                }
+                out[pos++] = (byte) (column >> 16);
+                out[pos++] = (byte) (column >> 8);
+                out[pos++] = (byte) column;
+            }
+            out[pos++] = LF;
+        }
+        System.arraycopy(TRAILER, 0, out, pos, TRAILER.length);
+        return pos + TRAILER.length;
+    }
+
+    private static int encodeRaster(byte[] dots, int width, int height, byte[] out, Cancellation cancellation) {
+        int rowBytes = (width + 7) / 8;
+        int size = encodedSize(width, height, Command.RASTER);
+        // rows are built by setting bits, and blank rows are left as they are
+        Arrays.fill(out, HEADER.length, size - TRAILER.length, (byte) 0);
+        System.arraycopy(HEADER, 0, out, 0, HEADER.length);
+        int pos = HEADER.length;
+        for (int y = 0; y < height; y += BAND_HEIGHT) {
+            Cancellation.throwIfCancelled(cancellation);
+            out[pos++] = GS;
+            out[pos++] = 0x76;
+            out[pos++] = 0x30;
+            out[pos++] = 0;
+            out[pos++] = (byte) rowBytes;
+            out[pos++] = (byte) (rowBytes >> 8);
+            out[pos++] = BAND_HEIGHT;
+            out[pos++] = 0;
+            int rows = Math.min(BAND_HEIGHT, height - y);
+            for (int r = 0; r < rows; r++) {
+                int i = (y + r) * width;
+                for (int x = 0; x < width; x++, i++) {
+                    if (dots[i] != 0) {
+                        out[pos + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                    }
+                }
+                pos += rowBytes;
+            }
+            pos += (BAND_HEIGHT - rows) * rowBytes;
+        }
+        System.arraycopy(TRAILER, 0, out, pos, TRAILER.length);
+        return size;
+    }
+}
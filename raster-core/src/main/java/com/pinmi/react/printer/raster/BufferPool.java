@@ -0,0 +1,294 @@
+package com.pinmi.react.printer.raster;
+
+import java.util.ArrayDeque;
+
+/**
+ * Reuses the large arrays an image job needs, so a burst of prints does not
+ * leave a trail of garbage behind it. Arrays come in power-of-two size
+ * classes from {@link #MIN_CLASS} up to {@link #MAX_CLASS} elements; a
+ * request gets the smallest class that holds it, so the array is usually
+ * longer than asked for. Contents are undefined: callers clear what they
+ * rely on. Larger requests, and arrays returned once the pool holds
+ * {@code maxRetainedBytes}, are simply left to the garbage collector.
+ * <p>
+ * The pool counts the arrays of each size class it has out, and refuses a
+ * release its class has none out for, or of an array it already holds: a
+ * second release would otherwise give the same array to two jobs. It keeps
+ * no reference to an array it handed out, so one that is never released is
+ * only a missed reuse, left to the garbage collector. Every array handed out
+ * should still be released, failures included.
+ * <p>
+ * Thread-safe; {@link #SHARED} serves all adapters.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class BufferPool {
+
+    public static final int MIN_CLASS = 1 << 10;
+    public static final int MAX_CLASS = 1 << 24;
+    /** per type and size class */
+    private static final int MAX_PER_CLASS = 4;
+
+    /**
+     * The first {@link #length} bytes of {@link #array}, which may belong to
+     * a pool. {@link #release()} it once written.
+     */
+    public static final class Bytes {
+        public final byte[] array;
+        public final int length;
+        private final BufferPool mPool;
+        private boolean mReleased;
+
+        Bytes(byte[] array, int length, BufferPool pool) {
+            this.array = array;
+            this.length = length;
+            this.mPool = pool;
+        }
+
+        /**
+         * @return all of {@code array}, owned by no pool.
+         */
+        public static Bytes wrap(byte[] array) {
+            return new Bytes(array, array.length, null);
+        }
+
+        /**
+         * Hands the array back; it must not be used afterwards. Releasing twice
+         * does nothing: only the first release reaches the pool.
+         */
+        public void release() {
+            BufferPool pool;
+            synchronized (this) {
+                if (mReleased) {
+                    return;
+                }
+                mReleased = true;
+                pool = mPool;
+            }
+            if (pool != null) {
+                pool.release(array);
+            }
+        }
+    }
+
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_CLASS)
+            - Integer.numberOfTrailingZeros(MIN_CLASS) + 1;
+
+    // after CLASSES, which the constructor needs
+    public static final BufferPool SHARED = new BufferPool(32 << 20);
+
+    private final long maxRetainedBytes;
+    private final ArrayDeque<byte[]>[] mBytes = newClasses();
+    private final ArrayDeque<int[]>[] mInts = newClasses();
+    private final ArrayDeque<long[]>[] mLongs = newClasses();
+    // arrays of each size class handed out and not yet released
+    private final int[] mLentBytes = new int[CLASSES];
+    private final int[] mLentInts = new int[CLASSES];
+    private final int[] mLentLongs = new int[CLASSES];
+    private long mRetainedBytes;
+    private long mAllocations;
+
+    public BufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    // Java has no generic array creation; every element is an ArrayDeque<T>
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <T> ArrayDeque<T>[] newClasses() {
+        ArrayDeque<T>[] classes = new ArrayDeque[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            classes[i] = new ArrayDeque<>(MAX_PER_CLASS);
+        }
+        return classes;
+    }
+
+    /**
+     * @return the size class holding {@code length} elements, or -1 if it is
+     *         too large to pool.
+     */
+    static int classOf(int length) {
+        if (length > MAX_CLASS) {
+            return -1;
+        }
+        int size = Math.max(MIN_CLASS, length);
+        // round up to a power of two
+        int bits = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return bits - Integer.numberOfTrailingZeros(MIN_CLASS);
+    }
+
+    private static int classSize(int sizeClass) {
+        return MIN_CLASS << sizeClass;
+    }
+
+    /**
+     * @return an array of at least {@code length} bytes.
+     */
+    public byte[] bytes(int length) {
+        int sizeClass = classOf(length);
+        byte[] array;
+        synchronized (this) {
+            if (sizeClass >= 0) {
+                mLentBytes[sizeClass]++;
+                array = mBytes[sizeClass].pollFirst();
+                if (array != null) {
+                    mRetainedBytes -= array.length;
+                    return array;
+                }
+            }
+            mAllocations++;
+        }
+        return new byte[sizeClass >= 0 ? classSize(sizeClass) : length];
+    }
+
+    /**
+     * @return an array of at least {@code length} ints.
+     */
+    public int[] ints(int length) {
+        int sizeClass = classOf(length);
+        int[] array;
+        synchronized (this) {
+            if (sizeClass >= 0) {
+                mLentInts[sizeClass]++;
+                array = mInts[sizeClass].pollFirst();
+                if (array != null) {
+                    mRetainedBytes -= 4L * array.length;
+                    return array;
+                }
+            }
+            mAllocations++;
+        }
+        return new int[sizeClass >= 0 ? classSize(sizeClass) : length];
+    }
+
+    /**
+     * @return an array of at least {@code length} longs.
+     */
+    public long[] longs(int length) {
+        int sizeClass = classOf(length);
+        long[] array;
+        synchronized (this) {
+            if (sizeClass >= 0) {
+                mLentLongs[sizeClass]++;
+                array = mLongs[sizeClass].pollFirst();
+                if (array != null) {
+                    mRetainedBytes -= 8L * array.length;
+                    return array;
+                }
+            }
+            mAllocations++;
+        }
+        return new long[sizeClass >= 0 ? classSize(sizeClass) : length];
+    }
+
+    /**
+     * Wraps the first {@code length} bytes of an array from {@link #bytes(int)},
+     * which the lease now releases.
+     *
+     * @throws IllegalStateException if no array of its size class is out, or
+     *         the pool already holds {@code array}.
+     */
+    public Bytes lease(byte[] array, int length) {
+        int sizeClass = pooledClass(array.length);
+        if (sizeClass >= 0) {
+            synchronized (this) {
+                checkLent(mLentBytes[sizeClass], mBytes[sizeClass], array);
+            }
+        }
+        return new Bytes(array, length, this);
+    }
+
+    private static void checkLent(int lent, ArrayDeque<?> pooled, Object array) {
+        if (lent == 0 || contains(pooled, array)) {
+            throw new IllegalStateException("array was not handed out by this pool, or was already released");
+        }
+    }
+
+    private static boolean contains(ArrayDeque<?> pooled, Object array) {
+        // at most MAX_PER_CLASS, and by identity rather than equals
+        for (Object each : pooled) {
+            if (each == array) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keeps {@code array} for reuse if it is of a size class and there is
+     * room; otherwise leaves it to the garbage collector.
+     *
+     * @throws IllegalStateException if no array of its size class is out, or
+     *         the pool already holds {@code array}.
+     */
+    public synchronized void release(byte[] array) {
+        int sizeClass = pooledClass(array.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        checkLent(mLentBytes[sizeClass], mBytes[sizeClass], array);
+        mLentBytes[sizeClass]--;
+        if (keep(mBytes[sizeClass].size(), array.length)) {
+            mBytes[sizeClass].addFirst(array);
+        }
+    }
+
+    public synchronized void release(int[] array) {
+        int sizeClass = pooledClass(array.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        checkLent(mLentInts[sizeClass], mInts[sizeClass], array);
+        mLentInts[sizeClass]--;
+        if (keep(mInts[sizeClass].size(), 4L * array.length)) {
+            mInts[sizeClass].addFirst(array);
+        }
+    }
+
+    public synchronized void release(long[] array) {
+        int sizeClass = pooledClass(array.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        checkLent(mLentLongs[sizeClass], mLongs[sizeClass], array);
+        mLentLongs[sizeClass]--;
+        if (keep(mLongs[sizeClass].size(), 8L * array.length)) {
+            mLongs[sizeClass].addFirst(array);
+        }
+    }
+
+    private static int pooledClass(int length) {
+        int sizeClass = classOf(length);
+        return sizeClass >= 0 && classSize(sizeClass) == length ? sizeClass : -1;
+    }
+
+    private boolean keep(int pooled, long bytes) {
+        if (pooled >= MAX_PER_CLASS || mRetainedBytes + bytes > maxRetainedBytes) {
+            return false;
+        }
+        mRetainedBytes += bytes;
+        return true;
+    }
+
+    /**
+     * @return arrays handed out that were not reused, since this pool was made.
+     */
+    public synchronized long getAllocations() {
+        return mAllocations;
+    }
+
+    public synchronized long getRetainedBytes() {
+        return mRetainedBytes;
+    }
+
+    /**
+     * Drops every pooled array, e.g. when the system is low on memory.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < CLASSES; i++) {
+            mBytes[i].clear();
+            mInts[i].clear();
+            mLongs[i].clear();
+        }
+        mRetainedBytes = 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pinmi.react.printer.raster;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Polled by the encoders between stages and between bands, so a print job
+ * that is no longer wanted stops within one band instead of finishing the
+ * whole image.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public interface Cancellation {
+
+    Cancellation NONE = new Cancellation() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    boolean isCancelled();
+
+    /**
+     * @throws CancellationException if {@code cancellation} was cancelled.
+     */
+    static void throwIfCancelled(Cancellation cancellation) {
+        if (cancellation.isCancelled()) {
+            throw new CancellationException("job cancelled");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.pinmi.react.printer.raster;
+
+import java.util.Arrays;
+
+/**
+ * Floyd-Steinberg error diffusion, for photos and logos with gradients that
+ * a plain {@link Threshold} flattens. Reads the gray levels from
+ * {@link Resize#areaGray} and produces the same one-byte-per-pixel dots.
+ * Used instead of the threshold for printers whose profile asks for it.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Dither {
+
+    private Dither() {
+    }
+
+    /**
+     * @param gray levels from {@link Resize#areaGray}.
+     */
+    public static byte[] floydSteinberg(byte[] gray, int width, int height, int level) {
+        byte[] dots = new byte[width * height];
+        floydSteinberg(gray, width, height, level, dots, BufferPool.SHARED);
+        return dots;
+    }
+
+    /**
+     * @param dots may be {@code gray} itself.
+     */
+    public static void floydSteinberg(byte[] gray, int width, int height, int level, byte[] dots,
+            BufferPool pool) {
+        // error carried into the current and the next row, offset by one so x - 1 and x + 1 stay in range
+        int[] current = pool.ints(width + 2);
+        int[] next = pool.ints(width + 2);
+        try {
+            Arrays.fill(current, 0, width + 2, 0);
+            Arrays.fill(next, 0, width + 2, 0);
+            for (int y = 0; y < height; y++) {
+                int row = y * width;
+                for (int x = 0; x < width; x++) {
+                    int value = (gray[row + x] & 0xff) + (current[x + 1] >> 4);
+                    int error;
+                    if (value < level) {
+                        dots[row + x] = 1;
+                        error = value;
+                    } else {
+                        dots[row + x] = 0;
+                        error = value - 255;
+                    }
+                    current[x + 2] += error * 7;
+                    next[x] += error * 3;
+                    next[x + 1] += error * 5;
+                    next[x + 2] += error;
+                }
+                int[] swap = current;
+                current = next;
+                next = swap;
+                Arrays.fill(next, 0, width + 2, 0);
+            }
+        } finally {
+            pool.release(current);
+            pool.release(next);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.pinmi.react.printer.raster;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Renders QR codes straight to dots, without going through an image.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Qr {
+
+    private static final Map<EncodeHintType, ?> HINTS = Collections.singletonMap(EncodeHintType.MARGIN, 1);
+
+    private Qr() {
+    }
+
+    /**
+     * @return {@code size * size} dots with a one-module quiet zone, or null
+     *         if {@code content} does not fit in a QR code.
+     */
+    public static byte[] encode(String content, int size) {
+        byte[] dots = new byte[size * size];
+        return encode(content, size, dots) ? dots : null;
+    }
+
+    /**
+     * As {@link #encode(String, int)}, into the start of {@code dots}.
+     *
+     * @return false if {@code content} does not fit in a QR code.
+     */
+    public static boolean encode(String content, int size, byte[] dots) {
+        BitMatrix matrix;
+        try {
+            matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, HINTS);
+        } catch (WriterException | IllegalArgumentException e) {
+            return false;
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                dots[y * size + x] = matrix.get(x, y) ? (byte) 1 : 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the modules per side of the QR code {@link #encode(String, int)}
+     *         draws for {@code content}, without the quiet zone, or 0 if it
+     *         does not fit.
+     */
+    public static int modules(String content) {
+        if (content == null || content.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Encoder.encode(content, ErrorCorrectionLevel.L).getMatrix().getWidth();
+        } catch (WriterException | IllegalArgumentException e) {
+            return 0;
+        }
+    }
+}
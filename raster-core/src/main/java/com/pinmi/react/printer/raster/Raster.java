@@ -0,0 +1,100 @@
+package com.pinmi.react.printer.raster;
+
+/**
+ * The image and QR print paths shared by all adapters: resize, threshold and
+ * band encoding over plain pixel buffers, so they run and can be measured on
+ * any JVM. The Android side only has to copy a {@code Bitmap} into an
+ * {@code int[]}.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Raster {
+
+    private Raster() {
+    }
+
+    /**
+     * @param source  the {@code width * height} pixels, read a row at a time.
+     * @param maxSize the width is scaled down to this many dots, or to the
+     *                nearest whole byte below.
+     * @param dither  {@link Dither error diffusion} instead of a plain
+     *                {@link Threshold}, for photos and gradients.
+     * @return the {@link BitImage} job, with every buffer, the job included,
+     *         taken from {@code pool}; {@link BufferPool.Bytes#release()
+     *         release} it once written.
+     * @throws java.util.concurrent.CancellationException between stages and
+     *         bands once {@code cancellation} is cancelled.
+     * @see Resize#fitWidth
+     */
+    public static BufferPool.Bytes encodeImage(Resize.RowSource source, int width, int height, int maxSize,
+            BitImage.Command command, boolean dither, BufferPool pool, Cancellation cancellation) {
+        int[] size = Resize.fitWidth(width, height, maxSize);
+        int dotCount = size[0] * size[1];
+        byte[] dots = pool.bytes(dotCount);
+        try {
+            Resize.areaGray(source, width, height, size[0], size[1], dots, pool, cancellation);
+            Cancellation.throwIfCancelled(cancellation);
+            if (dither) {
+                Dither.floydSteinberg(dots, size[0], size[1], Threshold.DEFAULT_LEVEL, dots, pool);
+            } else {
+                Threshold.applyGray(dots, dotCount, Threshold.DEFAULT_LEVEL, dots);
+            }
+            return encodeBands(dots, size[0], size[1], command, pool, cancellation);
+        } finally {
+            pool.release(dots);
+        }
+    }
+
+    /**
+     * @return the job, or null if {@code content} does not fit in a QR code;
+     *         {@link BufferPool.Bytes#release() release} it once written.
+     */
+    public static BufferPool.Bytes encodeQr(String content, int size, BitImage.Command command, BufferPool pool,
+            Cancellation cancellation) {
+        byte[] dots = pool.bytes(size * size);
+        try {
+            if (!Qr.encode(content, size, dots)) {
+                return null;
+            }
+            return encodeBands(dots, size, size, command, pool, cancellation);
+        } finally {
+            pool.release(dots);
+        }
+    }
+
+    /**
+     * @param moduleWidth dots per module, narrowed to fit {@code maxWidth}
+     *                    (0 for no limit) down to one dot.
+     * @return the job, or null if {@code format} cannot hold {@code content}
+     *         or it is wider than {@code maxWidth} even at one dot per module;
+     *         {@link BufferPool.Bytes#release() release} it once written.
+     */
+    public static BufferPool.Bytes encodeBarcode(String content, Barcode.Format format, int moduleWidth, int height,
+            int maxWidth, BitImage.Command command, BufferPool pool, Cancellation cancellation) {
+        int modules = Barcode.width(content, format, 1);
+        if (modules == 0 || (maxWidth > 0 && modules > maxWidth)) {
+            return null;
+        }
+        int module = Math.max(1, maxWidth > 0 ? Math.min(moduleWidth, maxWidth / modules) : moduleWidth);
+        int width = modules * module;
+        byte[] dots = pool.bytes(width * height);
+        try {
+            Barcode.encode(content, format, module, height, dots);
+            return encodeBands(dots, width, height, command, pool, cancellation);
+        } finally {
+            pool.release(dots);
+        }
+    }
+
+    private static BufferPool.Bytes encodeBands(byte[] dots, int width, int height, BitImage.Command command,
+            BufferPool pool, Cancellation cancellation) {
+        byte[] out = pool.bytes(BitImage.encodedSize(width, height, command));
+        try {
+            int length = BitImage.encode(dots, width, height, command, out, cancellation);
+            return pool.lease(out, length);
+        } catch (RuntimeException e) {
+            pool.release(out);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.pinmi.react.printer.raster;
+
+import java.util.Arrays;
+
+/**
+ * Scales ARGB pixel buffers ({@code int[]}, row-major, {@code width * height})
+ * down with {@link #areaGray}, which reads the source a row at a time and
+ * produces grayscale directly.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Resize {
+
+    /** rows checked between cancellation polls */
+    private static final int ROWS_PER_POLL = 64;
+
+    /**
+     * Supplies source pixels one row at a time, so a caller holding them in
+     * something other than an {@code int[]} never needs a full-size copy.
+     */
+    public interface RowSource {
+        /**
+         * @param argb receives the {@code width} pixels of row {@code y}.
+         */
+        void read(int y, int[] argb);
+    }
+
+    private Resize() {
+    }
+
+    public static RowSource rows(final int[] argb, final int width) {
+        return new RowSource() {
+            @Override
+            public void read(int y, int[] row) {
+                System.arraycopy(argb, y * width, row, 0, width);
+            }
+        };
+    }
+
+    /**
+     * Size of an image scaled down to at most {@code maxWidth} dots wide,
+     * keeping its aspect ratio. The width is rounded down to whole bytes of 8
+     * dots, so no band or raster row ends in padding; only images narrower
+     * than one byte keep an odd width. Never scales up.
+     *
+     * @return {@code {width, height}}, never smaller than 1x1.
+     */
+    public static int[] fitWidth(int width, int height, int maxWidth) {
+        int dstWidth = Math.min(width, maxWidth);
+        if (dstWidth >= 8) {
+            dstWidth -= dstWidth % 8;
+        }
+        dstWidth = Math.max(1, dstWidth);
+        if (dstWidth == width) {
+            return new int[] { width, height };
+        }
+        int dstHeight = (int) (((long) height * dstWidth + width / 2) / width);
+        return new int[] { dstWidth, Math.max(1, dstHeight) };
+    }
+
+    /**
+     * Area-averaging downscale to 8-bit grayscale, in integer math: every
+     * destination pixel is the Rec. 601 luma of the source pixels it covers,
+     * weighted by how much of each it covers. Pixels that are not fully
+     * opaque count as white, as {@link Threshold#isDark} treats them. Only
+     * two output rows of accumulators and one source row are held at a time.
+     *
+     * @return {@code dstWidth * dstHeight} gray levels, 0 black to 255 white.
+     * @throws IllegalArgumentException if either side would grow.
+     * @throws java.util.concurrent.CancellationException once cancelled.
+     */
+    public static byte[] areaGray(RowSource source, int srcWidth, int srcHeight, int dstWidth, int dstHeight,
+            Cancellation cancellation) {
+        byte[] gray = new byte[dstWidth * dstHeight];
+        areaGray(source, srcWidth, srcHeight, dstWidth, dstHeight, gray, BufferPool.SHARED, cancellation);
+        return gray;
+    }
+
+    /**
+     * As {@link #areaGray(RowSource, int, int, int, int, Cancellation)}, into
+     * the start of {@code gray} and with its working buffers from {@code pool}.
+     */
+    public static void areaGray(RowSource source, int srcWidth, int srcHeight, int dstWidth, int dstHeight,
+            byte[] gray, BufferPool pool, Cancellation cancellation) {
+        if (dstWidth < 1 || dstHeight < 1 || dstWidth > srcWidth || dstHeight > srcHeight) {
+            throw new IllegalArgumentException(
+                    "cannot scale " + srcWidth + "x" + srcHeight + " down to " + dstWidth + "x" + dstHeight);
+        }
+        int[] column = pool.ints(srcWidth);
+        int[] columnWeight = pool.ints(srcWidth);
+        int[] row = pool.ints(srcHeight);
+        int[] rowWeight = pool.ints(srcHeight);
+        int[] line = pool.ints(srcWidth);
+        // one source row, summed across: luma * srcWidth per destination column at most
+        int[] across = pool.ints(dstWidth + 1);
+        long[] current = pool.longs(dstWidth);
+        long[] next = pool.longs(dstWidth);
+        try {
+            areaGrid(srcWidth, dstWidth, column, columnWeight);
+            areaGrid(srcHeight, dstHeight, row, rowWeight);
+            Arrays.fill(current, 0, dstWidth, 0);
+            Arrays.fill(next, 0, dstWidth, 0);
+            long total = (long) srcWidth * srcHeight;
+            int dstY = 0;
+            for (int y = 0; y < srcHeight; y++) {
+                if (y % ROWS_PER_POLL == 0) {
+                    Cancellation.throwIfCancelled(cancellation);
+                }
+                source.read(y, line);
+                Arrays.fill(across, 0, dstWidth + 1, 0);
+                for (int x = 0; x < srcWidth; x++) {
+                    int pixel = line[x];
+                    int luma = (pixel >>> 24) == 0xff ? Threshold.luminance(pixel) : 255;
+                    int weight = columnWeight[x];
+                    if (weight == dstWidth) {
+                        across[column[x]] += luma * dstWidth;
+                    } else {
+                        // straddles two destination columns
+                        across[column[x]] += luma * weight;
+                        across[column[x] + 1] += luma * (dstWidth - weight);
+                    }
+                }
+                if (row[y] > dstY) {
+                    store(current, dstWidth, gray, dstY++ * dstWidth, total);
+                    long[] swap = current;
+                    current = next;
+                    next = swap;
+                    Arrays.fill(next, 0, dstWidth, 0);
+                }
+                int weight = rowWeight[y];
+                for (int x = 0; x < dstWidth; x++) {
+                    current[x] += (long) across[x] * weight;
+                }
+                int rest = dstHeight - weight;
+                if (rest > 0) {
+                    for (int x = 0; x < dstWidth; x++) {
+                        next[x] += (long) across[x] * rest;
+                    }
+                }
+            }
+            store(current, dstWidth, gray, dstY * dstWidth, total);
+        } finally {
+            pool.release(column);
+            pool.release(columnWeight);
+            pool.release(row);
+            pool.release(rowWeight);
+            pool.release(line);
+            pool.release(across);
+            pool.release(current);
+            pool.release(next);
+        }
+    }
+
+    /**
+     * Destination pixel {@code d} spans {@code [d * srcSize, (d + 1) * srcSize)}
+     * and source pixel {@code i} spans {@code [i * dstSize, (i + 1) * dstSize)},
+     * so every overlap is a whole number of units. When scaling down a source
+     * pixel falls in at most two destination pixels: {@code first[i]} gets
+     * {@code weight[i]} units and the next one the remaining
+     * {@code dstSize - weight[i]}.
+     */
+    private static void areaGrid(int srcSize, int dstSize, int[] first, int[] weight) {
+        for (int i = 0; i < srcSize; i++) {
+            long start = (long) i * dstSize;
+            long end = start + dstSize;
+            long d = start / srcSize;
+            first[i] = (int) d;
+            weight[i] = (int) (Math.min(end, (d + 1) * srcSize) - start);
+        }
+    }
+
+    private static void store(long[] sums, int width, byte[] gray, int offset, long total) {
+        long half = total / 2;
+        for (int x = 0; x < width; x++) {
+            gray[offset + x] = (byte) ((sums[x] + half) / total);
+        }
+    }
+}
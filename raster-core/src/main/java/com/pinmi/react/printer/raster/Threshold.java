@@ -0,0 +1,47 @@
+package com.pinmi.react.printer.raster;
+
+/**
+ * Turns ARGB pixels into dots: one byte per pixel, 1 where the head burns.
+ *
+ * @author Ordovez, Earl Romeo
+ */
+public final class Threshold {
+
+    /** Pixels with a luminance below this level are printed. */
+    public static final int DEFAULT_LEVEL = 127;
+
+    private Threshold() {
+    }
+
+    /**
+     * Rec. 601 luma, 0-255, in integer math.
+     */
+    public static int luminance(int argb) {
+        return (299 * ((argb >> 16) & 0xff) + 587 * ((argb >> 8) & 0xff) + 114 * (argb & 0xff)) / 1000;
+    }
+
+    /**
+     * Pixels that are not fully opaque are never printed.
+     */
+    public static boolean isDark(int argb, int level) {
+        return (argb >>> 24) == 0xff && luminance(argb) < level;
+    }
+
+    /**
+     * @param gray levels from {@link Resize#areaGray}.
+     */
+    public static byte[] applyGray(byte[] gray, int level) {
+        byte[] dots = new byte[gray.length];
+        applyGray(gray, gray.length, level, dots);
+        return dots;
+    }
+
+    /**
+     * @param dots may be {@code gray} itself.
+     */
+    public static void applyGray(byte[] gray, int length, int level, byte[] dots) {
+        for (int i = 0; i < length; i++) {
+            dots[i] = (gray[i] & 0xff) < level ? (byte) 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pinmi.react.printer.raster;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BarcodeTest {
+
+    @Test
+    public void checksTheCheckDigit() {
+        assertTrue(Barcode.isValid("96385074", Barcode.Format.EAN8));
+        assertFalse(Barcode.isValid("96385075", Barcode.Format.EAN8));
+        assertFalse(Barcode.isValid("ABC", Barcode.Format.EAN13));
+        assertFalse(Barcode.isValid("", Barcode.Format.CODE128));
+        assertTrue(Barcode.isValid("ORDER-42", Barcode.Format.CODE128));
+    }
+
+    @Test
+    public void drawsEveryRowTheSameWithTheQuietZoneBlank() {
+        // 67 modules of EAN-8 and 10 on each side
+        assertEquals(87, Barcode.width("96385074", Barcode.Format.EAN8, 1));
+        int width = Barcode.width("96385074", Barcode.Format.EAN8, 3);
+        assertEquals(3 * 87, width);
+        byte[] dots = new byte[width * 4];
+        assertTrue(Barcode.encode("96385074", Barcode.Format.EAN8, 3, 4, dots));
+        for (int x = 0; x < 30; x++) {
+            assertEquals(0, dots[x]);
+            assertEquals(0, dots[width - 1 - x]);
+        }
+        // the start guard: bar, space, bar, one module each
+        assertEquals(1, dots[30]);
+        assertEquals(1, dots[32]);
+        assertEquals(0, dots[33]);
+        assertEquals(1, dots[36]);
+        for (int y = 1; y < 4; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(dots[x], dots[y * width + x]);
+            }
+        }
+    }
+
+    @Test
+    public void narrowsTheModuleToFitTheWidth() {
+        BufferPool pool = new BufferPool(0);
+        BufferPool.Bytes wide = Raster.encodeBarcode("96385074", Barcode.Format.EAN8, 4, 24, 0,
+                BitImage.Command.RASTER, pool, Cancellation.NONE);
+        BufferPool.Bytes narrow = Raster.encodeBarcode("96385074", Barcode.Format.EAN8, 4, 24, 200,
+                BitImage.Command.RASTER, pool, Cancellation.NONE);
+        // GS v 0 carries the width in bytes: 4 * 87 dots, then 2 * 87 once capped at 200
+        assertEquals((4 * 87 + 7) / 8, wide.array[BitImage.HEADER_SIZE + 4]);
+        assertEquals((2 * 87 + 7) / 8, narrow.array[BitImage.HEADER_SIZE + 4]);
+        assertNull(Raster.encodeBarcode("96385074", Barcode.Format.EAN8, 4, 24, 80,
+                BitImage.Command.RASTER, pool, Cancellation.NONE));
+        assertNull(Raster.encodeBarcode("96385075", Barcode.Format.EAN8, 4, 24, 0,
+                BitImage.Command.RASTER, pool, Cancellation.NONE));
+    }
+}
@@ -0,0 +1,160 @@
+package com.pinmi.react.printer.raster;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class BitImageTest {
+
+    /**
+     * The encoder the adapters used before, slice by slice over an {@code int[][]}.
+     */
+    private static byte[] legacyEncode(byte[] dots, int width, int height) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[] { 0x1B, 0x33, 24, 0x1B, 0x61, 0x31 }, 0, 6);
+        for (int y = 0; y < height; y += 24) {
+            out.write(new byte[] { 0x1B, 0x2A, 33, (byte) (0x00ff & width), (byte) ((0xff00 & width) >> 8) }, 0, 5);
+            for (int x = 0; x < width; x++) {
+                for (int yy = y, i = 0; yy < y + 24 && i < 3; yy += 8, i++) {
+                    byte slice = 0;
+                    for (int b = 0; b < 8; b++) {
+                        int yyy = yy + b;
+                        if (yyy < height && dots[yyy * width + x] != 0) {
+                            slice |= (byte) (1 << (7 - b));
+                        }
+                    }
+                    out.write(slice);
+                }
+            }
+            out.write(0x0A);
+        }
+        out.write(new byte[] { 0x1B, 0x33, 32, 0x0A }, 0, 4);
+        return out.toByteArray();
+    }
+
+    private static byte[] randomDots(Random random, int width, int height) {
+        byte[] dots = new byte[width * height];
+        for (int i = 0; i < dots.length; i++) {
+            dots[i] = (byte) (random.nextBoolean() ? 1 : 0);
+        }
+        return dots;
+    }
+
+    @Test
+    public void matchesTheLegacyEncoder() {
+        Random random = new Random(42);
+        int[][] sizes = { { 1, 1 }, { 8, 24 }, { 200, 150 }, { 384, 47 }, { 576, 600 } };
+        for (int[] size : sizes) {
+            byte[] dots = randomDots(random, size[0], size[1]);
+            assertArrayEquals(size[0] + "x" + size[1], legacyEncode(dots, size[0], size[1]),
+                    BitImage.encode(dots, size[0], size[1]));
+        }
+    }
+
+    @Test
+    public void sizesTheBufferExactly() {
+        byte[] job = BitImage.encode(new byte[300 * 25], 300, 25);
+        assertEquals(BitImage.encodedSize(300, 25), job.length);
+        assertEquals(6 + 2 * (5 + 900 + 1) + 4, job.length);
+        // width 300 = 0x012C, little endian
+        assertEquals(0x2C, job[9] & 0xff);
+        assertEquals(0x01, job[10] & 0xff);
+    }
+
+    @Test
+    public void putsTheTopDotInTheHighBit() {
+        byte[] dots = new byte[2 * 24];
+        dots[0] = 1; // x 0, row 0
+        dots[2 * 23 + 1] = 1; // x 1, row 23
+        byte[] job = BitImage.encode(dots, 2, 24);
+        assertEquals((byte) 0x80, job[11]);
+        assertEquals(0, job[12]);
+        assertEquals(0, job[13]);
+        assertEquals(0, job[14]);
+        assertEquals(0, job[15]);
+        assertEquals(0x01, job[16]);
+    }
+
+    @Test
+    public void describesItsLayout() {
+        byte[] job = BitImage.encode(new byte[300 * 50], 300, 50);
+        assertEquals(300, BitImage.widthOf(job));
+        assertEquals(BitImage.HEADER_SIZE + 3 * BitImage.bandSize(300) + BitImage.TRAILER_SIZE, job.length);
+        // every band ends in a line feed
+        for (int band = 1; band <= 3; band++) {
+            assertEquals(0x0A, job[BitImage.HEADER_SIZE + band * BitImage.bandSize(300) - 1]);
+        }
+    }
+
+    @Test
+    public void scalesImagesToWholeBytesOfTheGivenWidth() {
+        int[] photo = new int[1000 * 700];
+        Arrays.fill(photo, 0xFF000000);
+        BufferPool.Bytes job = Raster.encodeImage(Resize.rows(photo, 1000), 1000, 700, 580,
+                BitImage.Command.BIT_IMAGE, false, BufferPool.SHARED, Cancellation.NONE);
+        assertEquals(576, BitImage.widthOf(job.array));
+        // 700 * 576 / 1000 rows in 24-row bands
+        assertEquals(BitImage.HEADER_SIZE + 17 * BitImage.bandSize(576) + BitImage.TRAILER_SIZE, job.length);
+        job.release();
+    }
+
+    @Test
+    public void stopsBetweenBandsOnceCancelled() {
+        final int[] polls = { 0 };
+        Cancellation afterTwoBands = new Cancellation() {
+            @Override
+            public boolean isCancelled() {
+                return ++polls[0] > 2;
+            }
+        };
+        try {
+            BitImage.encode(new byte[8 * 240], 8, 240, BitImage.Command.BIT_IMAGE,
+                    new byte[BitImage.encodedSize(8, 240)], afterTwoBands);
+            fail("expected the encoder to stop");
+        } catch (CancellationException expected) {
+        }
+        assertEquals(3, polls[0]);
+    }
+
+    @Test
+    public void encodesRasterBandsRowByRow() {
+        byte[] dots = new byte[10 * 30];
+        dots[0] = 1; // x 0, row 0
+        dots[9] = 1; // x 9, row 0: second byte of the row
+        dots[10 * 29 + 3] = 1; // x 3, row 29: second band
+        byte[] job = raster(dots, 10, 30);
+        int band = BitImage.bandSize(10, BitImage.Command.RASTER);
+        assertEquals(8 + 24 * 2, band);
+        assertEquals(BitImage.encodedSize(10, 30, BitImage.Command.RASTER), job.length);
+        assertEquals(BitImage.HEADER_SIZE + 2 * band + BitImage.TRAILER_SIZE, job.length);
+        int at = BitImage.HEADER_SIZE;
+        assertArrayEquals(new byte[] { 0x1D, 0x76, 0x30, 0, 2, 0, 24, 0 }, Arrays.copyOfRange(job, at, at + 8));
+        assertEquals((byte) 0x80, job[at + 8]);
+        assertEquals(0x40, job[at + 9]);
+        // row 29 is row 5 of the second band
+        assertEquals(0x10, job[at + band + 8 + 5 * 2]);
+        assertEquals(band, BitImage.bandSizeOf(job));
+    }
+
+    @Test
+    public void findsTheBandsOfEitherCommand() {
+        byte[] dots = new byte[200 * 50];
+        assertEquals(BitImage.bandSize(200), BitImage.bandSizeOf(BitImage.encode(dots, 200, 50)));
+        assertEquals(BitImage.bandSize(200, BitImage.Command.RASTER),
+                BitImage.bandSizeOf(raster(dots, 200, 50)));
+        byte[] other = new byte[64];
+        other[0] = 0x1B;
+        assertEquals(0, BitImage.bandSizeOf(other));
+    }
+
+    private static byte[] raster(byte[] dots, int width, int height) {
+        byte[] job = new byte[BitImage.encodedSize(width, height, BitImage.Command.RASTER)];
+        BitImage.encode(dots, width, height, BitImage.Command.RASTER, job, Cancellation.NONE);
+        return job;
+    }
+}
@@ -0,0 +1,146 @@
+package com.pinmi.react.printer.raster;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BufferPoolTest {
+
+    private static int[] receipt(int width, int height, int seed) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (i * 31 + seed) % 7 < 3 ? 0xFF000000 : 0xFFFFFFFF;
+        }
+        return pixels;
+    }
+
+    @Test
+    public void roundsUpToPowerOfTwoClasses() {
+        BufferPool pool = new BufferPool(1 << 20);
+        assertEquals(BufferPool.MIN_CLASS, pool.bytes(1).length);
+        assertEquals(4096, pool.bytes(4000).length);
+        assertEquals(4096, pool.ints(4096).length);
+        assertEquals(8192, pool.longs(4097).length);
+        // too large to pool
+        assertEquals(BufferPool.MAX_CLASS + 1, pool.bytes(BufferPool.MAX_CLASS + 1).length);
+    }
+
+    @Test
+    public void reusesReleasedArraysUpToItsLimit() {
+        BufferPool pool = new BufferPool(16 * 1024);
+        byte[] first = pool.bytes(3000);
+        pool.release(first);
+        assertSame(first, pool.bytes(2500));
+        assertEquals(1, pool.getAllocations());
+
+        // 8 KB of ints fits, another 16 KB does not
+        int[] small = pool.ints(2048);
+        int[] large = pool.ints(4096);
+        pool.release(small);
+        pool.release(large);
+        assertEquals(8192, pool.getRetainedBytes());
+        // too large to pool: dropped
+        pool.release(pool.bytes(BufferPool.MAX_CLASS + 1));
+        assertEquals(8192, pool.getRetainedBytes());
+
+        pool.clear();
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void releasesALeaseOnce() {
+        BufferPool pool = new BufferPool(1 << 20);
+        BufferPool.Bytes lease = pool.lease(pool.bytes(100), 100);
+        lease.release();
+        lease.release();
+        assertEquals(BufferPool.MIN_CLASS, pool.getRetainedBytes());
+        // not from a pool: nothing to give back
+        BufferPool.Bytes.wrap(new byte[BufferPool.MIN_CLASS]).release();
+        assertEquals(BufferPool.MIN_CLASS, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void refusesArraysItDidNotHandOut() {
+        BufferPool pool = new BufferPool(1 << 20);
+        try {
+            pool.release(new byte[BufferPool.MIN_CLASS]);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            pool.lease(new BufferPool(1 << 20).bytes(100), 100);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void refusesASecondRelease() {
+        BufferPool pool = new BufferPool(1 << 20);
+        long[] array = pool.longs(100);
+        pool.release(array);
+        try {
+            pool.release(array);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        // once handed out again it is owned again
+        assertSame(array, pool.longs(100));
+        pool.release(array);
+        assertEquals(8L * BufferPool.MIN_CLASS, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void keepsNoHoldOnAForgottenArray() throws InterruptedException {
+        BufferPool pool = new BufferPool(1 << 20);
+        WeakReference<byte[]> forgotten = new WeakReference<>(pool.bytes(100));
+        for (int i = 0; i < 50 && forgotten.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(forgotten.get());
+        // the class still lends and takes back as before
+        byte[] array = pool.bytes(100);
+        pool.release(array);
+        assertSame(array, pool.bytes(100));
+    }
+
+    @Test
+    public void repeatedJobsAllocateNothingOnceWarm() {
+        BufferPool pool = new BufferPool(32 << 20);
+        int[] photo = receipt(1152, 800, 0);
+        for (BitImage.Command command : BitImage.Command.values()) {
+            Raster.encodeImage(Resize.rows(photo, 1152), 1152, 800, 576, command, false, pool, Cancellation.NONE)
+                    .release();
+            long warm = pool.getAllocations();
+            for (int i = 0; i < 5; i++) {
+                Raster.encodeImage(Resize.rows(photo, 1152), 1152, 800, 576, command, false, pool, Cancellation.NONE)
+                        .release();
+                Raster.encodeQr("https://example.com/r/" + i, 240, command, pool, Cancellation.NONE).release();
+            }
+            // the first QR code warms its own sizes
+            assertTrue(command + ": " + (pool.getAllocations() - warm), pool.getAllocations() - warm <= 2);
+        }
+    }
+
+    @Test
+    public void reusedBuffersEncodeLikeFreshOnes() {
+        BufferPool pool = new BufferPool(32 << 20);
+        for (BitImage.Command command : BitImage.Command.values()) {
+            for (int seed = 0; seed < 3; seed++) {
+                int[] image = receipt(400, 100, seed);
+                BufferPool.Bytes fresh = Raster.encodeImage(Resize.rows(image, 400), 400, 100, 384, command, false,
+                        new BufferPool(32 << 20), Cancellation.NONE);
+                BufferPool.Bytes pooled = Raster.encodeImage(Resize.rows(image, 400), 400, 100, 384, command, false,
+                        pool, Cancellation.NONE);
+                assertArrayEquals(Arrays.copyOf(fresh.array, fresh.length),
+                        Arrays.copyOf(pooled.array, pooled.length));
+                pooled.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pinmi.react.printer.raster;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QrTest {
+
+    @Test
+    public void rendersFinderPatternsInsideTheQuietZone() {
+        int size = 250;
+        byte[] dots = Qr.encode("https://example.com/receipt/1234", size);
+        assertNotNull(dots);
+        assertEquals(size * size, dots.length);
+        assertEquals(0, dots[0]);
+        // find the first dark dot on the diagonal: the top-left finder pattern
+        int corner = 0;
+        while (dots[corner * size + corner] == 0) {
+            corner++;
+        }
+        assertTrue(corner > 0 && corner < size / 4);
+        // the top-right finder pattern ends as far from the right edge, give or take the centring remainder
+        int right = size - 1;
+        while (dots[corner * size + right] == 0) {
+            right--;
+        }
+        assertTrue(Math.abs((size - 1 - right) - corner) < corner);
+    }
+
+    @Test
+    public void returnsNullWhenTheContentDoesNotFit() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 8000; i++) {
+            content.append('x');
+        }
+        assertNull(Qr.encode(content.toString(), 250));
+        assertNull(Qr.encode("", 250));
+    }
+
+    @Test
+    public void encodesAsABitImage() {
+        BufferPool.Bytes job = Raster.encodeQr("hello", 120, BitImage.Command.BIT_IMAGE, BufferPool.SHARED,
+                Cancellation.NONE);
+        assertNotNull(job);
+        assertEquals(BitImage.encodedSize(120, 120), job.length);
+        job.release();
+    }
+
+    @Test
+    public void countsTheModulesItDraws() {
+        int modules = Qr.modules("hello");
+        // version 1
+        assertEquals(21, modules);
+        // one module of quiet zone on each side: 23 modules of 5 dots, centred
+        byte[] dots = Qr.encode("hello", 115);
+        assertEquals(0, dots[4 * 115 + 4]);
+        assertEquals(1, dots[5 * 115 + 5]);
+        assertEquals(0, Qr.modules(""));
+    }
+}
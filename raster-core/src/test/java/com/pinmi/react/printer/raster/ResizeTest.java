@@ -0,0 +1,72 @@
+package com.pinmi.react.printer.raster;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ResizeTest {
+
+    private static int gray(int level) {
+        return 0xFF000000 | level << 16 | level << 8 | level;
+    }
+
+    private static int[] levels(byte[] gray) {
+        int[] levels = new int[gray.length];
+        for (int i = 0; i < gray.length; i++) {
+            levels[i] = gray[i] & 0xff;
+        }
+        return levels;
+    }
+
+    @Test
+    public void fitsTheWidthToWholeBytes() {
+        assertArrayEquals(new int[] { 576, 288 }, Resize.fitWidth(1152, 576, 576));
+        assertArrayEquals(new int[] { 576, 3 }, Resize.fitWidth(1152, 6, 580));
+        assertArrayEquals(new int[] { 200, 2000 }, Resize.fitWidth(800, 8000, 200));
+        assertArrayEquals(new int[] { 144, 86 }, Resize.fitWidth(150, 90, 200));
+        assertArrayEquals(new int[] { 384, 1 }, Resize.fitWidth(4000, 5, 384));
+        // never scaled up, and nothing to round below a byte
+        assertArrayEquals(new int[] { 160, 90 }, Resize.fitWidth(160, 90, 384));
+        assertArrayEquals(new int[] { 5, 40 }, Resize.fitWidth(5, 40, 384));
+    }
+
+    @Test
+    public void averagesTheAreaEachDotCovers() {
+        int[] pixels = { gray(0), gray(90), gray(180) };
+        // each dot covers one pixel and a half
+        assertArrayEquals(new int[] { 30, 150 },
+                levels(Resize.areaGray(Resize.rows(pixels, 3), 3, 1, 2, 1, Cancellation.NONE)));
+        // the same down the columns
+        assertArrayEquals(new int[] { 30, 150 },
+                levels(Resize.areaGray(Resize.rows(pixels, 1), 1, 3, 1, 2, Cancellation.NONE)));
+    }
+
+    @Test
+    public void averagesBlocksWhenHalving() {
+        int[] pixels = {
+                gray(0), gray(40), gray(255), gray(255),
+                gray(80), gray(120), gray(255), gray(255) };
+        assertArrayEquals(new int[] { 60, 255 },
+                levels(Resize.areaGray(Resize.rows(pixels, 4), 4, 2, 2, 1, Cancellation.NONE)));
+    }
+
+    @Test
+    public void keepsFlatGrayAndCountsTransparencyAsWhite() {
+        int[] pixels = new int[97 * 61];
+        Arrays.fill(pixels, gray(51));
+        for (int level : levels(Resize.areaGray(Resize.rows(pixels, 97), 97, 61, 40, 25, Cancellation.NONE))) {
+            assertEquals(51, level);
+        }
+        Arrays.fill(pixels, 0x00000000);
+        for (int level : levels(Resize.areaGray(Resize.rows(pixels, 97), 97, 61, 97, 61, Cancellation.NONE))) {
+            assertEquals(255, level);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesToScaleUp() {
+        Resize.areaGray(Resize.rows(new int[4], 2), 2, 2, 4, 1, Cancellation.NONE);
+    }
+}
@@ -0,0 +1,76 @@
+package com.pinmi.react.printer.raster;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ThresholdTest {
+
+    @Test
+    public void usesRec601Luma() {
+        assertEquals(0, Threshold.luminance(0xFF000000));
+        assertEquals(255, Threshold.luminance(0xFFFFFFFF));
+        assertEquals(76, Threshold.luminance(0xFFFF0000));
+        assertEquals(149, Threshold.luminance(0xFF00FF00));
+        assertEquals(29, Threshold.luminance(0xFF0000FF));
+    }
+
+    @Test
+    public void printsOnlyOpaqueDarkPixels() {
+        assertTrue(Threshold.isDark(0xFF7E7E7E, Threshold.DEFAULT_LEVEL));
+        assertFalse(Threshold.isDark(0xFF7F7F7F, Threshold.DEFAULT_LEVEL));
+        assertFalse(Threshold.isDark(0x80000000, Threshold.DEFAULT_LEVEL));
+        assertArrayEquals(new byte[] { 1, 1, 0, 0 },
+                Threshold.applyGray(new byte[] { 0, 126, 127, (byte) 255 }, 127));
+    }
+
+    @Test
+    public void ditheringKeepsTheAverageTone() {
+        int width = 64;
+        int height = 64;
+        byte[] gray = new byte[width * height];
+        Arrays.fill(gray, (byte) 128);
+        byte[] dots = Dither.floydSteinberg(gray, width, height, Threshold.DEFAULT_LEVEL);
+        int printed = 0;
+        for (byte dot : dots) {
+            printed += dot;
+        }
+        assertEquals(0.5, printed / (double) dots.length, 0.05);
+
+        Arrays.fill(gray, (byte) 255);
+        for (byte dot : Dither.floydSteinberg(gray, width, height, Threshold.DEFAULT_LEVEL)) {
+            assertEquals(0, dot);
+        }
+        Arrays.fill(gray, (byte) 0);
+        for (byte dot : Dither.floydSteinberg(gray, width, height, Threshold.DEFAULT_LEVEL)) {
+            assertEquals(1, dot);
+        }
+    }
+
+    @Test
+    public void ditheredImagesKeepGreyThatTheThresholdDrops() {
+        int[] pixels = new int[200 * 40];
+        Arrays.fill(pixels, 0xFFA0A0A0);
+        BufferPool pool = new BufferPool(1 << 20);
+        BufferPool.Bytes plain = Raster.encodeImage(Resize.rows(pixels, 200), 200, 40, 200,
+                BitImage.Command.RASTER, false, pool, Cancellation.NONE);
+        BufferPool.Bytes dithered = Raster.encodeImage(Resize.rows(pixels, 200), 200, 40, 200,
+                BitImage.Command.RASTER, true, pool, Cancellation.NONE);
+        // same commands, so the difference in set bits is the dots printed
+        assertEquals(plain.length, dithered.length);
+        // 0xA0 is 160 of 255: nothing passes the threshold, a little over a third of the dots dither dark
+        assertEquals(0.37, (setBits(dithered) - setBits(plain)) / (200.0 * 40), 0.05);
+        plain.release();
+        dithered.release();
+    }
+
+    private static int setBits(BufferPool.Bytes job) {
+        int bits = 0;
+        for (int i = 0; i < job.length; i++) {
+            bits += Integer.bitCount(job.array[i] & 0xff);
+        }
+        return bits;
+    }
+}
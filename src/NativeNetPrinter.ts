@@ -4,11 +4,42 @@ import { TurboModuleRegistry } from "react-native";
 export interface Spec extends TurboModule {
 	init(): Promise<string>;
 	getDeviceList(): Promise<Object[]>;
+	scanNetwork(options: Object): Promise<Object[]>;
+	stopScan(): void;
 	connectPrinter(host: string, port: number): Promise<Object>;
 	closeConn(): void;
 	printRawData(base64Data: string): Promise<void>;
-	printImageData(imageUrl: string, imageWidth: number): Promise<void>;
-	printQrCode(qrCode: string, qrSize: number): Promise<void>;
+	printText(text: string, options: Object, jobId: string): Promise<void>;
+	registerTemplate(
+		templateId: string,
+		template: string,
+		options: Object,
+	): Promise<Object>;
+	unregisterTemplate(templateId: string): void;
+	printTemplate(templateId: string, values: Object, jobId: string): Promise<void>;
+	printFile(uri: string, jobId: string): Promise<void>;
+	printImageData(
+		imageUrl: string,
+		imageWidth: number,
+		jobId: string,
+	): Promise<void>;
+	printQrCode(qrCode: string, qrSize: number, jobId: string): Promise<void>;
+	printReceipt(segments: Object[], jobId: string): Promise<void>;
+	openSession(sessionId: string, options: Object): Promise<void>;
+	appendSession(sessionId: string, segments: Object[]): Promise<void>;
+	closeSession(sessionId: string): Promise<void>;
+	cancelJob(jobId: string): boolean;
+	startStatusMonitor(mode: string, intervalMs: number): Promise<void>;
+	stopStatusMonitor(): void;
+	getStatus(): Object;
+	setFlowControl(options: Object): void;
+	setTimeouts(options: Object): void;
+	getStats(): Object;
+	registerProfiles(profilesJson: string): Promise<Object[]>;
+	setPrinterProfile(printerId: string, profileId: string): boolean;
+	getPrinterProfile(): Object;
+	setJobEvents(enabled: boolean): void;
+	setLogLevel(level: string): void;
 	addListener(eventName: string): void;
 	removeListeners(count: number): void;
 }
@@ -1,8 +1,10 @@
-import { NativeEventEmitter } from "react-native";
+import { NativeEventEmitter, Platform } from "react-native";
+import { Buffer } from "buffer";
 
 import NativeUSBPrinterModule from "./NativeUSBPrinter";
 import NativeBLEPrinterModule from "./NativeBLEPrinter";
 import NativeNetPrinterModule from "./NativeNetPrinter";
+import NativeGattPrinterModule from "./NativeGattPrinter";
 import * as EPToolkit from "./utils/EPToolkit";
 
 // ── Types ───────────────────────────────────────────────────────────────────
@@ -14,6 +16,16 @@ export interface PrinterOptions {
 	encoding?: string;
 }
 
+export type TemplateValues = { [slot: string]: string | number | boolean };
+
+export interface ITemplateInfo {
+	template_id: string;
+	/** Slot names in order of first use. */
+	slots: string[];
+	/** Bytes encoded at registration; 0 where templates are rendered in JS. */
+	static_bytes: number;
+}
+
 export interface IUSBPrinter {
 	device_name: string;
 	device_id: number;
@@ -24,40 +36,351 @@ export interface IUSBPrinter {
 export interface IBLEPrinter {
 	device_name: string;
 	inner_mac_address: string;
+	/** Time taken to connect, on the device returned by connectPrinter (Android). */
+	connect_ms?: number;
+	/** Socket type that connected: "secure", "insecure" or "channel" (Android). */
+	connect_method?: string;
+	/** When the printer was last seen, in epoch ms, for remembered printers (Android). */
+	last_seen?: number;
 }
 
 export interface INetPrinter {
 	device_name: string;
 	host: string;
 	port: number;
+	/** When the printer last answered, in epoch ms, for remembered printers (Android). */
+	last_seen?: number;
+	/** Time taken by the last successful connect (Android). */
+	connect_ms?: number;
+}
+
+export type PrinterStatusMode = "poll" | "asb";
+
+export interface IPrinterStatus {
+	known: boolean;
+	online: boolean;
+	cover_open: boolean;
+	paper_out: boolean;
+	paper_near_end: boolean;
+	error: boolean;
+	drawer_open: boolean;
+	updated_at: number;
+}
+
+export interface FlowControlOptions {
+	/** Maximum output rate; 0 or omitted for unlimited. */
+	bytesPerSecond?: number;
+	/** Bytes per write; omitted to derive it from bytesPerSecond. */
+	chunkSize?: number;
+	/** Pause on XOFF (0x13) and resume on XON (0x11) from the printer. */
+	xonXoff?: boolean;
+	/** Hold writes while the status monitor reports the printer busy. */
+	waitWhileBusy?: boolean;
+	/** Fail the job after stalling this long. Defaults to 30000. */
+	maxStallMs?: number;
+}
+
+/** Deadlines in milliseconds; 0 turns one off, omitted keys reset to the default. */
+export interface TimeoutOptions {
+	/** Opening the connection. Defaults to 10000; not used by USB. */
+	connectMs?: number;
+	/** A single write to the transport. Defaults to 20000. */
+	writeMs?: number;
+	/** Sending a whole job, including flow-control waits. Off by default. */
+	jobMs?: number;
+}
+
+/**
+ * What a printer model can do. Keys left out, except models, come from the
+ * profile named by `extends`, or from the built-in "default".
+ */
+export interface IPrinterProfile {
+	id: string;
+	name?: string;
+	extends?: string;
+	/** Matched case-insensitively against the device name. */
+	models?: string[];
+	/** Printable width in dots; images and QR codes are never wider. */
+	dotWidth?: number;
+	dpi?: number;
+	/** ESC * bit images, or GS v 0 raster bands. */
+	image?: "bitImage" | "raster";
+	/** Floyd-Steinberg error diffusion instead of a plain threshold, for photos. */
+	dither?: boolean;
+	/** Sent as an image, or as GS ( k for the printer to render. */
+	qr?: "image" | "native";
+	barcode?: boolean;
+	/** Pages the "AUTO" encoding may switch to. Defaults to all. */
+	codePages?: string[];
+	/** Bytes the printer buffers; caps the chunk size. */
+	receiveBuffer?: number;
+	/** Rate the printer keeps up with; paces jobs unless setFlowControl sets one. */
+	bytesPerSecond?: number;
+}
+
+export interface IBLEThroughput {
+	chunk_size: number;
+	bytes_per_second: number;
+	link_bytes_per_second: number;
+	last_job_bytes: number;
+}
+
+export type LogLevel = "verbose" | "debug" | "info" | "warn" | "error" | "none";
+
+export interface IHistogram {
+	count: number;
+	mean: number;
+	p50: number;
+	p90: number;
+	p99: number;
+	max: number;
+}
+
+export interface IPrinterStats {
+	jobs: number;
+	failures: number;
+	bytes: number;
+	queue_wait_ms: IHistogram;
+	fetch_ms: IHistogram;
+	decode_ms: IHistogram;
+	encode_ms: IHistogram;
+	transfer_ms: IHistogram;
+	total_ms: IHistogram;
+	/** Time until a job failed, including timed-out ones. */
+	failed_ms: IHistogram;
+	connect_ms: IHistogram;
+	bytes_per_second: IHistogram;
+	timeouts: { connect: number; write: number; job: number };
+}
+
+export interface IPrintJobCompleted {
+	printer: string;
+	kind:
+		| "raw"
+		| "text"
+		| "template"
+		| "file"
+		| "image"
+		| "qr"
+		| "receipt"
+		| "session";
+	success: boolean;
+	bytes: number;
+	queue_wait_ms?: number;
+	fetch_ms?: number;
+	decode_ms?: number;
+	encode_ms?: number;
+	transfer_ms?: number;
+	total_ms: number;
+	bytes_per_second: number;
+	/** Set when the job failed on a deadline. */
+	timeout?: "ERR_CONNECT_TIMEOUT" | "ERR_WRITE_TIMEOUT" | "ERR_JOB_TIMEOUT";
+}
+
+export type BarcodeFormat = "CODE128" | "CODE39" | "EAN13" | "EAN8" | "UPCA" | "ITF";
+
+/**
+ * One part of a receipt passed to printReceipt, printed in order. Images,
+ * QR codes and barcodes are centred.
+ */
+export type ReceiptSegment =
+	| { type: "raw"; data: Uint8Array | ArrayBuffer }
+	| { type: "text"; text: string; options?: PrinterOptions }
+	/** width defaults to the printer profile's. */
+	| { type: "image"; url: string; width?: number }
+	| { type: "qr"; content: string; size?: number }
+	| {
+			type: "barcode";
+			content: string;
+			/** Defaults to CODE128. */
+			format?: BarcodeFormat;
+			/** Dots. Defaults to 80. */
+			height?: number;
+			/** Dots per bar module. Defaults to 2. */
+			moduleWidth?: number;
+	  }
+	/** Feeds `feed` lines, 5 by default, then cuts. */
+	| { type: "cut"; feed?: number };
+
+/**
+ * Promise of a print job, carrying the id to pass to cancelJob. On Android
+ * the job runs on the printer's own worker thread.
+ */
+export type PrintJob = Promise<void> & { jobId: string };
+
+export interface SessionOptions {
+	/** End the session if nothing is appended for this long; 0 to wait forever. Defaults to 30000. */
+	idleTimeoutMs?: number;
+}
+
+/**
+ * An open print job that segments are appended to as they become known (Android).
+ */
+export interface PrintSession {
+	/** Pass to cancelJob to end the session early. */
+	sessionId: string;
+	/** Resolves once the segments are on their way to the printer. */
+	append(segments: ReceiptSegment[]): Promise<void>;
+	/** Resolves once everything appended is written and the printer is free. */
+	close(): Promise<void>;
+}
+
+export interface NetScanOptions {
+	/** Ports to probe on each host. Defaults to [9100, 515, 631]. */
+	ports?: number[];
+	/** IPv4 ranges such as "192.168.1.0/24". Defaults to every active Wi-Fi/Ethernet interface. */
+	cidrs?: string[];
+	/** Connect timeout per probe. Defaults to 800. */
+	timeoutMs?: number;
+	/** Connects kept in flight at once. Defaults to 256. */
+	maxInFlight?: number;
+}
+
+export interface GattConnectOptions {
+	/** Overrides the connect deadline set with setTimeouts. */
+	timeoutMs?: number;
+	/** Restrict the search for the write characteristic to this service. */
+	serviceUuid?: string;
+	/** Write to this characteristic instead of the first writable one. */
+	characteristicUuid?: string;
+	/** Notify characteristic through which the printer grants write credits. */
+	creditCharacteristicUuid?: string;
+}
+
+export interface IGattPrinter extends IBLEPrinter {
+	mtu?: number;
+	packet_size?: number;
+	write_without_response?: boolean;
+	credits?: boolean;
 }
 
 // ── Helpers ─────────────────────────────────────────────────────────────────
 
+const textOptions = (opts: PrinterOptions) => ({
+	beep: false,
+	cut: false,
+	tailingLine: false,
+	encoding: "UTF8",
+	...opts,
+});
+
+const billOptions = (opts: PrinterOptions) => ({
+	beep: true,
+	cut: true,
+	tailingLine: true,
+	encoding: "UTF8",
+	...opts,
+});
+
 const textTo64Buffer = (text: string, opts: PrinterOptions): string => {
-	const options = {
-		beep: false,
-		cut: false,
-		tailingLine: false,
-		encoding: "UTF8",
-		...opts,
-	};
-	const buffer = EPToolkit.exchange_text(text, options);
+	const buffer = EPToolkit.exchange_text(text, textOptions(opts));
 	return buffer.toString("base64");
 };
 
 const billTo64Buffer = (text: string, opts: PrinterOptions): string => {
-	const options = {
-		beep: true,
-		cut: true,
-		tailingLine: true,
-		encoding: "UTF8",
-		...opts,
-	};
-	const buffer = EPToolkit.exchange_text(text, options);
+	const buffer = EPToolkit.exchange_text(text, billOptions(opts));
+	return buffer.toString("base64");
+};
+
+// Android encodes the markup natively, with byte-identical output
+const useNativeText = Platform.OS === "android";
+
+// Android sizes an image from the printer profile when given 0; iOS keeps
+// its old 200-dot default
+const defaultImageWidth = Platform.OS === "android" ? 0 : 200;
+
+// Templates are compiled natively on Android; elsewhere they are filled in
+// and encoded like printText.
+const jsTemplates: {
+	[templateId: string]: { template: string; opts: PrinterOptions };
+} = {};
+
+const SLOT_PATTERN = /\{\{\s*(.*?)\s*\}\}/g;
+
+const registerJsTemplate = (
+	templateId: string,
+	template: string,
+	opts: PrinterOptions,
+): Promise<ITemplateInfo> => {
+	jsTemplates[templateId] = { template, opts };
+	const slots: string[] = [];
+	template.replace(SLOT_PATTERN, (match: string, slot: string) => {
+		if (slots.indexOf(slot) < 0) {
+			slots.push(slot);
+		}
+		return match;
+	});
+	return Promise.resolve({ template_id: templateId, slots, static_bytes: 0 });
+};
+
+const renderJsTemplate = (templateId: string, values: TemplateValues): string => {
+	const registered = jsTemplates[templateId];
+	if (!registered) {
+		throw new Error(`no template registered as ${templateId}`);
+	}
+	const text = registered.template.replace(
+		SLOT_PATTERN,
+		(_match: string, slot: string) => {
+			if (!(slot in values)) {
+				throw new Error(`no value for slot ${slot}`);
+			}
+			return String(values[slot]);
+		},
+	);
+	return textTo64Buffer(text, registered.opts);
+};
+
+const bytesTo64Buffer = (data: Uint8Array | ArrayBuffer): string => {
+	// a view over the caller's memory, so only the Base64 string is allocated
+	const buffer =
+		data instanceof ArrayBuffer
+			? Buffer.from(data)
+			: Buffer.from(data.buffer, data.byteOffset, data.byteLength);
 	return buffer.toString("base64");
 };
 
+const receiptSegments = (segments: ReceiptSegment[]): Object[] =>
+	segments.map((segment) => {
+		switch (segment.type) {
+			case "raw":
+				return { type: "raw", data: bytesTo64Buffer(segment.data) };
+			case "text":
+				return { ...segment, options: textOptions(segment.options || {}) };
+			default:
+				return segment;
+		}
+	});
+
+let jobCounter = 0;
+
+const nextJobId = (): string => `${Date.now().toString(36)}-${++jobCounter}`;
+
+const startJob = (run: (jobId: string) => Promise<void>): PrintJob => {
+	const jobId = nextJobId();
+	const job = run(jobId) as PrintJob;
+	job.jobId = jobId;
+	return job;
+};
+
+interface SessionModule {
+	openSession(sessionId: string, options: Object): Promise<void>;
+	appendSession(sessionId: string, segments: Object[]): Promise<void>;
+	closeSession(sessionId: string): Promise<void>;
+}
+
+const openSession = (
+	module: SessionModule,
+	options: SessionOptions,
+): Promise<PrintSession> => {
+	const sessionId = nextJobId();
+	return module.openSession(sessionId, options).then(() => ({
+		sessionId,
+		append: (segments: ReceiptSegment[]) =>
+			module.appendSession(sessionId, receiptSegments(segments)),
+		close: () => module.closeSession(sessionId),
+	}));
+};
+
 // ── USB Printer ─────────────────────────────────────────────────────────────
 
 export const USBPrinter = {
@@ -77,17 +400,128 @@ export const USBPrinter = {
 
 	closeConn: (): void => NativeUSBPrinterModule.closeConn(),
 
-	printText: (text: string, opts: PrinterOptions = {}): Promise<void> =>
-		NativeUSBPrinterModule.printRawData(textTo64Buffer(text, opts)),
-
-	printBill: (text: string, opts: PrinterOptions = {}): Promise<void> =>
-		NativeUSBPrinterModule.printRawData(billTo64Buffer(text, opts)),
-
-	printImage: (imageUrl: string, imageWidth: number = 200): Promise<void> =>
-		NativeUSBPrinterModule.printImageData(imageUrl, imageWidth),
-
-	printQrCode: (qrCode: string, qrSize: number = 250): Promise<void> =>
-		NativeUSBPrinterModule.printQrCode(qrCode, qrSize),
+	printText: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeUSBPrinterModule.printText(text, textOptions(opts), jobId)
+				: NativeUSBPrinterModule.printRawData(textTo64Buffer(text, opts)),
+		),
+
+	printBill: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeUSBPrinterModule.printText(text, billOptions(opts), jobId)
+				: NativeUSBPrinterModule.printRawData(billTo64Buffer(text, opts)),
+		),
+
+	printRawBytes: (data: Uint8Array | ArrayBuffer): Promise<void> =>
+		NativeUSBPrinterModule.printRawData(bytesTo64Buffer(data)),
+
+	registerTemplate: (
+		templateId: string,
+		template: string,
+		opts: PrinterOptions = {},
+	): Promise<ITemplateInfo> =>
+		useNativeText
+			? (NativeUSBPrinterModule.registerTemplate(
+					templateId,
+					template,
+					textOptions(opts),
+				) as Promise<ITemplateInfo>)
+			: registerJsTemplate(templateId, template, opts),
+
+	unregisterTemplate: (templateId: string): void => {
+		if (useNativeText) {
+			NativeUSBPrinterModule.unregisterTemplate(templateId);
+		} else {
+			delete jsTemplates[templateId];
+		}
+	},
+
+	printTemplate: (templateId: string, values: TemplateValues): PrintJob =>
+		startJob((jobId) => {
+			if (useNativeText) {
+				return NativeUSBPrinterModule.printTemplate(templateId, values, jobId);
+			}
+			try {
+				return NativeUSBPrinterModule.printRawData(
+					renderJsTemplate(templateId, values),
+				);
+			} catch (e) {
+				return Promise.reject(e);
+			}
+		}),
+
+	printFile: (uri: string): PrintJob =>
+		startJob((jobId) => NativeUSBPrinterModule.printFile(uri, jobId)),
+
+	printImage: (imageUrl: string, imageWidth: number = defaultImageWidth): PrintJob =>
+		startJob((jobId) =>
+			NativeUSBPrinterModule.printImageData(imageUrl, imageWidth, jobId),
+		),
+
+	printQrCode: (qrCode: string, qrSize: number = 250): PrintJob =>
+		startJob((jobId) =>
+			NativeUSBPrinterModule.printQrCode(qrCode, qrSize, jobId),
+		),
+
+	/** Prints every segment as one job that nothing else interleaves with (Android). */
+	printReceipt: (segments: ReceiptSegment[]): PrintJob =>
+		startJob((jobId) =>
+			NativeUSBPrinterModule.printReceipt(receiptSegments(segments), jobId),
+		),
+
+	/**
+	 * Holds the printer for one job and prints each appended chunk right away,
+	 * so the paper moves while the rest is still being put together (Android).
+	 */
+	openSession: (options: SessionOptions = {}): Promise<PrintSession> =>
+		openSession(NativeUSBPrinterModule, options),
+
+	/**
+	 * Stops an image or QR job between bands, a file between buffers, a text
+	 * or receipt job before it is sent or a session between chunks; false once
+	 * it finished.
+	 */
+	cancelJob: (jobId: string): boolean => NativeUSBPrinterModule.cancelJob(jobId),
+
+	startStatusMonitor: (
+		mode: PrinterStatusMode = "poll",
+		intervalMs: number = 2000,
+	): Promise<void> => NativeUSBPrinterModule.startStatusMonitor(mode, intervalMs),
+
+	stopStatusMonitor: (): void => NativeUSBPrinterModule.stopStatusMonitor(),
+
+	getStatus: (): IPrinterStatus =>
+		NativeUSBPrinterModule.getStatus() as IPrinterStatus,
+
+	setFlowControl: (options: FlowControlOptions): void =>
+		NativeUSBPrinterModule.setFlowControl(options),
+
+	setTimeouts: (options: TimeoutOptions): void =>
+		NativeUSBPrinterModule.setTimeouts(options),
+
+	getStats: (): Record<string, IPrinterStats> =>
+		NativeUSBPrinterModule.getStats() as Record<string, IPrinterStats>,
+
+	registerProfiles: (
+		profiles: IPrinterProfile | IPrinterProfile[],
+	): Promise<IPrinterProfile[]> =>
+		NativeUSBPrinterModule.registerProfiles(JSON.stringify(profiles)) as Promise<
+			IPrinterProfile[]
+		>,
+
+	setPrinterProfile: (printerId: string, profileId: string | null): boolean =>
+		NativeUSBPrinterModule.setPrinterProfile(printerId, profileId ?? ""),
+
+	getPrinterProfile: (): IPrinterProfile =>
+		NativeUSBPrinterModule.getPrinterProfile() as IPrinterProfile,
+
+	setJobEvents: (enabled: boolean): void =>
+		NativeUSBPrinterModule.setJobEvents(enabled),
+
+	setLogLevel: (level: LogLevel): void =>
+		NativeUSBPrinterModule.setLogLevel(level),
 };
 
 // ── BLE Printer ─────────────────────────────────────────────────────────────
@@ -98,24 +532,142 @@ export const BLEPrinter = {
 	getDeviceList: (): Promise<IBLEPrinter[]> =>
 		NativeBLEPrinterModule.getDeviceList() as Promise<IBLEPrinter[]>,
 
-	connectPrinter: (innerMacAddress: string): Promise<IBLEPrinter> =>
+	connectPrinter: (
+		innerMacAddress: string,
+		timeoutMs: number = 0,
+	): Promise<IBLEPrinter> =>
 		NativeBLEPrinterModule.connectPrinter(
 			innerMacAddress,
+			timeoutMs,
 		) as Promise<IBLEPrinter>,
 
 	closeConn: (): void => NativeBLEPrinterModule.closeConn(),
 
-	printText: (text: string, opts: PrinterOptions = {}): Promise<void> =>
-		NativeBLEPrinterModule.printRawData(textTo64Buffer(text, opts)),
-
-	printBill: (text: string, opts: PrinterOptions = {}): Promise<void> =>
-		NativeBLEPrinterModule.printRawData(billTo64Buffer(text, opts)),
-
-	printImage: (imageUrl: string, imageWidth: number = 200): Promise<void> =>
-		NativeBLEPrinterModule.printImageData(imageUrl, imageWidth),
-
-	printQrCode: (qrCode: string, qrSize: number = 250): Promise<void> =>
-		NativeBLEPrinterModule.printQrCode(qrCode, qrSize),
+	printText: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeBLEPrinterModule.printText(text, textOptions(opts), jobId)
+				: NativeBLEPrinterModule.printRawData(textTo64Buffer(text, opts)),
+		),
+
+	printBill: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeBLEPrinterModule.printText(text, billOptions(opts), jobId)
+				: NativeBLEPrinterModule.printRawData(billTo64Buffer(text, opts)),
+		),
+
+	printRawBytes: (data: Uint8Array | ArrayBuffer): Promise<void> =>
+		NativeBLEPrinterModule.printRawData(bytesTo64Buffer(data)),
+
+	registerTemplate: (
+		templateId: string,
+		template: string,
+		opts: PrinterOptions = {},
+	): Promise<ITemplateInfo> =>
+		useNativeText
+			? (NativeBLEPrinterModule.registerTemplate(
+					templateId,
+					template,
+					textOptions(opts),
+				) as Promise<ITemplateInfo>)
+			: registerJsTemplate(templateId, template, opts),
+
+	unregisterTemplate: (templateId: string): void => {
+		if (useNativeText) {
+			NativeBLEPrinterModule.unregisterTemplate(templateId);
+		} else {
+			delete jsTemplates[templateId];
+		}
+	},
+
+	printTemplate: (templateId: string, values: TemplateValues): PrintJob =>
+		startJob((jobId) => {
+			if (useNativeText) {
+				return NativeBLEPrinterModule.printTemplate(templateId, values, jobId);
+			}
+			try {
+				return NativeBLEPrinterModule.printRawData(
+					renderJsTemplate(templateId, values),
+				);
+			} catch (e) {
+				return Promise.reject(e);
+			}
+		}),
+
+	printFile: (uri: string): PrintJob =>
+		startJob((jobId) => NativeBLEPrinterModule.printFile(uri, jobId)),
+
+	printImage: (imageUrl: string, imageWidth: number = defaultImageWidth): PrintJob =>
+		startJob((jobId) =>
+			NativeBLEPrinterModule.printImageData(imageUrl, imageWidth, jobId),
+		),
+
+	printQrCode: (qrCode: string, qrSize: number = 250): PrintJob =>
+		startJob((jobId) =>
+			NativeBLEPrinterModule.printQrCode(qrCode, qrSize, jobId),
+		),
+
+	/** Prints every segment as one job that nothing else interleaves with (Android). */
+	printReceipt: (segments: ReceiptSegment[]): PrintJob =>
+		startJob((jobId) =>
+			NativeBLEPrinterModule.printReceipt(receiptSegments(segments), jobId),
+		),
+
+	/**
+	 * Holds the printer for one job and prints each appended chunk right away,
+	 * so the paper moves while the rest is still being put together (Android).
+	 */
+	openSession: (options: SessionOptions = {}): Promise<PrintSession> =>
+		openSession(NativeBLEPrinterModule, options),
+
+	/**
+	 * Stops an image or QR job between bands, a file between buffers, a text
+	 * or receipt job before it is sent or a session between chunks; false once
+	 * it finished.
+	 */
+	cancelJob: (jobId: string): boolean => NativeBLEPrinterModule.cancelJob(jobId),
+
+	startStatusMonitor: (
+		mode: PrinterStatusMode = "poll",
+		intervalMs: number = 2000,
+	): Promise<void> => NativeBLEPrinterModule.startStatusMonitor(mode, intervalMs),
+
+	stopStatusMonitor: (): void => NativeBLEPrinterModule.stopStatusMonitor(),
+
+	getStatus: (): IPrinterStatus =>
+		NativeBLEPrinterModule.getStatus() as IPrinterStatus,
+
+	setFlowControl: (options: FlowControlOptions): void =>
+		NativeBLEPrinterModule.setFlowControl(options),
+
+	setTimeouts: (options: TimeoutOptions): void =>
+		NativeBLEPrinterModule.setTimeouts(options),
+
+	getStats: (): Record<string, IPrinterStats> =>
+		NativeBLEPrinterModule.getStats() as Record<string, IPrinterStats>,
+
+	registerProfiles: (
+		profiles: IPrinterProfile | IPrinterProfile[],
+	): Promise<IPrinterProfile[]> =>
+		NativeBLEPrinterModule.registerProfiles(JSON.stringify(profiles)) as Promise<
+			IPrinterProfile[]
+		>,
+
+	setPrinterProfile: (printerId: string, profileId: string | null): boolean =>
+		NativeBLEPrinterModule.setPrinterProfile(printerId, profileId ?? ""),
+
+	getPrinterProfile: (): IPrinterProfile =>
+		NativeBLEPrinterModule.getPrinterProfile() as IPrinterProfile,
+
+	setJobEvents: (enabled: boolean): void =>
+		NativeBLEPrinterModule.setJobEvents(enabled),
+
+	setLogLevel: (level: LogLevel): void =>
+		NativeBLEPrinterModule.setLogLevel(level),
+
+	getThroughput: (): IBLEThroughput =>
+		NativeBLEPrinterModule.getThroughput() as IBLEThroughput,
 };
 
 // ── Net Printer ─────────────────────────────────────────────────────────────
@@ -126,6 +678,11 @@ export const NetPrinter = {
 	getDeviceList: (): Promise<INetPrinter[]> =>
 		NativeNetPrinterModule.getDeviceList() as Promise<INetPrinter[]>,
 
+	scanNetwork: (options: NetScanOptions = {}): Promise<INetPrinter[]> =>
+		NativeNetPrinterModule.scanNetwork(options) as Promise<INetPrinter[]>,
+
+	stopScan: (): void => NativeNetPrinterModule.stopScan(),
+
 	connectPrinter: (host: string, port: number): Promise<INetPrinter> =>
 		NativeNetPrinterModule.connectPrinter(
 			host,
@@ -134,17 +691,271 @@ export const NetPrinter = {
 
 	closeConn: (): void => NativeNetPrinterModule.closeConn(),
 
-	printText: (text: string, opts: PrinterOptions = {}): Promise<void> =>
-		NativeNetPrinterModule.printRawData(textTo64Buffer(text, opts)),
+	printText: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeNetPrinterModule.printText(text, textOptions(opts), jobId)
+				: NativeNetPrinterModule.printRawData(textTo64Buffer(text, opts)),
+		),
+
+	printBill: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeNetPrinterModule.printText(text, billOptions(opts), jobId)
+				: NativeNetPrinterModule.printRawData(billTo64Buffer(text, opts)),
+		),
+
+	printRawBytes: (data: Uint8Array | ArrayBuffer): Promise<void> =>
+		NativeNetPrinterModule.printRawData(bytesTo64Buffer(data)),
+
+	registerTemplate: (
+		templateId: string,
+		template: string,
+		opts: PrinterOptions = {},
+	): Promise<ITemplateInfo> =>
+		useNativeText
+			? (NativeNetPrinterModule.registerTemplate(
+					templateId,
+					template,
+					textOptions(opts),
+				) as Promise<ITemplateInfo>)
+			: registerJsTemplate(templateId, template, opts),
+
+	unregisterTemplate: (templateId: string): void => {
+		if (useNativeText) {
+			NativeNetPrinterModule.unregisterTemplate(templateId);
+		} else {
+			delete jsTemplates[templateId];
+		}
+	},
+
+	printTemplate: (templateId: string, values: TemplateValues): PrintJob =>
+		startJob((jobId) => {
+			if (useNativeText) {
+				return NativeNetPrinterModule.printTemplate(templateId, values, jobId);
+			}
+			try {
+				return NativeNetPrinterModule.printRawData(
+					renderJsTemplate(templateId, values),
+				);
+			} catch (e) {
+				return Promise.reject(e);
+			}
+		}),
+
+	printFile: (uri: string): PrintJob =>
+		startJob((jobId) => NativeNetPrinterModule.printFile(uri, jobId)),
+
+	printImage: (imageUrl: string, imageWidth: number = defaultImageWidth): PrintJob =>
+		startJob((jobId) =>
+			NativeNetPrinterModule.printImageData(imageUrl, imageWidth, jobId),
+		),
+
+	printQrCode: (qrCode: string, qrSize: number = 250): PrintJob =>
+		startJob((jobId) =>
+			NativeNetPrinterModule.printQrCode(qrCode, qrSize, jobId),
+		),
+
+	/** Prints every segment as one job that nothing else interleaves with (Android). */
+	printReceipt: (segments: ReceiptSegment[]): PrintJob =>
+		startJob((jobId) =>
+			NativeNetPrinterModule.printReceipt(receiptSegments(segments), jobId),
+		),
+
+	/**
+	 * Holds the printer for one job and prints each appended chunk right away,
+	 * so the paper moves while the rest is still being put together (Android).
+	 */
+	openSession: (options: SessionOptions = {}): Promise<PrintSession> =>
+		openSession(NativeNetPrinterModule, options),
+
+	/**
+	 * Stops an image or QR job between bands, a file between buffers, a text
+	 * or receipt job before it is sent or a session between chunks; false once
+	 * it finished.
+	 */
+	cancelJob: (jobId: string): boolean => NativeNetPrinterModule.cancelJob(jobId),
+
+	startStatusMonitor: (
+		mode: PrinterStatusMode = "poll",
+		intervalMs: number = 2000,
+	): Promise<void> => NativeNetPrinterModule.startStatusMonitor(mode, intervalMs),
+
+	stopStatusMonitor: (): void => NativeNetPrinterModule.stopStatusMonitor(),
+
+	getStatus: (): IPrinterStatus =>
+		NativeNetPrinterModule.getStatus() as IPrinterStatus,
+
+	setFlowControl: (options: FlowControlOptions): void =>
+		NativeNetPrinterModule.setFlowControl(options),
+
+	setTimeouts: (options: TimeoutOptions): void =>
+		NativeNetPrinterModule.setTimeouts(options),
+
+	getStats: (): Record<string, IPrinterStats> =>
+		NativeNetPrinterModule.getStats() as Record<string, IPrinterStats>,
+
+	registerProfiles: (
+		profiles: IPrinterProfile | IPrinterProfile[],
+	): Promise<IPrinterProfile[]> =>
+		NativeNetPrinterModule.registerProfiles(JSON.stringify(profiles)) as Promise<
+			IPrinterProfile[]
+		>,
+
+	setPrinterProfile: (printerId: string, profileId: string | null): boolean =>
+		NativeNetPrinterModule.setPrinterProfile(printerId, profileId ?? ""),
+
+	getPrinterProfile: (): IPrinterProfile =>
+		NativeNetPrinterModule.getPrinterProfile() as IPrinterProfile,
+
+	setJobEvents: (enabled: boolean): void =>
+		NativeNetPrinterModule.setJobEvents(enabled),
+
+	setLogLevel: (level: LogLevel): void =>
+		NativeNetPrinterModule.setLogLevel(level),
+};
 
-	printBill: (text: string, opts: PrinterOptions = {}): Promise<void> =>
-		NativeNetPrinterModule.printRawData(billTo64Buffer(text, opts)),
+// ── GATT Printer ────────────────────────────────────────────────────────────
 
-	printImage: (imageUrl: string, imageWidth: number = 200): Promise<void> =>
-		NativeNetPrinterModule.printImageData(imageUrl, imageWidth),
+export const GATTPrinter = {
+	init: (): Promise<string> => NativeGattPrinterModule.init(),
+
+	getDeviceList: (): Promise<IBLEPrinter[]> =>
+		NativeGattPrinterModule.getDeviceList() as Promise<IBLEPrinter[]>,
 
-	printQrCode: (qrCode: string, qrSize: number = 250): Promise<void> =>
-		NativeNetPrinterModule.printQrCode(qrCode, qrSize),
+	connectPrinter: (
+		innerMacAddress: string,
+		options: GattConnectOptions = {},
+	): Promise<IGattPrinter> =>
+		NativeGattPrinterModule.connectPrinter(
+			innerMacAddress,
+			options,
+		) as Promise<IGattPrinter>,
+
+	closeConn: (): void => NativeGattPrinterModule.closeConn(),
+
+	printText: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeGattPrinterModule.printText(text, textOptions(opts), jobId)
+				: NativeGattPrinterModule.printRawData(textTo64Buffer(text, opts)),
+		),
+
+	printBill: (text: string, opts: PrinterOptions = {}): PrintJob =>
+		startJob((jobId) =>
+			useNativeText
+				? NativeGattPrinterModule.printText(text, billOptions(opts), jobId)
+				: NativeGattPrinterModule.printRawData(billTo64Buffer(text, opts)),
+		),
+
+	printRawBytes: (data: Uint8Array | ArrayBuffer): Promise<void> =>
+		NativeGattPrinterModule.printRawData(bytesTo64Buffer(data)),
+
+	registerTemplate: (
+		templateId: string,
+		template: string,
+		opts: PrinterOptions = {},
+	): Promise<ITemplateInfo> =>
+		useNativeText
+			? (NativeGattPrinterModule.registerTemplate(
+					templateId,
+					template,
+					textOptions(opts),
+				) as Promise<ITemplateInfo>)
+			: registerJsTemplate(templateId, template, opts),
+
+	unregisterTemplate: (templateId: string): void => {
+		if (useNativeText) {
+			NativeGattPrinterModule.unregisterTemplate(templateId);
+		} else {
+			delete jsTemplates[templateId];
+		}
+	},
+
+	printTemplate: (templateId: string, values: TemplateValues): PrintJob =>
+		startJob((jobId) => {
+			if (useNativeText) {
+				return NativeGattPrinterModule.printTemplate(templateId, values, jobId);
+			}
+			try {
+				return NativeGattPrinterModule.printRawData(
+					renderJsTemplate(templateId, values),
+				);
+			} catch (e) {
+				return Promise.reject(e);
+			}
+		}),
+
+	printFile: (uri: string): PrintJob =>
+		startJob((jobId) => NativeGattPrinterModule.printFile(uri, jobId)),
+
+	printImage: (imageUrl: string, imageWidth: number = defaultImageWidth): PrintJob =>
+		startJob((jobId) =>
+			NativeGattPrinterModule.printImageData(imageUrl, imageWidth, jobId),
+		),
+
+	printQrCode: (qrCode: string, qrSize: number = 250): PrintJob =>
+		startJob((jobId) =>
+			NativeGattPrinterModule.printQrCode(qrCode, qrSize, jobId),
+		),
+
+	/** Prints every segment as one job that nothing else interleaves with (Android). */
+	printReceipt: (segments: ReceiptSegment[]): PrintJob =>
+		startJob((jobId) =>
+			NativeGattPrinterModule.printReceipt(receiptSegments(segments), jobId),
+		),
+
+	/**
+	 * Holds the printer for one job and prints each appended chunk right away,
+	 * so the paper moves while the rest is still being put together (Android).
+	 */
+	openSession: (options: SessionOptions = {}): Promise<PrintSession> =>
+		openSession(NativeGattPrinterModule, options),
+
+	/**
+	 * Stops an image or QR job between bands, a file between buffers, a text
+	 * or receipt job before it is sent or a session between chunks; false once
+	 * it finished.
+	 */
+	cancelJob: (jobId: string): boolean => NativeGattPrinterModule.cancelJob(jobId),
+
+	startStatusMonitor: (
+		mode: PrinterStatusMode = "poll",
+		intervalMs: number = 2000,
+	): Promise<void> => NativeGattPrinterModule.startStatusMonitor(mode, intervalMs),
+
+	stopStatusMonitor: (): void => NativeGattPrinterModule.stopStatusMonitor(),
+
+	getStatus: (): IPrinterStatus =>
+		NativeGattPrinterModule.getStatus() as IPrinterStatus,
+
+	setFlowControl: (options: FlowControlOptions): void =>
+		NativeGattPrinterModule.setFlowControl(options),
+
+	setTimeouts: (options: TimeoutOptions): void =>
+		NativeGattPrinterModule.setTimeouts(options),
+
+	getStats: (): Record<string, IPrinterStats> =>
+		NativeGattPrinterModule.getStats() as Record<string, IPrinterStats>,
+
+	registerProfiles: (
+		profiles: IPrinterProfile | IPrinterProfile[],
+	): Promise<IPrinterProfile[]> =>
+		NativeGattPrinterModule.registerProfiles(JSON.stringify(profiles)) as Promise<
+			IPrinterProfile[]
+		>,
+
+	setPrinterProfile: (printerId: string, profileId: string | null): boolean =>
+		NativeGattPrinterModule.setPrinterProfile(printerId, profileId ?? ""),
+
+	getPrinterProfile: (): IPrinterProfile =>
+		NativeGattPrinterModule.getPrinterProfile() as IPrinterProfile,
+
+	setJobEvents: (enabled: boolean): void =>
+		NativeGattPrinterModule.setJobEvents(enabled),
+
+	setLogLevel: (level: LogLevel): void =>
+		NativeGattPrinterModule.setLogLevel(level),
 };
 
 // ── Events ──────────────────────────────────────────────────────────────────
@@ -153,8 +964,46 @@ export const NetPrinterEventEmitter = new NativeEventEmitter(
 	NativeNetPrinterModule,
 );
 
+export const BLEPrinterEventEmitter = new NativeEventEmitter(
+	NativeBLEPrinterModule,
+);
+
+export const USBPrinterEventEmitter = new NativeEventEmitter(
+	NativeUSBPrinterModule,
+);
+
+export const GATTPrinterEventEmitter = new NativeEventEmitter(
+	NativeGattPrinterModule,
+);
+
 export enum RN_THERMAL_RECEIPT_PRINTER_EVENTS {
 	EVENT_NET_PRINTER_SCANNED_SUCCESS = "scannerResolved",
 	EVENT_NET_PRINTER_SCANNING = "scannerRunning",
 	EVENT_NET_PRINTER_SCANNED_ERROR = "registerError",
+	EVENT_PRINTER_STATE_CHANGED = "printerStateChanged",
+	EVENT_PRINTER_STATUS_CHANGED = "printerStatusChanged",
+	EVENT_PRINT_PROGRESS = "printProgress",
+	EVENT_PRINT_JOB_COMPLETED = "printJobCompleted",
+}
+
+export type PrinterConnectionState =
+	| "connected"
+	| "reconnecting"
+	| "disconnected"
+	| "circuit_open";
+
+export interface IPrintProgress {
+	uri: string;
+	bytes_sent: number;
+	/** -1 when the file size is unknown */
+	total_bytes: number;
+	/** 0..1, or -1 when the file size is unknown */
+	progress: number;
+}
+
+export interface IPrinterStateChange {
+	state: PrinterConnectionState;
+	device?: INetPrinter | IBLEPrinter;
+	attempt?: number;
+	delay_ms?: number;
 }
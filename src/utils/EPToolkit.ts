@@ -33,8 +33,23 @@ const beep_bytes = Buffer.from([27, 66, 3, 2]);
 const line_bytes = Buffer.from([10, 10, 10, 10, 10]);
 
 const encoding_mappings_bytes: { [key: string]: Buffer } = {
-	// single byte encodings
+	// single byte encodings, selected with ESC t n
 	CP437: Buffer.from([27, 116, 0]),
+	CP850: Buffer.from([27, 116, 2]),
+	CP860: Buffer.from([27, 116, 3]),
+	CP863: Buffer.from([27, 116, 4]),
+	CP865: Buffer.from([27, 116, 5]),
+	CP1252: Buffer.from([27, 116, 16]),
+	CP866: Buffer.from([27, 116, 17]),
+	CP852: Buffer.from([27, 116, 18]),
+	CP858: Buffer.from([27, 116, 19]),
+	CP1250: Buffer.from([27, 116, 45]),
+	CP1251: Buffer.from([27, 116, 46]),
+	CP1253: Buffer.from([27, 116, 47]),
+	CP1254: Buffer.from([27, 116, 48]),
+	CP1255: Buffer.from([27, 116, 49]),
+	CP1256: Buffer.from([27, 116, 50]),
+	CP1257: Buffer.from([27, 116, 51]),
 	// multiple bit encodings
 	GB18030: Buffer.from([28, 38, 28, 67, 0]),
 	BIG5: Buffer.from([28, 38, 28, 67, 1]),